@@ -13,11 +13,14 @@ import gov.cms.dpc.aggregation.engine.OperationsConfig;
 import gov.cms.dpc.aggregation.service.EveryoneGetsDataLookBackServiceImpl;
 import gov.cms.dpc.aggregation.service.LookBackService;
 import gov.cms.dpc.aggregation.service.LookBackServiceImpl;
+import gov.cms.dpc.aggregation.service.OptOutConfiguration;
+import gov.cms.dpc.aggregation.service.OptOutService;
 import gov.cms.dpc.common.annotations.ExportPath;
 import gov.cms.dpc.common.annotations.JobTimeout;
 import gov.cms.dpc.common.hibernate.attribution.DPCManagedSessionFactory;
 import gov.cms.dpc.fhir.hapi.ContextUtils;
 import gov.cms.dpc.queue.models.JobQueueBatch;
+import io.dropwizard.db.ManagedDataSource;
 import io.dropwizard.hibernate.UnitOfWorkAwareProxyFactory;
 
 import javax.inject.Singleton;
@@ -100,4 +103,13 @@ public class AggregationAppModule extends DropwizardAwareModule<DPCAggregationCo
                 new Class<?>[]{RosterDAO.class, OperationsConfig.class},
                 new Object[]{rosterDAO, operationsConfig});
     }
+
+    @Provides
+    @Singleton
+    OptOutService provideOptOutService(MetricRegistry metricRegistry) {
+        final OptOutConfiguration config = getConfiguration().getOptOut();
+        // Only connect to the consent database when the index is in use
+        final ManagedDataSource dataSource = config.isEnabled() ? getConfiguration().getConsentDatabase().build(metricRegistry, "consent-opt-out") : null;
+        return new OptOutService(config, dataSource, metricRegistry);
+    }
 }
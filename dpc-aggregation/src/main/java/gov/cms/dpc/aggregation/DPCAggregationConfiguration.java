@@ -3,8 +3,10 @@ package gov.cms.dpc.aggregation;
 import ca.mestevens.java.configuration.TypesafeConfiguration;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import gov.cms.dpc.aggregation.service.OptOutConfiguration;
 import gov.cms.dpc.bluebutton.config.BlueButtonBundleConfiguration;
 import gov.cms.dpc.common.hibernate.attribution.IDPCDatabase;
+import gov.cms.dpc.common.hibernate.consent.IDPCConsentDatabase;
 import gov.cms.dpc.common.hibernate.queue.IDPCQueueDatabase;
 import gov.cms.dpc.queue.DPCQueueConfig;
 import io.dropwizard.db.DataSourceFactory;
@@ -16,7 +18,7 @@ import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.util.Date;
 
-public class DPCAggregationConfiguration extends TypesafeConfiguration implements BlueButtonBundleConfiguration, IDPCDatabase, IDPCQueueDatabase, DPCQueueConfig {
+public class DPCAggregationConfiguration extends TypesafeConfiguration implements BlueButtonBundleConfiguration, IDPCDatabase, IDPCQueueDatabase, IDPCConsentDatabase, DPCQueueConfig {
 
     @Valid
     @NotNull
@@ -28,6 +30,11 @@ public class DPCAggregationConfiguration extends TypesafeConfiguration implement
     @JsonProperty("queuedb")
     private DataSourceFactory queueDatabase = new DataSourceFactory();
 
+    @Valid
+    @NotNull
+    @JsonProperty("consentdb")
+    private DataSourceFactory consentDatabase = new DataSourceFactory();
+
     @Valid
     @NotNull
     @JsonProperty("bbclient")
@@ -60,6 +67,10 @@ public class DPCAggregationConfiguration extends TypesafeConfiguration implement
     @NotNull
     private Date lookBackDate = new Date();
 
+    @Valid
+    @NotNull
+    private OptOutConfiguration optOut = new OptOutConfiguration();
+
     @Override
     public DataSourceFactory getDatabase() {
         return this.database;
@@ -70,6 +81,11 @@ public class DPCAggregationConfiguration extends TypesafeConfiguration implement
         return queueDatabase;
     }
 
+    @Override
+    public DataSourceFactory getConsentDatabase() {
+        return consentDatabase;
+    }
+
     public String getExportPath() {
         return exportPath;
     }
@@ -112,5 +128,9 @@ public class DPCAggregationConfiguration extends TypesafeConfiguration implement
         return lookBackDate;
     }
 
+    public OptOutConfiguration getOptOut() {
+        return optOut;
+    }
+
 
 }
@@ -178,7 +178,8 @@ public class AggregationEngine implements Runnable {
     }
 
     private Optional<String> processPatient(JobQueueBatch job, String patientId) {
-        if (isValidLookBack(job, patientId)) {
+        // Check the opt-out index first, since it doesn't need to call BlueButton
+        if (!jobBatchProcessor.isOptedOut(job, patientId) && isValidLookBack(job, patientId)) {
             jobBatchProcessor.processJobBatchPartial(aggregatorID, queue, job, patientId);
         }
         // Stop processing when no patients or early shutdown
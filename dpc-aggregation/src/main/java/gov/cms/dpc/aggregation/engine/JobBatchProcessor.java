@@ -3,7 +3,9 @@ package gov.cms.dpc.aggregation.engine;
 import ca.uhn.fhir.context.FhirContext;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
-import gov.cms.dpc.bluebutton.client.BlueButtonClient;
+import gov.cms.dpc.aggregation.service.OptOutService;
+import gov.cms.dpc.bluebutton.cache.BlueButtonResponseCache;
+import gov.cms.dpc.bluebutton.client.BlueButtonAsyncClient;
 import gov.cms.dpc.common.utils.MetricMaker;
 import gov.cms.dpc.queue.IJobQueue;
 import gov.cms.dpc.queue.models.JobQueueBatch;
@@ -13,6 +15,8 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.hl7.fhir.dstu3.model.Resource;
 import org.hl7.fhir.dstu3.model.ResourceType;
 import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.time.OffsetDateTime;
@@ -22,15 +26,22 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class JobBatchProcessor {
 
-    private final BlueButtonClient bbclient;
+    private static final Logger logger = LoggerFactory.getLogger(JobBatchProcessor.class);
+
+    private final BlueButtonAsyncClient bbclient;
+    private final BlueButtonResponseCache responseCache;
+    private final OptOutService optOutService;
     private final OperationsConfig operationsConfig;
     private final FhirContext fhirContext;
     private final Meter resourceMeter;
     private final Meter operationalOutcomeMeter;
+    private final Meter optedOutMeter;
 
     @Inject
-    public JobBatchProcessor(BlueButtonClient bbclient, FhirContext fhirContext, MetricRegistry metricRegistry, OperationsConfig operationsConfig) {
+    public JobBatchProcessor(BlueButtonAsyncClient bbclient, BlueButtonResponseCache responseCache, OptOutService optOutService, FhirContext fhirContext, MetricRegistry metricRegistry, OperationsConfig operationsConfig) {
         this.bbclient = bbclient;
+        this.responseCache = responseCache;
+        this.optOutService = optOutService;
         this.fhirContext = fhirContext;
         this.operationsConfig = operationsConfig;
 
@@ -38,6 +49,23 @@ public class JobBatchProcessor {
         final var metricFactory = new MetricMaker(metricRegistry, JobBatchProcessor.class);
         resourceMeter = metricFactory.registerMeter("resourceFetched");
         operationalOutcomeMeter = metricFactory.registerMeter("operationalOutcomes");
+        optedOutMeter = metricFactory.registerMeter("optedOut");
+    }
+
+    /**
+     * Determines if the patient has opted out of data sharing, in which case none of their data should be requested or exported
+     *
+     * @param job       the job being processed
+     * @param patientID the current patient id to process
+     * @return {@code true} if the patient should be skipped
+     */
+    public boolean isOptedOut(JobQueueBatch job, String patientID) {
+        if (optOutService.isOptedOut(patientID)) {
+            logger.debug("Skipping beneficiary who has opted out, in job {} batch {}", job.getJobID(), job.getBatchID());
+            optedOutMeter.mark();
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -71,6 +99,7 @@ public class JobBatchProcessor {
     public Pair<Flowable<List<Resource>>, ResourceType> fetchResource(JobQueueBatch job, String patientID, ResourceType resourceType, OffsetDateTime since) {
         // Make this flow hot (ie. only called once) when multiple subscribers attach
         final var fetcher = new ResourceFetcher(bbclient,
+                responseCache,
                 job.getJobID(),
                 job.getBatchID(),
                 resourceType,
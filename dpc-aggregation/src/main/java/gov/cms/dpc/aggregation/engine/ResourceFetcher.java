@@ -4,10 +4,12 @@ import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
-import gov.cms.dpc.bluebutton.client.BlueButtonClient;
+import gov.cms.dpc.bluebutton.cache.BlueButtonResponseCache;
+import gov.cms.dpc.bluebutton.client.BlueButtonAsyncClient;
 import gov.cms.dpc.fhir.DPCIdentifierSystem;
 import gov.cms.dpc.queue.exceptions.JobQueueFailure;
 import io.reactivex.Flowable;
+import io.reactivex.Single;
 import org.hl7.fhir.dstu3.model.*;
 import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
@@ -20,13 +22,19 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
- * A resource fetcher will fetch resources of particular type from passed {@link BlueButtonClient}
+ * A resource fetcher will fetch resources of particular type from passed {@link BlueButtonAsyncClient}
+ * <p>
+ * Requests are chained together as {@link CompletableFuture}s, so no thread is held while waiting on BlueButton,
+ * which allows many fetches to be in flight at once.
  */
 class ResourceFetcher {
     private static final Logger logger = LoggerFactory.getLogger(ResourceFetcher.class);
-    private BlueButtonClient blueButtonClient;
+    private BlueButtonAsyncClient blueButtonClient;
+    private BlueButtonResponseCache responseCache;
     private UUID jobID;
     private UUID batchID;
     private ResourceType resourceType;
@@ -36,19 +44,22 @@ class ResourceFetcher {
     /**
      * Create a context for fetching FHIR resources
      * @param blueButtonClient - client to BlueButton to use
+     * @param responseCache - cache of previously fetched resources
      * @param jobID - the jobID for logging and reporting
      * @param batchID - the batchID for logging and reporting
      * @param resourceType - the resource type to fetch
      * @param since - the since parameter for the job
      * @param transactionTime - the start time of this job
      */
-    ResourceFetcher(BlueButtonClient blueButtonClient,
+    ResourceFetcher(BlueButtonAsyncClient blueButtonClient,
+                    BlueButtonResponseCache responseCache,
                     UUID jobID,
                     UUID batchID,
                     ResourceType resourceType,
                     OffsetDateTime since,
                     OffsetDateTime transactionTime) {
         this.blueButtonClient = blueButtonClient;
+        this.responseCache = responseCache;
         this.jobID = jobID;
         this.batchID = batchID;
         this.resourceType = resourceType;
@@ -64,15 +75,59 @@ class ResourceFetcher {
      * @return a flow with all the resources for specific patient
      */
     Flowable<List<Resource>> fetchResources(String mbi) {
-        return Flowable.fromCallable(() -> {
+        return Flowable.defer(() -> {
             String fetchId = UUID.randomUUID().toString();
-            logger.debug("Fetching first {} from BlueButton for {}", resourceType.toString(), fetchId);
-            final Bundle firstFetched = fetchFirst(mbi);
-            return fetchAllBundles(firstFetched, fetchId);
+            final CompletableFuture<List<Resource>> resources = fetchPatient(mbi)
+                    .thenCompose(patient -> fetchAll(getBeneIdFromPatient(patient), fetchId));
+            return fromFuture(resources).toFlowable();
         })
                 .onErrorResumeNext((Throwable error) -> handleError(mbi, error));
     }
 
+    /**
+     * Fetch all the resources for the beneficiary, re-using the resources from the {@link BlueButtonResponseCache} if none of them have changed.
+     *
+     * @param beneId - the beneficiary to fetch resources for
+     * @return a future with all the resources for the beneficiary
+     */
+    private CompletableFuture<List<Resource>> fetchAll(String beneId, String fetchId) {
+        return responseCache.getIfUnchanged(beneId, resourceType, since, transactionTime, changes -> fetchFirst(beneId, changes)
+                .thenApply(bundle -> {
+                    checkBundleTransactionTime(bundle);
+                    return bundle;
+                }))
+                .thenCompose(cached -> {
+                    if (cached.isPresent()) {
+                        logger.debug("Using cached {} for {}", resourceType.toString(), fetchId);
+                        return CompletableFuture.completedFuture(cached.get());
+                    }
+                    logger.debug("Fetching first {} from BlueButton for {}", resourceType.toString(), fetchId);
+                    return fetchFirst(beneId, formLastUpdatedParam())
+                            .thenCompose(firstFetched -> fetchAllBundles(firstFetched, fetchId))
+                            .thenApply(resources -> {
+                                responseCache.put(beneId, resourceType, since, transactionTime, resources);
+                                return resources;
+                            });
+                });
+    }
+
+    /**
+     * Adapt the given future to a {@link Single}, which signals the error that caused the future to fail, rather than a wrapping {@link CompletionException}.
+     *
+     * @param future - the future to adapt
+     * @param <T>    - the type of the future's result
+     * @return a {@link Single} which completes with the future
+     */
+    private static <T> Single<T> fromFuture(CompletableFuture<T> future) {
+        return Single.create(emitter -> future.whenComplete((result, error) -> {
+            if (error == null) {
+                emitter.onSuccess(result);
+            } else {
+                emitter.onError(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        }));
+    }
+
     /**
      * Given a bundle, return a list of resources in the passed in bundle and all
      * the resources from the next bundles.
@@ -80,22 +135,33 @@ class ResourceFetcher {
      * @param firstBundle of resources. Included in the result list
      * @return a list of all the resources in the first bundle and all next bundles
      */
-    private List<Resource> fetchAllBundles(Bundle firstBundle, String fetchId) {
+    private CompletableFuture<List<Resource>> fetchAllBundles(Bundle firstBundle, String fetchId) {
         final var resources = new ArrayList<Resource>();
-        checkBundleTransactionTime(firstBundle);
-        addResources(resources, firstBundle);
-
-        // Loop until no more next bundles
-        var bundle = firstBundle;
-        while (bundle.getLink(Bundle.LINK_NEXT) != null) {
-            logger.debug("Fetching next bundle {} from BlueButton for {}", resourceType.toString(), fetchId);
-            bundle = blueButtonClient.requestNextBundleFromServer(bundle);
-            checkBundleTransactionTime(bundle);
-            addResources(resources, bundle);
-        }
+        return fetchRemainingBundles(resources, firstBundle, fetchId)
+                .thenApply(done -> {
+                    logger.debug("Done fetching bundles {} for {}", resourceType.toString(), fetchId);
+                    return resources;
+                });
+    }
+
+    /**
+     * Add the resources of the given bundle, then fetch the next bundles until there are no more.
+     * Only one bundle is requested at a time, so the resources are added in order.
+     *
+     * @param resources - the list to add resources to
+     * @param bundle    - the most recently fetched bundle
+     * @return a future which completes once all the bundles have been added
+     */
+    private CompletableFuture<Void> fetchRemainingBundles(ArrayList<Resource> resources, Bundle bundle, String fetchId) {
+        checkBundleTransactionTime(bundle);
+        addResources(resources, bundle);
 
-        logger.debug("Done fetching bundles {} for {}", resourceType.toString(), fetchId);
-        return resources;
+        if (bundle.getLink(Bundle.LINK_NEXT) == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        logger.debug("Fetching next bundle {} from BlueButton for {}", resourceType.toString(), fetchId);
+        return blueButtonClient.requestNextBundleFromServer(bundle)
+                .thenCompose(next -> fetchRemainingBundles(resources, next, fetchId));
     }
 
     /**
@@ -119,13 +185,11 @@ class ResourceFetcher {
     /**
      * Based on resourceType, fetch a resource or a bundle of resources.
      *
-     * @param mbi of the resource to fetch
+     * @param beneId      of the resource to fetch
+     * @param lastUpdated range of the resources to fetch
      * @return the first bundle of resources
      */
-    private Bundle fetchFirst(String mbi) {
-        Patient patient = fetchPatient(mbi);
-        var beneId = getBeneIdFromPatient(patient);
-        final var lastUpdated = formLastUpdatedParam();
+    private CompletableFuture<Bundle> fetchFirst(String beneId, DateRangeParam lastUpdated) {
         switch (resourceType) {
             case Patient:
                 return blueButtonClient.requestPatientFromServer(beneId, lastUpdated);
@@ -138,21 +202,24 @@ class ResourceFetcher {
         }
     }
 
-    private Patient fetchPatient(String mbi) {
-        Bundle patients;
-        try {
-            patients = blueButtonClient.requestPatientFromServerByMbi(mbi);
-        } catch (GeneralSecurityException e) {
-            logger.error("Job {}, batch {}: Failed to retrieve Patient", jobID, batchID, e);
-            throw new ResourceNotFoundException("Failed to retrieve Patient");
-        }
+    private CompletableFuture<Patient> fetchPatient(String mbi) {
+        return blueButtonClient.requestPatientFromServerByMbi(mbi)
+                .handle((patients, error) -> {
+                    final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof GeneralSecurityException) {
+                        logger.error("Job {}, batch {}: Failed to retrieve Patient", jobID, batchID, cause);
+                        throw new ResourceNotFoundException("Failed to retrieve Patient");
+                    } else if (cause != null) {
+                        throw new CompletionException(cause);
+                    }
 
-        if (patients.getTotal() == 1) {
-            return (Patient) patients.getEntryFirstRep().getResource();
-        }
+                    if (patients.getTotal() == 1) {
+                        return (Patient) patients.getEntryFirstRep().getResource();
+                    }
 
-        logger.error("Job {}, batch {}: Expected 1 Patient to match MBI but found {}", jobID, batchID, patients.getTotal());
-        throw new ResourceNotFoundException(String.format("Expected 1 Patient to match MBI but found %d", patients.getTotal()));
+                    logger.error("Job {}, batch {}: Expected 1 Patient to match MBI but found {}", jobID, batchID, patients.getTotal());
+                    throw new ResourceNotFoundException(String.format("Expected 1 Patient to match MBI but found %d", patients.getTotal()));
+                });
     }
 
     private String getBeneIdFromPatient(Patient patient) {
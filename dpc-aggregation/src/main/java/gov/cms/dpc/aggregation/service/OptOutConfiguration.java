@@ -0,0 +1,49 @@
+package gov.cms.dpc.aggregation.service;
+
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration for the {@link OptOutService}, which skips the beneficiaries who have opted out of data sharing.
+ */
+public class OptOutConfiguration {
+
+    private boolean enabled = false;
+
+    // How often to load the consent records which have changed
+    @NotNull
+    private Duration refreshInterval = Duration.minutes(5);
+
+    // How often to rebuild the whole index, which picks up consent records as they become effective
+    @NotNull
+    private Duration fullRefreshInterval = Duration.hours(24);
+
+    public OptOutConfiguration() {
+        // Jackson required
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public Duration getFullRefreshInterval() {
+        return fullRefreshInterval;
+    }
+
+    public void setFullRefreshInterval(Duration fullRefreshInterval) {
+        this.fullRefreshInterval = fullRefreshInterval;
+    }
+}
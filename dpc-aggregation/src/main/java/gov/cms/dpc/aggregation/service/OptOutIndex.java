@@ -0,0 +1,154 @@
+package gov.cms.dpc.aggregation.service;
+
+/**
+ * Immutable set of the MBIs of the beneficiaries who have opted out of data sharing.
+ * <p>
+ * Each MBI is encoded into a single long (11 alphanumeric characters fit into base 36), and stored in an open addressing hash table, which is at most half full.
+ * This keeps the index at around 16 bytes per beneficiary, and lookups don't allocate.
+ * Changes are applied by building a new index, via {@link #withChanges(OptOutIndex, OptOutIndex)}, so the index can be read without any locking.
+ */
+public class OptOutIndex {
+
+    static final int MBI_LENGTH = 11;
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 16;
+    private static final OptOutIndex EMPTY_INDEX = new OptOutIndex(new long[0], 0);
+
+    private final long[] table;
+    private final int size;
+
+    private OptOutIndex(long[] table, int size) {
+        this.table = table;
+        this.size = size;
+    }
+
+    public static OptOutIndex empty() {
+        return EMPTY_INDEX;
+    }
+
+    /**
+     * Build an index from the given encoded MBIs
+     *
+     * @param encoded - MBIs encoded by {@link #encode(String)}, invalid (negative) values are ignored
+     * @param count   - number of values to read from the array
+     * @return - {@link OptOutIndex} containing the MBIs
+     */
+    public static OptOutIndex of(long[] encoded, int count) {
+        final long[] table = new long[capacityFor(count)];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (encoded[i] > 0 && insert(table, encoded[i])) {
+                size++;
+            }
+        }
+        return new OptOutIndex(table, size);
+    }
+
+    /**
+     * Build a new index, from this one, with the given MBIs added and removed
+     *
+     * @param additions - {@link OptOutIndex} of MBIs which have opted out
+     * @param removals  - {@link OptOutIndex} of MBIs which are no longer opted out
+     * @return - new {@link OptOutIndex}
+     */
+    public OptOutIndex withChanges(OptOutIndex additions, OptOutIndex removals) {
+        if (additions.size == 0 && removals.size == 0) {
+            return this;
+        }
+        final long[] newTable = new long[capacityFor(this.size + additions.size)];
+        int newSize = 0;
+        for (final long value : this.table) {
+            if (value != EMPTY && !removals.containsEncoded(value) && insert(newTable, value)) {
+                newSize++;
+            }
+        }
+        for (final long value : additions.table) {
+            if (value != EMPTY && insert(newTable, value)) {
+                newSize++;
+            }
+        }
+        return new OptOutIndex(newTable, newSize);
+    }
+
+    /**
+     * Determine if the given MBI is in the index
+     *
+     * @param mbi - {@link String} MBI, case insensitive
+     * @return - {@code true} if the MBI is in the index. {@code false} if it's not, or it's not a valid MBI
+     */
+    public boolean contains(String mbi) {
+        final long value = encode(mbi);
+        return value > 0 && containsEncoded(value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Encode the MBI as a long, which is always greater than zero
+     *
+     * @param mbi - {@link String} MBI, case insensitive
+     * @return - encoded MBI, or -1 if the MBI is not 11 alphanumeric characters
+     */
+    public static long encode(String mbi) {
+        if (mbi == null || mbi.length() != MBI_LENGTH) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < MBI_LENGTH; i++) {
+            final int digit = Character.digit(mbi.charAt(i), Character.MAX_RADIX);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * Character.MAX_RADIX + digit;
+        }
+        // Offset by one, so that zero can mark the empty slots of the table
+        return value + 1;
+    }
+
+    private boolean containsEncoded(long value) {
+        if (size == 0) {
+            return false;
+        }
+        final int mask = table.length - 1;
+        for (int slot = slot(value, mask); ; slot = (slot + 1) & mask) {
+            final long current = table[slot];
+            if (current == value) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    private static boolean insert(long[] table, long value) {
+        final int mask = table.length - 1;
+        for (int slot = slot(value, mask); ; slot = (slot + 1) & mask) {
+            final long current = table[slot];
+            if (current == value) {
+                return false;
+            }
+            if (current == EMPTY) {
+                table[slot] = value;
+                return true;
+            }
+        }
+    }
+
+    private static int slot(long value, int mask) {
+        // Fibonacci hashing, spreads the sequential MBI encodings across the table
+        final long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // Power of two, at least twice the number of entries
+    private static int capacityFor(int count) {
+        final int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, count * 2 - 1)) << 1;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(String.format("Cannot index %d MBIs", count));
+        }
+        return capacity;
+    }
+}
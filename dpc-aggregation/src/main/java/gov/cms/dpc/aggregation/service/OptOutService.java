@@ -0,0 +1,203 @@
+package gov.cms.dpc.aggregation.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import gov.cms.dpc.common.consent.entities.ConsentEntity;
+import gov.cms.dpc.common.utils.MetricMaker;
+import io.dropwizard.db.ManagedDataSource;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines whether a beneficiary has opted out of data sharing, without making any remote calls, so that the aggregation engine can skip them before requesting anything from BlueButton.
+ * <p>
+ * The MBIs of the beneficiaries who have opted out are held in an {@link OptOutIndex}, which is loaded from the consent database on startup.
+ * Every {@link OptOutConfiguration#getRefreshInterval()}, the consent records updated since the previous refresh are applied to the index,
+ * and the whole index is rebuilt every {@link OptOutConfiguration#getFullRefreshInterval()}, which picks up the records which have since become effective.
+ * <p>
+ * A beneficiary's most recent effective consent record determines whether they've opted out.
+ * Records without an MBI (e.g. those imported from the 1-800 suppression files, before their MBI has been resolved) cannot be applied.
+ */
+public class OptOutService implements Managed {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptOutService.class);
+
+    // Latest effective record for each MBI
+    private static final String LATEST_EFFECTIVE = "SELECT DISTINCT ON (mbi) mbi, policy_code FROM consent " +
+            "WHERE %s AND effective_date <= CURRENT_DATE ORDER BY mbi, effective_date DESC, updated_at DESC";
+    private static final String SELECT_ALL = String.format(LATEST_EFFECTIVE, "mbi IS NOT NULL");
+    private static final String SELECT_CHANGED = String.format(LATEST_EFFECTIVE, "mbi IN (SELECT mbi FROM consent WHERE updated_at > ?)");
+    private static final String SELECT_WATERMARK = "SELECT MAX(updated_at) FROM consent";
+    // Changes are re-read for this long after the previous refresh, to pick up transactions which committed after it ran
+    private static final long OVERLAP_SECONDS = 60;
+    private static final int FETCH_SIZE = 10_000;
+
+    private final OptOutConfiguration config;
+    private final ManagedDataSource dataSource;
+    private final ScheduledExecutorService refreshExecutor;
+    private final Timer refreshTimer;
+    private volatile OptOutIndex index = OptOutIndex.empty();
+    // Only accessed from the refresh thread, after startup
+    private OffsetDateTime watermark;
+    private long lastFullRefresh;
+
+    /**
+     * Create a service
+     *
+     * @param config         - {@link OptOutConfiguration} for the service
+     * @param dataSource     - {@link ManagedDataSource} for the consent database, may be {@code null} when the service is disabled
+     * @param metricRegistry - {@link MetricRegistry} for the index metrics
+     */
+    public OptOutService(OptOutConfiguration config, ManagedDataSource dataSource, MetricRegistry metricRegistry) {
+        this.config = config;
+        this.dataSource = dataSource;
+        this.refreshExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "opt-out-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final MetricMaker metricMaker = new MetricMaker(metricRegistry, OptOutService.class);
+        this.refreshTimer = metricMaker.registerTimer("refresh");
+        metricMaker.registerCachedGauge("optedOut", () -> this.index.size());
+    }
+
+    /**
+     * Determine if the beneficiary has opted out of data sharing
+     *
+     * @param mbi - {@link String} MBI of the beneficiary
+     * @return - {@code true} if the beneficiary has opted out
+     */
+    public boolean isOptedOut(String mbi) {
+        return this.index.contains(mbi);
+    }
+
+    @Override
+    public void start() throws SQLException {
+        if (!this.config.isEnabled()) {
+            logger.info("Opt-out index is disabled");
+            return;
+        }
+        // Fail on startup, rather than exporting data for beneficiaries who have opted out
+        fullRefresh();
+        final long interval = this.config.getRefreshInterval().toMilliseconds();
+        this.refreshExecutor.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        this.refreshExecutor.shutdownNow();
+        if (this.dataSource != null) {
+            this.dataSource.stop();
+        }
+    }
+
+    void refresh() {
+        try {
+            if (this.watermark == null || System.nanoTime() - this.lastFullRefresh >= this.config.getFullRefreshInterval().toNanoseconds()) {
+                fullRefresh();
+            } else {
+                deltaRefresh();
+            }
+        } catch (Exception e) {
+            // Don't let the exception escape, otherwise the executor will stop scheduling the refresh
+            logger.error("Cannot refresh opt-out index", e);
+        }
+    }
+
+    void fullRefresh() throws SQLException {
+        try (final Timer.Context ignored = this.refreshTimer.time();
+             final Connection connection = this.dataSource.getConnection()) {
+            final OffsetDateTime newWatermark = selectWatermark(connection);
+            final MbiBuffer optedOut = new MbiBuffer();
+            readLatest(connection, SELECT_ALL, null, optedOut, new MbiBuffer());
+
+            this.index = optedOut.toIndex();
+            this.watermark = newWatermark;
+            this.lastFullRefresh = System.nanoTime();
+            logger.info("Loaded opt-out index with {} beneficiaries", this.index.size());
+        }
+    }
+
+    void deltaRefresh() throws SQLException {
+        try (final Timer.Context ignored = this.refreshTimer.time();
+             final Connection connection = this.dataSource.getConnection()) {
+            final OffsetDateTime newWatermark = selectWatermark(connection);
+            if (newWatermark == null || newWatermark.equals(this.watermark)) {
+                return;
+            }
+            final MbiBuffer optedOut = new MbiBuffer();
+            final MbiBuffer optedIn = new MbiBuffer();
+            readLatest(connection, SELECT_CHANGED, this.watermark.minusSeconds(OVERLAP_SECONDS), optedOut, optedIn);
+
+            this.index = this.index.withChanges(optedOut.toIndex(), optedIn.toIndex());
+            this.watermark = newWatermark;
+            logger.debug("Applied {} opt-outs and {} opt-ins to opt-out index", optedOut.size, optedIn.size);
+        }
+    }
+
+    private static OffsetDateTime selectWatermark(Connection connection) throws SQLException {
+        try (final PreparedStatement statement = connection.prepareStatement(SELECT_WATERMARK);
+             final ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? rs.getObject(1, OffsetDateTime.class) : null;
+        }
+    }
+
+    private static void readLatest(Connection connection, String query, OffsetDateTime since, MbiBuffer optedOut, MbiBuffer optedIn) throws SQLException {
+        // Postgres only streams the results (rather than loading them all into memory) within a transaction
+        final boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (final PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setFetchSize(FETCH_SIZE);
+            if (since != null) {
+                statement.setObject(1, since);
+            }
+            try (final ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    final long mbi = OptOutIndex.encode(rs.getString(1));
+                    if (mbi < 0) {
+                        continue;
+                    }
+                    if (ConsentEntity.OPT_OUT.equals(rs.getString(2))) {
+                        optedOut.add(mbi);
+                    } else {
+                        optedIn.add(mbi);
+                    }
+                }
+            }
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Growable buffer of encoded MBIs, which avoids boxing each of them
+     */
+    private static class MbiBuffer {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        OptOutIndex toIndex() {
+            return size == 0 ? OptOutIndex.empty() : OptOutIndex.of(values, size);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package gov.cms.dpc.aggregation;
+
+import ca.uhn.fhir.context.FhirContext;
+import com.codahale.metrics.MetricRegistry;
+import gov.cms.dpc.aggregation.engine.JobBatchProcessor;
+import gov.cms.dpc.aggregation.engine.OperationsConfig;
+import gov.cms.dpc.aggregation.service.OptOutService;
+import gov.cms.dpc.bluebutton.cache.BlueButtonResponseCache;
+import gov.cms.dpc.bluebutton.client.BlueButtonAsyncClient;
+import gov.cms.dpc.bluebutton.client.BlueButtonClient;
+import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import org.mockito.Mockito;
+
+public class AggregationTestHelpers {
+
+    private AggregationTestHelpers() {
+        // Not used
+    }
+
+    /**
+     * Create a {@link JobBatchProcessor} which calls the blocking {@link BlueButtonClient} on the calling thread, with a disabled response cache and no beneficiaries opted out
+     */
+    public static JobBatchProcessor createJobBatchProcessor(BlueButtonClient bbclient, FhirContext fhirContext, MetricRegistry metricRegistry, OperationsConfig operationsConfig) {
+        return createJobBatchProcessor(bbclient, Mockito.mock(OptOutService.class), fhirContext, metricRegistry, operationsConfig);
+    }
+
+    /**
+     * Create a {@link JobBatchProcessor} which calls the blocking {@link BlueButtonClient} on the calling thread, with a disabled response cache and the given {@link OptOutService}
+     */
+    public static JobBatchProcessor createJobBatchProcessor(BlueButtonClient bbclient, OptOutService optOutService, FhirContext fhirContext, MetricRegistry metricRegistry, OperationsConfig operationsConfig) {
+        return new JobBatchProcessor(BlueButtonAsyncClient.fromBlocking(bbclient, Runnable::run),
+                new BlueButtonResponseCache(new BBClientConfiguration.ResponseCacheConfiguration(), fhirContext, metricRegistry),
+                optOutService,
+                fhirContext,
+                metricRegistry,
+                operationsConfig);
+    }
+}
@@ -4,7 +4,9 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.PerformanceOptionsEnum;
 import com.codahale.metrics.MetricRegistry;
 import com.typesafe.config.ConfigFactory;
+import gov.cms.dpc.aggregation.AggregationTestHelpers;
 import gov.cms.dpc.aggregation.service.LookBackService;
+import gov.cms.dpc.aggregation.service.OptOutService;
 import gov.cms.dpc.aggregation.util.AggregationUtils;
 import gov.cms.dpc.bluebutton.client.MockBlueButtonClient;
 import gov.cms.dpc.fhir.hapi.ContextUtils;
@@ -25,6 +27,7 @@ import org.mockito.Mockito;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Collections;
@@ -66,7 +69,7 @@ class BatchAggregationEngineTest {
         queue = new MemoryBatchQueue(100);
         final var bbclient = Mockito.spy(new MockBlueButtonClient(fhirContext));
         lookBackService = Mockito.spy(LookBackService.class);
-        jobBatchProcessor = Mockito.spy(new JobBatchProcessor(bbclient, fhirContext, metricRegistry, operationsConfig));
+        jobBatchProcessor = Mockito.spy(AggregationTestHelpers.createJobBatchProcessor(bbclient, fhirContext, metricRegistry, operationsConfig));
         engine = Mockito.spy(new AggregationEngine(aggregatorID, queue, operationsConfig, lookBackService, jobBatchProcessor));
         engine.queueRunning.set(true);
         subscribe = Mockito.mock(Disposable.class);
@@ -190,4 +193,43 @@ class BatchAggregationEngineTest {
         final var errorFilePath = ResourceWriter.formOutputFilePath(exportPath, completeJob.getBatchID(), ResourceType.OperationOutcome, 0);
         assertFalse(Files.exists(Path.of(errorFilePath)), "expect no error file");
     }
+
+    /**
+     * Test that beneficiaries who have opted out are skipped, without requesting any of their data from BlueButton.
+     */
+    @Test
+    void optedOutPatientTest() throws GeneralSecurityException {
+        Mockito.doReturn(UUID.randomUUID()).when(lookBackService).getProviderIDFromRoster(Mockito.any(), Mockito.anyString(), Mockito.anyString());
+        Mockito.doReturn(true).when(lookBackService).hasClaimWithin(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong());
+
+        final var optedOutMbi = MockBlueButtonClient.TEST_PATIENT_MBIS.get(0);
+        final var optOutService = Mockito.mock(OptOutService.class);
+        doReturn(true).when(optOutService).isOptedOut(optedOutMbi);
+        final var bbclient = Mockito.spy(new MockBlueButtonClient(fhirContext));
+        final var processor = AggregationTestHelpers.createJobBatchProcessor(bbclient, optOutService, fhirContext, metricRegistry, operationsConfig);
+        final var optOutEngine = new AggregationEngine(aggregatorID, queue, operationsConfig, lookBackService, processor);
+        optOutEngine.queueRunning.set(true);
+        optOutEngine.setSubscribe(subscribe);
+
+        final var jobID = queue.createJob(
+                UUID.randomUUID(),
+                TEST_PROVIDER_ID,
+                MockBlueButtonClient.TEST_PATIENT_MBIS,
+                Collections.singletonList(ResourceType.Patient),
+                null,
+                MockBlueButtonClient.BFD_TRANSACTION_TIME
+        );
+
+        // Do the job
+        queue.claimBatch(optOutEngine.getAggregatorID())
+                .ifPresent(optOutEngine::processJobBatch);
+
+        // Look at the result
+        final var completeJob = queue.getJobBatches(jobID).stream().findFirst().orElseThrow();
+        assertEquals(JobStatus.COMPLETED, completeJob.getStatus());
+        final var patientFile = completeJob.getJobQueueFile(ResourceType.Patient).orElseThrow();
+        assertEquals(1, patientFile.getCount(), "Should only export the patient who hasn't opted out");
+        Mockito.verify(bbclient, Mockito.never()).requestPatientFromServerByMbi(optedOutMbi);
+        Mockito.verify(bbclient, Mockito.atLeastOnce()).requestPatientFromServerByMbi(MockBlueButtonClient.TEST_PATIENT_MBIS.get(1));
+    }
 }
@@ -0,0 +1,80 @@
+package gov.cms.dpc.aggregation.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptOutIndexTest {
+
+    @Test
+    public void testEncoding() {
+        assertAll(() -> assertEquals(1, OptOutIndex.encode("00000000000"), "Should never encode to zero"),
+                () -> assertEquals(OptOutIndex.encode("2SW4N00AA00"), OptOutIndex.encode("2sw4n00aa00"), "Should be case insensitive"),
+                () -> assertTrue(OptOutIndex.encode("ZZZZZZZZZZZ") > 0, "Should fit into a long"),
+                () -> assertEquals(-1, OptOutIndex.encode("2SW4N00AA0"), "Should reject short MBIs"),
+                () -> assertEquals(-1, OptOutIndex.encode("2SW4N-0AA00"), "Should reject non-alphanumeric MBIs"),
+                () -> assertEquals(-1, OptOutIndex.encode(null), "Should reject null MBIs"));
+    }
+
+    @Test
+    public void testContains() {
+        final OptOutIndex index = indexOf("2SW4N00AA00", "4SP0P00AA00", "4SP0P00AA00", "not-an-mbi");
+
+        assertAll(() -> assertEquals(2, index.size(), "Should ignore duplicates and invalid MBIs"),
+                () -> assertTrue(index.contains("2SW4N00AA00")),
+                () -> assertTrue(index.contains("4sp0p00aa00")),
+                () -> assertFalse(index.contains("1SQ3F00AA00")),
+                () -> assertFalse(index.contains("not-an-mbi")),
+                () -> assertFalse(OptOutIndex.empty().contains("2SW4N00AA00")));
+    }
+
+    @Test
+    public void testWithChanges() {
+        final OptOutIndex index = indexOf("2SW4N00AA00", "4SP0P00AA00");
+        final OptOutIndex changed = index.withChanges(indexOf("1SQ3F00AA00"), indexOf("2SW4N00AA00", "3S58A00AA00"));
+
+        assertAll(() -> assertEquals(2, changed.size()),
+                () -> assertFalse(changed.contains("2SW4N00AA00"), "Should remove opted in MBI"),
+                () -> assertTrue(changed.contains("4SP0P00AA00"), "Should keep unchanged MBI"),
+                () -> assertTrue(changed.contains("1SQ3F00AA00"), "Should add opted out MBI"),
+                () -> assertTrue(index.contains("2SW4N00AA00"), "Original index should not change"),
+                () -> assertSame(index, index.withChanges(OptOutIndex.empty(), OptOutIndex.empty()), "Should reuse index without changes"));
+    }
+
+    @Test
+    public void testManyMBIs() {
+        final Random random = new Random(42);
+        final Set<String> mbis = new HashSet<>();
+        while (mbis.size() < 100_000) {
+            mbis.add(randomMbi(random));
+        }
+        final OptOutIndex index = indexOf(mbis.toArray(new String[0]));
+
+        assertEquals(mbis.size(), index.size());
+        mbis.forEach(mbi -> assertTrue(index.contains(mbi), "Should contain " + mbi));
+        for (int i = 0; i < 100_000; i++) {
+            final String mbi = randomMbi(random);
+            assertEquals(mbis.contains(mbi), index.contains(mbi), "Should only contain indexed MBIs");
+        }
+    }
+
+    private static OptOutIndex indexOf(String... mbis) {
+        final long[] encoded = new long[mbis.length];
+        for (int i = 0; i < mbis.length; i++) {
+            encoded[i] = OptOutIndex.encode(mbis[i]);
+        }
+        return OptOutIndex.of(encoded, encoded.length);
+    }
+
+    private static String randomMbi(Random random) {
+        final StringBuilder mbi = new StringBuilder(OptOutIndex.MBI_LENGTH);
+        for (int i = 0; i < OptOutIndex.MBI_LENGTH; i++) {
+            mbi.append(Character.forDigit(random.nextInt(Character.MAX_RADIX), Character.MAX_RADIX));
+        }
+        return mbi.toString().toUpperCase();
+    }
+}
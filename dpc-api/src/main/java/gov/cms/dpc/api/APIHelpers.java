@@ -2,10 +2,13 @@ package gov.cms.dpc.api;
 
 import ca.uhn.fhir.rest.client.api.IGenericClient;
 import ca.uhn.fhir.validation.SingleValidationMessage;
+import ca.uhn.fhir.validation.ValidationResult;
 import gov.cms.dpc.fhir.DPCIdentifierSystem;
+import gov.cms.dpc.fhir.validations.ResourceValidator;
 import org.hl7.fhir.dstu3.model.*;
 
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -16,16 +19,35 @@ public class APIHelpers {
     }
 
 
-    public static <T extends BaseResource> Bundle bulkResourceClient(Class<T> clazz, IGenericClient client, Consumer<T> entryConsumer, Bundle resourceBundle) {
-        // We need to figure out how to validate the bundle entries
-        resourceBundle
+    /**
+     * Validate each of the matching entries of the {@link Bundle} against the given profile, and submit them to the attribution service.
+     * The entries are validated in parallel, but the results are handled in the order of the entries.
+     *
+     * @param clazz          - {@link Class} of the entries to submit, other entries are ignored
+     * @param client         - {@link IGenericClient} for the attribution service
+     * @param validator      - {@link ResourceValidator} to validate the entries
+     * @param profileURI     - {@link String} URI of the profile to validate against
+     * @param entryConsumer  - called with each entry, before it's validated
+     * @param resultHandler  - called with each entry and its {@link ValidationResult}
+     * @param resourceBundle - {@link Bundle} of resources to submit
+     * @param <T>            - {@link BaseResource} type
+     * @return - {@link Bundle} returned by the attribution service
+     */
+    public static <T extends BaseResource> Bundle bulkResourceClient(Class<T> clazz, IGenericClient client, ResourceValidator validator, String profileURI, Consumer<T> entryConsumer, BiConsumer<T, ValidationResult> resultHandler, Bundle resourceBundle) {
+        final List<T> resources = resourceBundle
                 .getEntry()
                 .stream()
                 .filter(Bundle.BundleEntryComponent::hasResource)
                 .map(Bundle.BundleEntryComponent::getResource)
                 .filter(resource -> resource.getClass().equals(clazz))
                 .map(clazz::cast)
-                .forEach(entryConsumer);
+                .collect(Collectors.toList());
+
+        resources.forEach(entryConsumer);
+        final List<ValidationResult> results = validator.validateAll(resources, profileURI);
+        for (int i = 0; i < resources.size(); i++) {
+            resultHandler.accept(resources.get(i), results.get(i));
+        }
 
         final Parameters params = new Parameters();
         params.addParameter().setResource(resourceBundle);
@@ -2,6 +2,8 @@ package gov.cms.dpc.api;
 
 import ca.mestevens.java.configuration.TypesafeConfiguration;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import gov.cms.dpc.api.auth.AuthCacheConfiguration;
+import gov.cms.dpc.api.auth.jwt.JTICacheConfiguration;
 import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
 import gov.cms.dpc.bluebutton.config.BlueButtonBundleConfiguration;
 import gov.cms.dpc.macaroons.config.TokenPolicy;
@@ -68,6 +70,21 @@ public class DPCAPIConfiguration extends TypesafeConfiguration implements IDPCDa
     @JsonProperty("tokens")
     private TokenPolicy tokenPolicy = new TokenPolicy();
 
+    @Valid
+    @NotNull
+    @JsonProperty("authorizationCache")
+    private AuthCacheConfiguration authorizationCache = new AuthCacheConfiguration();
+
+    @Valid
+    @NotNull
+    @JsonProperty("publicKeyCache")
+    private AuthCacheConfiguration publicKeyCache = new AuthCacheConfiguration();
+
+    @Valid
+    @NotNull
+    @JsonProperty("jtiCache")
+    private JTICacheConfiguration jtiCache = new JTICacheConfiguration();
+
     @NotEmpty
     private String keyPairLocation;
 
@@ -128,6 +145,30 @@ public class DPCAPIConfiguration extends TypesafeConfiguration implements IDPCDa
         this.exportPath = exportPath;
     }
 
+    public AuthCacheConfiguration getAuthorizationCache() {
+        return authorizationCache;
+    }
+
+    public void setAuthorizationCache(AuthCacheConfiguration authorizationCache) {
+        this.authorizationCache = authorizationCache;
+    }
+
+    public AuthCacheConfiguration getPublicKeyCache() {
+        return publicKeyCache;
+    }
+
+    public void setPublicKeyCache(AuthCacheConfiguration publicKeyCache) {
+        this.publicKeyCache = publicKeyCache;
+    }
+
+    public JTICacheConfiguration getJtiCache() {
+        return jtiCache;
+    }
+
+    public void setJtiCache(JTICacheConfiguration jtiCache) {
+        this.jtiCache = jtiCache;
+    }
+
     public String getKeyPairLocation() {
         return keyPairLocation;
     }
@@ -10,6 +10,7 @@ import com.google.inject.name.Named;
 import com.hubspot.dropwizard.guicier.DropwizardAwareModule;
 import com.typesafe.config.Config;
 import gov.cms.dpc.api.auth.jwt.IJTICache;
+import gov.cms.dpc.api.auth.jwt.PublicKeyCache;
 import gov.cms.dpc.api.converters.ChecksumConverterProvider;
 import gov.cms.dpc.api.converters.HttpRangeHeaderParamConverterProvider;
 import gov.cms.dpc.api.core.FileManager;
@@ -90,9 +91,9 @@ public class DPCAPIModule extends DropwizardAwareModule<DPCAPIConfiguration> {
     // Since the KeyResource requires access to the Auth DB, we have to manually do the creation and resource injection,
     // in order to ensure that the @UnitOfWork annotations are tied to the correct SessionFactory
     @Provides
-    public KeyResource provideKeyResource(PublicKeyDAO dao) {
+    public KeyResource provideKeyResource(PublicKeyDAO dao, PublicKeyCache keyCache) {
         return new UnitOfWorkAwareProxyFactory(authHibernateBundle)
-                .create(KeyResource.class, new Class<?>[]{PublicKeyDAO.class}, new Object[]{dao});
+                .create(KeyResource.class, new Class<?>[]{PublicKeyDAO.class, PublicKeyCache.class}, new Object[]{dao, keyCache});
     }
 
     @Provides
@@ -113,13 +114,14 @@ public class DPCAPIModule extends DropwizardAwareModule<DPCAPIConfiguration> {
     }
 
     @Provides
-    public OrganizationResource provideOrganizationResource(@Named("attribution") IGenericClient client, TokenDAO tokenDAO, PublicKeyDAO keyDAO) {
+    public OrganizationResource provideOrganizationResource(@Named("attribution") IGenericClient client, TokenDAO tokenDAO, PublicKeyDAO keyDAO, PublicKeyCache keyCache) {
         return new UnitOfWorkAwareProxyFactory(authHibernateBundle)
                 .create(OrganizationResource.class,
                         new Class<?>[]{IGenericClient.class,
                         TokenDAO.class,
-                        PublicKeyDAO.class},
-                        new Object[]{client, tokenDAO, keyDAO});
+                        PublicKeyDAO.class,
+                        PublicKeyCache.class},
+                        new Object[]{client, tokenDAO, keyDAO, keyCache});
     }
 
     @Provides
@@ -0,0 +1,49 @@
+package gov.cms.dpc.api.auth;
+
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration for the short-lived, in-memory caches used by the authentication layer.
+ * Setting {@link #isEnabled()} to {@code false} forces every lookup to go back to the source of truth.
+ */
+public class AuthCacheConfiguration {
+
+    private boolean enabled = true;
+
+    @NotNull
+    private Duration expiration = Duration.seconds(30);
+
+    @Min(1)
+    private long maximumSize = 10_000;
+
+    public AuthCacheConfiguration() {
+        // Jackson required
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getExpiration() {
+        return expiration;
+    }
+
+    public void setExpiration(Duration expiration) {
+        this.expiration = expiration;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+}
@@ -1,14 +1,19 @@
 package gov.cms.dpc.api.auth;
 
 import com.google.inject.Binder;
+import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
 import com.hubspot.dropwizard.guicier.DropwizardAwareModule;
 import gov.cms.dpc.api.DPCAPIConfiguration;
 import gov.cms.dpc.api.auth.filters.PathAuthorizationFilter;
 import gov.cms.dpc.api.auth.jwt.CaffeineJTICache;
+import gov.cms.dpc.api.auth.jwt.DatabaseJTICache;
 import gov.cms.dpc.api.auth.jwt.IJTICache;
+import gov.cms.dpc.api.auth.jwt.JTICacheConfiguration;
 import gov.cms.dpc.api.auth.jwt.JwtKeyResolver;
+import gov.cms.dpc.api.auth.jwt.PublicKeyCache;
 import gov.cms.dpc.api.auth.macaroonauth.MacaroonsAuthenticator;
+import gov.cms.dpc.api.auth.macaroonauth.PathAuthorizationCache;
 import gov.cms.dpc.api.auth.staticauth.StaticAuthFactory;
 import gov.cms.dpc.api.auth.staticauth.StaticAuthFilter;
 import gov.cms.dpc.api.auth.staticauth.StaticAuthenticator;
@@ -18,6 +23,8 @@ import io.jsonwebtoken.SigningKeyResolverAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Singleton;
+
 /**
  * {@link DropwizardAwareModule} for determining which authentication system to use.
  * if {@link DPCAPIConfiguration#isAuthenticationDisabled()} returns {@code true} then the {@link StaticAuthFilter} is used.
@@ -46,7 +53,31 @@ public class AuthModule extends DropwizardAwareModule<DPCAPIConfiguration> {
         }
         binder.bind(DPCAuthDynamicFeature.class);
         binder.bind(SigningKeyResolverAdapter.class).to(JwtKeyResolver.class);
-        binder.bind(IJTICache.class).to(CaffeineJTICache.class);
+        if (getConfiguration().getJtiCache().isShared()) {
+            // Eagerly created, so that the expiration cleanup is started along with the application
+            binder.bind(DatabaseJTICache.class).asEagerSingleton();
+            binder.bind(IJTICache.class).to(DatabaseJTICache.class);
+        } else {
+            logger.warn("JTI cache is not shared, replay protection only applies to the local node");
+            binder.bind(IJTICache.class).to(CaffeineJTICache.class);
+        }
         binder.bind(BakeryKeyPair.class).toProvider(new BakeryKeyPairProvider(this.getConfiguration()));
     }
+
+    @Provides
+    @Singleton
+    PathAuthorizationCache providePathAuthorizationCache() {
+        return new PathAuthorizationCache(getConfiguration().getAuthorizationCache());
+    }
+
+    @Provides
+    @Singleton
+    PublicKeyCache providePublicKeyCache() {
+        return new PublicKeyCache(getConfiguration().getPublicKeyCache());
+    }
+
+    @Provides
+    JTICacheConfiguration provideJTICacheConfiguration() {
+        return getConfiguration().getJtiCache();
+    }
 }
@@ -0,0 +1,139 @@
+package gov.cms.dpc.api.auth.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gov.cms.dpc.common.hibernate.auth.DPCAuthManagedSessionFactory;
+import io.dropwizard.lifecycle.Managed;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * {@link IJTICache} backed by the (UNLOGGED) JTI_CACHE table in the auth database, which allows replay protection to be shared by all API nodes.
+ * <p>
+ * A local near-cache holds the JTIs which this node has already seen, so replays are rejected without hitting the database,
+ * and only the first sighting of a JTI requires a write.
+ * Since the near-cache only ever short-circuits rejections, evicting entries from it does not weaken replay protection.
+ * <p>
+ * Expired JTIs are removed by a background task, in batches of {@link JTICacheConfiguration#getCleanupBatchSize()}, every {@link JTICacheConfiguration#getCleanupInterval()}.
+ */
+@Singleton
+public class DatabaseJTICache implements IJTICache, Managed {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseJTICache.class);
+
+    // Inserts the JTI, unless a non-expired entry already exists. Updates 0 rows when the JTI is being replayed
+    private static final String INSERT_JTI = "INSERT INTO jti_cache (jti, expires) VALUES (:jti, NOW() + :ttl * INTERVAL '1 second') " +
+            "ON CONFLICT (jti) DO UPDATE SET expires = EXCLUDED.expires WHERE jti_cache.expires < NOW()";
+    private static final String SELECT_JTI = "SELECT COUNT(*) FROM jti_cache WHERE jti = :jti AND expires >= NOW()";
+    // Nodes running the cleanup concurrently skip each other's rows, rather than blocking
+    private static final String DELETE_EXPIRED = "DELETE FROM jti_cache WHERE jti IN " +
+            "(SELECT jti FROM jti_cache WHERE expires < NOW() LIMIT :batchSize FOR UPDATE SKIP LOCKED)";
+
+    private final SessionFactory factory;
+    private final JTICacheConfiguration config;
+    private final Cache<String, Boolean> nearCache;
+    private final ScheduledExecutorService cleanupExecutor;
+
+    @Inject
+    public DatabaseJTICache(DPCAuthManagedSessionFactory factory, JTICacheConfiguration config) {
+        this.factory = factory.getSessionFactory();
+        this.config = config;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(config.getNearCacheSize())
+                .expireAfterWrite(config.getExpiration().toMilliseconds(), TimeUnit.MILLISECONDS)
+                .build();
+        this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "jti-cache-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public boolean isJTIOk(String jti, boolean persist) {
+        // If we've already seen the JTI, it's being replayed, no need to ask the database
+        if (this.nearCache.getIfPresent(jti) != null) {
+            logger.warn("JTI {} is being replayed", jti);
+            return false;
+        }
+
+        final boolean isOk;
+        if (persist) {
+            isOk = inTransaction(session -> session.createNativeQuery(INSERT_JTI)
+                    .setParameter("jti", jti)
+                    .setParameter("ttl", this.config.getExpiration().toSeconds())
+                    .executeUpdate()) == 1;
+        } else {
+            isOk = inTransaction(session -> ((Number) session.createNativeQuery(SELECT_JTI)
+                    .setParameter("jti", jti)
+                    .getSingleResult()).longValue()) == 0;
+        }
+
+        if (persist || !isOk) {
+            this.nearCache.put(jti, true);
+        }
+        if (!isOk) {
+            logger.warn("JTI {} is being replayed", jti);
+        }
+        return isOk;
+    }
+
+    @Override
+    public void start() {
+        final long interval = this.config.getCleanupInterval().toMilliseconds();
+        this.cleanupExecutor.scheduleWithFixedDelay(this::removeExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        this.cleanupExecutor.shutdownNow();
+    }
+
+    /**
+     * Delete expired JTIs, one batch at a time, until no full batch remains.
+     *
+     * @return - number of JTIs removed
+     */
+    int removeExpired() {
+        final int batchSize = this.config.getCleanupBatchSize();
+        int total = 0;
+        try {
+            int removed;
+            do {
+                removed = inTransaction(session -> session.createNativeQuery(DELETE_EXPIRED)
+                        .setParameter("batchSize", batchSize)
+                        .executeUpdate());
+                total += removed;
+            } while (removed == batchSize);
+            logger.debug("Removed {} expired JTIs", total);
+        } catch (Exception e) {
+            // Don't let the exception escape, otherwise the executor will stop scheduling the cleanup
+            logger.error("Cannot remove expired JTIs", e);
+        }
+        return total;
+    }
+
+    private <T> T inTransaction(Function<Session, T> function) {
+        try (final Session session = this.factory.openSession()) {
+            final Transaction tx = session.beginTransaction();
+            try {
+                final T result = function.apply(session);
+                tx.commit();
+                return result;
+            } catch (Exception e) {
+                tx.rollback();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package gov.cms.dpc.api.auth.jwt;
+
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration for the JWT replay cache ({@link IJTICache}).
+ * When {@link #isShared()} returns {@code true} the {@link DatabaseJTICache} is used, so that replay protection applies across all API nodes.
+ * Otherwise, the node-local {@link CaffeineJTICache} is used.
+ */
+public class JTICacheConfiguration {
+
+    private boolean shared = true;
+
+    // Must be at least as long as the maximum allowed lifetime of a client assertion (5 minutes)
+    @NotNull
+    private Duration expiration = Duration.minutes(5);
+
+    @Min(1)
+    private long nearCacheSize = 10_000;
+
+    @NotNull
+    private Duration cleanupInterval = Duration.minutes(1);
+
+    @Min(1)
+    private int cleanupBatchSize = 1_000;
+
+    public JTICacheConfiguration() {
+        // Jackson required
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    public void setShared(boolean shared) {
+        this.shared = shared;
+    }
+
+    public Duration getExpiration() {
+        return expiration;
+    }
+
+    public void setExpiration(Duration expiration) {
+        this.expiration = expiration;
+    }
+
+    public long getNearCacheSize() {
+        return nearCacheSize;
+    }
+
+    public void setNearCacheSize(long nearCacheSize) {
+        this.nearCacheSize = nearCacheSize;
+    }
+
+    public Duration getCleanupInterval() {
+        return cleanupInterval;
+    }
+
+    public void setCleanupInterval(Duration cleanupInterval) {
+        this.cleanupInterval = cleanupInterval;
+    }
+
+    public int getCleanupBatchSize() {
+        return cleanupBatchSize;
+    }
+
+    public void setCleanupBatchSize(int cleanupBatchSize) {
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+}
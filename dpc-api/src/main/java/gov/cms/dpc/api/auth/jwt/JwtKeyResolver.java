@@ -17,6 +17,7 @@ import javax.inject.Inject;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import java.security.Key;
+import java.security.PublicKey;
 import java.util.List;
 import java.util.UUID;
 
@@ -27,10 +28,12 @@ public class JwtKeyResolver extends SigningKeyResolverAdapter {
     private static final Logger logger = LoggerFactory.getLogger(JwtKeyResolver.class);
 
     private final PublicKeyDAO dao;
+    private final PublicKeyCache cache;
 
     @Inject
-    public JwtKeyResolver(PublicKeyDAO dao) {
+    public JwtKeyResolver(PublicKeyDAO dao, PublicKeyCache cache) {
         this.dao = dao;
+        this.cache = cache;
     }
 
     @Override
@@ -47,15 +50,21 @@ public class JwtKeyResolver extends SigningKeyResolverAdapter {
         MDC.clear();
         MDC.put("organization_id", organizationID.toString());
 
-        final PublicKeyEntity keyEntity;
+        final UUID keyUUID;
         try {
-            keyEntity = this.dao.fetchPublicKey(organizationID, UUID.fromString(keyId))
-                    .orElseThrow(() -> new WebApplicationException(String.format("Cannot find public key with id: %s", keyId), Response.Status.UNAUTHORIZED));
+            keyUUID = UUID.fromString(keyId);
         } catch (IllegalArgumentException e) {
             logger.error("Cannot convert '{}' to UUID", keyId, e);
             throw new WebApplicationException("Invalid Public Key ID", Response.Status.UNAUTHORIZED);
         }
 
+        return this.cache.getPublicKey(organizationID, keyUUID, () -> fetchPublicKey(organizationID, keyUUID));
+    }
+
+    private PublicKey fetchPublicKey(UUID organizationID, UUID keyID) {
+        final PublicKeyEntity keyEntity = this.dao.fetchPublicKey(organizationID, keyID)
+                .orElseThrow(() -> new WebApplicationException(String.format("Cannot find public key with id: %s", keyID), Response.Status.UNAUTHORIZED));
+
         try {
             return PublicKeyHandler.publicKeyFromEntity(keyEntity);
         } catch (PublicKeyException e) {
@@ -0,0 +1,84 @@
+package gov.cms.dpc.api.auth.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gov.cms.dpc.api.auth.AuthCacheConfiguration;
+import gov.cms.dpc.api.entities.PublicKeyEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.PublicKey;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache of parsed {@link PublicKey}s, keyed by the {@link PublicKeyEntity} ID.
+ * <p>
+ * This avoids hitting the auth database and re-parsing the key material for each JWT client assertion.
+ * Entries are removed when the key is deleted via {@link #invalidate(UUID)}, which only applies to the local node,
+ * so the configured expiration bounds how long a deleted key remains usable on other API nodes.
+ */
+public class PublicKeyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublicKeyCache.class);
+
+    private final Cache<UUID, OrganizationKey> cache;
+
+    public PublicKeyCache(AuthCacheConfiguration config) {
+        if (config.isEnabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(config.getMaximumSize())
+                    .expireAfterWrite(config.getExpiration().toMilliseconds(), TimeUnit.MILLISECONDS)
+                    .build();
+        } else {
+            logger.warn("Public key cache is disabled, keys will be fetched from the database for every token request");
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Get the parsed {@link PublicKey} for the given organization and key ID.
+     * If the key is not cached, the provided {@link Supplier} is used to load it, any exception it throws is propagated and nothing is cached.
+     *
+     * @param organizationID - {@link UUID} organization which should own the key
+     * @param keyID          - {@link UUID} public key ID
+     * @param loader         - {@link Supplier} which fetches and parses the key for the given organization
+     * @return - {@link PublicKey}
+     */
+    public PublicKey getPublicKey(UUID organizationID, UUID keyID, Supplier<PublicKey> loader) {
+        if (this.cache == null) {
+            return loader.get();
+        }
+
+        final OrganizationKey cached = this.cache.get(keyID, id -> new OrganizationKey(organizationID, loader.get()));
+        // If the key is owned by a different organization, defer to the loader, which will reject the request
+        if (!cached.organizationID.equals(organizationID)) {
+            return loader.get();
+        }
+        return cached.publicKey;
+    }
+
+    /**
+     * Remove the given key from the cache
+     *
+     * @param keyID - {@link UUID} of public key which has been removed
+     */
+    public void invalidate(UUID keyID) {
+        if (this.cache == null) {
+            return;
+        }
+        this.cache.invalidate(keyID);
+    }
+
+    private static class OrganizationKey {
+
+        private final UUID organizationID;
+        private final PublicKey publicKey;
+
+        OrganizationKey(UUID organizationID, PublicKey publicKey) {
+            this.organizationID = organizationID;
+            this.publicKey = publicKey;
+        }
+    }
+}
@@ -24,10 +24,12 @@ public class MacaroonsAuthenticator implements Authenticator<DPCAuthCredentials,
     private static final Logger logger = LoggerFactory.getLogger(MacaroonsAuthenticator.class);
 
     private final IGenericClient client;
+    private final PathAuthorizationCache cache;
 
     @Inject
-    public MacaroonsAuthenticator(@Named("attribution") IGenericClient client) {
+    public MacaroonsAuthenticator(@Named("attribution") IGenericClient client, PathAuthorizationCache cache) {
         this.client = client;
+        this.cache = cache;
     }
 
     @Override
@@ -46,7 +48,16 @@ public class MacaroonsAuthenticator implements Authenticator<DPCAuthCredentials,
             return validateOrganization(principal, credentials);
         }
 
-        // Otherwise, try to lookup the matching resource
+        // Otherwise, try to lookup the matching resource, reusing any recent decision for the same org and resource
+        final boolean authorized = this.cache.isAuthorized(credentials.getOrganization().getIdElement().getIdPart(),
+                credentials.getPathAuthorizer().type(),
+                credentials.getPathValue(),
+                () -> lookupResource(credentials));
+
+        return authorized ? Optional.of(principal) : Optional.empty();
+    }
+
+    private boolean lookupResource(DPCAuthCredentials credentials) {
         logger.debug("Looking up resource {} in path authorizer. With value: {}", credentials.getPathAuthorizer().type(), credentials.getPathAuthorizer().pathParam());
         Map<String, List<String>> searchParams = new HashMap<>();
         searchParams.put("_id", Collections.singletonList(credentials.getPathValue()));
@@ -66,11 +77,7 @@ public class MacaroonsAuthenticator implements Authenticator<DPCAuthCredentials,
                 .encodedJson()
                 .execute();
 
-        if (bundle.getTotal() == 0) {
-            return Optional.empty();
-        }
-
-        return Optional.of(principal);
+        return bundle.getTotal() != 0;
     }
 
     private Optional<OrganizationPrincipal> validateOrganization(OrganizationPrincipal principal, DPCAuthCredentials credentials) {
@@ -0,0 +1,97 @@
+package gov.cms.dpc.api.auth.macaroonauth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gov.cms.dpc.api.auth.AuthCacheConfiguration;
+import gov.cms.dpc.api.auth.annotations.PathAuthorizer;
+import org.hl7.fhir.dstu3.model.ResourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of {@link PathAuthorizer} decisions, keyed by (organization, resource type, resource id).
+ * <p>
+ * Both positive and negative decisions are cached, which avoids calling the attribution service for repeated accesses to the same resource.
+ * Since resource IDs are generated by the attribution service, a negative decision cannot become positive through resource creation,
+ * only deletions need to be explicitly invalidated via {@link #invalidate(ResourceType, String)}.
+ */
+public class PathAuthorizationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PathAuthorizationCache.class);
+
+    private final Cache<AuthorizationKey, Boolean> cache;
+
+    public PathAuthorizationCache(AuthCacheConfiguration config) {
+        if (config.isEnabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(config.getMaximumSize())
+                    .expireAfterWrite(config.getExpiration().toMilliseconds(), TimeUnit.MILLISECONDS)
+                    .build();
+        } else {
+            logger.warn("Path authorization cache is disabled, every request will be authorized against the attribution service");
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Return the cached authorization decision, or compute (and cache) it using the given {@link Supplier}
+     *
+     * @param organizationID - {@link String} organization ID of the requesting principal
+     * @param type           - {@link ResourceType} of the resource in the request path
+     * @param resourceID     - {@link String} ID of the resource in the request path
+     * @param lookup         - {@link Supplier} which determines whether or not the organization has access to the resource
+     * @return - {@code true} organization is authorized to access the resource. {@code false} organization is not authorized
+     */
+    public boolean isAuthorized(String organizationID, ResourceType type, String resourceID, Supplier<Boolean> lookup) {
+        if (this.cache == null) {
+            return lookup.get();
+        }
+        return this.cache.get(new AuthorizationKey(organizationID, type, resourceID), key -> lookup.get());
+    }
+
+    /**
+     * Remove all cached decisions for the given resource, regardless of the requesting organization.
+     *
+     * @param type       - {@link ResourceType} of the removed resource
+     * @param resourceID - {@link String} ID of the removed resource
+     */
+    public void invalidate(ResourceType type, String resourceID) {
+        if (this.cache == null) {
+            return;
+        }
+        logger.trace("Invalidating cached authorizations for {}/{}", type, resourceID);
+        this.cache.asMap().keySet().removeIf(key -> key.type == type && key.resourceID.equals(resourceID));
+    }
+
+    private static class AuthorizationKey {
+
+        private final String organizationID;
+        private final ResourceType type;
+        private final String resourceID;
+
+        AuthorizationKey(String organizationID, ResourceType type, String resourceID) {
+            this.organizationID = organizationID;
+            this.type = type;
+            this.resourceID = resourceID;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof AuthorizationKey)) return false;
+            AuthorizationKey that = (AuthorizationKey) o;
+            return organizationID.equals(that.organizationID) &&
+                    type == that.type &&
+                    resourceID.equals(that.resourceID);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(organizationID, type, resourceID);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.codahale.metrics.annotation.Timed;
 import com.google.inject.name.Named;
 import gov.cms.dpc.api.auth.OrganizationPrincipal;
 import gov.cms.dpc.api.auth.annotations.PathAuthorizer;
+import gov.cms.dpc.api.auth.macaroonauth.PathAuthorizationCache;
 import gov.cms.dpc.api.resources.AbstractEndpointResource;
 import gov.cms.dpc.fhir.annotations.FHIR;
 import gov.cms.dpc.fhir.annotations.Profiled;
@@ -29,10 +30,12 @@ import java.util.UUID;
 public class EndpointResource extends AbstractEndpointResource {
 
     private final IGenericClient client;
+    private final PathAuthorizationCache authorizationCache;
 
     @Inject
-    EndpointResource(@Named("attribution") IGenericClient client) {
+    EndpointResource(@Named("attribution") IGenericClient client, PathAuthorizationCache authorizationCache) {
         this.client = client;
+        this.authorizationCache = authorizationCache;
     }
 
     @POST
@@ -142,6 +145,7 @@ public class EndpointResource extends AbstractEndpointResource {
                 .delete()
                 .resourceById("Endpoint", endpointID.toString())
                 .execute();
+        this.authorizationCache.invalidate(ResourceType.Endpoint, endpointID.toString());
 
         return Response.ok().build();
     }
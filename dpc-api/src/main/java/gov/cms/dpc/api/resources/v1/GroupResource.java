@@ -9,6 +9,7 @@ import com.codahale.metrics.annotation.Timed;
 import com.google.inject.name.Named;
 import gov.cms.dpc.api.auth.OrganizationPrincipal;
 import gov.cms.dpc.api.auth.annotations.PathAuthorizer;
+import gov.cms.dpc.api.auth.macaroonauth.PathAuthorizationCache;
 import gov.cms.dpc.api.resources.AbstractGroupResource;
 import gov.cms.dpc.bluebutton.client.BlueButtonClient;
 import gov.cms.dpc.common.annotations.APIV1;
@@ -58,13 +59,15 @@ public class GroupResource extends AbstractGroupResource {
     private final IGenericClient client;
     private final String baseURL;
     private final BlueButtonClient bfdClient;
+    private final PathAuthorizationCache authorizationCache;
 
     @Inject
-    public GroupResource(IJobQueue queue, @Named("attribution") IGenericClient client, @APIV1 String baseURL, BlueButtonClient bfdClient) {
+    public GroupResource(IJobQueue queue, @Named("attribution") IGenericClient client, @APIV1 String baseURL, BlueButtonClient bfdClient, PathAuthorizationCache authorizationCache) {
         this.queue = queue;
         this.client = client;
         this.baseURL = baseURL;
         this.bfdClient = bfdClient;
+        this.authorizationCache = authorizationCache;
     }
 
     @POST
@@ -223,6 +226,7 @@ public class GroupResource extends AbstractGroupResource {
                 .resourceById(new IdType("Group", rosterID.toString()))
                 .encodedJson()
                 .execute();
+        this.authorizationCache.invalidate(ResourceType.Group, rosterID.toString());
 
         return Response.ok().build();
     }
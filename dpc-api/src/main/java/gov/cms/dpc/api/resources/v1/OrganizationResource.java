@@ -7,6 +7,7 @@ import com.codahale.metrics.annotation.Timed;
 import com.google.inject.name.Named;
 import gov.cms.dpc.api.auth.annotations.AdminOperation;
 import gov.cms.dpc.api.auth.annotations.PathAuthorizer;
+import gov.cms.dpc.api.auth.jwt.PublicKeyCache;
 import gov.cms.dpc.api.jdbi.PublicKeyDAO;
 import gov.cms.dpc.api.jdbi.TokenDAO;
 import gov.cms.dpc.api.resources.AbstractOrganizationResource;
@@ -34,12 +35,14 @@ public class OrganizationResource extends AbstractOrganizationResource {
     private final IGenericClient client;
     private final TokenDAO tokenDAO;
     private final PublicKeyDAO keyDAO;
+    private final PublicKeyCache keyCache;
 
     @Inject
-    public OrganizationResource(@Named("attribution") IGenericClient client, TokenDAO tokenDAO, PublicKeyDAO keyDAO) {
+    public OrganizationResource(@Named("attribution") IGenericClient client, TokenDAO tokenDAO, PublicKeyDAO keyDAO, PublicKeyCache keyCache) {
         this.client = client;
         this.tokenDAO = tokenDAO;
         this.keyDAO = keyDAO;
+        this.keyCache = keyCache;
     }
 
 
@@ -118,7 +121,10 @@ public class OrganizationResource extends AbstractOrganizationResource {
         // Delete public keys
         this.keyDAO
                 .fetchPublicKeys(organizationID)
-                .forEach(this.keyDAO::deletePublicKey);
+                .forEach(key -> {
+                    this.keyDAO.deletePublicKey(key);
+                    this.keyCache.invalidate(key.getId());
+                });
 
         return Response.ok().build();
     }
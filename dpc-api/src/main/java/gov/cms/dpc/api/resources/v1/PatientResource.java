@@ -2,9 +2,7 @@ package gov.cms.dpc.api.resources.v1;
 
 import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.validation.FhirValidator;
 import ca.uhn.fhir.validation.ResultSeverityEnum;
-import ca.uhn.fhir.validation.ValidationOptions;
 import ca.uhn.fhir.validation.ValidationResult;
 import com.codahale.metrics.annotation.ExceptionMetered;
 import com.codahale.metrics.annotation.Timed;
@@ -12,11 +10,13 @@ import com.google.inject.name.Named;
 import gov.cms.dpc.api.APIHelpers;
 import gov.cms.dpc.api.auth.OrganizationPrincipal;
 import gov.cms.dpc.api.auth.annotations.PathAuthorizer;
+import gov.cms.dpc.api.auth.macaroonauth.PathAuthorizationCache;
 import gov.cms.dpc.api.resources.AbstractPatientResource;
 import gov.cms.dpc.common.annotations.NoHtml;
 import gov.cms.dpc.fhir.DPCIdentifierSystem;
 import gov.cms.dpc.fhir.annotations.FHIR;
 import gov.cms.dpc.fhir.annotations.Profiled;
+import gov.cms.dpc.fhir.validations.ResourceValidator;
 import gov.cms.dpc.fhir.validations.ValidationHelpers;
 import gov.cms.dpc.fhir.validations.profiles.PatientProfile;
 import io.dropwizard.auth.Auth;
@@ -45,12 +45,14 @@ public class PatientResource extends AbstractPatientResource {
     private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("^[a-z0-9]+://.*$");
 
     private final IGenericClient client;
-    private final FhirValidator validator;
+    private final ResourceValidator validator;
+    private final PathAuthorizationCache authorizationCache;
 
     @Inject
-    PatientResource(@Named("attribution") IGenericClient client, FhirValidator validator) {
+    PatientResource(@Named("attribution") IGenericClient client, ResourceValidator validator, PathAuthorizationCache authorizationCache) {
         this.client = client;
         this.validator = validator;
+        this.authorizationCache = authorizationCache;
     }
 
     @GET
@@ -122,9 +124,11 @@ public class PatientResource extends AbstractPatientResource {
     @Override
     public Bundle bulkSubmitPatients(@Auth OrganizationPrincipal organization, Parameters params) {
         final Bundle patientBundle = (Bundle) params.getParameterFirstRep().getResource();
-        final Consumer<Patient> entryHandler = (patient) -> validateAndAddOrg(patient, organization.getOrganization().getId(), validator, PatientProfile.PROFILE_URI);
+        final String organizationID = organization.getOrganization().getId();
+        // Set the Managing Org, since we need it for the validation
+        final Consumer<Patient> entryHandler = (patient) -> patient.setManagingOrganization(new Reference(new IdType("Organization", organizationID)));
 
-        return bulkResourceClient(Patient.class, client, entryHandler, patientBundle);
+        return bulkResourceClient(Patient.class, client, validator, PatientProfile.PROFILE_URI, entryHandler, PatientResource::checkValidationResult, patientBundle);
     }
 
 
@@ -161,6 +165,7 @@ public class PatientResource extends AbstractPatientResource {
                 .resourceById("Patient", patientID.toString())
                 .encodedJson()
                 .execute();
+        this.authorizationCache.invalidate(ResourceType.Patient, patientID.toString());
 
         return Response.ok().build();
     }
@@ -205,16 +210,11 @@ public class PatientResource extends AbstractPatientResource {
         return ValidationHelpers.validateAgainstProfile(this.validator, parameters, PatientProfile.PROFILE_URI);
     }
 
-    private static void validateAndAddOrg(Patient patient, String organizationID, FhirValidator validator, String profileURL) {
-        {
-            // Set the Managing Org, since we need it for the validation
-            patient.setManagingOrganization(new Reference(new IdType("Organization", organizationID)));
-            final ValidationResult result = validator.validateWithResult(patient, new ValidationOptions().addProfile(profileURL));
-            if (!result.isSuccessful()) {
-                // Temporary until DPC-536 is merged in
-                if (result.getMessages().get(0).getSeverity() != ResultSeverityEnum.INFORMATION) {
-                    throw new WebApplicationException(APIHelpers.formatValidationMessages(result.getMessages()), HttpStatus.UNPROCESSABLE_ENTITY_422);
-                }
+    private static void checkValidationResult(Patient patient, ValidationResult result) {
+        if (!result.isSuccessful()) {
+            // Temporary until DPC-536 is merged in
+            if (result.getMessages().get(0).getSeverity() != ResultSeverityEnum.INFORMATION) {
+                throw new WebApplicationException(APIHelpers.formatValidationMessages(result.getMessages()), HttpStatus.UNPROCESSABLE_ENTITY_422);
             }
         }
     }
@@ -1,8 +1,6 @@
 package gov.cms.dpc.api.resources.v1;
 
 import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.validation.FhirValidator;
-import ca.uhn.fhir.validation.ValidationOptions;
 import ca.uhn.fhir.validation.ValidationResult;
 import com.codahale.metrics.annotation.ExceptionMetered;
 import com.codahale.metrics.annotation.Timed;
@@ -10,10 +8,12 @@ import com.google.inject.name.Named;
 import gov.cms.dpc.api.APIHelpers;
 import gov.cms.dpc.api.auth.OrganizationPrincipal;
 import gov.cms.dpc.api.auth.annotations.PathAuthorizer;
+import gov.cms.dpc.api.auth.macaroonauth.PathAuthorizationCache;
 import gov.cms.dpc.api.resources.AbstractPractitionerResource;
 import gov.cms.dpc.common.annotations.NoHtml;
 import gov.cms.dpc.fhir.annotations.FHIR;
 import gov.cms.dpc.fhir.annotations.Profiled;
+import gov.cms.dpc.fhir.validations.ResourceValidator;
 import gov.cms.dpc.fhir.validations.ValidationHelpers;
 import gov.cms.dpc.fhir.validations.profiles.PractitionerProfile;
 import io.dropwizard.auth.Auth;
@@ -29,7 +29,7 @@ import javax.validation.Valid;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Response;
 import java.util.*;
-import java.util.function.Consumer;
+import java.util.function.BiConsumer;
 
 import static gov.cms.dpc.api.APIHelpers.bulkResourceClient;
 import static gov.cms.dpc.fhir.helpers.FHIRHelpers.handleMethodOutcome;
@@ -41,12 +41,14 @@ public class PractitionerResource extends AbstractPractitionerResource {
     private static final String PRACTITIONER_PROFILE = "https://dpc.cms.gov/api/v1/StructureDefinition/dpc-profile-practitioner";
     private static final Logger logger = LoggerFactory.getLogger(PractitionerResource.class);
     private final IGenericClient client;
-    private final FhirValidator validator;
+    private final ResourceValidator validator;
+    private final PathAuthorizationCache authorizationCache;
 
     @Inject
-    PractitionerResource(@Named("attribution") IGenericClient client, FhirValidator validator) {
+    PractitionerResource(@Named("attribution") IGenericClient client, ResourceValidator validator, PathAuthorizationCache authorizationCache) {
         this.client = client;
         this.validator = validator;
+        this.authorizationCache = authorizationCache;
     }
 
     @GET
@@ -138,12 +140,12 @@ public class PractitionerResource extends AbstractPractitionerResource {
     @Override
     public Bundle bulkSubmitProviders(@Auth OrganizationPrincipal organization, Parameters params) {
         final Bundle providerBundle = (Bundle) params.getParameterFirstRep().getResource();
-        final Consumer<Practitioner> entryHandler = (resource) -> validateProvider(resource,
-                organization.getOrganization().getId(),
-                validator,
-                PRACTITIONER_PROFILE);
+        final String organizationID = organization.getOrganization().getId();
+        final BiConsumer<Practitioner, ValidationResult> resultHandler = (resource, result) -> checkValidationResult(resource, result, organizationID);
 
-        return bulkResourceClient(Practitioner.class, client, entryHandler, providerBundle);
+        return bulkResourceClient(Practitioner.class, client, validator, PRACTITIONER_PROFILE, resource -> {
+            // Nothing to set before validation
+        }, resultHandler, providerBundle);
     }
 
     @DELETE
@@ -163,6 +165,7 @@ public class PractitionerResource extends AbstractPractitionerResource {
                 .resourceById(new IdType("Practitioner", providerID.toString()))
                 .encodedJson()
                 .execute();
+        this.authorizationCache.invalidate(ResourceType.Practitioner, providerID.toString());
 
         return Response.ok().build();
     }
@@ -192,9 +195,8 @@ public class PractitionerResource extends AbstractPractitionerResource {
         return ValidationHelpers.validateAgainstProfile(this.validator, parameters, PractitionerProfile.PROFILE_URI);
     }
 
-    private static void validateProvider(Practitioner provider, String organizationID, FhirValidator validator, String profileURL) {
-        logger.debug("Validating Practitioner {}", provider.toString());
-        final ValidationResult result = validator.validateWithResult(provider, new ValidationOptions().addProfile(profileURL));
+    private static void checkValidationResult(Practitioner provider, ValidationResult result, String organizationID) {
+        logger.debug("Validated Practitioner {}", provider);
         if (!result.isSuccessful()) {
             throw new WebApplicationException(APIHelpers.formatValidationMessages(result.getMessages()), HttpStatus.UNPROCESSABLE_ENTITY_422);
         }
@@ -5,18 +5,21 @@ import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
 import ca.uhn.fhir.rest.client.api.ServerValidationModeEnum;
 import ca.uhn.fhir.rest.client.interceptor.LoggingInterceptor;
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.typesafe.config.ConfigFactory;
 import gov.cms.dpc.api.auth.OrganizationPrincipal;
 import gov.cms.dpc.fhir.configuration.DPCFHIRConfiguration;
 import gov.cms.dpc.fhir.dropwizard.handlers.BundleHandler;
 import gov.cms.dpc.fhir.dropwizard.handlers.FHIRHandler;
+import gov.cms.dpc.fhir.dropwizard.handlers.StreamingBundleHandler;
 import gov.cms.dpc.fhir.dropwizard.handlers.exceptions.DefaultFHIRExceptionHandler;
 import gov.cms.dpc.fhir.dropwizard.handlers.exceptions.HAPIExceptionHandler;
 import gov.cms.dpc.fhir.dropwizard.handlers.exceptions.JerseyExceptionHandler;
 import gov.cms.dpc.fhir.dropwizard.handlers.exceptions.PersistenceExceptionHandler;
 import gov.cms.dpc.fhir.validations.DPCProfileSupport;
 import gov.cms.dpc.fhir.validations.ProfileValidator;
+import gov.cms.dpc.fhir.validations.ResourceValidator;
 import gov.cms.dpc.fhir.validations.dropwizard.FHIRValidatorProvider;
 import gov.cms.dpc.fhir.validations.dropwizard.InjectingConstraintValidatorFactory;
 import io.dropwizard.testing.DropwizardTestSupport;
@@ -131,6 +134,7 @@ public class APITestHelpers {
                 .setTestContainerFactory(new GrizzlyWebTestContainerFactory())
                 .addProvider(fhirHandler)
                 .addProvider(new BundleHandler(fhirHandler))
+                .addProvider(new StreamingBundleHandler(fhirHandler))
                 .addProvider(JerseyExceptionHandler.class)
                 .addProvider(PersistenceExceptionHandler.class)
                 .addProvider(HAPIExceptionHandler.class)
@@ -147,7 +151,7 @@ public class APITestHelpers {
             final DPCProfileSupport dpcModule = new DPCProfileSupport(ctx);
             final ValidationSupportChain support = new ValidationSupportChain(new DefaultProfileValidationSupport(), dpcModule);
             final InjectingConstraintValidatorFactory constraintFactory = new InjectingConstraintValidatorFactory(
-                    Set.of(new ProfileValidator(new FHIRValidatorProvider(ctx, config, support).get())));
+                    Set.of(new ProfileValidator(new ResourceValidator(new FHIRValidatorProvider(ctx, config, support).get(), ctx, config, new MetricRegistry()))));
 
             builder.setValidator(provideValidator(constraintFactory));
         }
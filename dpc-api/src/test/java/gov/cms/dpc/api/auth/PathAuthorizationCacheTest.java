@@ -0,0 +1,72 @@
+package gov.cms.dpc.api.auth;
+
+import gov.cms.dpc.api.auth.macaroonauth.PathAuthorizationCache;
+import org.hl7.fhir.dstu3.model.ResourceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PathAuthorizationCacheTest {
+
+    private static final String ORG_ID = UUID.randomUUID().toString();
+
+    PathAuthorizationCacheTest() {
+        // Not used
+    }
+
+    @Test
+    void testPositiveDecisionCached() {
+        final PathAuthorizationCache cache = new PathAuthorizationCache(new AuthCacheConfiguration());
+        final AtomicInteger lookups = new AtomicInteger();
+        final String patientID = UUID.randomUUID().toString();
+
+        assertTrue(cache.isAuthorized(ORG_ID, ResourceType.Patient, patientID, () -> lookups.incrementAndGet() > 0), "Should be authorized");
+        assertTrue(cache.isAuthorized(ORG_ID, ResourceType.Patient, patientID, () -> lookups.incrementAndGet() > 0), "Should be authorized");
+        assertEquals(1, lookups.get(), "Should only lookup once");
+    }
+
+    @Test
+    void testNegativeDecisionCached() {
+        final PathAuthorizationCache cache = new PathAuthorizationCache(new AuthCacheConfiguration());
+        final AtomicInteger lookups = new AtomicInteger();
+        final String groupID = UUID.randomUUID().toString();
+
+        assertFalse(cache.isAuthorized(ORG_ID, ResourceType.Group, groupID, () -> lookups.incrementAndGet() < 0), "Should not be authorized");
+        assertFalse(cache.isAuthorized(ORG_ID, ResourceType.Group, groupID, () -> lookups.incrementAndGet() < 0), "Should not be authorized");
+        assertEquals(1, lookups.get(), "Should only lookup once");
+
+        // Another organization should not reuse the decision
+        assertTrue(cache.isAuthorized(UUID.randomUUID().toString(), ResourceType.Group, groupID, () -> lookups.incrementAndGet() > 0), "Should be authorized");
+        assertEquals(2, lookups.get(), "Should lookup for different organization");
+    }
+
+    @Test
+    void testInvalidation() {
+        final PathAuthorizationCache cache = new PathAuthorizationCache(new AuthCacheConfiguration());
+        final AtomicInteger lookups = new AtomicInteger();
+        final String patientID = UUID.randomUUID().toString();
+
+        assertTrue(cache.isAuthorized(ORG_ID, ResourceType.Patient, patientID, () -> lookups.incrementAndGet() > 0), "Should be authorized");
+        cache.invalidate(ResourceType.Patient, patientID);
+        assertFalse(cache.isAuthorized(ORG_ID, ResourceType.Patient, patientID, () -> lookups.incrementAndGet() < 0), "Should not be authorized after deletion");
+        assertEquals(2, lookups.get(), "Should lookup after invalidation");
+    }
+
+    @Test
+    void testDisabledCache() {
+        final AuthCacheConfiguration config = new AuthCacheConfiguration();
+        config.setEnabled(false);
+        final PathAuthorizationCache cache = new PathAuthorizationCache(config);
+        final AtomicInteger lookups = new AtomicInteger();
+        final String patientID = UUID.randomUUID().toString();
+
+        cache.isAuthorized(ORG_ID, ResourceType.Patient, patientID, () -> lookups.incrementAndGet() > 0);
+        cache.isAuthorized(ORG_ID, ResourceType.Patient, patientID, () -> lookups.incrementAndGet() > 0);
+        assertEquals(2, lookups.get(), "Should lookup every time");
+    }
+}
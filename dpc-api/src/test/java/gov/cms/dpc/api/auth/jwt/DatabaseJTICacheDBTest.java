@@ -0,0 +1,140 @@
+package gov.cms.dpc.api.auth.jwt;
+
+import gov.cms.dpc.common.hibernate.auth.DPCAuthManagedSessionFactory;
+import gov.cms.dpc.testing.BufferedLoggerHandler;
+import liquibase.Liquibase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the {@link DatabaseJTICache} queries against the auth database, with each cache instance standing in for a separate API node.
+ */
+@ExtendWith(BufferedLoggerHandler.class)
+class DatabaseJTICacheDBTest {
+
+    private static SessionFactory sessionFactory;
+
+    @BeforeAll
+    static void setup() {
+        final Configuration conf = new Configuration()
+                .setProperty("hibernate.connection.driver_class", "org.postgresql.Driver")
+                .setProperty("hibernate.connection.url", "jdbc:postgresql://localhost:5432/dpc_auth")
+                .setProperty("hibernate.connection.username", "postgres")
+                .setProperty("hibernate.connection.password", "dpc-safe")
+                .setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQL10Dialect");
+        sessionFactory = conf.buildSessionFactory();
+
+        // Create the JTI_CACHE table, if the migrations haven't already been run
+        try (final Session session = sessionFactory.openSession()) {
+            session.doWork(connection -> {
+                try {
+                    new Liquibase("migrations/auth.migrations.xml", new ClassLoaderResourceAccessor(), new JdbcConnection(connection)).update("");
+                } catch (LiquibaseException e) {
+                    throw new SQLException("Cannot migrate auth database", e);
+                }
+            });
+        }
+    }
+
+    @AfterAll
+    static void shutdown() {
+        sessionFactory.close();
+    }
+
+    @AfterEach
+    void truncate() {
+        inTransaction(session -> session.createNativeQuery("DELETE FROM jti_cache").executeUpdate());
+    }
+
+    @Test
+    void testReplayFromOtherNode() {
+        final DatabaseJTICache first = buildNode(1_000);
+        final DatabaseJTICache second = buildNode(1_000);
+        final String jti = UUID.randomUUID().toString();
+
+        assertTrue(first.isJTIOk(jti, true), "JTI should be ok on first sighting");
+        // The second node hasn't seen the JTI, so the rejection has to come from the database
+        assertFalse(second.isJTIOk(jti, false), "JTI should be replayed");
+        assertFalse(buildNode(1_000).isJTIOk(jti, true), "JTI should be replayed");
+        assertEquals(1, countJTIs(), "Should only persist the JTI once");
+    }
+
+    @Test
+    void testExpiredJTIReused() {
+        final String jti = UUID.randomUUID().toString();
+        insertJTI(jti, "NOW() - INTERVAL '1 minute'");
+
+        final DatabaseJTICache node = buildNode(1_000);
+        assertTrue(node.isJTIOk(jti, true), "Expired JTI should be ok");
+        assertAll(() -> assertEquals(1, countJTIs(), "Should replace the expired JTI"),
+                () -> assertEquals(1L, countUnexpired(), "Should extend the JTI expiration"),
+                () -> assertFalse(buildNode(1_000).isJTIOk(jti, true), "Re-used JTI should be replayed"));
+    }
+
+    @Test
+    void testCleanupRemovesExpired() {
+        for (int i = 0; i < 25; i++) {
+            insertJTI(UUID.randomUUID().toString(), "NOW() - INTERVAL '1 minute'");
+        }
+        for (int i = 0; i < 3; i++) {
+            insertJTI(UUID.randomUUID().toString(), "NOW() + INTERVAL '5 minutes'");
+        }
+
+        // Batches of 10, so the last batch is partial
+        assertEquals(25, buildNode(10).removeExpired(), "Should remove all expired JTIs");
+        assertAll(() -> assertEquals(3, countJTIs(), "Should keep unexpired JTIs"),
+                () -> assertEquals(3L, countUnexpired(), "Should only have unexpired JTIs"));
+
+        assertEquals(0, buildNode(10).removeExpired(), "Should have nothing left to remove");
+    }
+
+    private static DatabaseJTICache buildNode(int cleanupBatchSize) {
+        final JTICacheConfiguration config = new JTICacheConfiguration();
+        config.setCleanupBatchSize(cleanupBatchSize);
+        return new DatabaseJTICache(new DPCAuthManagedSessionFactory(sessionFactory), config);
+    }
+
+    private static void insertJTI(String jti, String expires) {
+        inTransaction(session -> session.createNativeQuery(String.format("INSERT INTO jti_cache (jti, expires) VALUES (:jti, %s)", expires))
+                .setParameter("jti", jti)
+                .executeUpdate());
+    }
+
+    private static long countJTIs() {
+        return inTransaction(session -> ((Number) session.createNativeQuery("SELECT COUNT(*) FROM jti_cache").getSingleResult()).longValue());
+    }
+
+    private static long countUnexpired() {
+        return inTransaction(session -> ((Number) session.createNativeQuery("SELECT COUNT(*) FROM jti_cache WHERE expires >= NOW()").getSingleResult()).longValue());
+    }
+
+    private static <T> T inTransaction(Function<Session, T> function) {
+        try (final Session session = sessionFactory.openSession()) {
+            final Transaction tx = session.beginTransaction();
+            try {
+                final T result = function.apply(session);
+                tx.commit();
+                return result;
+            } catch (Exception e) {
+                tx.rollback();
+                throw e;
+            }
+        }
+    }
+}
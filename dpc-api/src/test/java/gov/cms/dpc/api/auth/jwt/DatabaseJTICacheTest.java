@@ -0,0 +1,85 @@
+package gov.cms.dpc.api.auth.jwt;
+
+import gov.cms.dpc.common.hibernate.auth.DPCAuthManagedSessionFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.query.NativeQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("rawtypes")
+class DatabaseJTICacheTest {
+
+    private NativeQuery query;
+    private DatabaseJTICache cache;
+
+    DatabaseJTICacheTest() {
+        // Not used
+    }
+
+    @BeforeEach
+    void setup() {
+        final Session session = mock(Session.class);
+        final SessionFactory sessionFactory = mock(SessionFactory.class);
+        query = mock(NativeQuery.class, Mockito.RETURNS_SELF);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(mock(Transaction.class));
+        when(session.createNativeQuery(anyString())).thenReturn(query);
+
+        final JTICacheConfiguration config = new JTICacheConfiguration();
+        config.setCleanupBatchSize(10);
+        cache = new DatabaseJTICache(new DPCAuthManagedSessionFactory(sessionFactory), config);
+    }
+
+    @Test
+    void testFirstSightingPersisted() {
+        when(query.executeUpdate()).thenReturn(1);
+        final String jti = UUID.randomUUID().toString();
+
+        assertTrue(cache.isJTIOk(jti, true), "JTI should be ok");
+        // Replay should be caught by the near-cache
+        assertFalse(cache.isJTIOk(jti, true), "JTI should be replayed");
+        assertFalse(cache.isJTIOk(jti, false), "JTI should be replayed");
+        verify(query, times(1)).executeUpdate();
+    }
+
+    @Test
+    void testReplayFromOtherNode() {
+        // Row already exists in the database, so nothing is inserted
+        when(query.executeUpdate()).thenReturn(0);
+        final String jti = UUID.randomUUID().toString();
+
+        assertFalse(cache.isJTIOk(jti, true), "JTI should be replayed");
+        assertFalse(cache.isJTIOk(jti, true), "JTI should be replayed");
+        verify(query, times(1)).executeUpdate();
+    }
+
+    @Test
+    void testValidateDoesNotPersist() {
+        when(query.getSingleResult()).thenReturn(0L);
+        final String jti = UUID.randomUUID().toString();
+
+        assertTrue(cache.isJTIOk(jti, false), "JTI should be ok");
+        assertTrue(cache.isJTIOk(jti, false), "JTI should still be ok");
+        verify(query, never()).executeUpdate();
+        verify(query, times(2)).getSingleResult();
+    }
+
+    @Test
+    void testBatchedCleanup() {
+        when(query.executeUpdate()).thenReturn(10, 10, 3);
+
+        assertEquals(23, cache.removeExpired(), "Should remove all expired JTIs");
+        verify(query, times(3)).executeUpdate();
+    }
+}
@@ -5,9 +5,11 @@ import ca.uhn.fhir.rest.client.api.IGenericClient;
 import com.github.nitram509.jmacaroons.MacaroonVersion;
 import com.github.nitram509.jmacaroons.MacaroonsBuilder;
 import gov.cms.dpc.api.APITestHelpers;
+import gov.cms.dpc.api.auth.AuthCacheConfiguration;
 import gov.cms.dpc.api.auth.DPCAuthDynamicFeature;
 import gov.cms.dpc.api.auth.DPCAuthFactory;
 import gov.cms.dpc.api.auth.macaroonauth.MacaroonsAuthenticator;
+import gov.cms.dpc.api.auth.macaroonauth.PathAuthorizationCache;
 import gov.cms.dpc.api.entities.PublicKeyEntity;
 import gov.cms.dpc.api.jdbi.PublicKeyDAO;
 import gov.cms.dpc.api.jdbi.TokenDAO;
@@ -756,7 +758,7 @@ class JWTUnitTests {
         final PublicKeyDAO publicKeyDAO = mockKeyDAO();
         Mockito.when(tokenDAO.fetchTokens(Mockito.any())).thenAnswer(answer -> "46ac7ad6-7487-4dd0-baa0-6e2c8cae76a0");
 
-        final JwtKeyResolver resolver = spy(new JwtKeyResolver(publicKeyDAO));
+        final JwtKeyResolver resolver = spy(new JwtKeyResolver(publicKeyDAO, new PublicKeyCache(new AuthCacheConfiguration())));
         final CaffeineJTICache jtiCache = new CaffeineJTICache();
 
         UUID organizationID = UUID.randomUUID();
@@ -764,7 +766,7 @@ class JWTUnitTests {
 
         final TokenPolicy tokenPolicy = new TokenPolicy();
 
-        final DPCAuthFactory factory = new DPCAuthFactory(bakery, new MacaroonsAuthenticator(client), tokenDAO);
+        final DPCAuthFactory factory = new DPCAuthFactory(bakery, new MacaroonsAuthenticator(client, new PathAuthorizationCache(new AuthCacheConfiguration())), tokenDAO);
         final DPCAuthDynamicFeature dynamicFeature = new DPCAuthDynamicFeature(factory);
 
         final TokenResource tokenResource = new TokenResource(tokenDAO, bakery, tokenPolicy, resolver, jtiCache, "localhost:3002/v1");
@@ -3,6 +3,7 @@ package gov.cms.dpc.api.auth.jwt;
 import com.github.nitram509.jmacaroons.Macaroon;
 import com.github.nitram509.jmacaroons.MacaroonVersion;
 import com.github.nitram509.jmacaroons.MacaroonsBuilder;
+import gov.cms.dpc.api.auth.AuthCacheConfiguration;
 import gov.cms.dpc.api.entities.PublicKeyEntity;
 import gov.cms.dpc.api.jdbi.PublicKeyDAO;
 import gov.cms.dpc.testing.APIAuthHelpers;
@@ -74,7 +75,7 @@ class JwtKeyResolverTests {
         Mockito.when(dao.fetchPublicKey(organization1, eccKeyID)).thenReturn(Optional.of(goodECCEntity));
         Mockito.when(dao.fetchPublicKey(organization1, notRealKeyID)).thenReturn(Optional.empty());
         Mockito.when(dao.fetchPublicKey(eq(organization2), Mockito.any())).thenReturn(Optional.empty());
-        resolver = new JwtKeyResolver(dao);
+        resolver = new JwtKeyResolver(dao, new PublicKeyCache(new AuthCacheConfiguration()));
     }
 
     @Test
@@ -192,6 +193,22 @@ class JwtKeyResolverTests {
                 () -> assertEquals("Invalid Public Key ID", exception.getMessage(), "Should have non-UUID message"));
     }
 
+    @Test
+    void testCachedKeyWrongOrg() {
+        final JwsHeader headerMock = mock(JwsHeader.class);
+        final Claims mockClaims = mock(Claims.class);
+        Mockito.when(mockClaims.getIssuer()).thenReturn(org1Macaroon);
+        Mockito.when(headerMock.getKeyId()).thenReturn(correctKeyID.toString());
+        assertEquals(keyPair.getPublic(), resolver.resolveSigningKey(headerMock, mockClaims), "Keys should match");
+
+        // The cached key should not be returned for a different organization
+        Mockito.when(mockClaims.getIssuer()).thenReturn(org2Macaroon);
+        final WebApplicationException exception = assertThrows(WebApplicationException.class, () -> resolver.resolveSigningKey(headerMock, mockClaims));
+
+        assertAll(() -> assertEquals(HttpStatus.UNAUTHORIZED_401, exception.getResponse().getStatus(), "Should be unauthorized"),
+                () -> assertTrue(exception.getMessage().contains("Cannot find public key with id:"), "Should have KID message"));
+    }
+
     private static String makeMacaroon(UUID orgID) {
         // Manually create a fake Macaroon with just the org id
         final Macaroon m = MacaroonsBuilder.create("test.local", "fake key", "make id");
@@ -1,5 +1,6 @@
 package gov.cms.dpc.api.auth.macaroons;
 
+import com.codahale.metrics.MetricRegistry;
 import com.github.nitram509.jmacaroons.Macaroon;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigBeanFactory;
@@ -33,7 +34,7 @@ class BakeryTests {
 
     @BeforeEach
     void setup() {
-        bakery = new BakeryProvider(generateTokenPolicy(), new MemoryRootKeyStore(new SecureRandom()), new MemoryThirdPartyKeyStore(), "http://test.local", BakeryKeyPair.generate()).get();
+        bakery = new BakeryProvider(generateTokenPolicy(), new MemoryRootKeyStore(new SecureRandom()), new MemoryThirdPartyKeyStore(), "http://test.local", BakeryKeyPair.generate(), new MetricRegistry()).get();
     }
 
 
@@ -5,7 +5,9 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 import gov.cms.dpc.api.APITestHelpers;
+import gov.cms.dpc.api.auth.AuthCacheConfiguration;
 import gov.cms.dpc.api.auth.OrganizationPrincipal;
+import gov.cms.dpc.api.auth.macaroonauth.PathAuthorizationCache;
 import gov.cms.dpc.bluebutton.client.BlueButtonClient;
 import gov.cms.dpc.fhir.FHIRExtractors;
 import gov.cms.dpc.queue.IJobQueue;
@@ -46,7 +48,7 @@ public class AttestationUnitTests {
         final IJobQueue mockQueue = Mockito.mock(IJobQueue.class);
         final IGenericClient mockClient = Mockito.mock(IGenericClient.class);
         final BlueButtonClient mockBfdClient = Mockito.mock(BlueButtonClient.class);
-        groupResource = new GroupResource(mockQueue, mockClient, "http://local.test", mockBfdClient);
+        groupResource = new GroupResource(mockQueue, mockClient, "http://local.test", mockBfdClient, new PathAuthorizationCache(new AuthCacheConfiguration()));
     }
 
     @BeforeEach
@@ -2,9 +2,11 @@ package gov.cms.dpc.attribution.jdbi;
 
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.InsertSetMoreStep;
 import org.jooq.TableField;
 import org.jooq.impl.UpdatableRecordImpl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -18,17 +20,32 @@ import java.util.Map;
  * Finally, any specific return fields are listed. If no fields are given, the entire record is returned.
  * <p>
  * If there is no conflicting data in the database, the {@link org.jooq.Record} is inserted without modification.
+ * <p>
+ * Multiple records can be given, in which case {@link AbstractRecordUpserter#insertMissing()} inserts them using multi-row statements.
  *
  * @param <R> - Generic record type which extends {@link UpdatableRecordImpl}.
  */
 public abstract class AbstractRecordUpserter<R extends UpdatableRecordImpl<R>> {
 
+    /**
+     * Maximum number of rows to include in a single INSERT statement.
+     * This keeps us well below the Postgres limit of 32767 bind parameters per statement.
+     */
+    static final int BATCH_SIZE = 1000;
+
     private final DSLContext ctx;
-    private final R record;
+    private final List<R> records;
 
     AbstractRecordUpserter(DSLContext ctx, R record) {
+        this(ctx, List.of(record));
+    }
+
+    AbstractRecordUpserter(DSLContext ctx, List<R> records) {
+        if (records.isEmpty()) {
+            throw new IllegalArgumentException("Must have at least one record to upsert");
+        }
         this.ctx = ctx;
-        this.record = record;
+        this.records = records;
     }
 
     /**
@@ -57,12 +74,22 @@ public abstract class AbstractRecordUpserter<R extends UpdatableRecordImpl<R>> {
     abstract List<TableField<R, ?>> getReturnFields();
 
     /**
-     * Return the underlying record
+     * Return the underlying record.
+     * If multiple records were given, this returns the first one.
      *
      * @return - {@link R} record to be upserted
      */
     public R getRecord() {
-        return this.record;
+        return this.records.get(0);
+    }
+
+    /**
+     * Return all the underlying records
+     *
+     * @return - {@link List} of {@link R} records to be upserted
+     */
+    public List<R> getRecords() {
+        return this.records;
     }
 
     /**
@@ -73,7 +100,7 @@ public abstract class AbstractRecordUpserter<R extends UpdatableRecordImpl<R>> {
      * @return - {@link Map} of {@link String} {@link Object} values which will be updated when a conflict occurs.
      */
     public Map<String, Object> getUpdateMap(boolean excludeConflictFields) {
-        final Map<String, Object> recordMap = this.record.intoMap();
+        final Map<String, Object> recordMap = getRecord().intoMap();
         this.excludeMapFields(recordMap, getExcludedFields());
 
         // Always exclude primary keys
@@ -106,6 +133,7 @@ public abstract class AbstractRecordUpserter<R extends UpdatableRecordImpl<R>> {
      * @return - {@link R} containing only the fields specified by {@code returnFields}
      */
     public R upsert(Collection<TableField<R, ?>> returnFields, boolean excludeConflictFields) {
+        final R record = getRecord();
         var insertStep = ctx.insertInto(record.getTable())
                 .set(record)
                 .onConflict(getConflictFields())
@@ -123,6 +151,48 @@ public abstract class AbstractRecordUpserter<R extends UpdatableRecordImpl<R>> {
         }
     }
 
+    /**
+     * Insert all the records, skipping any which conflict (as determined by {@link AbstractRecordUpserter#getConflictFields()}) with an existing row.
+     * Existing rows are left unmodified.
+     * <p>
+     * Records are inserted with multi-row statements of at most {@link AbstractRecordUpserter#BATCH_SIZE} rows.
+     *
+     * @return - {@link List} of {@link R} which were actually inserted, containing only the fields specified by {@link AbstractRecordUpserter#getReturnFields()}
+     */
+    public List<R> insertMissing() {
+        return insertMissing(getReturnFields());
+    }
+
+    /**
+     * Insert all the records, skipping any which conflict (as determined by {@link AbstractRecordUpserter#getConflictFields()}) with an existing row.
+     * Existing rows are left unmodified.
+     *
+     * @param returnFields - {@link Collection} of {@link TableField} which specifies which values to return from the database
+     * @return - {@link List} of {@link R} which were actually inserted, containing only the fields specified by {@code returnFields}
+     */
+    public List<R> insertMissing(Collection<TableField<R, ?>> returnFields) {
+        final List<R> inserted = new ArrayList<>(this.records.size());
+        for (int i = 0; i < this.records.size(); i += BATCH_SIZE) {
+            final List<R> batch = this.records.subList(i, Math.min(i + BATCH_SIZE, this.records.size()));
+
+            InsertSetMoreStep<R> insertStep = ctx.insertInto(batch.get(0).getTable()).set(batch.get(0));
+            for (R record : batch.subList(1, batch.size())) {
+                insertStep = insertStep.newRecord().set(record);
+            }
+
+            final var conflictStep = insertStep
+                    .onConflict(getConflictFields())
+                    .doNothing();
+
+            if (returnFields.isEmpty()) {
+                inserted.addAll(conflictStep.returning().fetch());
+            } else {
+                inserted.addAll(conflictStep.returning(returnFields).fetch());
+            }
+        }
+        return inserted;
+    }
+
     private void excludeMapFields(Map<String, Object> recordMap, List<TableField<R, ?>> fields) {
         fields.stream()
                 .map(Field::getName)
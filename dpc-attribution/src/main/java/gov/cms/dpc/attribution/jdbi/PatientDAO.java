@@ -1,21 +1,30 @@
 package gov.cms.dpc.attribution.jdbi;
 
+import gov.cms.dpc.attribution.dao.tables.records.PatientsRecord;
 import gov.cms.dpc.common.entities.*;
 import gov.cms.dpc.common.hibernate.attribution.DPCManagedSessionFactory;
 import io.dropwizard.hibernate.AbstractDAO;
+import org.jooq.DSLContext;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
 
 import javax.inject.Inject;
 import javax.persistence.criteria.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static gov.cms.dpc.attribution.dao.tables.Patients.PATIENTS;
 
 public class PatientDAO extends AbstractDAO<PatientEntity> {
 
+    private final Settings settings;
+
     @Inject
-    public PatientDAO(DPCManagedSessionFactory factory) {
+    public PatientDAO(DPCManagedSessionFactory factory, Settings settings) {
         super(factory.getSessionFactory());
+        this.settings = settings;
     }
 
     public PatientEntity persistPatient(PatientEntity patient) {
@@ -52,6 +61,60 @@ public class PatientDAO extends AbstractDAO<PatientEntity> {
         return this.list(query);
     }
 
+    /**
+     * Register the given patients using set-based inserts, rather than persisting them one at a time.
+     * Patients which are already registered with their organization (matching MBI) are left unmodified.
+     * <p>
+     * This runs within the current transaction, so it must be called from a {@link io.dropwizard.hibernate.UnitOfWork}.
+     *
+     * @param patients - {@link Collection} of {@link PatientEntity} to register, which must not contain duplicate MBIs for the same organization
+     * @return - {@link Set} of {@link UUID} resource IDs of the patients which were actually created
+     */
+    public Set<UUID> bulkCreatePatients(Collection<PatientEntity> patients) {
+        if (patients.isEmpty()) {
+            return Collections.emptySet();
+        }
+        // Make sure any pending changes are visible to the inserts
+        currentSession().flush();
+        return currentSession().doReturningWork(connection -> {
+            final DSLContext context = DSL.using(connection, this.settings);
+            final OffsetDateTime created = OffsetDateTime.now(ZoneOffset.UTC);
+            final List<PatientsRecord> records = patients
+                    .stream()
+                    .map(patient -> patientEntityToRecord(context, patient, created))
+                    .collect(Collectors.toList());
+
+            return new PatientRecordUpserter(context, records)
+                    .insertMissing()
+                    .stream()
+                    .map(PatientsRecord::getId)
+                    .collect(Collectors.toSet());
+        });
+    }
+
+    /**
+     * Find all patients registered with the given organization, which match any of the given MBIs
+     *
+     * @param organizationID - {@link UUID} organization ID
+     * @param patientMBIs    - {@link Collection} of {@link String} patient MBIs
+     * @return - {@link List} of matching {@link PatientEntity}
+     */
+    public List<PatientEntity> findPatientsByMBI(UUID organizationID, Collection<String> patientMBIs) {
+        final List<String> mbis = new ArrayList<>(patientMBIs);
+        final List<PatientEntity> patients = new ArrayList<>(mbis.size());
+        // Split the MBIs into batches, to avoid exceeding the bind parameter limit
+        for (int i = 0; i < mbis.size(); i += AbstractRecordUpserter.BATCH_SIZE) {
+            final CriteriaBuilder builder = currentSession().getCriteriaBuilder();
+            final CriteriaQuery<PatientEntity> query = builder.createQuery(PatientEntity.class);
+            final Root<PatientEntity> root = query.from(PatientEntity.class);
+            query.select(root);
+            query.where(builder.equal(root.get(PatientEntity_.organization).get(OrganizationEntity_.id), organizationID),
+                    root.get(PatientEntity_.beneficiaryID).in(mbis.subList(i, Math.min(i + AbstractRecordUpserter.BATCH_SIZE, mbis.size()))));
+            patients.addAll(this.list(query));
+        }
+        return patients;
+    }
+
     public boolean deletePatient(UUID patientID) {
         final PatientEntity patientEntity = this.get(patientID);
 
@@ -114,4 +177,14 @@ public class PatientDAO extends AbstractDAO<PatientEntity> {
                 patientEntity.getID()));
         return this.currentSession().createQuery(criteriaDelete).executeUpdate();
     }
+
+    private static PatientsRecord patientEntityToRecord(DSLContext context, PatientEntity entity, OffsetDateTime created) {
+        final PatientsRecord record = context.newRecord(PATIENTS, entity);
+        record.setId(entity.getID());
+        record.setOrganizationId(entity.getOrganization().getId());
+        record.setCreatedAt(created);
+        record.setUpdatedAt(created);
+        record.setGender(entity.getGender().ordinal());
+        return record;
+    }
 }
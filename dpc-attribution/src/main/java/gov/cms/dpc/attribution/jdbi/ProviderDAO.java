@@ -1,26 +1,35 @@
 package gov.cms.dpc.attribution.jdbi;
 
+import gov.cms.dpc.attribution.dao.tables.records.ProvidersRecord;
 import gov.cms.dpc.common.entities.OrganizationEntity_;
 import gov.cms.dpc.common.entities.ProviderEntity;
 import gov.cms.dpc.common.entities.ProviderEntity_;
 import gov.cms.dpc.common.hibernate.attribution.DPCManagedSessionFactory;
 import io.dropwizard.hibernate.AbstractDAO;
+import org.jooq.DSLContext;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
 
 import javax.inject.Inject;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static gov.cms.dpc.attribution.dao.tables.Providers.PROVIDERS;
 
 public class ProviderDAO extends AbstractDAO<ProviderEntity> {
 
+    private final Settings settings;
+
     @Inject
-    public ProviderDAO(DPCManagedSessionFactory factory) {
+    public ProviderDAO(DPCManagedSessionFactory factory, Settings settings) {
         super(factory.getSessionFactory());
+        this.settings = settings;
     }
 
     public ProviderEntity persistProvider(ProviderEntity provider) {
@@ -55,6 +64,60 @@ public class ProviderDAO extends AbstractDAO<ProviderEntity> {
         return this.list(query);
     }
 
+    /**
+     * Register the given providers using set-based inserts, rather than persisting them one at a time.
+     * Providers which are already registered with their organization (matching NPI) are left unmodified.
+     * <p>
+     * This runs within the current transaction, so it must be called from a {@link io.dropwizard.hibernate.UnitOfWork}.
+     *
+     * @param providers - {@link Collection} of {@link ProviderEntity} to register, which must not contain duplicate NPIs for the same organization
+     * @return - {@link Set} of {@link UUID} resource IDs of the providers which were actually created
+     */
+    public Set<UUID> bulkCreateProviders(Collection<ProviderEntity> providers) {
+        if (providers.isEmpty()) {
+            return Collections.emptySet();
+        }
+        // Make sure any pending changes are visible to the inserts
+        currentSession().flush();
+        return currentSession().doReturningWork(connection -> {
+            final DSLContext context = DSL.using(connection, this.settings);
+            final OffsetDateTime created = OffsetDateTime.now(ZoneOffset.UTC);
+            final List<ProvidersRecord> records = providers
+                    .stream()
+                    .map(provider -> providerEntityToRecord(context, provider, created))
+                    .collect(Collectors.toList());
+
+            return new ProviderRecordUpserter(context, records)
+                    .insertMissing()
+                    .stream()
+                    .map(ProvidersRecord::getId)
+                    .collect(Collectors.toSet());
+        });
+    }
+
+    /**
+     * Find all providers registered with the given organization, which match any of the given NPIs
+     *
+     * @param organizationID - {@link UUID} organization ID
+     * @param providerNPIs   - {@link Collection} of {@link String} provider NPIs
+     * @return - {@link List} of matching {@link ProviderEntity}
+     */
+    public List<ProviderEntity> findProvidersByNPI(UUID organizationID, Collection<String> providerNPIs) {
+        final List<String> npis = new ArrayList<>(providerNPIs);
+        final List<ProviderEntity> providers = new ArrayList<>(npis.size());
+        // Split the NPIs into batches, to avoid exceeding the bind parameter limit
+        for (int i = 0; i < npis.size(); i += AbstractRecordUpserter.BATCH_SIZE) {
+            final CriteriaBuilder builder = currentSession().getCriteriaBuilder();
+            final CriteriaQuery<ProviderEntity> query = builder.createQuery(ProviderEntity.class);
+            final Root<ProviderEntity> root = query.from(ProviderEntity.class);
+            query.select(root);
+            query.where(builder.equal(root.join(ProviderEntity_.organization).get(OrganizationEntity_.id), organizationID),
+                    root.get(ProviderEntity_.providerNPI).in(npis.subList(i, Math.min(i + AbstractRecordUpserter.BATCH_SIZE, npis.size()))));
+            providers.addAll(this.list(query));
+        }
+        return providers;
+    }
+
     /**
      * Remove the {@link ProviderEntity} and all associated resources.
      *
@@ -122,4 +185,13 @@ public class ProviderDAO extends AbstractDAO<ProviderEntity> {
         }
         return predicates;
     }
+
+    private static ProvidersRecord providerEntityToRecord(DSLContext context, ProviderEntity entity, OffsetDateTime created) {
+        final ProvidersRecord record = context.newRecord(PROVIDERS, entity);
+        record.setId(entity.getID());
+        record.setOrganizationId(entity.getOrganization().getId());
+        record.setCreatedAt(created);
+        record.setUpdatedAt(created);
+        return record;
+    }
 }
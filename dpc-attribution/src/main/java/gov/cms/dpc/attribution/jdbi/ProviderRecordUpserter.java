@@ -18,6 +18,10 @@ public class ProviderRecordUpserter extends AbstractRecordUpserter<ProvidersReco
         super(ctx, record);
     }
 
+    public ProviderRecordUpserter(DSLContext ctx, List<ProvidersRecord> records) {
+        super(ctx, records);
+    }
+
     @Override
     List<TableField<ProvidersRecord, ?>> getConflictFields() {
         return List.of(PROVIDERS.PROVIDER_ID, PROVIDERS.ORGANIZATION_ID);
@@ -6,6 +6,9 @@ import gov.cms.dpc.common.entities.PatientEntity_;
 import gov.cms.dpc.common.entities.RosterEntity_;
 import gov.cms.dpc.common.hibernate.attribution.DPCManagedSessionFactory;
 import io.dropwizard.hibernate.AbstractDAO;
+import org.jooq.DSLContext;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,17 +17,23 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 public class RelationshipDAO extends AbstractDAO<AttributionRelationship> {
 
     private static final Logger logger = LoggerFactory.getLogger(RelationshipDAO.class);
 
+    private final Settings settings;
+
     @Inject
-    public RelationshipDAO(DPCManagedSessionFactory sessionFactory) {
+    public RelationshipDAO(DPCManagedSessionFactory sessionFactory, Settings settings) {
         super(sessionFactory.getSessionFactory());
+        this.settings = settings;
     }
 
     /**
@@ -96,4 +105,64 @@ public class RelationshipDAO extends AbstractDAO<AttributionRelationship> {
     public List<AttributionRelationship> getAttributions() {
         return list(query("FROM ATTRIBUTIONS"));
     }
+
+    /**
+     * Find a patient, in the given collection, which does not exist
+     *
+     * @param patientIDs - {@link Collection} of {@link UUID} patient IDs to check
+     * @return - {@link Optional} {@link UUID} of a missing patient, empty if all of the patients exist
+     */
+    public Optional<UUID> findMissingPatient(Collection<UUID> patientIDs) {
+        return withContext(ctx -> RosterUtils.findMissingPatient(ctx, patientIDs));
+    }
+
+    /**
+     * Add the given patients to the roster, re-extending (or re-activating) any existing {@link AttributionRelationship}.
+     * This is done with a single statement, regardless of the number of patients.
+     *
+     * @param rosterID    - {@link UUID} of roster to add patients to
+     * @param patientIDs  - {@link Collection} of {@link UUID} patient IDs to add
+     * @param periodBegin - {@link OffsetDateTime} start of new membership periods
+     * @param periodEnd   - {@link OffsetDateTime} expiration of the membership periods
+     * @return - number of {@link AttributionRelationship} created or updated
+     */
+    public int addRosterMembers(UUID rosterID, Collection<UUID> patientIDs, OffsetDateTime periodBegin, OffsetDateTime periodEnd) {
+        logger.debug("Adding {} patients to Group/{}", patientIDs.size(), rosterID);
+        return withContext(ctx -> RosterUtils.upsertAttributions(ctx, rosterID, patientIDs, periodBegin, periodEnd));
+    }
+
+    /**
+     * Replace all {@link AttributionRelationship} for the given roster with the given patients
+     *
+     * @param rosterID    - {@link UUID} of roster to update
+     * @param patientIDs  - {@link Collection} of {@link UUID} patient IDs which should be the new roster members
+     * @param periodBegin - {@link OffsetDateTime} start of the membership periods
+     * @param periodEnd   - {@link OffsetDateTime} expiration of the membership periods
+     * @return - number of {@link AttributionRelationship} created
+     */
+    public int replaceRosterMembers(UUID rosterID, Collection<UUID> patientIDs, OffsetDateTime periodBegin, OffsetDateTime periodEnd) {
+        logger.debug("Replacing members of Group/{} with {} patients", rosterID, patientIDs.size());
+        return withContext(ctx -> RosterUtils.replaceAttributions(ctx, rosterID, patientIDs, periodBegin, periodEnd));
+    }
+
+    /**
+     * Mark the {@link AttributionRelationship} between the roster and the given patients as inactive
+     *
+     * @param rosterID   - {@link UUID} of roster to remove patients from
+     * @param patientIDs - {@link Collection} of {@link UUID} patient IDs to remove
+     * @param periodEnd  - {@link OffsetDateTime} end of the membership periods
+     * @return - number of {@link AttributionRelationship} updated
+     */
+    public int removeRosterMembers(UUID rosterID, Collection<UUID> patientIDs, OffsetDateTime periodEnd) {
+        logger.debug("Removing {} patients from Group/{}", patientIDs.size(), rosterID);
+        return withContext(ctx -> RosterUtils.deactivateAttributions(ctx, rosterID, patientIDs, periodEnd));
+    }
+
+    private <T> T withContext(Function<DSLContext, T> function) {
+        // Make sure any pending changes are visible to the set-based statements, and that no stale relationships are left in the session afterwards
+        currentSession().flush();
+        final T result = currentSession().doReturningWork(connection -> function.apply(DSL.using(connection, this.settings)));
+        currentSession().clear();
+        return result;
+    }
 }
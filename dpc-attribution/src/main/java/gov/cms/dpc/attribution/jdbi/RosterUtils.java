@@ -7,15 +7,31 @@ import gov.cms.dpc.fhir.FHIRExtractors;
 import org.hl7.fhir.dstu3.model.Group;
 import org.hl7.fhir.dstu3.model.IdType;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
 
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Optional;
 import java.util.UUID;
 
+import static gov.cms.dpc.attribution.dao.tables.Attributions.ATTRIBUTIONS;
+import static gov.cms.dpc.attribution.dao.tables.Patients.PATIENTS;
 import static gov.cms.dpc.attribution.dao.tables.Providers.PROVIDERS;
 
+/**
+ * Helpers for modifying rosters and their attribution relationships directly via jOOQ.
+ * <p>
+ * The roster membership methods are set-based, the patient IDs are bound as a single array parameter and expanded server-side with {@code unnest},
+ * so the number of statements executed does not depend on the size of the roster.
+ */
 public class RosterUtils {
 
+    private static final Field<UUID> MEMBER_ID = DSL.field(DSL.name("members", "patient_id"), UUID.class);
+
     private RosterUtils() {
         // Not used
     }
@@ -54,4 +70,86 @@ public class RosterUtils {
                 .forEach(ctx::executeInsert);
     }
 
+    /**
+     * Find a patient, in the given collection, which does not exist in the database
+     *
+     * @param ctx        - {@link DSLContext} to use
+     * @param patientIDs - {@link Collection} of {@link UUID} patient IDs to check
+     * @return - {@link Optional} {@link UUID} of a missing patient, empty if all of the patients exist
+     */
+    public static Optional<UUID> findMissingPatient(DSLContext ctx, Collection<UUID> patientIDs) {
+        return ctx.select(MEMBER_ID)
+                .from(members(patientIDs))
+                .leftJoin(PATIENTS).on(PATIENTS.ID.eq(MEMBER_ID))
+                .where(PATIENTS.ID.isNull())
+                .limit(1)
+                .fetchOptional(MEMBER_ID);
+    }
+
+    /**
+     * Add the given patients to the roster, or re-extend their existing attribution relationships.
+     * Relationships which were previously inactive are re-activated and start a new membership period.
+     *
+     * @param ctx         - {@link DSLContext} to use
+     * @param rosterID    - {@link UUID} of roster to add patients to
+     * @param patientIDs  - {@link Collection} of {@link UUID} patient IDs to add
+     * @param periodBegin - {@link OffsetDateTime} start of new membership periods
+     * @param periodEnd   - {@link OffsetDateTime} expiration of the membership periods
+     * @return - number of relationships created or updated
+     */
+    public static int upsertAttributions(DSLContext ctx, UUID rosterID, Collection<UUID> patientIDs, OffsetDateTime periodBegin, OffsetDateTime periodEnd) {
+        return ctx.insertInto(ATTRIBUTIONS, ATTRIBUTIONS.ROSTER_ID, ATTRIBUTIONS.PATIENT_ID, ATTRIBUTIONS.PERIOD_BEGIN, ATTRIBUTIONS.PERIOD_END, ATTRIBUTIONS.INACTIVE)
+                .select(DSL.select(DSL.val(rosterID), MEMBER_ID, DSL.val(periodBegin), DSL.val(periodEnd), DSL.val(false))
+                        .from(members(patientIDs)))
+                .onConflict(ATTRIBUTIONS.ROSTER_ID, ATTRIBUTIONS.PATIENT_ID)
+                .doUpdate()
+                .set(ATTRIBUTIONS.PERIOD_BEGIN, DSL.when(ATTRIBUTIONS.INACTIVE.isTrue(), DSL.val(periodBegin)).otherwise(ATTRIBUTIONS.PERIOD_BEGIN))
+                .set(ATTRIBUTIONS.PERIOD_END, periodEnd)
+                .set(ATTRIBUTIONS.INACTIVE, false)
+                .execute();
+    }
+
+    /**
+     * Replace all of the attribution relationships for the given roster
+     *
+     * @param ctx         - {@link DSLContext} to use
+     * @param rosterID    - {@link UUID} of roster to update
+     * @param patientIDs  - {@link Collection} of {@link UUID} patient IDs which should be the new roster members
+     * @param periodBegin - {@link OffsetDateTime} start of the membership periods
+     * @param periodEnd   - {@link OffsetDateTime} expiration of the membership periods
+     * @return - number of relationships created
+     */
+    public static int replaceAttributions(DSLContext ctx, UUID rosterID, Collection<UUID> patientIDs, OffsetDateTime periodBegin, OffsetDateTime periodEnd) {
+        ctx.deleteFrom(ATTRIBUTIONS)
+                .where(ATTRIBUTIONS.ROSTER_ID.eq(rosterID))
+                .execute();
+        if (patientIDs.isEmpty()) {
+            return 0;
+        }
+        return upsertAttributions(ctx, rosterID, patientIDs, periodBegin, periodEnd);
+    }
+
+    /**
+     * Mark the attribution relationships between the roster and the given patients as inactive
+     *
+     * @param ctx        - {@link DSLContext} to use
+     * @param rosterID   - {@link UUID} of roster to remove patients from
+     * @param patientIDs - {@link Collection} of {@link UUID} patient IDs to remove
+     * @param periodEnd  - {@link OffsetDateTime} end of the membership periods
+     * @return - number of relationships updated
+     */
+    public static int deactivateAttributions(DSLContext ctx, UUID rosterID, Collection<UUID> patientIDs, OffsetDateTime periodEnd) {
+        return ctx.update(ATTRIBUTIONS)
+                .set(ATTRIBUTIONS.INACTIVE, true)
+                .set(ATTRIBUTIONS.PERIOD_END, periodEnd)
+                .where(ATTRIBUTIONS.ROSTER_ID.eq(rosterID))
+                .and(ATTRIBUTIONS.PATIENT_ID.in(DSL.select(MEMBER_ID).from(members(patientIDs))))
+                .execute();
+    }
+
+    private static Table<?> members(Collection<UUID> patientIDs) {
+        // Duplicates would cause the upsert to touch the same row twice, which Postgres rejects
+        final UUID[] ids = new LinkedHashSet<>(patientIDs).toArray(new UUID[0]);
+        return DSL.unnest(ids).as("members", "patient_id");
+    }
 }
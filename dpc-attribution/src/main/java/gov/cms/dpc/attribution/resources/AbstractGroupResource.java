@@ -1,6 +1,7 @@
 package gov.cms.dpc.attribution.resources;
 
 import gov.cms.dpc.fhir.annotations.FHIR;
+import gov.cms.dpc.fhir.dropwizard.handlers.StreamingBundle;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.hl7.fhir.dstu3.model.Group;
 import org.hl7.fhir.dstu3.model.Patient;
@@ -31,7 +32,7 @@ public abstract class AbstractGroupResource {
 
     @GET
     @Path("/{rosterID}/$patients")
-    public abstract List<Patient> getAttributedPatients(@NotNull UUID rosterID, boolean activeOnly);
+    public abstract StreamingBundle<Patient> getAttributedPatients(@NotNull UUID rosterID, boolean activeOnly);
 
     @PUT
     @Path("/{rosterID}")
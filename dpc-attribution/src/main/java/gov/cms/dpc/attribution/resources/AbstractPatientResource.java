@@ -1,6 +1,7 @@
 package gov.cms.dpc.attribution.resources;
 
 import gov.cms.dpc.fhir.annotations.FHIR;
+import org.hl7.fhir.dstu3.model.Bundle;
 import org.hl7.fhir.dstu3.model.Parameters;
 import org.hl7.fhir.dstu3.model.Patient;
 
@@ -25,7 +26,7 @@ public abstract class AbstractPatientResource {
 
     @POST
     @Path("/$submit")
-    public abstract List<Patient> bulkSubmitPatients(Parameters params);
+    public abstract Bundle bulkSubmitPatients(Parameters params);
 
     @GET
     @Path("/{patientID}")
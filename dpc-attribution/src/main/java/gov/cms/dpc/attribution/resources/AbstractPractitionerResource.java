@@ -45,15 +45,14 @@ public abstract class AbstractPractitionerResource {
 
     /**
      * Submit a {@link Bundle} of {@link Practitioner} resources as a single transaction
-     * Internally, this is implemented by calling {@link AbstractPractitionerResource#submitProvider(Practitioner)} for each entry in the bundle.
-     * This will be optimized at a later date
+     * The entire {@link Bundle} is validated up front, and the providers are then inserted using set-based statements.
      *
      * @param providerBundle - {@link Bundle} of {@link Practitioner} resources to submit
-     * @return - {@link Bundle} of newly created {@link Practitioner} resources
+     * @return - {@link Bundle} of {@link Practitioner} resources, with a response status for each submitted entry
      */
     @POST
     @Path("/$submit")
-    public abstract List<Practitioner> bulkSubmitProviders(Parameters providerBundle);
+    public abstract Bundle bulkSubmitProviders(Parameters providerBundle);
 
     /**
      * Fetch specific {@link Practitioner} resource
@@ -9,8 +9,6 @@ import gov.cms.dpc.attribution.jdbi.RelationshipDAO;
 import gov.cms.dpc.attribution.jdbi.RosterDAO;
 import gov.cms.dpc.attribution.resources.AbstractGroupResource;
 import gov.cms.dpc.attribution.utils.RESTUtils;
-import gov.cms.dpc.common.entities.AttributionRelationship;
-import gov.cms.dpc.common.entities.PatientEntity;
 import gov.cms.dpc.common.entities.ProviderEntity;
 import gov.cms.dpc.common.entities.RosterEntity;
 import gov.cms.dpc.fhir.DPCIdentifierSystem;
@@ -18,6 +16,7 @@ import gov.cms.dpc.fhir.FHIRExtractors;
 import gov.cms.dpc.fhir.annotations.FHIR;
 import gov.cms.dpc.fhir.annotations.FHIRParameter;
 import gov.cms.dpc.fhir.converters.FHIREntityConverter;
+import gov.cms.dpc.fhir.dropwizard.handlers.StreamingBundle;
 import io.dropwizard.hibernate.UnitOfWork;
 import io.swagger.annotations.*;
 import org.apache.commons.lang3.tuple.Pair;
@@ -35,9 +34,12 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.Response;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Api(value = "Group")
 public class GroupResource extends AbstractGroupResource {
@@ -133,7 +135,7 @@ public class GroupResource extends AbstractGroupResource {
             "It returns empty Patient resources with only the MBI added as an identifier.", response = Bundle.class)
     @ApiResponses(@ApiResponse(code = 404, message = "Cannot find attribution roster"))
     @Override
-    public List<Patient> getAttributedPatients(@NotNull @PathParam("rosterID") UUID rosterID, @ApiParam(name = "active", value = "Return only active patients", defaultValue = "false") @QueryParam(value = "active") boolean activeOnly) {
+    public StreamingBundle<Patient> getAttributedPatients(@NotNull @PathParam("rosterID") UUID rosterID, @ApiParam(name = "active", value = "Return only active patients", defaultValue = "false") @QueryParam(value = "active") boolean activeOnly) {
         if (!this.rosterDAO.rosterExists(rosterID)) {
             throw new WebApplicationException(NOT_FOUND_EXCEPTION, Response.Status.NOT_FOUND);
         }
@@ -141,15 +143,16 @@ public class GroupResource extends AbstractGroupResource {
         // We have to do this because Hibernate/Dropwizard gets confused when returning a single type (like String)
         @SuppressWarnings("unchecked") final List<String> patientMBIs = this.patientDAO.fetchPatientMBIByRosterID(rosterID, activeOnly);
 
-        return patientMBIs
+        // Rosters can be large, so the patients are generated as the response is written
+        final Stream<Patient> patients = patientMBIs
                 .stream()
                 .map(mbi -> {
                     // Generate a fake patient, with only the ID set
                     final Patient p = new Patient();
                     p.addIdentifier().setSystem(DPCIdentifierSystem.MBI.getSystem()).setValue(mbi);
                     return p;
-                })
-                .collect(Collectors.toList());
+                });
+        return StreamingBundle.of(patients).withTotal(patientMBIs.size());
     }
 
 
@@ -165,26 +168,8 @@ public class GroupResource extends AbstractGroupResource {
             throw new WebApplicationException(NOT_FOUND_EXCEPTION, Response.Status.NOT_FOUND);
         }
 
-        final RosterEntity rosterEntity = new RosterEntity();
-        rosterEntity.setId(rosterID);
         final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
-
-        // Remove all roster relationships
-        this.relationshipDAO.removeRosterAttributions(rosterID);
-
-        groupUpdate
-                .getMember()
-                .stream()
-                .map(Group.GroupMemberComponent::getEntity)
-                .map(ref -> {
-                    final PatientEntity pe = new PatientEntity();
-                    pe.setID(UUID.fromString(new IdType(ref.getReference()).getIdPart()));
-                    return pe;
-                })
-                .map(pe -> new AttributionRelationship(rosterEntity, pe))
-                .peek(relationship -> relationship.setPeriodEnd(generateExpirationTime()))
-                .peek(relationship -> relationship.setPeriodBegin(now))
-                .forEach(relationshipDAO::addAttributionRelationship);
+        this.relationshipDAO.replaceRosterMembers(rosterID, getMemberIDs(groupUpdate), now, generateExpirationTime());
 
         final RosterEntity rosterEntity1 = rosterDAO.getEntity(rosterID)
                 .orElseThrow(() -> NOT_FOUND_EXCEPTION);
@@ -207,34 +192,15 @@ public class GroupResource extends AbstractGroupResource {
             throw new WebApplicationException(NOT_FOUND_EXCEPTION, Response.Status.NOT_FOUND);
         }
 
-        final RosterEntity rosterEntity = new RosterEntity();
-        rosterEntity.setId(rosterID);
+        final Set<UUID> patientIDs = getMemberIDs(groupUpdate);
+        // Check to see if all the patients exist, if not, throw an exception
+        this.relationshipDAO.findMissingPatient(patientIDs).ifPresent(patientID -> {
+            throw new WebApplicationException(String.format("Cannot find patient with ID %s", patientID.toString()), Response.Status.BAD_REQUEST);
+        });
+
+        // Existing attributions are re-extended, inactive ones start a new membership period
         final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
-        // For each group member, check to see if the patient exists, if not, throw an exception
-        // Check to see if they're already rostered, if so, ignore
-        groupUpdate
-                .getMember()
-                .stream()
-                .map(Group.GroupMemberComponent::getEntity)
-                // Check to see if patient exists, if not, throw an exception
-                .map(entity -> {
-                    final UUID patientID = UUID.fromString(new IdType(entity.getReference()).getIdPart());
-                    return this.patientDAO.getPatient(patientID).orElseThrow(() -> new WebApplicationException(String.format("Cannot find patient with ID %s",
-                            patientID.toString()), Response.Status.BAD_REQUEST));
-                })
-                .map(patient -> {
-                    // Check to see if the attribution already exists, if so, re-extend the expiration time
-                    final AttributionRelationship relationship = this.relationshipDAO.lookupAttributionRelationship(rosterID, patient.getID())
-                            .orElse(new AttributionRelationship(rosterEntity, patient, now));
-                    // If the relationship is inactive, then we need to update the period begin for the new membership span
-                    if (relationship.isInactive()) {
-                        relationship.setPeriodBegin(now);
-                    }
-                    relationship.setInactive(false);
-                    relationship.setPeriodEnd(generateExpirationTime());
-                    return relationship;
-                })
-                .forEach(this.relationshipDAO::addAttributionRelationship);
+        this.relationshipDAO.addRosterMembers(rosterID, patientIDs, now, generateExpirationTime());
 
         final RosterEntity rosterEntity1 = this.rosterDAO.getEntity(rosterID)
                 .orElseThrow(() -> NOT_FOUND_EXCEPTION);
@@ -257,22 +223,12 @@ public class GroupResource extends AbstractGroupResource {
             throw new WebApplicationException(NOT_FOUND_EXCEPTION, Response.Status.NOT_FOUND);
         }
 
-        groupUpdate
-                .getMember()
-                .stream()
-                .map(Group.GroupMemberComponent::getEntity)
-                .map(entity -> {
-                    final PatientEntity patientEntity = new PatientEntity();
-                    final UUID patientID = UUID.fromString(new IdType(entity.getReference()).getIdPart());
-                    patientEntity.setID(patientID);
-                    return this.relationshipDAO.lookupAttributionRelationship(rosterID, patientID);
-                })
-                .map(rOptional -> rOptional.orElseThrow(() -> new WebApplicationException("Cannot find attribution relationship.", Response.Status.BAD_REQUEST)))
-                .peek(relationship -> {
-                    relationship.setInactive(true);
-                    relationship.setPeriodEnd(OffsetDateTime.now(ZoneOffset.UTC));
-                })
-                .forEach(this.relationshipDAO::updateAttributionRelationship);
+        final Set<UUID> patientIDs = getMemberIDs(groupUpdate);
+        // Every patient must be an existing member, otherwise the whole update is rolled back
+        final int removed = this.relationshipDAO.removeRosterMembers(rosterID, patientIDs, OffsetDateTime.now(ZoneOffset.UTC));
+        if (removed != patientIDs.size()) {
+            throw new WebApplicationException("Cannot find attribution relationship.", Response.Status.BAD_REQUEST);
+        }
 
         final RosterEntity rosterEntity = this.rosterDAO.getEntity(rosterID)
                 .orElseThrow(() -> NOT_FOUND_EXCEPTION);
@@ -318,6 +274,15 @@ public class GroupResource extends AbstractGroupResource {
         return converter.toFHIR(Group.class, rosterEntity);
     }
 
+    private static Set<UUID> getMemberIDs(Group group) {
+        return group
+                .getMember()
+                .stream()
+                .map(Group.GroupMemberComponent::getEntity)
+                .map(entity -> UUID.fromString(new IdType(entity.getReference()).getIdPart()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
     private OffsetDateTime generateExpirationTime() {
         return OffsetDateTime.now(ZoneOffset.UTC).plus(config.getExpirationThreshold());
     }
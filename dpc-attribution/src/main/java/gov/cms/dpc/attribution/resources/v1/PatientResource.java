@@ -5,7 +5,6 @@ import gov.cms.dpc.attribution.resources.AbstractPatientResource;
 import gov.cms.dpc.common.entities.PatientEntity;
 import gov.cms.dpc.fhir.DPCIdentifierSystem;
 import gov.cms.dpc.fhir.FHIRExtractors;
-import gov.cms.dpc.fhir.annotations.BundleReturnProperties;
 import gov.cms.dpc.fhir.annotations.FHIR;
 import gov.cms.dpc.fhir.converters.FHIREntityConverter;
 import gov.cms.dpc.fhir.converters.exceptions.FHIRConverterException;
@@ -20,11 +19,13 @@ import org.hl7.fhir.dstu3.model.Patient;
 import javax.inject.Inject;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Response;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static gov.cms.dpc.attribution.utils.RESTUtils.bulkResourceHandler;
+import static gov.cms.dpc.attribution.utils.RESTUtils.addResponseEntry;
+import static gov.cms.dpc.attribution.utils.RESTUtils.convertAndValidate;
+import static gov.cms.dpc.attribution.utils.RESTUtils.extractBundleResources;
 
 @Api(value = "Patient")
 public class PatientResource extends AbstractPatientResource {
@@ -131,11 +132,49 @@ public class PatientResource extends AbstractPatientResource {
     @Path("/$submit")
     @FHIR
     @UnitOfWork
-    @ApiOperation(value = "Bulk submit Patient resources", notes = "FHIR operation for submitting a Bundle of Patient resources, which will be associated to the given Organization.", response = Bundle.class)
-    @BundleReturnProperties(bundleType = Bundle.BundleType.COLLECTION)
+    @ApiOperation(value = "Bulk submit Patient resources", notes = "FHIR operation for submitting a Bundle of Patient resources, which will be associated to the given Organization." +
+            "<p>The entire Bundle is validated before any Patients are created. " +
+            "Each entry in the response records whether the Patient was created (`201`) or already existed (`200`).", response = Bundle.class)
+    @ApiResponses(@ApiResponse(code = 422, message = "One or more Patient resources are invalid"))
     @Override
-    public List<Patient> bulkSubmitPatients(Parameters params) {
-        return bulkResourceHandler(Patient.class, params, this::createPatient);
+    public Bundle bulkSubmitPatients(Parameters params) {
+        final List<PatientEntity> submitted = convertAndValidate(extractBundleResources(Patient.class, params), patient -> {
+            final PatientEntity entity = this.converter.fromFHIR(PatientEntity.class, patient);
+            if (entity.getOrganization() == null) {
+                throw new IllegalArgumentException("Patient must have a managing organization");
+            }
+            return entity;
+        });
+
+        // De-duplicate the submitted patients, the first entry for a given MBI wins
+        final Map<UUID, Map<String, PatientEntity>> uniquePatients = new LinkedHashMap<>();
+        submitted.forEach(patient -> uniquePatients
+                .computeIfAbsent(patient.getOrganization().getId(), id -> new LinkedHashMap<>())
+                .putIfAbsent(patient.getBeneficiaryID(), patient));
+
+        final Set<UUID> created = this.dao.bulkCreatePatients(uniquePatients
+                .values()
+                .stream()
+                .flatMap(patients -> patients.values().stream())
+                .collect(Collectors.toList()));
+
+        // Fetch everything back, which gives us the existing records for Patients which were not created
+        final Map<UUID, Map<String, PatientEntity>> persisted = new HashMap<>();
+        uniquePatients.forEach((organizationID, patients) -> persisted.put(organizationID, this.dao
+                .findPatientsByMBI(organizationID, patients.keySet())
+                .stream()
+                .collect(Collectors.toMap(PatientEntity::getBeneficiaryID, Function.identity()))));
+
+        final Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.COLLECTION);
+        final Set<UUID> reported = new HashSet<>();
+        submitted.forEach(patient -> {
+            final PatientEntity entity = persisted.get(patient.getOrganization().getId()).get(patient.getBeneficiaryID());
+            // Duplicate entries are reported as already existing
+            final boolean isNew = created.contains(entity.getID()) && reported.add(entity.getID());
+            addResponseEntry(bundle, this.converter.toFHIR(Patient.class, entity), isNew ? Response.Status.CREATED : Response.Status.OK);
+        });
+        return bundle;
     }
 
     @DELETE
@@ -7,11 +7,11 @@ import gov.cms.dpc.attribution.jdbi.ProviderDAO;
 import gov.cms.dpc.attribution.resources.AbstractPractitionerResource;
 import gov.cms.dpc.common.entities.ProviderEntity;
 import gov.cms.dpc.fhir.FHIRExtractors;
-import gov.cms.dpc.fhir.annotations.BundleReturnProperties;
 import gov.cms.dpc.fhir.annotations.FHIR;
 import gov.cms.dpc.fhir.converters.FHIREntityConverter;
 import io.dropwizard.hibernate.UnitOfWork;
 import io.swagger.annotations.*;
+import org.eclipse.jetty.http.HttpStatus;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.hl7.fhir.dstu3.model.Bundle;
 import org.hl7.fhir.dstu3.model.OperationOutcome;
@@ -21,11 +21,13 @@ import org.hl7.fhir.dstu3.model.Practitioner;
 import javax.inject.Inject;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Response;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static gov.cms.dpc.attribution.utils.RESTUtils.bulkResourceHandler;
+import static gov.cms.dpc.attribution.utils.RESTUtils.addResponseEntry;
+import static gov.cms.dpc.attribution.utils.RESTUtils.convertAndValidate;
+import static gov.cms.dpc.attribution.utils.RESTUtils.extractBundleResources;
 
 @FHIR
 @Api(value = "Practitioner")
@@ -125,11 +127,54 @@ public class PractitionerResource extends AbstractPractitionerResource {
     @UnitOfWork
     @Timed
     @ExceptionMetered
-    @ApiOperation(value = "Bulk submit Practitioner resources", notes = "FHIR operation for submitting a Bundle of Practitioner resources, which will be associated to the given Organization.", response = Bundle.class)
-    @BundleReturnProperties(bundleType = Bundle.BundleType.COLLECTION)
+    @ApiOperation(value = "Bulk submit Practitioner resources", notes = "FHIR operation for submitting a Bundle of Practitioner resources, which will be associated to the given Organization." +
+            "<p>The entire Bundle is validated before any Practitioners are created. " +
+            "Each entry in the response records whether the Practitioner was created (`201`) or already existed (`200`).", response = Bundle.class)
+    @ApiResponses(@ApiResponse(code = 422, message = "One or more Practitioner resources are invalid, or the Organization would exceed the provider limit"))
     @Override
-    public List<Practitioner> bulkSubmitProviders(Parameters params) {
-        return bulkResourceHandler(Practitioner.class, params, this::submitProvider);
+    public Bundle bulkSubmitProviders(Parameters params) {
+        final List<ProviderEntity> submitted = convertAndValidate(extractBundleResources(Practitioner.class, params),
+                provider -> this.converter.fromFHIR(ProviderEntity.class, provider));
+
+        // De-duplicate the submitted providers, the first entry for a given NPI wins
+        final Map<UUID, Map<String, ProviderEntity>> uniqueProviders = new LinkedHashMap<>();
+        submitted.forEach(provider -> uniqueProviders
+                .computeIfAbsent(provider.getOrganization().getId(), id -> new LinkedHashMap<>())
+                .putIfAbsent(provider.getProviderNPI(), provider));
+
+        if (providerLimit != null) {
+            uniqueProviders.forEach((organizationID, providers) -> {
+                final long existing = this.dao.findProvidersByNPI(organizationID, providers.keySet()).size();
+                final long total = this.dao.getProvidersCount(null, null, organizationID) + providers.size() - existing;
+                if (total > providerLimit) {
+                    throw new WebApplicationException(String.format("Organization %s cannot have more than %d providers", organizationID, providerLimit), HttpStatus.UNPROCESSABLE_ENTITY_422);
+                }
+            });
+        }
+
+        final Set<UUID> created = this.dao.bulkCreateProviders(uniqueProviders
+                .values()
+                .stream()
+                .flatMap(providers -> providers.values().stream())
+                .collect(Collectors.toList()));
+
+        // Fetch everything back, which gives us the existing records for Practitioners which were not created
+        final Map<UUID, Map<String, ProviderEntity>> persisted = new HashMap<>();
+        uniqueProviders.forEach((organizationID, providers) -> persisted.put(organizationID, this.dao
+                .findProvidersByNPI(organizationID, providers.keySet())
+                .stream()
+                .collect(Collectors.toMap(ProviderEntity::getProviderNPI, Function.identity()))));
+
+        final Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.COLLECTION);
+        final Set<UUID> reported = new HashSet<>();
+        submitted.forEach(provider -> {
+            final ProviderEntity entity = persisted.get(provider.getOrganization().getId()).get(provider.getProviderNPI());
+            // Duplicate entries are reported as already existing
+            final boolean isNew = created.contains(entity.getID()) && reported.add(entity.getID());
+            addResponseEntry(bundle, this.converter.toFHIR(Practitioner.class, entity), isNew ? Response.Status.CREATED : Response.Status.OK);
+        });
+        return bundle;
     }
 
     @DELETE
@@ -1,38 +1,39 @@
 package gov.cms.dpc.attribution.utils;
 
+import gov.cms.dpc.fhir.converters.exceptions.FHIRConverterException;
+import io.dropwizard.jersey.validation.Validators;
 import org.eclipse.jetty.http.HttpStatus;
 import org.hl7.fhir.dstu3.model.*;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class RESTUtils {
 
+    private static final Validator VALIDATOR = Validators.newValidator();
+
     private RESTUtils() {
         // Not used
     }
 
     /**
-     * Helper method for bulk submitting a {@link Bundle} of specific resources
+     * Extract all the resources of the given type from the {@link Bundle} submitted as the first {@link Parameters} entry
      *
-     * @param clazz          - {@link Class} of type of filter {@link Bundle} entries
-     * @param params         - {@link Parameters} which has a {@link Parameters#getParameterFirstRep()}
-     * @param resourceAction - {@link Function} which performs the actual bulk action for a single {@link BaseResource} of type {@link T}
-     * @param <T>            - {@link T} generic type parameter which extends {@link BaseResource}
-     * @return - {@link Bundle} containing the processed results from the bulk submission
+     * @param clazz  - {@link Class} of type of filter {@link Bundle} entries
+     * @param params - {@link Parameters} which has a {@link Parameters#getParameterFirstRep()}
+     * @param <T>    - {@link T} generic type parameter which extends {@link BaseResource}
+     * @return - {@link List} of {@link T} resources, in the order they appear in the {@link Bundle}
      */
-    @SuppressWarnings("unchecked")
-    public static <T extends BaseResource> List<T> bulkResourceHandler(Class<T> clazz, Parameters params, Function<T, Response> resourceAction) {
+    public static <T extends BaseResource> List<T> extractBundleResources(Class<T> clazz, Parameters params) {
         final Bundle resourceBundle = (Bundle) params.getParameterFirstRep().getResource();
-        final Bundle bundle = new Bundle();
-        bundle.setType(Bundle.BundleType.COLLECTION);
-        // Grab all of the providers and submit them individually (for now)
-        // TODO: Optimize insert as part of DPC-490
-
         return resourceBundle
                 .getEntry()
                 .stream()
@@ -40,18 +41,58 @@ public class RESTUtils {
                 .map(Bundle.BundleEntryComponent::getResource)
                 .filter(resource -> resource.getClass().equals(clazz))
                 .map(clazz::cast)
-                .map(resource -> {
-                    final Response response = resourceAction.apply(resource);
-                    if (HttpStatus.isSuccess(response.getStatus())) {
-                        return (Resource) response.getEntity();
-                    }
-                    // If there's an error, rethrow the original method
-                    throw new WebApplicationException(response);
-                })
-                .map(r -> (T) r)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Convert each of the submitted resources into its entity representation and validate the result.
+     * Every resource is processed before failing, so that the error lists all the invalid entries, rather than just the first one.
+     *
+     * @param resources - {@link List} of {@link T} resources to convert
+     * @param converter - {@link Function} which converts a single resource, throwing an {@link IllegalArgumentException} if it is invalid
+     * @param <T>       - {@link T} generic type parameter which extends {@link BaseResource}
+     * @param <E>       - {@link E} generic entity type
+     * @return - {@link List} of {@link E} entities, in the same order as the submitted resources
+     * @throws WebApplicationException - with {@link HttpStatus#UNPROCESSABLE_ENTITY_422} if any of the resources are invalid
+     */
+    public static <T extends BaseResource, E> List<E> convertAndValidate(List<T> resources, Function<T, E> converter) {
+        final List<E> entities = new ArrayList<>(resources.size());
+        final List<String> errors = new ArrayList<>();
+        for (int i = 0; i < resources.size(); i++) {
+            try {
+                final E entity = converter.apply(resources.get(i));
+                final Set<ConstraintViolation<E>> violations = VALIDATOR.validate(entity);
+                if (violations.isEmpty()) {
+                    entities.add(entity);
+                } else {
+                    final int idx = i;
+                    violations.forEach(violation -> errors.add(String.format("Entry %d: %s %s", idx, violation.getPropertyPath(), violation.getMessage())));
+                }
+            } catch (IllegalArgumentException | FHIRConverterException e) {
+                errors.add(String.format("Entry %d: %s", i, e.getMessage()));
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new WebApplicationException(String.join("; ", errors), HttpStatus.UNPROCESSABLE_ENTITY_422);
+        }
+        return entities;
+    }
+
+    /**
+     * Add an entry to a batch response {@link Bundle}, recording the outcome of processing the given resource
+     *
+     * @param bundle   - {@link Bundle} to add entry to
+     * @param resource - {@link Resource} to add
+     * @param status   - {@link Response.Status} outcome for the entry
+     */
+    public static void addResponseEntry(Bundle bundle, Resource resource, Response.Status status) {
+        bundle.addEntry()
+                .setResource(resource)
+                .getResponse()
+                .setStatus(String.format("%d %s", status.getStatusCode(), status.getReasonPhrase()));
+    }
+
     /**
      * Extract specific value from Token tag.
      * This works by splitting the string on the '|' character and passing the right hand value to the builder.
@@ -0,0 +1,194 @@
+package gov.cms.dpc.attribution.jdbi;
+
+import com.codahale.metrics.MetricRegistry;
+import gov.cms.dpc.attribution.AbstractAttributionTest;
+import gov.cms.dpc.attribution.dao.tables.records.AttributionsRecord;
+import gov.cms.dpc.attribution.dao.tables.records.ProvidersRecord;
+import gov.cms.dpc.attribution.dao.tables.records.RostersRecord;
+import io.dropwizard.db.ManagedDataSource;
+import org.jooq.DSLContext;
+import org.jooq.conf.RenderQuotedNames;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static gov.cms.dpc.attribution.dao.tables.Attributions.ATTRIBUTIONS;
+import static gov.cms.dpc.attribution.dao.tables.Patients.PATIENTS;
+import static gov.cms.dpc.attribution.dao.tables.Providers.PROVIDERS;
+import static gov.cms.dpc.attribution.dao.tables.Rosters.ROSTERS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the set-based roster membership statements against the seeded database, using a new roster for each test.
+ */
+class RosterUtilsTest extends AbstractAttributionTest {
+
+    private static ManagedDataSource dataSource;
+
+    private final OffsetDateTime firstBegin = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+    private final OffsetDateTime firstEnd = firstBegin.plusDays(90);
+    private final OffsetDateTime secondBegin = firstBegin.plusDays(30);
+    private final OffsetDateTime secondEnd = secondBegin.plusDays(90);
+
+    private Connection connection;
+    private DSLContext context;
+    private UUID rosterID;
+    private List<UUID> patientIDs;
+
+    @BeforeAll
+    static void createDataSource() {
+        dataSource = APPLICATION.getConfiguration().getDatabase().build(new MetricRegistry(), "roster-utils-test");
+    }
+
+    @AfterAll
+    static void closeDataSource() throws Exception {
+        dataSource.stop();
+    }
+
+    @BeforeEach
+    void createRoster() throws Exception {
+        connection = dataSource.getConnection();
+        context = DSL.using(connection, new Settings().withRenderQuotedNames(RenderQuotedNames.EXPLICIT_DEFAULT_UNQUOTED));
+
+        final ProvidersRecord provider = context.selectFrom(PROVIDERS)
+                .limit(1)
+                .fetchOne();
+        final RostersRecord roster = new RostersRecord();
+        roster.setId(UUID.randomUUID());
+        roster.setOrganizationId(provider.getOrganizationId());
+        roster.setProviderId(provider.getId());
+        roster.setCreatedAt(firstBegin);
+        context.executeInsert(roster);
+        rosterID = roster.getId();
+
+        patientIDs = context.select(PATIENTS.ID)
+                .from(PATIENTS)
+                .orderBy(PATIENTS.ID)
+                .limit(3)
+                .fetch(PATIENTS.ID);
+        assertEquals(3, patientIDs.size(), "Should have seeded patients");
+    }
+
+    @AfterEach
+    void deleteRoster() throws Exception {
+        context.deleteFrom(ATTRIBUTIONS).where(ATTRIBUTIONS.ROSTER_ID.eq(rosterID)).execute();
+        context.deleteFrom(ROSTERS).where(ROSTERS.ID.eq(rosterID)).execute();
+        context.close();
+        connection.close();
+    }
+
+    @Test
+    void testFindMissingPatient() {
+        final UUID missingID = UUID.randomUUID();
+        assertAll(() -> assertEquals(Optional.empty(), RosterUtils.findMissingPatient(context, patientIDs), "Should find all patients"),
+                () -> assertEquals(Optional.of(missingID), RosterUtils.findMissingPatient(context, List.of(patientIDs.get(0), missingID, patientIDs.get(1))), "Should find missing patient"));
+    }
+
+    @Test
+    void testDuplicateMembers() {
+        final UUID first = patientIDs.get(0);
+        final UUID second = patientIDs.get(1);
+
+        // Duplicates in a single request would otherwise have the upsert update the same row twice, which Postgres rejects
+        final int added = RosterUtils.upsertAttributions(context, rosterID, List.of(first, second, first, second, first), firstBegin, firstEnd);
+        assertEquals(2, added, "Should add each patient once");
+
+        final Map<UUID, AttributionsRecord> members = fetchMembers();
+        assertAll(() -> assertEquals(2, members.size(), "Should have a single relationship for each patient"),
+                () -> assertFalse(members.get(first).getInactive(), "Should be active"),
+                () -> assertFalse(members.get(second).getInactive(), "Should be active"));
+    }
+
+    @Test
+    void testExtendActiveMember() {
+        final UUID patientID = patientIDs.get(0);
+        RosterUtils.upsertAttributions(context, rosterID, List.of(patientID), firstBegin, firstEnd);
+
+        final int extended = RosterUtils.upsertAttributions(context, rosterID, List.of(patientID), secondBegin, secondEnd);
+        assertEquals(1, extended, "Should update the existing relationship");
+
+        final AttributionsRecord member = fetchMembers().get(patientID);
+        assertAll(() -> assertFalse(member.getInactive(), "Should still be active"),
+                () -> assertTrue(firstBegin.isEqual(member.getPeriodBegin()), "Should keep the original membership period"),
+                () -> assertTrue(secondEnd.isEqual(member.getPeriodEnd()), "Should extend the membership period"));
+    }
+
+    @Test
+    void testReAddInactiveMember() {
+        final UUID patientID = patientIDs.get(0);
+        RosterUtils.upsertAttributions(context, rosterID, List.of(patientID), firstBegin, firstEnd);
+
+        final int removed = RosterUtils.deactivateAttributions(context, rosterID, List.of(patientID), secondBegin);
+        assertEquals(1, removed, "Should remove the patient");
+        final AttributionsRecord inactive = fetchMembers().get(patientID);
+        assertAll(() -> assertTrue(inactive.getInactive(), "Should be inactive"),
+                () -> assertTrue(secondBegin.isEqual(inactive.getPeriodEnd()), "Should end the membership period"));
+
+        final int reAdded = RosterUtils.upsertAttributions(context, rosterID, List.of(patientID), secondBegin, secondEnd);
+        assertEquals(1, reAdded, "Should re-use the existing relationship");
+
+        final Map<UUID, AttributionsRecord> members = fetchMembers();
+        final AttributionsRecord member = members.get(patientID);
+        assertAll(() -> assertEquals(1, members.size(), "Should not create a new relationship"),
+                () -> assertFalse(member.getInactive(), "Should be re-activated"),
+                () -> assertTrue(secondBegin.isEqual(member.getPeriodBegin()), "Should start a new membership period"),
+                () -> assertTrue(secondEnd.isEqual(member.getPeriodEnd()), "Should have new expiration"));
+    }
+
+    @Test
+    void testRemoveMembers() {
+        final UUID first = patientIDs.get(0);
+        final UUID second = patientIDs.get(1);
+        final UUID notMember = patientIDs.get(2);
+        RosterUtils.upsertAttributions(context, rosterID, List.of(first, second), firstBegin, firstEnd);
+
+        // Patients which aren't members are ignored
+        final int removed = RosterUtils.deactivateAttributions(context, rosterID, List.of(second, notMember, second), secondBegin);
+        assertEquals(1, removed, "Should only remove the existing member");
+
+        // Removal keeps the relationship, so it can be re-activated
+        final Map<UUID, AttributionsRecord> members = fetchMembers();
+        assertAll(() -> assertEquals(2, members.size(), "Should keep both relationships"),
+                () -> assertFalse(members.get(first).getInactive(), "Should still be active"),
+                () -> assertTrue(members.get(second).getInactive(), "Should be inactive"),
+                () -> assertFalse(members.containsKey(notMember), "Should not add the patient"));
+    }
+
+    @Test
+    void testReplaceMembers() {
+        final UUID first = patientIDs.get(0);
+        final UUID second = patientIDs.get(1);
+        final UUID third = patientIDs.get(2);
+        RosterUtils.upsertAttributions(context, rosterID, List.of(first, second), firstBegin, firstEnd);
+        RosterUtils.deactivateAttributions(context, rosterID, List.of(second), firstBegin);
+
+        final int replaced = RosterUtils.replaceAttributions(context, rosterID, List.of(second, third, third), secondBegin, secondEnd);
+        assertEquals(2, replaced, "Should add each new member once");
+
+        // Unlike removal, replacement drops the old relationships entirely
+        final Map<UUID, AttributionsRecord> members = fetchMembers();
+        assertAll(() -> assertEquals(2, members.size(), "Should only have the new members"),
+                () -> assertFalse(members.containsKey(first), "Should drop the old member"),
+                () -> assertFalse(members.get(second).getInactive(), "Should be active"),
+                () -> assertTrue(secondBegin.isEqual(members.get(second).getPeriodBegin()), "Should start a new membership period"),
+                () -> assertFalse(members.get(third).getInactive(), "Should be active"));
+
+        assertEquals(0, RosterUtils.replaceAttributions(context, rosterID, List.of(), secondBegin, secondEnd), "Should not add any members");
+        assertTrue(fetchMembers().isEmpty(), "Should have empty roster");
+    }
+
+    private Map<UUID, AttributionsRecord> fetchMembers() {
+        return context.selectFrom(ATTRIBUTIONS)
+                .where(ATTRIBUTIONS.ROSTER_ID.eq(rosterID))
+                .fetchMap(ATTRIBUTIONS.PATIENT_ID);
+    }
+}
@@ -264,4 +264,49 @@ class PatientResourceTest extends AbstractAttributionTest {
 
         assertThrows(UnprocessableEntityException.class, update::execute);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBulkSubmitPatients() {
+        final IGenericClient client = createFHIRClient(ctx, getServerURL());
+        final Patient first = createPatientResource("1S00A00AA00", DEFAULT_ORG_ID);
+        final Patient second = createPatientResource("1S00A00AA01", DEFAULT_ORG_ID);
+
+        final Bundle bundle = new Bundle();
+        bundle.addEntry().setResource(first);
+        bundle.addEntry().setResource(second);
+        // Duplicate entries should not be created twice
+        bundle.addEntry().setResource(first.copy());
+
+        final Parameters params = new Parameters();
+        params.addParameter().setResource(bundle);
+
+        final Bundle response = submitPatients(client, params);
+        assertAll(() -> assertEquals(3, response.getEntry().size(), "Should have an entry for each submitted patient"),
+                () -> assertEquals("201 Created", response.getEntry().get(0).getResponse().getStatus(), "First patient should be created"),
+                () -> assertEquals("201 Created", response.getEntry().get(1).getResponse().getStatus(), "Second patient should be created"),
+                () -> assertEquals("200 OK", response.getEntry().get(2).getResponse().getStatus(), "Duplicate patient should already exist"),
+                () -> assertEquals(response.getEntry().get(0).getResource().getIdElement().getIdPart(),
+                        response.getEntry().get(2).getResource().getIdElement().getIdPart(), "Duplicates should have the same ID"));
+
+        // Re-submitting should not create anything
+        final Bundle resubmitted = submitPatients(client, params);
+        assertTrue(resubmitted.getEntry()
+                .stream()
+                .allMatch(entry -> entry.getResponse().getStatus().equals("200 OK")), "Should not create any patients");
+
+        // Invalid patients should reject the entire bundle
+        bundle.addEntry().setResource(createPatientResource("not-an-mbi", DEFAULT_ORG_ID));
+        assertThrows(UnprocessableEntityException.class, () -> submitPatients(client, params), "Should reject the bundle");
+    }
+
+    private static Bundle submitPatients(IGenericClient client, Parameters params) {
+        return client
+                .operation()
+                .onType(Patient.class)
+                .named("submit")
+                .withParameters(params)
+                .returnResourceType(Bundle.class)
+                .encodedJson()
+                .execute();
+    }
+}
@@ -269,4 +269,104 @@ class PractitionerResourceTest extends AbstractAttributionTest {
         // Try again, should fail
         assertThrows(UnprocessableEntityException.class, creation::execute, "Should not modify");
     }
+
+    @Test
+    void testBulkSubmitPractitioners() {
+        final Integer providerLimit = APPLICATION.getConfiguration().getProviderLimit();
+        APPLICATION.getConfiguration().setProviderLimit(null);
+        try {
+            final Practitioner first = AttributionTestHelpers.createPractitionerResource("test-bulk-npi-1");
+            final Practitioner second = AttributionTestHelpers.createPractitionerResource("test-bulk-npi-2");
+
+            final Bundle bundle = new Bundle();
+            bundle.addEntry().setResource(first);
+            bundle.addEntry().setResource(second);
+            // Duplicate entries should not be created twice
+            bundle.addEntry().setResource(first.copy());
+
+            final Parameters params = new Parameters();
+            params.addParameter().setResource(bundle);
+
+            final Bundle response = submitPractitioners(params);
+            response.getEntry().forEach(entry -> practitionersToCleanUp.add((Practitioner) entry.getResource()));
+            assertAll(() -> assertEquals(3, response.getEntry().size(), "Should have an entry for each submitted practitioner"),
+                    () -> assertEquals("201 Created", response.getEntry().get(0).getResponse().getStatus(), "First practitioner should be created"),
+                    () -> assertEquals("201 Created", response.getEntry().get(1).getResponse().getStatus(), "Second practitioner should be created"),
+                    () -> assertEquals("200 OK", response.getEntry().get(2).getResponse().getStatus(), "Duplicate practitioner should already exist"),
+                    () -> assertEquals(response.getEntry().get(0).getResource().getIdElement().getIdPart(),
+                            response.getEntry().get(2).getResource().getIdElement().getIdPart(), "Duplicates should have the same ID"),
+                    () -> assertEquals("test-bulk-npi-2", FHIRExtractors.getProviderNPI((Practitioner) response.getEntry().get(1).getResource()), "Should be in submitted order"));
+
+            // Re-submitting should not create anything
+            final Bundle resubmitted = submitPractitioners(params);
+            assertTrue(resubmitted.getEntry()
+                    .stream()
+                    .allMatch(entry -> entry.getResponse().getStatus().equals("200 OK")), "Should not create any practitioners");
+        } finally {
+            APPLICATION.getConfiguration().setProviderLimit(providerLimit);
+        }
+    }
+
+    @Test
+    void testBulkSubmitPractitionersPastLimit() {
+        final List<Practitioner> existing = searchPractitioners();
+        final Integer providerLimit = APPLICATION.getConfiguration().getProviderLimit();
+        // Room for exactly one more provider
+        APPLICATION.getConfiguration().setProviderLimit(existing.size() + 1);
+        try {
+            final Bundle tooMany = new Bundle();
+            tooMany.addEntry().setResource(AttributionTestHelpers.createPractitionerResource("test-bulk-npi-3"));
+            tooMany.addEntry().setResource(AttributionTestHelpers.createPractitionerResource("test-bulk-npi-4"));
+            final Parameters tooManyParams = new Parameters();
+            tooManyParams.addParameter().setResource(tooMany);
+
+            assertThrows(UnprocessableEntityException.class, () -> submitPractitioners(tooManyParams), "Should reject the bundle");
+            assertEquals(existing.size(), searchPractitioners().size(), "Should not create any practitioners");
+
+            // Practitioners which already exist don't count against the limit, nor do duplicates
+            final Bundle withExisting = new Bundle();
+            withExisting.addEntry().setResource(AttributionTestHelpers.createPractitionerResource(existing.get(0).getIdentifierFirstRep().getValue()));
+            withExisting.addEntry().setResource(AttributionTestHelpers.createPractitionerResource("test-bulk-npi-3"));
+            withExisting.addEntry().setResource(AttributionTestHelpers.createPractitionerResource("test-bulk-npi-3"));
+            final Parameters withExistingParams = new Parameters();
+            withExistingParams.addParameter().setResource(withExisting);
+
+            final Bundle response = submitPractitioners(withExistingParams);
+            practitionersToCleanUp.add((Practitioner) response.getEntry().get(1).getResource());
+            assertAll(() -> assertEquals("200 OK", response.getEntry().get(0).getResponse().getStatus(), "Should already exist"),
+                    () -> assertEquals("201 Created", response.getEntry().get(1).getResponse().getStatus(), "Should be created"),
+                    () -> assertEquals(existing.size() + 1, searchPractitioners().size(), "Should be at the limit"));
+
+            // At the limit, re-submitting existing practitioners is still allowed, unlike creating them one at a time
+            assertTrue(submitPractitioners(withExistingParams).getEntry()
+                    .stream()
+                    .allMatch(entry -> entry.getResponse().getStatus().equals("200 OK")), "Should not create any practitioners");
+        } finally {
+            APPLICATION.getConfiguration().setProviderLimit(providerLimit);
+        }
+    }
+
+    private Bundle submitPractitioners(Parameters params) {
+        return client
+                .operation()
+                .onType(Practitioner.class)
+                .named("submit")
+                .withParameters(params)
+                .returnResourceType(Bundle.class)
+                .encodedJson()
+                .execute();
+    }
+
+    private List<Practitioner> searchPractitioners() {
+        final Bundle providers = client
+                .search()
+                .forResource(Practitioner.class)
+                .whereMap(Map.of("organization", List.of(DEFAULT_ORG_ID)))
+                .returnBundle(Bundle.class)
+                .encodedJson()
+                .execute();
+        final List<Practitioner> practitioners = new ArrayList<>();
+        providers.getEntry().forEach(entry -> practitioners.add((Practitioner) entry.getResource()));
+        return practitioners;
+    }
 }
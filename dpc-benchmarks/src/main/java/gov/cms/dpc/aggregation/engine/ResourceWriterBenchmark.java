@@ -0,0 +1,107 @@
+package gov.cms.dpc.aggregation.engine;
+
+import ca.uhn.fhir.context.FhirContext;
+import gov.cms.dpc.bluebutton.client.MockBlueButtonClient;
+import gov.cms.dpc.queue.models.JobQueueBatch;
+import gov.cms.dpc.queue.models.JobQueueBatchFile;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Resource;
+import org.hl7.fhir.dstu3.model.ResourceType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures {@link ResourceWriter#writeBatch(AtomicInteger, List)}, which encodes a batch of resources as NDJSON and writes it to the export directory.
+ * <p>
+ * The resources are the {@link MockBlueButtonClient} test data, repeated to fill each batch.
+ * Every invocation writes a new file for a new {@link JobQueueBatch}, which is deleted afterwards.
+ * This lives in the engine package because {@link ResourceWriter} is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ResourceWriterBenchmark {
+
+    @Param({"ExplanationOfBenefit", "Coverage", "Patient"})
+    public ResourceType resourceType;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private FhirContext ctx;
+    private OperationsConfig config;
+    private Path exportPath;
+    private List<Resource> batch;
+    private JobQueueBatch job;
+    private ResourceWriter writer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.ctx = FhirContext.forDstu3();
+        this.exportPath = Files.createTempDirectory("dpc-export");
+        this.config = new OperationsConfig(this.batchSize, this.exportPath.toString(), 0, new Date());
+
+        final MockBlueButtonClient bbClient = new MockBlueButtonClient(this.ctx);
+        final List<Resource> resources = new ArrayList<>();
+        for (final String beneID : MockBlueButtonClient.MBI_BENE_ID_MAP.values()) {
+            final Bundle bundle = fetchBundle(bbClient, beneID);
+            bundle.getEntry().forEach(entry -> resources.add(entry.getResource()));
+        }
+
+        this.batch = new ArrayList<>(this.batchSize);
+        for (int i = 0; i < this.batchSize; i++) {
+            this.batch.add(resources.get(i % resources.size()));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createJob() {
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        this.job = new JobQueueBatch(UUID.randomUUID(), UUID.randomUUID(), "test-provider",
+                MockBlueButtonClient.TEST_PATIENT_MBIS, List.of(this.resourceType), null, now);
+        this.writer = new ResourceWriter(this.ctx, this.job, this.resourceType, this.config);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(Paths.get(ResourceWriter.formOutputFilePath(this.exportPath.toString(), this.job.getBatchID(), this.resourceType, 0)));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteExportPath() throws IOException {
+        Files.deleteIfExists(this.exportPath);
+    }
+
+    @Benchmark
+    public JobQueueBatchFile writeBatch() {
+        return this.writer.writeBatch(new AtomicInteger(), this.batch);
+    }
+
+    private Bundle fetchBundle(MockBlueButtonClient bbClient, String beneID) {
+        switch (this.resourceType) {
+            case ExplanationOfBenefit:
+                return bbClient.requestEOBFromServer(beneID, null);
+            case Coverage:
+                return bbClient.requestCoverageFromServer(beneID, null);
+            case Patient:
+                return bbClient.requestPatientFromServer(beneID, null);
+            default:
+                throw new IllegalArgumentException(String.format("No test data for %s", this.resourceType));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package gov.cms.dpc.benchmarks.aggregation;
+
+import gov.cms.dpc.aggregation.util.AggregationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AggregationUtils#generateChecksum(File)}, which is run over every export file once its batch is complete.
+ * <p>
+ * {@link #generateChecksum()} reads the whole file into memory before hashing it.
+ * {@link #streamingChecksum()} hashes the file in fixed size chunks with the JDK digest, which is the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ChecksumBenchmark {
+
+    @Param({"1048576", "67108864"})
+    public int fileSize;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        this.file = Files.createTempFile("dpc-export", ".ndjson").toFile();
+        // Printable ASCII, like the NDJSON export files
+        final SplittableRandom random = new SplittableRandom(42);
+        final byte[] bytes = new byte[this.fileSize];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) random.nextInt(' ', '~');
+        }
+        Files.write(this.file.toPath(), bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(this.file.toPath());
+    }
+
+    @Benchmark
+    public byte[] generateChecksum() throws IOException {
+        return AggregationUtils.generateChecksum(this.file);
+    }
+
+    @Benchmark
+    public byte[] streamingChecksum() throws IOException, NoSuchAlgorithmException {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        final byte[] buffer = new byte[64 * 1024];
+        try (InputStream stream = Files.newInputStream(this.file.toPath())) {
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+}
@@ -0,0 +1,124 @@
+package gov.cms.dpc.benchmarks.api;
+
+import gov.cms.dpc.api.auth.AuthCacheConfiguration;
+import gov.cms.dpc.api.auth.jwt.IJTICache;
+import gov.cms.dpc.api.auth.jwt.JwtKeyResolver;
+import gov.cms.dpc.api.auth.jwt.PublicKeyCache;
+import gov.cms.dpc.api.entities.PublicKeyEntity;
+import gov.cms.dpc.api.jdbi.PublicKeyDAO;
+import gov.cms.dpc.api.jdbi.TokenDAO;
+import gov.cms.dpc.api.models.JWTAuthResponse;
+import gov.cms.dpc.api.resources.v1.TokenResource;
+import gov.cms.dpc.macaroons.CaveatSupplier;
+import gov.cms.dpc.macaroons.MacaroonBakery;
+import gov.cms.dpc.macaroons.store.MemoryRootKeyStore;
+import gov.cms.dpc.macaroons.thirdparty.MemoryThirdPartyKeyStore;
+import gov.cms.dpc.macaroons.config.TokenPolicy;
+import gov.cms.dpc.testing.APIAuthHelpers;
+import gov.cms.dpc.testing.KeyType;
+import io.jsonwebtoken.Jwts;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import static gov.cms.dpc.api.auth.MacaroonHelpers.generateCaveatsForToken;
+
+/**
+ * Measures the throughput of {@link TokenResource#authorizeJWT(String, String, String, String)}, with and without the {@link PublicKeyCache}.
+ * <p>
+ * The {@link PublicKeyDAO} is mocked, {@link #lookupLatencyMicros} can be used to simulate the round-trip to the auth database.
+ * JTI replay detection is disabled, so that a single signed JWT can be re-used for the entire iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class TokenResourceBenchmark {
+
+    private static final String PUBLIC_URL = "http://localhost:3002/v1";
+    private static final String SCOPE = "system/*.*";
+
+    @Param({"true", "false"})
+    public boolean keyCacheEnabled;
+
+    @Param({"ECC", "RSA"})
+    public KeyType keyType;
+
+    @Param({"0", "250"})
+    public long lookupLatencyMicros;
+
+    private TokenResource resource;
+    private KeyPair keyPair;
+    private UUID keyID;
+    private String macaroon;
+    private String jwt;
+
+    @Setup(Level.Trial)
+    public void setup() throws NoSuchAlgorithmException {
+        this.keyPair = APIAuthHelpers.generateKeyPair(this.keyType);
+        this.keyID = UUID.randomUUID();
+
+        final MacaroonBakery bakery = new MacaroonBakery.MacaroonBakeryBuilder("http://test.local",
+                new MemoryRootKeyStore(new SecureRandom()),
+                new MemoryThirdPartyKeyStore()).build();
+        this.macaroon = new String(bakery.serializeMacaroon(bakery.createMacaroon(generateCaveatsForToken(1, UUID.randomUUID(), Duration.ofDays(1))
+                .stream()
+                .map(CaveatSupplier::get)
+                .collect(Collectors.toList())), true), StandardCharsets.UTF_8);
+
+        final AuthCacheConfiguration cacheConfig = new AuthCacheConfiguration();
+        cacheConfig.setEnabled(this.keyCacheEnabled);
+        final JwtKeyResolver resolver = new JwtKeyResolver(mockKeyDAO(), new PublicKeyCache(cacheConfig));
+        final IJTICache jtiCache = (jti, persist) -> true;
+
+        this.resource = new TokenResource(Mockito.mock(TokenDAO.class), bakery, new TokenPolicy(), resolver, jtiCache, PUBLIC_URL);
+    }
+
+    @Setup(Level.Iteration)
+    public void signJWT() {
+        // Token must expire within 5 minutes, so re-sign it for each iteration
+        this.jwt = Jwts.builder()
+                .setHeaderParam("kid", this.keyID)
+                .setAudience(String.format("%s/Token/auth", PUBLIC_URL))
+                .setIssuer(this.macaroon)
+                .setSubject(this.macaroon)
+                .setId(UUID.randomUUID().toString())
+                .setExpiration(Date.from(Instant.now().plus(5, ChronoUnit.MINUTES).minus(30, ChronoUnit.SECONDS)))
+                .signWith(this.keyPair.getPrivate(), APIAuthHelpers.getSigningAlgorithm(this.keyType))
+                .compact();
+    }
+
+    @Benchmark
+    public JWTAuthResponse authorizeJWT() {
+        return this.resource.authorizeJWT(SCOPE, "client_credentials", TokenResource.CLIENT_ASSERTION_TYPE, this.jwt);
+    }
+
+    private PublicKeyDAO mockKeyDAO() {
+        final PublicKeyDAO dao = Mockito.mock(PublicKeyDAO.class);
+        Mockito.when(dao.fetchPublicKey(Mockito.any(), Mockito.eq(this.keyID))).then(answer -> {
+            if (this.lookupLatencyMicros > 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(this.lookupLatencyMicros));
+            }
+            final PublicKeyEntity entity = new PublicKeyEntity();
+            entity.setPublicKey(SubjectPublicKeyInfo.getInstance(this.keyPair.getPublic().getEncoded()));
+            return Optional.of(entity);
+        });
+        return dao;
+    }
+}
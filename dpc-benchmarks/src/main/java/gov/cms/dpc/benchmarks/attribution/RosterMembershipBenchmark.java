@@ -0,0 +1,185 @@
+package gov.cms.dpc.benchmarks.attribution;
+
+import gov.cms.dpc.attribution.dao.tables.records.OrganizationsRecord;
+import gov.cms.dpc.attribution.dao.tables.records.PatientsRecord;
+import gov.cms.dpc.attribution.dao.tables.records.ProvidersRecord;
+import gov.cms.dpc.attribution.dao.tables.records.RostersRecord;
+import gov.cms.dpc.attribution.jdbi.RosterUtils;
+import org.jooq.DSLContext;
+import org.jooq.conf.RenderQuotedNames;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static gov.cms.dpc.attribution.dao.tables.Attributions.ATTRIBUTIONS;
+import static gov.cms.dpc.attribution.dao.tables.Organizations.ORGANIZATIONS;
+import static gov.cms.dpc.attribution.dao.tables.Patients.PATIENTS;
+import static gov.cms.dpc.attribution.dao.tables.Providers.PROVIDERS;
+import static gov.cms.dpc.attribution.dao.tables.Rosters.ROSTERS;
+
+/**
+ * Measures the set-based roster membership operations in {@link RosterUtils}, which back the attribution Group $add, $remove and update endpoints.
+ * <p>
+ * This requires a migrated attribution database (e.g. from the docker-compose setup), see {@link #jdbcURL}.
+ * The test organization, provider, rosters and patients are created for each trial and removed afterwards,
+ * each operation is rolled back so that every invocation sees the same roster state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class RosterMembershipBenchmark {
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    @Param({"1000", "10000", "100000"})
+    public int rosterSize;
+
+    @Param({"jdbc:postgresql://localhost:5432/dpc_attribution"})
+    public String jdbcURL;
+
+    @Param({"postgres"})
+    public String user;
+
+    @Param({"dpc-safe"})
+    public String password;
+
+    private Connection connection;
+    private DSLContext ctx;
+    private UUID organizationID;
+    private UUID emptyRosterID;
+    private UUID fullRosterID;
+    private List<UUID> patientIDs;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        this.connection = DriverManager.getConnection(this.jdbcURL, this.user, this.password);
+        this.connection.setAutoCommit(false);
+        this.ctx = DSL.using(this.connection, new Settings().withRenderQuotedNames(RenderQuotedNames.EXPLICIT_DEFAULT_UNQUOTED));
+
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        this.organizationID = UUID.randomUUID();
+        final OrganizationsRecord organization = this.ctx.newRecord(ORGANIZATIONS);
+        organization.setId(this.organizationID);
+        organization.setIdSystem(0);
+        organization.setIdValue(this.organizationID.toString());
+        organization.setOrganizationName("Benchmark Organization");
+        organization.setAddressUse(0);
+        organization.setAddressType(0);
+        organization.setLine1("1 Benchmark Way");
+        organization.insert();
+
+        final ProvidersRecord provider = this.ctx.newRecord(PROVIDERS);
+        provider.setId(UUID.randomUUID());
+        provider.setProviderId(this.organizationID.toString());
+        provider.setOrganizationId(this.organizationID);
+        provider.setCreatedAt(now);
+        provider.setUpdatedAt(now);
+        provider.insert();
+
+        this.emptyRosterID = createRoster(provider.getId(), now);
+        this.fullRosterID = createRoster(provider.getId(), now);
+
+        this.patientIDs = new ArrayList<>(this.rosterSize);
+        final List<PatientsRecord> patients = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < this.rosterSize; i++) {
+            final PatientsRecord patient = this.ctx.newRecord(PATIENTS);
+            patient.setId(UUID.randomUUID());
+            patient.setBeneficiaryId(String.format("BENCH%06d", i));
+            patient.setOrganizationId(this.organizationID);
+            patient.setDob(LocalDate.of(1990, 1, 1));
+            patient.setGender(0);
+            patient.setCreatedAt(now);
+            patient.setUpdatedAt(now);
+            patients.add(patient);
+            this.patientIDs.add(patient.getId());
+            if (patients.size() == INSERT_BATCH_SIZE) {
+                this.ctx.batchInsert(patients).execute();
+                patients.clear();
+            }
+        }
+        this.ctx.batchInsert(patients).execute();
+
+        RosterUtils.upsertAttributions(this.ctx, this.fullRosterID, this.patientIDs, now, now.plus(90, ChronoUnit.DAYS));
+        this.connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws SQLException {
+        this.connection.rollback();
+        this.ctx.deleteFrom(ATTRIBUTIONS).where(ATTRIBUTIONS.ROSTER_ID.in(this.emptyRosterID, this.fullRosterID)).execute();
+        this.ctx.deleteFrom(ROSTERS).where(ROSTERS.ORGANIZATION_ID.eq(this.organizationID)).execute();
+        this.ctx.deleteFrom(PATIENTS).where(PATIENTS.ORGANIZATION_ID.eq(this.organizationID)).execute();
+        this.ctx.deleteFrom(PROVIDERS).where(PROVIDERS.ORGANIZATION_ID.eq(this.organizationID)).execute();
+        this.ctx.deleteFrom(ORGANIZATIONS).where(ORGANIZATIONS.ID.eq(this.organizationID)).execute();
+        this.connection.commit();
+        this.connection.close();
+    }
+
+    @Benchmark
+    public int addMembers() throws SQLException {
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        try {
+            RosterUtils.findMissingPatient(this.ctx, this.patientIDs).ifPresent(id -> {
+                throw new IllegalStateException("Missing patient " + id);
+            });
+            return RosterUtils.upsertAttributions(this.ctx, this.emptyRosterID, this.patientIDs, now, now.plus(90, ChronoUnit.DAYS));
+        } finally {
+            this.connection.rollback();
+        }
+    }
+
+    @Benchmark
+    public int extendMembers() throws SQLException {
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        try {
+            return RosterUtils.upsertAttributions(this.ctx, this.fullRosterID, this.patientIDs, now, now.plus(90, ChronoUnit.DAYS));
+        } finally {
+            this.connection.rollback();
+        }
+    }
+
+    @Benchmark
+    public int replaceMembers() throws SQLException {
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        try {
+            return RosterUtils.replaceAttributions(this.ctx, this.fullRosterID, this.patientIDs, now, now.plus(90, ChronoUnit.DAYS));
+        } finally {
+            this.connection.rollback();
+        }
+    }
+
+    @Benchmark
+    public int removeMembers() throws SQLException {
+        try {
+            return RosterUtils.deactivateAttributions(this.ctx, this.fullRosterID, this.patientIDs, OffsetDateTime.now(ZoneOffset.UTC));
+        } finally {
+            this.connection.rollback();
+        }
+    }
+
+    private UUID createRoster(UUID providerID, OffsetDateTime now) {
+        final RostersRecord roster = this.ctx.newRecord(ROSTERS);
+        roster.setId(UUID.randomUUID());
+        roster.setProviderId(providerID);
+        roster.setOrganizationId(this.organizationID);
+        roster.setCreatedAt(now);
+        roster.setUpdatedAt(now);
+        roster.insert();
+        return roster.getId();
+    }
+}
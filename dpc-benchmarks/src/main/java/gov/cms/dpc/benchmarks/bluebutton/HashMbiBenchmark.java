@@ -0,0 +1,77 @@
+package gov.cms.dpc.benchmarks.bluebutton;
+
+import com.codahale.metrics.MetricRegistry;
+import gov.cms.dpc.bluebutton.client.BlueButtonClientImpl;
+import gov.cms.dpc.bluebutton.client.PageSizer;
+import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import io.dropwizard.jackson.Jackson;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link BlueButtonClientImpl#hashMbi(String)}, which runs PBKDF2 over each MBI before looking up the patient in BlueButton.
+ * <p>
+ * The MBIs are cycled through in order, so with the hash cache enabled every call after the first pass is a cache hit.
+ * The pepper is the BlueButton test pepper, with the default number of iterations the hash is checked against one of the BFD test cases during setup.
+ * No requests are made to BlueButton.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HashMbiBenchmark {
+
+    private static final String TEST_PEPPER = "6E6F747468657265616C706570706572";
+    // Test case from BFD, for the test pepper and 1000 iterations
+    private static final String TEST_MBI = "123456789A";
+    private static final String TEST_MBI_HASH = "d95a418b0942c7910fb1d0e84f900fe12e5a7fd74f312fa10730cc0fda230e9a";
+
+    @Param({"false", "true"})
+    public boolean cacheEnabled;
+
+    @Param({"1000"})
+    public int iterations;
+
+    @Param({"100"})
+    public int patients;
+
+    private BlueButtonClientImpl client;
+    private List<String> mbis;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws GeneralSecurityException {
+        // Built the same way as the application config, since there are no setters for the hash parameters
+        final BBClientConfiguration config = Jackson.newObjectMapper().convertValue(Map.of(
+                "serverBaseUrl", "http://localhost:8083/v1/fhir/",
+                "bfdHashPepper", TEST_PEPPER,
+                "bfdHashIter", this.iterations), BBClientConfiguration.class);
+        config.getMbiHashCache().setEnabled(this.cacheEnabled);
+        // Hashing never touches the FHIR client or the request guard
+        final MetricRegistry metrics = new MetricRegistry();
+        this.client = new BlueButtonClientImpl(null, config, null, new PageSizer(config, metrics), metrics);
+
+        if (this.iterations == 1000 && !TEST_MBI_HASH.equals(this.client.hashMbi(TEST_MBI))) {
+            throw new IllegalStateException("MBI hash does not match the BFD test case");
+        }
+
+        this.mbis = new ArrayList<>(this.patients);
+        for (int i = 0; i < this.patients; i++) {
+            this.mbis.add(String.format("%dS%02dA00AA%02d", i % 10, (i / 10) % 100, i % 100));
+        }
+    }
+
+    @Benchmark
+    public String hashMbi() throws GeneralSecurityException {
+        final String mbi = this.mbis.get(this.next);
+        this.next = (this.next + 1) % this.mbis.size();
+        return this.client.hashMbi(mbi);
+    }
+}
@@ -0,0 +1,86 @@
+package gov.cms.dpc.benchmarks.common;
+
+import gov.cms.dpc.common.entities.OrganizationEntity;
+import gov.cms.dpc.common.entities.PatientEntity;
+import gov.cms.dpc.fhir.converters.FHIREntityConverter;
+import org.hl7.fhir.dstu3.model.Enumerations;
+import org.hl7.fhir.dstu3.model.Patient;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of converting a {@link PatientEntity} into a FHIR {@link Patient}, with a single {@link FHIREntityConverter} shared between 1 to 32 threads.
+ * <p>
+ * The converter is shared by every request in the API services, so any contention when looking up converters shows up as the thread count increases.
+ * {@link #roundTrip()} converts the {@link Patient} back into a {@link PatientEntity}, as the attribution service does for submitted patients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FHIREntityConverterBenchmark {
+
+    private FHIREntityConverter converter;
+    private PatientEntity entity;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.converter = FHIREntityConverter.initialize();
+
+        final OrganizationEntity organization = new OrganizationEntity();
+        organization.setId(UUID.randomUUID());
+
+        this.entity = new PatientEntity();
+        this.entity.setID(UUID.randomUUID());
+        this.entity.setBeneficiaryID("0O00O00OO00");
+        this.entity.setFirstName("Jane");
+        this.entity.setLastName("Doe");
+        this.entity.setDob(LocalDate.of(1980, 1, 1));
+        this.entity.setGender(Enumerations.AdministrativeGender.FEMALE);
+        this.entity.setOrganization(organization);
+        this.entity.setUpdatedAt(OffsetDateTime.now(ZoneOffset.UTC));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public PatientEntity roundTrip() {
+        return this.converter.fromFHIR(PatientEntity.class, this.converter.toFHIR(Patient.class, this.entity));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Patient toFHIR1Thread() {
+        return this.converter.toFHIR(Patient.class, this.entity);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Patient toFHIR4Threads() {
+        return this.converter.toFHIR(Patient.class, this.entity);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Patient toFHIR8Threads() {
+        return this.converter.toFHIR(Patient.class, this.entity);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Patient toFHIR16Threads() {
+        return this.converter.toFHIR(Patient.class, this.entity);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Patient toFHIR32Threads() {
+        return this.converter.toFHIR(Patient.class, this.entity);
+    }
+}
@@ -0,0 +1,104 @@
+package gov.cms.dpc.benchmarks.common;
+
+import ca.uhn.fhir.context.FhirContext;
+import gov.cms.dpc.fhir.DPCIdentifierSystem;
+import gov.cms.dpc.fhir.dropwizard.handlers.FHIRHandler;
+import org.hl7.fhir.dstu3.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing Bundles of {@link Patient} resources, of various sizes, with {@link FHIRHandler}.
+ * <p>
+ * The baseline benchmarks create a new parser for each request and use unbuffered readers and writers, which is what the handler used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FHIRHandlerBenchmark {
+
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    @Param({"1", "100", "1000"})
+    public int bundleSize;
+
+    private FhirContext ctx;
+    private FHIRHandler handler;
+    private Bundle bundle;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.ctx = FhirContext.forDstu3();
+        this.handler = new FHIRHandler(this.ctx);
+
+        this.bundle = new Bundle();
+        this.bundle.setType(Bundle.BundleType.COLLECTION);
+        for (int i = 0; i < this.bundleSize; i++) {
+            final Patient patient = new Patient();
+            patient.setId(String.format("Patient/%08d", i));
+            patient.addIdentifier()
+                    .setSystem(DPCIdentifierSystem.MBI.getSystem())
+                    .setValue(String.format("%dS00A00AA%02d", i % 10, i % 100));
+            patient.addName()
+                    .setFamily("Doe" + i)
+                    .addGiven("Jane");
+            patient.setGender(Enumerations.AdministrativeGender.FEMALE);
+            patient.setBirthDateElement(new DateType("1980-01-01"));
+            patient.setManagingOrganization(new Reference("Organization/46ac7ad6-7487-4dd0-baa0-6e2c8cae76a0"));
+            this.bundle.addEntry().setResource(patient);
+        }
+        this.encoded = this.ctx.newJsonParser().encodeResourceToString(this.bundle).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public BaseResource read() {
+        return this.handler.readFrom(BaseResource.class, Bundle.class, NO_ANNOTATIONS, null, null, new ByteArrayInputStream(this.encoded));
+    }
+
+    @Benchmark
+    public BaseResource readBaseline() {
+        return (BaseResource) this.ctx.newJsonParser().parseResource(new InputStreamReader(new ByteArrayInputStream(this.encoded), StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        final CountingOutputStream stream = new CountingOutputStream();
+        this.handler.writeTo(this.bundle, Bundle.class, Bundle.class, NO_ANNOTATIONS, null, null, stream);
+        return stream.count;
+    }
+
+    @Benchmark
+    public int writeBaseline() throws IOException {
+        final CountingOutputStream stream = new CountingOutputStream();
+        final Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        this.ctx.newJsonParser().encodeResourceToWriter(this.bundle, writer);
+        writer.flush();
+        return stream.count;
+    }
+
+    /**
+     * Discards the response, like a network socket would, while counting the calls that reach it
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private int count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count++;
+        }
+    }
+}
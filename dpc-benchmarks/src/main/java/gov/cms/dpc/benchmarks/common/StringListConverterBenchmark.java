@@ -0,0 +1,49 @@
+package gov.cms.dpc.benchmarks.common;
+
+import gov.cms.dpc.common.converters.hibernate.StringListConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link StringListConverter}, which Hibernate runs on every load and flush of an entity with a {@link List} of {@link String} column (e.g. the patients of a job batch).
+ * <p>
+ * Each element is an MBI, so the size of the column grows linearly with {@link #elements}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StringListConverterBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int elements;
+
+    private StringListConverter converter;
+    private List<String> attribute;
+    private String column;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.converter = new StringListConverter();
+        this.attribute = new ArrayList<>(this.elements);
+        for (int i = 0; i < this.elements; i++) {
+            this.attribute.add(String.format("%dS%02dA00AA%02d", i % 10, (i / 10) % 100, i % 100));
+        }
+        this.column = this.converter.convertToDatabaseColumn(this.attribute);
+    }
+
+    @Benchmark
+    public String convertToDatabaseColumn() {
+        return this.converter.convertToDatabaseColumn(this.attribute);
+    }
+
+    @Benchmark
+    public List<String> convertToEntityAttribute() {
+        return this.converter.convertToEntityAttribute(this.column);
+    }
+}
@@ -0,0 +1,151 @@
+package gov.cms.dpc.benchmarks.consent;
+
+import gov.cms.dpc.common.consent.entities.ConsentEntity;
+import gov.cms.dpc.consent.jdbi.ConsentUtils;
+import org.jooq.DSLContext;
+import org.jooq.conf.RenderQuotedNames;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static gov.cms.dpc.consent.dao.tables.Consent.CONSENT;
+
+/**
+ * Measures the consent queries in {@link ConsentUtils}, which back the Consent search and $status endpoints, against a large consent table.
+ * <p>
+ * This requires a migrated consent database (e.g. from the docker-compose setup), see {@link #jdbcURL}.
+ * The table is seeded with {@link #rows} synthetic records (two per patient, with a source code of BENCH), which are kept between runs since seeding millions of rows takes a while.
+ * Use {@code TRUNCATE consent} or {@code DELETE FROM consent WHERE source_code = 'BENCH'} to remove them.
+ * <p>
+ * The offset benchmark shows the cost of the previous approach of reading deep into the table, compared with starting from a keyset cursor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ConsentSearchBenchmark {
+
+    private static final String SOURCE_CODE = "BENCH";
+    private static final int RECORDS_PER_PATIENT = 2;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"2000000"})
+    public int rows;
+
+    // Number of patients given to each $status lookup
+    @Param({"1000"})
+    public int batchSize;
+
+    @Param({"jdbc:postgresql://localhost:5432/dpc_consent"})
+    public String jdbcURL;
+
+    @Param({"postgres"})
+    public String user;
+
+    @Param({"dpc-safe"})
+    public String password;
+
+    private Connection connection;
+    private DSLContext ctx;
+    private int patients;
+    private int offset;
+    private UUID cursor;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        this.connection = DriverManager.getConnection(this.jdbcURL, this.user, this.password);
+        this.ctx = DSL.using(this.connection, new Settings().withRenderQuotedNames(RenderQuotedNames.EXPLICIT_DEFAULT_UNQUOTED));
+        this.patients = this.rows / RECORDS_PER_PATIENT;
+
+        final int existing = this.ctx.fetchCount(CONSENT, CONSENT.SOURCE_CODE.eq(SOURCE_CODE));
+        if (existing != this.rows) {
+            seed();
+        }
+
+        // The cursor for a page in the middle of the table
+        this.offset = this.rows / 2;
+        this.cursor = this.ctx.select(CONSENT.ID)
+                .from(CONSENT)
+                .orderBy(CONSENT.ID)
+                .offset(this.offset)
+                .limit(1)
+                .fetchOne(CONSENT.ID);
+        this.random = new SplittableRandom(42);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws SQLException {
+        this.connection.close();
+    }
+
+    @Benchmark
+    public List<ConsentEntity> listDeepPageOffset() {
+        return this.ctx.selectFrom(CONSENT)
+                .orderBy(CONSENT.ID)
+                .offset(this.offset)
+                .limit(PAGE_SIZE)
+                .fetchInto(ConsentEntity.class);
+    }
+
+    @Benchmark
+    public List<ConsentEntity> listDeepPageKeyset() {
+        return ConsentUtils.listPage(this.ctx, this.cursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ConsentEntity> patientPage() {
+        return ConsentUtils.findPage(this.ctx, "mbi", mbi(this.random.nextInt(this.patients)), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Map<String, ConsentEntity> statusBulk() {
+        return ConsentUtils.findCurrent(this.ctx, "mbi", randomMbis(), LocalDate.now());
+    }
+
+    @Benchmark
+    public int statusIndividually() {
+        int found = 0;
+        for (final String mbi : randomMbis()) {
+            found += ConsentUtils.findCurrent(this.ctx, "mbi", List.of(mbi), LocalDate.now()).size();
+        }
+        return found;
+    }
+
+    private List<String> randomMbis() {
+        final List<String> mbis = new ArrayList<>(this.batchSize);
+        for (int i = 0; i < this.batchSize; i++) {
+            mbis.add(mbi(this.random.nextInt(this.patients)));
+        }
+        return mbis;
+    }
+
+    private static String mbi(int patient) {
+        return String.format("%s%06d", SOURCE_CODE, patient);
+    }
+
+    private void seed() {
+        this.ctx.deleteFrom(CONSENT).where(CONSENT.SOURCE_CODE.eq(SOURCE_CODE)).execute();
+        // Generate the records server-side, rather than sending millions of rows over the connection
+        this.ctx.execute("INSERT INTO consent (id, mbi, hicn, bfd_patient_id, effective_date, policy_code, purpose_code, loinc_code, scope_code, source_code, created_at, updated_at) " +
+                        "SELECT md5(n::text)::uuid, {0} || lpad((n / {1})::text, 6, '0'), lpad((n / {1})::text, 9, '0'), '-' || (n / {1}), " +
+                        "DATE '2014-01-01' + (n % 2000), CASE WHEN random() < 0.1 THEN {2} ELSE {3} END, {4}, {5}, {6}, {0}, NOW(), NOW() " +
+                        "FROM generate_series(0, {7} - 1) AS n",
+                DSL.val(SOURCE_CODE), DSL.val(RECORDS_PER_PATIENT), DSL.val(ConsentEntity.OPT_OUT), DSL.val(ConsentEntity.OPT_IN),
+                DSL.val(ConsentEntity.TREATMENT), DSL.val(ConsentEntity.CATEGORY_LOINC_CODE), DSL.val(ConsentEntity.SCOPE_CODE), DSL.val(this.rows));
+        this.ctx.execute("ANALYZE consent");
+    }
+}
@@ -0,0 +1,88 @@
+package gov.cms.dpc.benchmarks.consent;
+
+import gov.cms.dpc.consent.jobs.SuppressionFileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to parse a synthetic 1-800 suppression file with {@link SuppressionFileUtils}.
+ * <p>
+ * {@link #forEachRecord(Blackhole)} parses the bytes of the file directly, as the suppression import does.
+ * {@link #entityFromLine(Blackhole)} reads the file line by line and parses each {@link String}, which is the baseline.
+ * Only {@link #importedFraction} of the records have a 1-800 source, the rest are skipped, like in the real files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SuppressionFileParserBenchmark {
+
+    // Fixed-width record, with the HICN, effective date, source and preference at the same offsets as the real files
+    private static final String RECORD = "1000087481 1847800005John                          Mitchell                      Doe                                     198203218702 E Fake St.                                        Apt. 63L                                               Region                                                 Las Vegas                               NV423139954M20190618201907011-800TY201907011-800TNT9992WeCare Medical                                                        ";
+    private static final int SOURCE_START = 362, PREF_INDICATOR = 368;
+
+    @Param({"2000000"})
+    public int lines;
+
+    @Param({"0.1"})
+    public double importedFraction;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        this.file = Files.createTempFile("T#EFT.ON.ACO.NGD1800.DPRF.D191029.", ".T1135430");
+        final SplittableRandom random = new SplittableRandom(42);
+        final char[] record = RECORD.toCharArray();
+        try (BufferedWriter writer = Files.newBufferedWriter(this.file, StandardCharsets.US_ASCII)) {
+            writer.write("HDR_BENEDATASHR20191029\n");
+            for (int i = 0; i < lines; i++) {
+                final String hicn = String.format("%010d", 1_000_000_000L + i);
+                hicn.getChars(0, hicn.length(), record, 0);
+                final boolean imported = random.nextDouble() < importedFraction;
+                "1-800".getChars(0, 5, record, SOURCE_START);
+                if (!imported) {
+                    "     ".getChars(0, 5, record, SOURCE_START);
+                }
+                record[PREF_INDICATOR] = random.nextBoolean() ? 'Y' : 'N';
+                writer.write(record);
+                writer.write('\n');
+            }
+            writer.write(String.format("TRL_BENEDATASHR20191029%10d\n", lines));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public int forEachRecord(Blackhole blackhole) throws IOException {
+        return SuppressionFileUtils.forEachRecord(this.file, (consent, lineNum) -> blackhole.consume(consent), blackhole::consume);
+    }
+
+    @Benchmark
+    public int entityFromLine(Blackhole blackhole) throws IOException {
+        final String filename = this.file.getFileName().toString();
+        int lineNum = 0;
+        try (BufferedReader reader = Files.newBufferedReader(this.file, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                blackhole.consume(SuppressionFileUtils.entityFromLine(line, filename, ++lineNum));
+            }
+        }
+        return lineNum;
+    }
+}
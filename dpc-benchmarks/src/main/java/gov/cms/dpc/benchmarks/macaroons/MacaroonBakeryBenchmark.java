@@ -0,0 +1,82 @@
+package gov.cms.dpc.benchmarks.macaroons;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.nitram509.jmacaroons.Macaroon;
+import gov.cms.dpc.macaroons.BakeryProvider;
+import gov.cms.dpc.macaroons.CaveatSupplier;
+import gov.cms.dpc.macaroons.MacaroonBakery;
+import gov.cms.dpc.macaroons.MacaroonCaveat;
+import gov.cms.dpc.macaroons.config.TokenPolicy;
+import gov.cms.dpc.macaroons.store.MemoryRootKeyStore;
+import gov.cms.dpc.macaroons.thirdparty.BakeryKeyPair;
+import gov.cms.dpc.macaroons.thirdparty.MemoryThirdPartyKeyStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static gov.cms.dpc.api.auth.MacaroonHelpers.generateCaveatsForToken;
+
+/**
+ * Measures creating and verifying client tokens with a {@link MacaroonBakery} configured in the same way as the API, with and without the verification cache.
+ * <p>
+ * {@link #verifyMacaroon()} verifies the same token on each call, as happens when a client makes repeated requests with one token.
+ * Serialization is covered by {@link MacaroonSerializationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MacaroonBakeryBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cacheEnabled;
+
+    private MacaroonBakery bakery;
+    private List<MacaroonCaveat> caveats;
+    private List<Macaroon> macaroons;
+    private String organizationVerifier;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final TokenPolicy policy = new TokenPolicy();
+        policy.getVersionPolicy().setMinimumVersion(1);
+        policy.getVersionPolicy().setCurrentVersion(2);
+        policy.getExpirationPolicy().setExpirationOffset(1);
+        policy.getExpirationPolicy().setExpirationUnit(ChronoUnit.YEARS);
+        policy.getVerificationCachePolicy().setEnabled(this.cacheEnabled);
+
+        this.bakery = new BakeryProvider(policy,
+                new MemoryRootKeyStore(new SecureRandom()),
+                new MemoryThirdPartyKeyStore(),
+                "http://test.local",
+                BakeryKeyPair.generate(),
+                new MetricRegistry()).get();
+
+        final UUID organizationID = UUID.randomUUID();
+        this.caveats = generateCaveatsForToken(1, organizationID, Duration.ofDays(1))
+                .stream()
+                .map(CaveatSupplier::get)
+                .collect(Collectors.toList());
+        this.macaroons = List.of(this.bakery.createMacaroon(this.caveats));
+        this.organizationVerifier = String.format("organization_id = %s", organizationID);
+    }
+
+    @Benchmark
+    public Macaroon createMacaroon() {
+        return this.bakery.createMacaroon(this.caveats);
+    }
+
+    @Benchmark
+    public List<Macaroon> verifyMacaroon() {
+        this.bakery.verifyMacaroon(this.macaroons, this.organizationVerifier);
+        return this.macaroons;
+    }
+}
@@ -0,0 +1,98 @@
+package gov.cms.dpc.benchmarks.macaroons;
+
+import com.github.nitram509.jmacaroons.Macaroon;
+import gov.cms.dpc.macaroons.CaveatSupplier;
+import gov.cms.dpc.macaroons.MacaroonBakery;
+import gov.cms.dpc.macaroons.store.MemoryRootKeyStore;
+import gov.cms.dpc.macaroons.thirdparty.MemoryThirdPartyKeyStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static gov.cms.dpc.api.auth.MacaroonHelpers.generateCaveatsForToken;
+
+/**
+ * Compares the JSON and V2 binary macaroon formats supported by {@link MacaroonBakery}, using a client token with the same caveats as the API issues.
+ * <p>
+ * Deserialization happens on every authenticated request, serialization only when tokens are created.
+ * The size of the serialized token is reported by {@link #tokenSize(TokenSize)}, as its {@link TokenSize#tokenBytes} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MacaroonSerializationBenchmark {
+
+    public enum Format {
+        JSON,
+        BINARY
+    }
+
+    @Param({"JSON", "BINARY"})
+    public Format format;
+
+    private MacaroonBakery bakery;
+    private Macaroon macaroon;
+    private String token;
+
+    /**
+     * Size of the serialized token.
+     * JMH sums event counters over the measurement iterations, so this is only the size of a single token when there is one iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class TokenSize {
+        public int tokenBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.bakery = new MacaroonBakery.MacaroonBakeryBuilder("http://test.local",
+                new MemoryRootKeyStore(new SecureRandom()),
+                new MemoryThirdPartyKeyStore()).build();
+        this.macaroon = this.bakery.createMacaroon(generateCaveatsForToken(1, UUID.randomUUID(), Duration.ofDays(1))
+                .stream()
+                .map(CaveatSupplier::get)
+                .collect(Collectors.toList()));
+        this.token = new String(doSerialize(), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return doSerialize();
+    }
+
+    @Benchmark
+    public List<Macaroon> deserialize() {
+        return MacaroonBakery.deserializeMacaroon(this.token);
+    }
+
+    /**
+     * Serializes the token in a single, short iteration, to report its size.
+     * The timing of this benchmark is not meaningful, see {@link #serialize()}.
+     * Aux counters are not reported for single shot benchmarks, so this has to run for a (short) period of time.
+     */
+    @Benchmark
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1, time = 1)
+    public byte[] tokenSize(TokenSize size) {
+        final byte[] serialized = doSerialize();
+        size.tokenBytes = serialized.length;
+        return serialized;
+    }
+
+    private byte[] doSerialize() {
+        if (this.format == Format.BINARY) {
+            return this.bakery.serializeMacaroonBinary(this.macaroon);
+        }
+        return this.bakery.serializeMacaroon(this.macaroon, true);
+    }
+}
@@ -0,0 +1,193 @@
+package gov.cms.dpc.bfd.simulator;
+
+import ca.mestevens.java.configuration.TypesafeConfiguration;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+
+import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class BFDSimulatorConfiguration extends TypesafeConfiguration {
+
+    @Valid
+    @NotNull
+    @JsonProperty("data")
+    private DataConfiguration data = new DataConfiguration();
+
+    @Valid
+    @NotNull
+    @JsonProperty("faults")
+    private FaultConfiguration faults = new FaultConfiguration();
+
+    // Threads which generate and encode the responses, once their delay has elapsed
+    @Min(1)
+    @JsonProperty("workerThreads")
+    private int workerThreads = Runtime.getRuntime().availableProcessors();
+
+    public DataConfiguration getData() {
+        return data;
+    }
+
+    public void setData(DataConfiguration data) {
+        this.data = data;
+    }
+
+    public FaultConfiguration getFaults() {
+        return faults;
+    }
+
+    public void setFaults(FaultConfiguration faults) {
+        this.faults = faults;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * Shape of the synthetic data.
+     * Each patient gets a number of claims chosen uniformly between {@link #getMinClaims()} and {@link #getMaxClaims()}, which is stable across requests, so paging is consistent.
+     */
+    public static class DataConfiguration {
+
+        @Min(0)
+        private int minClaims = 10;
+
+        @Min(0)
+        private int maxClaims = 200;
+
+        @Min(1)
+        private int itemsPerClaim = 5;
+
+        @Min(0)
+        private int coveragePerPatient = 3;
+
+        // Used when the request does not specify a _count
+        @Min(1)
+        @Max(1000)
+        private int defaultPageSize = 100;
+
+        public DataConfiguration() {
+            // Jackson required
+        }
+
+        public int getMinClaims() {
+            return minClaims;
+        }
+
+        public void setMinClaims(int minClaims) {
+            this.minClaims = minClaims;
+        }
+
+        public int getMaxClaims() {
+            return maxClaims;
+        }
+
+        public void setMaxClaims(int maxClaims) {
+            this.maxClaims = maxClaims;
+        }
+
+        public int getItemsPerClaim() {
+            return itemsPerClaim;
+        }
+
+        public void setItemsPerClaim(int itemsPerClaim) {
+            this.itemsPerClaim = itemsPerClaim;
+        }
+
+        public int getCoveragePerPatient() {
+            return coveragePerPatient;
+        }
+
+        public void setCoveragePerPatient(int coveragePerPatient) {
+            this.coveragePerPatient = coveragePerPatient;
+        }
+
+        public int getDefaultPageSize() {
+            return defaultPageSize;
+        }
+
+        public void setDefaultPageSize(int defaultPageSize) {
+            this.defaultPageSize = defaultPageSize;
+        }
+    }
+
+    /**
+     * Latency and errors injected into every FHIR request.
+     * Latency follows a log-normal distribution, fitted to the configured median and 99th percentile.
+     */
+    public static class FaultConfiguration {
+
+        @NotNull
+        private Duration medianLatency = Duration.milliseconds(100);
+
+        @NotNull
+        private Duration p99Latency = Duration.seconds(1);
+
+        // Fraction of requests which fail with the errorStatus
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double errorRate = 0.0;
+
+        @Min(400)
+        @Max(599)
+        private int errorStatus = 503;
+
+        // Fraction of MBIs which don't match a patient
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double missingPatientRate = 0.0;
+
+        public FaultConfiguration() {
+            // Jackson required
+        }
+
+        public Duration getMedianLatency() {
+            return medianLatency;
+        }
+
+        public void setMedianLatency(Duration medianLatency) {
+            this.medianLatency = medianLatency;
+        }
+
+        public Duration getP99Latency() {
+            return p99Latency;
+        }
+
+        public void setP99Latency(Duration p99Latency) {
+            this.p99Latency = p99Latency;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public void setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+        }
+
+        public int getErrorStatus() {
+            return errorStatus;
+        }
+
+        public void setErrorStatus(int errorStatus) {
+            this.errorStatus = errorStatus;
+        }
+
+        public double getMissingPatientRate() {
+            return missingPatientRate;
+        }
+
+        public void setMissingPatientRate(double missingPatientRate) {
+            this.missingPatientRate = missingPatientRate;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package gov.cms.dpc.bfd.simulator;
+
+import ca.mestevens.java.configuration.bundle.TypesafeConfigurationBundle;
+import ca.uhn.fhir.context.FhirContext;
+import gov.cms.dpc.bfd.simulator.resources.FHIRSimulatorResource;
+import io.dropwizard.Application;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Standalone simulator of the Beneficiary FHIR Data (BFD) server, for load testing the BlueButton client without a BFD sandbox.
+ * <p>
+ * It serves synthetic Patient, ExplanationOfBenefit and Coverage resources for any MBI hash, over HTTPS with mutual TLS,
+ * with configurable claim counts, latency and error rates.
+ */
+public class BFDSimulatorService extends Application<BFDSimulatorConfiguration> {
+
+    public static void main(final String[] args) throws Exception {
+        new BFDSimulatorService().run(args);
+    }
+
+    @Override
+    public String getName() {
+        return "DPC BFD Simulator";
+    }
+
+    @Override
+    public void initialize(Bootstrap<BFDSimulatorConfiguration> bootstrap) {
+        bootstrap.addBundle(new TypesafeConfigurationBundle("dpc.bfdsim"));
+    }
+
+    @Override
+    public void run(BFDSimulatorConfiguration configuration, Environment environment) {
+        final ScheduledExecutorService scheduler = environment.lifecycle()
+                .scheduledExecutorService("bfd-simulator-latency-%d", true)
+                .threads(2)
+                .build();
+        final ExecutorService workers = environment.lifecycle()
+                .executorService("bfd-simulator-worker-%d")
+                .minThreads(configuration.getWorkerThreads())
+                .maxThreads(configuration.getWorkerThreads())
+                .build();
+
+        environment.jersey().register(new FHIRSimulatorResource(FhirContext.forDstu3(),
+                new SyntheticDataGenerator(configuration.getData()),
+                new FaultInjector(configuration.getFaults()),
+                configuration.getData(),
+                scheduler,
+                workers));
+    }
+}
@@ -0,0 +1,64 @@
+package gov.cms.dpc.bfd.simulator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides how each simulated BFD request misbehaves.
+ * <p>
+ * Latency is drawn from a log-normal distribution, which matches the long tail of real BFD response times.
+ * The distribution is fitted so that its median and 99th percentile match the configured values.
+ */
+public class FaultInjector {
+
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double P99_Z = 2.326;
+
+    private final BFDSimulatorConfiguration.FaultConfiguration config;
+    private final double mu;
+    private final double sigma;
+
+    public FaultInjector(BFDSimulatorConfiguration.FaultConfiguration config) {
+        this.config = config;
+        final long median = Math.max(1, config.getMedianLatency().toMicroseconds());
+        final long p99 = Math.max(median, config.getP99Latency().toMicroseconds());
+        this.mu = Math.log(median);
+        this.sigma = Math.log((double) p99 / median) / P99_Z;
+    }
+
+    /**
+     * Sample the latency to add to a request
+     *
+     * @return - latency in microseconds, 0 when no latency is configured
+     */
+    public long sampleLatencyMicros() {
+        if (config.getMedianLatency().getQuantity() == 0) {
+            return 0;
+        }
+        return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    /**
+     * Decide whether the request should fail
+     *
+     * @return - {@code true} if the request should fail with {@link #getErrorStatus()}
+     */
+    public boolean shouldFail() {
+        return config.getErrorRate() > 0 && ThreadLocalRandom.current().nextDouble() < config.getErrorRate();
+    }
+
+    public int getErrorStatus() {
+        return config.getErrorStatus();
+    }
+
+    /**
+     * Decide whether the given MBI hash should be treated as unknown to BFD.
+     * This is deterministic, so an unknown MBI stays unknown across retries.
+     *
+     * @param mbiHash - {@link String} MBI hash
+     * @return - {@code true} if no patient should be returned
+     */
+    public boolean isMissingPatient(String mbiHash) {
+        final double rate = config.getMissingPatientRate();
+        return rate > 0 && Math.floorMod(mbiHash.hashCode(), 10_000) < rate * 10_000;
+    }
+}
@@ -0,0 +1,171 @@
+package gov.cms.dpc.bfd.simulator;
+
+import gov.cms.dpc.fhir.DPCIdentifierSystem;
+import org.hl7.fhir.dstu3.model.*;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic BFD resources for any beneficiary.
+ * <p>
+ * All the data for a beneficiary is derived from a random generator seeded with its beneficiary ID,
+ * so repeated (or paged) requests for the same beneficiary always return the same resources, without keeping any state.
+ * Beneficiary IDs are derived from the MBI hash, which means that every MBI hash resolves to a patient.
+ */
+public class SyntheticDataGenerator {
+
+    static final String CLAIM_TYPE_SYSTEM = "https://bluebutton.cms.gov/resources/variables/nch_clm_type_cd";
+    private static final String HCPCS_SYSTEM = "https://bluebutton.cms.gov/resources/codesystem/hcpcs";
+    private static final LocalDate FIRST_CLAIM_DATE = LocalDate.of(2014, 1, 1);
+    private static final int CLAIM_DATE_RANGE_DAYS = 6 * 365;
+    private static final String[] COVERAGE_PARTS = {"part-a", "part-b", "part-d"};
+    private static final String[] GENDERS = {"male", "female", "unknown"};
+
+    private final BFDSimulatorConfiguration.DataConfiguration config;
+
+    public SyntheticDataGenerator(BFDSimulatorConfiguration.DataConfiguration config) {
+        this.config = config;
+    }
+
+    /**
+     * Derive the beneficiary ID for the given MBI hash.
+     * Like BFD synthetic data, beneficiary IDs are negative numbers.
+     *
+     * @param mbiHash - {@link String} hex encoded MBI hash
+     * @return - {@link String} beneficiary ID
+     */
+    public static String beneIdFromMbiHash(String mbiHash) {
+        final String digits = mbiHash.length() > 12 ? mbiHash.substring(0, 12) : mbiHash;
+        long id;
+        try {
+            id = Long.parseLong(digits, 16);
+        } catch (NumberFormatException e) {
+            id = Integer.toUnsignedLong(mbiHash.hashCode());
+        }
+        return "-" + id;
+    }
+
+    /**
+     * Get the total number of claims for the beneficiary
+     *
+     * @param beneId - {@link String} beneficiary ID
+     * @return - number of {@link ExplanationOfBenefit} resources available for the beneficiary
+     */
+    public int claimCount(String beneId) {
+        final int range = Math.max(0, config.getMaxClaims() - config.getMinClaims());
+        return config.getMinClaims() + (range == 0 ? 0 : random(beneId, 0).nextInt(range + 1));
+    }
+
+    public Patient patient(String beneId, String mbiHash) {
+        final SplittableRandom random = random(beneId, 1);
+        final Patient patient = new Patient();
+        patient.setId(beneId);
+        patient.addIdentifier()
+                .setSystem(DPCIdentifierSystem.BENE_ID.getSystem())
+                .setValue(beneId);
+        if (mbiHash != null) {
+            patient.addIdentifier()
+                    .setSystem(DPCIdentifierSystem.MBI_HASH.getSystem())
+                    .setValue(mbiHash);
+        }
+        patient.addName()
+                .setFamily("Doe" + random.nextInt(10_000))
+                .addGiven("Jane" + random.nextInt(10_000));
+        patient.setGender(Enumerations.AdministrativeGender.fromCode(GENDERS[random.nextInt(GENDERS.length)]));
+        patient.setBirthDate(toDate(LocalDate.of(1920, 1, 1).plusDays(random.nextInt(80 * 365))));
+        patient.addAddress()
+                .setState("MD")
+                .setPostalCode(String.format("2%04d", random.nextInt(10_000)));
+        return patient;
+    }
+
+    /**
+     * Generate a page of claims for the beneficiary
+     *
+     * @param beneId     - {@link String} beneficiary ID
+     * @param startIndex - index of the first claim to return
+     * @param count      - maximum number of claims to return
+     * @return - {@link List} of {@link ExplanationOfBenefit}, which is empty when startIndex is past the last claim
+     */
+    public List<ExplanationOfBenefit> explanationOfBenefits(String beneId, int startIndex, int count) {
+        final int end = Math.min(claimCount(beneId), startIndex + count);
+        final List<ExplanationOfBenefit> eobs = new ArrayList<>(Math.max(0, end - startIndex));
+        for (int i = Math.max(0, startIndex); i < end; i++) {
+            eobs.add(explanationOfBenefit(beneId, i));
+        }
+        return eobs;
+    }
+
+    public List<Coverage> coverage(String beneId) {
+        final SplittableRandom random = random(beneId, 2);
+        final int count = Math.min(config.getCoveragePerPatient(), COVERAGE_PARTS.length);
+        final List<Coverage> coverages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final Coverage coverage = new Coverage();
+            coverage.setId(String.format("%s-%s", COVERAGE_PARTS[i], beneId));
+            coverage.setStatus(Coverage.CoverageStatus.ACTIVE);
+            coverage.setBeneficiary(new Reference("Patient/" + beneId));
+            coverage.getGrouping()
+                    .setSubGroup(COVERAGE_PARTS[i].toUpperCase())
+                    .setSubPlan(COVERAGE_PARTS[i]);
+            coverage.getPeriod().setStart(toDate(FIRST_CLAIM_DATE.minusDays(random.nextInt(3650))));
+            coverages.add(coverage);
+        }
+        return coverages;
+    }
+
+    private ExplanationOfBenefit explanationOfBenefit(String beneId, int index) {
+        final SplittableRandom random = random(beneId, 100L + index);
+        final ExplanationOfBenefit eob = new ExplanationOfBenefit();
+        eob.setId(String.format("carrier%s-%d", beneId, index));
+        eob.setStatus(ExplanationOfBenefit.ExplanationOfBenefitStatus.ACTIVE);
+        eob.setPatient(new Reference("Patient/" + beneId));
+        eob.getType().addCoding()
+                .setSystem(CLAIM_TYPE_SYSTEM)
+                .setCode("71");
+
+        final LocalDate start = FIRST_CLAIM_DATE.plusDays(random.nextInt(CLAIM_DATE_RANGE_DAYS));
+        eob.getBillablePeriod()
+                .setStart(toDate(start))
+                .setEnd(toDate(start.plusDays(random.nextInt(30))));
+
+        eob.getProvider().getIdentifier()
+                .setSystem(DPCIdentifierSystem.NPPES.getSystem())
+                .setValue(npi(random));
+        eob.getOrganization().getIdentifier()
+                .setSystem(DPCIdentifierSystem.NPPES.getSystem())
+                .setValue(npi(random));
+
+        for (int i = 1; i <= config.getItemsPerClaim(); i++) {
+            final ExplanationOfBenefit.ItemComponent item = eob.addItem();
+            item.setSequence(i);
+            item.getService().addCoding()
+                    .setSystem(HCPCS_SYSTEM)
+                    .setCode(String.format("%05d", random.nextInt(100_000)));
+            item.setServiced(new Period()
+                    .setStart(eob.getBillablePeriod().getStart())
+                    .setEnd(eob.getBillablePeriod().getEnd()));
+            item.getNet()
+                    .setValue(random.nextInt(100_000) / 100.0)
+                    .setCode("USD");
+        }
+        return eob;
+    }
+
+    private static String npi(SplittableRandom random) {
+        return String.valueOf(1_000_000_000L + random.nextLong(1_000_000_000L));
+    }
+
+    private static SplittableRandom random(String beneId, long stream) {
+        return new SplittableRandom(beneId.hashCode() * 31L + stream);
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay().toInstant(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,177 @@
+package gov.cms.dpc.bfd.simulator.resources;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import gov.cms.dpc.bfd.simulator.BFDSimulatorConfiguration;
+import gov.cms.dpc.bfd.simulator.FaultInjector;
+import gov.cms.dpc.bfd.simulator.SyntheticDataGenerator;
+import gov.cms.dpc.fhir.DPCIdentifierSystem;
+import org.hl7.fhir.dstu3.model.*;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Serves the subset of the BFD FHIR API which is used by the BlueButton client.
+ * <p>
+ * Every request is delayed, and possibly failed, according to the {@link FaultInjector}.
+ * The delay is applied by scheduling the response, so slow responses don't tie up server threads.
+ * The scheduler only times the delay, the response is then generated and encoded on the worker pool.
+ */
+@Path("/v1/fhir")
+@Produces(FHIRSimulatorResource.FHIR_JSON)
+public class FHIRSimulatorResource {
+
+    static final String FHIR_JSON = "application/fhir+json";
+
+    private final FhirContext ctx;
+    private final SyntheticDataGenerator generator;
+    private final FaultInjector faults;
+    private final BFDSimulatorConfiguration.DataConfiguration config;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+
+    public FHIRSimulatorResource(FhirContext ctx, SyntheticDataGenerator generator, FaultInjector faults, BFDSimulatorConfiguration.DataConfiguration config, ScheduledExecutorService scheduler, ExecutorService workers) {
+        this.ctx = ctx;
+        this.generator = generator;
+        this.faults = faults;
+        this.config = config;
+        this.scheduler = scheduler;
+        this.workers = workers;
+    }
+
+    @GET
+    @Path("/metadata")
+    public void metadata(@Suspended AsyncResponse response) {
+        respond(response, () -> {
+            final CapabilityStatement statement = new CapabilityStatement();
+            statement.setStatus(Enumerations.PublicationStatus.ACTIVE);
+            statement.setDate(new Date());
+            statement.setFhirVersion("3.0.2");
+            statement.setKind(CapabilityStatement.CapabilityStatementKind.INSTANCE);
+            statement.getSoftware().setName("DPC BFD Simulator");
+            return statement;
+        });
+    }
+
+    @GET
+    @Path("/Patient")
+    public void searchPatient(@QueryParam("identifier") String identifier, @QueryParam("_id") String id, @Suspended AsyncResponse response) {
+        respond(response, () -> {
+            final Bundle bundle = searchSet();
+            if (id != null) {
+                bundle.addEntry().setResource(generator.patient(id, null));
+            } else if (identifier != null) {
+                // Identifier is formatted as system|value
+                final String[] parts = identifier.split("\\|", 2);
+                if (parts.length == 2 && parts[0].equals(DPCIdentifierSystem.MBI_HASH.getSystem()) && !faults.isMissingPatient(parts[1])) {
+                    bundle.addEntry().setResource(generator.patient(SyntheticDataGenerator.beneIdFromMbiHash(parts[1]), parts[1]));
+                }
+            }
+            return bundle.setTotal(bundle.getEntry().size());
+        });
+    }
+
+    @GET
+    @Path("/ExplanationOfBenefit")
+    public void searchEOB(@QueryParam("patient") String patient,
+                          @QueryParam("_count") Integer count,
+                          @QueryParam("startIndex") Integer startIndex,
+                          @Context UriInfo uriInfo,
+                          @Suspended AsyncResponse response) {
+        respond(response, () -> {
+            final Bundle bundle = searchSet();
+            if (patient == null) {
+                return bundle.setTotal(0);
+            }
+            final String beneId = stripReference(patient);
+            final int pageSize = count == null ? config.getDefaultPageSize() : Math.max(1, count);
+            final int start = startIndex == null ? 0 : Math.max(0, startIndex);
+            final int total = generator.claimCount(beneId);
+
+            generator.explanationOfBenefits(beneId, start, pageSize).forEach(eob -> bundle.addEntry().setResource(eob));
+            bundle.setTotal(total);
+            if (start + pageSize < total) {
+                bundle.addLink()
+                        .setRelation(Bundle.LINK_NEXT)
+                        .setUrl(uriInfo.getBaseUriBuilder()
+                                .path(FHIRSimulatorResource.class)
+                                .path("ExplanationOfBenefit")
+                                .queryParam("patient", beneId)
+                                .queryParam("_count", pageSize)
+                                .queryParam("startIndex", start + pageSize)
+                                .build()
+                                .toString());
+            }
+            return bundle;
+        });
+    }
+
+    @GET
+    @Path("/Coverage")
+    public void searchCoverage(@QueryParam("beneficiary") String beneficiary, @Suspended AsyncResponse response) {
+        respond(response, () -> {
+            final Bundle bundle = searchSet();
+            if (beneficiary != null) {
+                generator.coverage(stripReference(beneficiary)).forEach(coverage -> bundle.addEntry().setResource(coverage));
+            }
+            return bundle.setTotal(bundle.getEntry().size());
+        });
+    }
+
+    private void respond(AsyncResponse response, Supplier<IBaseResource> supplier) {
+        final long latency = faults.sampleLatencyMicros();
+        final boolean fail = faults.shouldFail();
+        final Runnable task = () -> {
+            if (fail) {
+                response.resume(Response.status(faults.getErrorStatus()).build());
+                return;
+            }
+            try {
+                final IParser parser = ctx.newJsonParser();
+                response.resume(Response.ok(parser.encodeResourceToString(supplier.get()), FHIR_JSON).build());
+            } catch (RuntimeException e) {
+                response.resume(e);
+            }
+        };
+        if (latency == 0) {
+            dispatch(response, task);
+        } else {
+            scheduler.schedule(() -> dispatch(response, task), latency, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private void dispatch(AsyncResponse response, Runnable task) {
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            response.resume(e);
+        }
+    }
+
+    private static Bundle searchSet() {
+        final Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.SEARCHSET);
+        bundle.getMeta().setLastUpdated(new Date());
+        return bundle;
+    }
+
+    private static String stripReference(String reference) {
+        return reference.startsWith("Patient/") ? reference.substring("Patient/".length()) : reference;
+    }
+}
@@ -0,0 +1,43 @@
+package gov.cms.dpc.bfd.simulator;
+
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FaultInjectorTest {
+
+    @Test
+    void testLatencyDistribution() {
+        final BFDSimulatorConfiguration.FaultConfiguration config = new BFDSimulatorConfiguration.FaultConfiguration();
+        config.setMedianLatency(Duration.milliseconds(50));
+        config.setP99Latency(Duration.milliseconds(500));
+        final FaultInjector injector = new FaultInjector(config);
+
+        final long[] samples = LongStream.generate(injector::sampleLatencyMicros).limit(20_000).toArray();
+        Arrays.sort(samples);
+        final long median = samples[samples.length / 2];
+        final long p99 = samples[(int) (samples.length * 0.99)];
+        assertEquals(50_000, median, 5_000, "Median should match configuration");
+        assertEquals(500_000, p99, 100_000, "P99 should match configuration");
+    }
+
+    @Test
+    void testErrors() {
+        final BFDSimulatorConfiguration.FaultConfiguration config = new BFDSimulatorConfiguration.FaultConfiguration();
+        config.setErrorRate(0.25);
+        config.setMissingPatientRate(0.5);
+        final FaultInjector injector = new FaultInjector(config);
+
+        final long failures = LongStream.range(0, 10_000).filter(i -> injector.shouldFail()).count();
+        assertEquals(2_500, failures, 250, "Error rate should match configuration");
+        assertEquals(injector.isMissingPatient("abc"), injector.isMissingPatient("abc"), "Missing patients should be stable");
+
+        final FaultInjector noFaults = new FaultInjector(new BFDSimulatorConfiguration.FaultConfiguration());
+        assertFalse(noFaults.shouldFail());
+        assertFalse(noFaults.isMissingPatient("abc"));
+    }
+}
@@ -0,0 +1,67 @@
+package gov.cms.dpc.bfd.simulator;
+
+import gov.cms.dpc.fhir.DPCIdentifierSystem;
+import org.hl7.fhir.dstu3.model.ExplanationOfBenefit;
+import org.hl7.fhir.dstu3.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticDataGeneratorTest {
+
+    private static final String MBI_HASH = "abadf57ff8dc94610ca0d479feadb1743c9cd3c77caf1eafde5719a154379fb6";
+
+    private final SyntheticDataGenerator generator;
+
+    SyntheticDataGeneratorTest() {
+        final BFDSimulatorConfiguration.DataConfiguration config = new BFDSimulatorConfiguration.DataConfiguration();
+        config.setMinClaims(20);
+        config.setMaxClaims(40);
+        config.setItemsPerClaim(2);
+        generator = new SyntheticDataGenerator(config);
+    }
+
+    @Test
+    void testPatientFromMbiHash() {
+        final String beneId = SyntheticDataGenerator.beneIdFromMbiHash(MBI_HASH);
+        assertTrue(beneId.startsWith("-"), "Beneficiary ID should be negative");
+        assertEquals(beneId, SyntheticDataGenerator.beneIdFromMbiHash(MBI_HASH), "Beneficiary ID should be stable");
+
+        final Patient patient = generator.patient(beneId, MBI_HASH);
+        assertEquals(beneId, patient.getIdElement().getIdPart());
+        assertTrue(patient.getIdentifier().stream().anyMatch(id -> id.getSystem().equals(DPCIdentifierSystem.MBI_HASH.getSystem()) && id.getValue().equals(MBI_HASH)), "Should have MBI hash");
+        assertTrue(generator.patient(beneId, MBI_HASH).equalsDeep(patient), "Patient should be stable");
+    }
+
+    @Test
+    void testPagedClaimsAreConsistent() {
+        final String beneId = SyntheticDataGenerator.beneIdFromMbiHash(MBI_HASH);
+        final int total = generator.claimCount(beneId);
+        assertTrue(total >= 20 && total <= 40, "Claim count should be within configured bounds");
+
+        final List<ExplanationOfBenefit> all = generator.explanationOfBenefits(beneId, 0, 100);
+        assertEquals(total, all.size());
+
+        final List<ExplanationOfBenefit> paged = IntStream.iterate(0, start -> start < total, start -> start + 7)
+                .mapToObj(start -> generator.explanationOfBenefits(beneId, start, 7))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        assertEquals(total, paged.size());
+        for (int i = 0; i < total; i++) {
+            assertTrue(all.get(i).equalsDeep(paged.get(i)), "Pages should match the full set of claims");
+        }
+
+        assertTrue(generator.explanationOfBenefits(beneId, total, 10).isEmpty(), "Should have no claims past the end");
+        assertEquals(2, all.get(0).getItem().size());
+        assertEquals("Patient/" + beneId, all.get(0).getPatient().getReference());
+    }
+
+    @Test
+    void testCoverage() {
+        assertEquals(3, generator.coverage("-1").size());
+    }
+}
@@ -4,20 +4,46 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
 import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Binder;
+import com.codahale.metrics.httpclient.InstrumentedHttpClientConnectionManager;
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.hubspot.dropwizard.guicier.DropwizardAwareModule;
+import gov.cms.dpc.bluebutton.cache.BlueButtonResponseCache;
+import gov.cms.dpc.bluebutton.client.BlueButtonAsyncClient;
+import gov.cms.dpc.bluebutton.client.BlueButtonAsyncClientImpl;
 import gov.cms.dpc.bluebutton.client.BlueButtonClient;
 import gov.cms.dpc.bluebutton.client.BlueButtonClientImpl;
+import gov.cms.dpc.bluebutton.client.BlueButtonRequestGuard;
+import gov.cms.dpc.bluebutton.client.PageSizer;
 import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
 import gov.cms.dpc.bluebutton.config.BlueButtonBundleConfiguration;
 import gov.cms.dpc.bluebutton.exceptions.BlueButtonClientSetupException;
 import gov.cms.dpc.bluebutton.health.BlueButtonHealthCheck;
+import gov.cms.dpc.common.utils.MetricMaker;
 import io.dropwizard.Configuration;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.http.ssl.SSLContexts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +57,10 @@ import java.nio.file.Paths;
 import java.security.*;
 import java.security.cert.CertificateException;
 import java.util.MissingResourceException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Guice module for building and injecting the {@link BlueButtonClient}.
@@ -42,6 +72,8 @@ public class BlueButtonClientModule<T extends Configuration & BlueButtonBundleCo
     private static final Logger logger = LoggerFactory.getLogger(BlueButtonClientModule.class);
     // Used to retrieve the keystore from the JAR resources. This path is relative to the Resources root.
     private static final String KEYSTORE_RESOURCE_KEY = "/bb.keystore";
+    // Pool gauges are registered under org.apache.http.conn.HttpClientConnectionManager.bbclient (and org.apache.http.nio.conn.NHttpClientConnectionManager.bbclient for the async client)
+    private static final String POOL_METRICS_NAME = "bbclient";
     private BBClientConfiguration bbClientConfiguration;
 
     public BlueButtonClientModule() {
@@ -63,8 +95,50 @@ public class BlueButtonClientModule<T extends Configuration & BlueButtonBundleCo
     }
 
     @Provides
-    public BlueButtonClient provideBlueButtonClient(@Named("bbclient") IGenericClient fhirRestClient, MetricRegistry registry) {
-        return new BlueButtonClientImpl(fhirRestClient, this.bbClientConfiguration, registry);
+    @Singleton
+    public BlueButtonClient provideBlueButtonClient(@Named("bbclient") IGenericClient fhirRestClient, BlueButtonRequestGuard guard, PageSizer pageSizer, MetricRegistry registry) {
+        return new BlueButtonClientImpl(fhirRestClient, this.bbClientConfiguration, guard, pageSizer, registry);
+    }
+
+    @Provides
+    @Singleton
+    public PageSizer providePageSizer(MetricRegistry registry) {
+        return new PageSizer(this.bbClientConfiguration, registry);
+    }
+
+    @Provides
+    @Singleton
+    public BlueButtonRequestGuard provideRequestGuard(MetricRegistry registry) {
+        return new BlueButtonRequestGuard(this.bbClientConfiguration.getResilience(), registry);
+    }
+
+    @Provides
+    @Singleton
+    public BlueButtonResponseCache provideResponseCache(FhirContext fhirContext, MetricRegistry registry) {
+        return new BlueButtonResponseCache(this.bbClientConfiguration.getResponseCache(), fhirContext, registry);
+    }
+
+    @Provides
+    @Singleton
+    public BlueButtonAsyncClient provideBlueButtonAsyncClient(KeyStore keyStore, BlueButtonClient blockingClient, BlueButtonRequestGuard guard, PageSizer pageSizer, FhirContext fhirContext, MetricRegistry registry) {
+        final var evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "bbclient-async-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final var asyncClient = HttpAsyncClients.custom()
+                .setDefaultRequestConfig(buildRequestConfig())
+                .setConnectionManager(buildAsyncConnectionManager(keyStore, this.bbClientConfiguration.getKeystore().getDefaultPassword().toCharArray(), evictor, registry))
+                .setKeepAliveStrategy(buildKeepAliveStrategy())
+                .build();
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        final var workers = Executors.newFixedThreadPool(this.bbClientConfiguration.getAsyncThreads(), r -> {
+            final Thread thread = new Thread(r, "bbclient-async-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new BlueButtonAsyncClientImpl(asyncClient, blockingClient, guard, fhirContext, workers, evictor, this.bbClientConfiguration, pageSizer, registry);
     }
 
     @Provides
@@ -91,8 +165,9 @@ public class BlueButtonClientModule<T extends Configuration & BlueButtonBundleCo
     }
 
     @Provides
-    public HttpClient provideHttpClient(KeyStore keyStore) {
-        return buildMutualTlsClient(keyStore, this.bbClientConfiguration.getKeystore().getDefaultPassword().toCharArray());
+    @Singleton
+    public HttpClient provideHttpClient(KeyStore keyStore, MetricRegistry registry) {
+        return buildMutualTlsClient(keyStore, this.bbClientConfiguration.getKeystore().getDefaultPassword().toCharArray(), registry);
     }
 
     /**
@@ -129,16 +204,88 @@ public class BlueButtonClientModule<T extends Configuration & BlueButtonBundleCo
     /**
      * Helper function to build a special {@link HttpClient} capable of authenticating with the Blue Button server using a client TLS certificate
      *
+     * Connections are pooled, and the pool statistics (leased, pending, available and max connections) are exported as gauges.
+     *
      * @param keyStore     {@link KeyStore} containing, at a minimum, the client tls certificate and private key
      * @param keyStorePass password for keystore (default: "changeit")
+     * @param registry     {@link MetricRegistry} for the connection pool metrics
      * @return {@link HttpClient} compatible with HAPI FHIR TLS client
      */
-    private HttpClient buildMutualTlsClient(KeyStore keyStore, char[] keyStorePass) {
-        final SSLContext sslContext;
+    private HttpClient buildMutualTlsClient(KeyStore keyStore, char[] keyStorePass, MetricRegistry registry) {
+        final SSLContext sslContext = buildSSLContext(keyStore, keyStorePass);
+        final RequestConfig requestConfig = buildRequestConfig();
 
+        final BBClientConfiguration.ConnectionPoolConfiguration poolConfig = this.bbClientConfiguration.getConnectionPool();
+        final Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext))
+                .build();
+        final InstrumentedHttpClientConnectionManager connectionManager = new InstrumentedHttpClientConnectionManager(registry,
+                socketFactoryRegistry,
+                null,
+                DefaultSchemePortResolver.INSTANCE,
+                SystemDefaultDnsResolver.INSTANCE,
+                -1,
+                TimeUnit.MILLISECONDS,
+                POOL_METRICS_NAME);
+        connectionManager.setMaxTotal(poolConfig.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(poolConfig.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity((int) poolConfig.getValidateAfterInactivity().toMilliseconds());
+
+        return HttpClients.custom()
+                .setDefaultRequestConfig(requestConfig)
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(buildKeepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(poolConfig.getIdleTimeout().toMilliseconds(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Helper function to build the pooled connection manager for the {@link BlueButtonAsyncClient}, with the same pool limits as the blocking client.
+     * <p>
+     * The pool statistics are exported with the same names as the blocking client's, under org.apache.http.nio.conn.NHttpClientConnectionManager.bbclient.
+     * The non-blocking pool has no validate after inactivity setting, since the I/O reactor notices connections closed by the server, so expired and idle connections are evicted on a schedule instead.
+     *
+     * @param keyStore     {@link KeyStore} containing, at a minimum, the client tls certificate and private key
+     * @param keyStorePass password for keystore (default: "changeit")
+     * @param evictor      {@link ScheduledExecutorService} which evicts the connections, shut down along with the async client
+     * @param registry     {@link MetricRegistry} for the connection pool metrics
+     * @return {@link PoolingNHttpClientConnectionManager} for the async client
+     */
+    private PoolingNHttpClientConnectionManager buildAsyncConnectionManager(KeyStore keyStore, char[] keyStorePass, ScheduledExecutorService evictor, MetricRegistry registry) {
+        final BBClientConfiguration.ConnectionPoolConfiguration poolConfig = this.bbClientConfiguration.getConnectionPool();
+        final Registry<SchemeIOSessionStrategy> sessionStrategyRegistry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", new SSLIOSessionStrategy(buildSSLContext(keyStore, keyStorePass)))
+                .build();
+        final PoolingNHttpClientConnectionManager connectionManager;
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT), sessionStrategyRegistry);
+        } catch (IOReactorException e) {
+            throw new BlueButtonClientSetupException("Unable to create I/O reactor for the async client", e);
+        }
+        connectionManager.setMaxTotal(poolConfig.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(poolConfig.getMaxPerRoute());
+
+        final MetricMaker metricMaker = new MetricMaker(registry, NHttpClientConnectionManager.class);
+        metricMaker.registerCachedGauge(POOL_METRICS_NAME + ".available-connections", () -> connectionManager.getTotalStats().getAvailable());
+        metricMaker.registerCachedGauge(POOL_METRICS_NAME + ".leased-connections", () -> connectionManager.getTotalStats().getLeased());
+        metricMaker.registerCachedGauge(POOL_METRICS_NAME + ".max-connections", () -> connectionManager.getTotalStats().getMax());
+        metricMaker.registerCachedGauge(POOL_METRICS_NAME + ".pending-connections", () -> connectionManager.getTotalStats().getPending());
+
+        final long idleTimeout = poolConfig.getIdleTimeout().toMilliseconds();
+        evictor.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+        return connectionManager;
+    }
+
+    private SSLContext buildSSLContext(KeyStore keyStore, char[] keyStorePass) {
         try {
             // BlueButton FHIR servers have a self-signed cert and require a client cert
-            sslContext = SSLContexts.custom()
+            return SSLContexts.custom()
                     .loadKeyMaterial(keyStore, keyStorePass)
                     .loadTrustMaterial(keyStore, new TrustSelfSignedStrategy())
                     .build();
@@ -147,18 +294,24 @@ public class BlueButtonClientModule<T extends Configuration & BlueButtonBundleCo
             logger.error(ex.getMessage());
             throw new BlueButtonClientSetupException(ex.getMessage(), ex);
         }
+    }
 
+    private RequestConfig buildRequestConfig() {
         // Configure the socket timeout for the connection, incl. ssl tunneling
         final BBClientConfiguration.TimeoutConfiguration timeouts = this.bbClientConfiguration.getTimeouts();
-        RequestConfig requestConfig = RequestConfig.custom()
+        return RequestConfig.custom()
                 .setConnectTimeout(timeouts.getConnectionTimeout())
                 .setConnectionRequestTimeout(timeouts.getRequestTimeout())
                 .setSocketTimeout(timeouts.getSocketTimeout())
                 .build();
+    }
 
-        return HttpClients.custom()
-                .setDefaultRequestConfig(requestConfig)
-                .setSSLContext(sslContext)
-                .build();
+    private ConnectionKeepAliveStrategy buildKeepAliveStrategy() {
+        // Honor the server's Keep-Alive header, but never keep a connection around for longer than configured
+        final long maxKeepAlive = this.bbClientConfiguration.getConnectionPool().getKeepAlive().toMilliseconds();
+        return (response, context) -> {
+            final long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, maxKeepAlive) : maxKeepAlive;
+        };
     }
 }
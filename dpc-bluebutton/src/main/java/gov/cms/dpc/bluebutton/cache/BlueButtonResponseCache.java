@@ -0,0 +1,328 @@
+package gov.cms.dpc.bluebutton.cache;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.param.DateRangeParam;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import gov.cms.dpc.common.utils.MetricMaker;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Resource;
+import org.hl7.fhir.dstu3.model.ResourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk cache of the complete set of resources fetched from BlueButton for a beneficiary, keyed by (bene ID, resource type, since).
+ * <p>
+ * Each entry records the transaction time it was fetched through.
+ * Before an entry is re-used for a later export, BlueButton is asked for any resources updated between that time and the new transaction time,
+ * which is a single small query, rather than the full history.
+ * If nothing has changed, the cached resources are returned, otherwise the caller re-fetches everything and replaces the entry.
+ * <p>
+ * Entries are gzipped and encrypted with AES-GCM, the cache key is bound to the ciphertext so files cannot be swapped between beneficiaries.
+ * Total disk usage is bounded by {@link BBClientConfiguration.ResponseCacheConfiguration#getMaximumSize()}, least recently used entries are removed first.
+ * When the cache is disabled, every lookup is a miss and nothing is written.
+ */
+public class BlueButtonResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlueButtonResponseCache.class);
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final Cache<String, Integer> index;
+    private final Path directory;
+    private final SecretKey key;
+    private final FhirContext fhirContext;
+    private final SecureRandom random = new SecureRandom();
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter stale;
+
+    public BlueButtonResponseCache(BBClientConfiguration.ResponseCacheConfiguration config, FhirContext fhirContext, MetricRegistry registry) {
+        final MetricMaker metricMaker = new MetricMaker(registry, BlueButtonResponseCache.class);
+        final Map<String, Meter> meters = metricMaker.registerMeters(List.of("hits", "misses", "stale"));
+        this.hits = meters.get("hits");
+        this.misses = meters.get("misses");
+        this.stale = meters.get("stale");
+        // Parsers aren't thread-safe, and the cache is used by all the async workers, so each call creates its own
+        this.fhirContext = fhirContext;
+
+        if (!config.isEnabled()) {
+            this.index = null;
+            this.directory = null;
+            this.key = null;
+            return;
+        }
+
+        this.directory = Paths.get(config.getDirectory());
+        final boolean keyConfigured = config.getEncryptionKey() != null && !config.getEncryptionKey().isBlank();
+        this.key = keyConfigured ? new SecretKeySpec(Base64.getDecoder().decode(config.getEncryptionKey()), "AES") : generateKey();
+        if (!keyConfigured) {
+            logger.warn("No encryption key configured for the BlueButton response cache, entries will not survive a restart");
+        }
+        // Weights are in KB, so that large caches don't overflow the integer weights
+        this.index = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1, config.getMaximumSize().toKilobytes()))
+                .weigher((String file, Integer kilobytes) -> kilobytes)
+                .expireAfterWrite(config.getExpiration().toMilliseconds(), TimeUnit.MILLISECONDS)
+                .removalListener((String file, Integer kilobytes, RemovalCause cause) -> {
+                    // A replaced entry has already been overwritten in place
+                    if (cause != RemovalCause.REPLACED) {
+                        deleteQuietly(this.directory.resolve(file));
+                    }
+                })
+                .executor(Runnable::run)
+                .build();
+        loadIndex(keyConfigured, config.getExpiration().toMilliseconds());
+
+        metricMaker.registerCachedGauge("hitRatio", this::getHitRatio);
+        metricMaker.registerCachedGauge("diskUsage", () -> this.index.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0) * 1024)
+                .orElse(0L));
+        metricMaker.registerCachedGauge("entries", this.index::estimatedSize);
+    }
+
+    public boolean isEnabled() {
+        return this.index != null;
+    }
+
+    /**
+     * Get the cached resources, if BlueButton reports that none of them have changed since they were cached.
+     *
+     * @param beneId          - {@link String} beneficiary ID
+     * @param resourceType    - {@link ResourceType} of the resources
+     * @param since           - {@link OffsetDateTime} lower bound of the export, or {@code null}
+     * @param transactionTime - {@link OffsetDateTime} upper bound of the export
+     * @param fetchChanges    - {@link Function} which requests the first bundle of resources updated within the given range
+     * @return - the cached resources, or an empty {@link Optional} if there are none, or they have changed
+     */
+    public CompletableFuture<Optional<List<Resource>>> getIfUnchanged(String beneId,
+                                                                     ResourceType resourceType,
+                                                                     OffsetDateTime since,
+                                                                     OffsetDateTime transactionTime,
+                                                                     Function<DateRangeParam, CompletableFuture<Bundle>> fetchChanges) {
+        if (!isEnabled()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        final String cacheKey = cacheKey(beneId, resourceType, since);
+        final Optional<Bundle> cached = read(cacheKey);
+        if (cached.isEmpty()) {
+            misses.mark();
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        final OffsetDateTime cachedThrough = cached.get().getMeta().getLastUpdated().toInstant().atOffset(ZoneOffset.UTC);
+        // Entries fetched through a later time may hold resources which the export shouldn't see
+        if (cachedThrough.isAfter(transactionTime)) {
+            misses.mark();
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        if (cachedThrough.isEqual(transactionTime)) {
+            hits.mark();
+            return CompletableFuture.completedFuture(Optional.of(resources(cached.get())));
+        }
+
+        final DateRangeParam changes = new DateRangeParam()
+                .setLowerBoundExclusive(Date.from(cachedThrough.toInstant()))
+                .setUpperBoundInclusive(Date.from(transactionTime.toInstant()));
+        return fetchChanges.apply(changes).thenApply(changed -> {
+            if (changed.hasEntry()) {
+                stale.mark();
+                return Optional.empty();
+            }
+            hits.mark();
+            return Optional.of(resources(cached.get()));
+        });
+    }
+
+    /**
+     * Cache the complete set of resources for the beneficiary, fetched through the given transaction time
+     *
+     * @param beneId          - {@link String} beneficiary ID
+     * @param resourceType    - {@link ResourceType} of the resources
+     * @param since           - {@link OffsetDateTime} lower bound of the export, or {@code null}
+     * @param transactionTime - {@link OffsetDateTime} upper bound of the export
+     * @param resources       - {@link List} of all the {@link Resource}s within the range
+     */
+    public void put(String beneId, ResourceType resourceType, OffsetDateTime since, OffsetDateTime transactionTime, List<Resource> resources) {
+        if (!isEnabled()) {
+            return;
+        }
+        final String cacheKey = cacheKey(beneId, resourceType, since);
+        final Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.COLLECTION);
+        bundle.getMeta().setLastUpdated(Date.from(transactionTime.toInstant()));
+        resources.forEach(resource -> bundle.addEntry().setResource(resource));
+
+        final String file = fileName(cacheKey);
+        Path partial = null;
+        try {
+            partial = Files.createTempFile(this.directory, "entry", PARTIAL_SUFFIX);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                out.write(encrypt(cacheKey, gzip(fhirContext.newJsonParser().encodeResourceToString(bundle))));
+            }
+            Files.move(partial, this.directory.resolve(file), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.index.put(file, kilobytes(Files.size(this.directory.resolve(file))));
+        } catch (IOException | GeneralSecurityException e) {
+            logger.error("Cannot cache BlueButton response", e);
+            if (partial != null) {
+                deleteQuietly(partial);
+            }
+        }
+    }
+
+    double getHitRatio() {
+        final long lookups = hits.getCount() + misses.getCount() + stale.getCount();
+        return lookups == 0 ? 0 : (double) hits.getCount() / lookups;
+    }
+
+    private Optional<Bundle> read(String cacheKey) {
+        final String file = fileName(cacheKey);
+        if (this.index.getIfPresent(file) == null) {
+            return Optional.empty();
+        }
+        try {
+            final byte[] data = Files.readAllBytes(this.directory.resolve(file));
+            return Optional.of(fhirContext.newJsonParser().parseResource(Bundle.class, gunzip(decrypt(cacheKey, data))));
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            // Corrupt, or written with a different key
+            logger.warn("Cannot read cached BlueButton response, removing it", e);
+            this.index.invalidate(file);
+            return Optional.empty();
+        }
+    }
+
+    private void loadIndex(boolean keyConfigured, long expirationMillis) {
+        try {
+            Files.createDirectories(this.directory);
+            final Instant expired = Instant.now().minusMillis(expirationMillis);
+            try (Stream<Path> files = Files.list(this.directory)) {
+                final List<Path> existing = files.collect(Collectors.toList());
+                for (final Path path : existing) {
+                    final String name = path.getFileName().toString();
+                    // Without a stable key, existing entries can't be decrypted
+                    if (name.endsWith(ENTRY_SUFFIX) && keyConfigured && Files.getLastModifiedTime(path).compareTo(FileTime.from(expired)) > 0) {
+                        this.index.put(name, kilobytes(Files.size(path)));
+                    } else if (name.endsWith(ENTRY_SUFFIX) || name.endsWith(PARTIAL_SUFFIX)) {
+                        deleteQuietly(path);
+                    }
+                }
+            }
+            logger.info("Loaded {} cached BlueButton responses from {}", this.index.estimatedSize(), this.directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot initialize BlueButton response cache", e);
+        }
+    }
+
+    private byte[] encrypt(String cacheKey, byte[] plaintext) throws GeneralSecurityException {
+        final byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        final Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+        cipher.updateAAD(cacheKey.getBytes(StandardCharsets.UTF_8));
+        final byte[] ciphertext = cipher.doFinal(plaintext);
+        final byte[] data = new byte[IV_LENGTH + ciphertext.length];
+        System.arraycopy(iv, 0, data, 0, IV_LENGTH);
+        System.arraycopy(ciphertext, 0, data, IV_LENGTH, ciphertext.length);
+        return data;
+    }
+
+    private byte[] decrypt(String cacheKey, byte[] data) throws GeneralSecurityException {
+        final Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH_BITS, data, 0, IV_LENGTH));
+        cipher.updateAAD(cacheKey.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH);
+    }
+
+    private static List<Resource> resources(Bundle bundle) {
+        return bundle.getEntry().stream()
+                .map(Bundle.BundleEntryComponent::getResource)
+                .collect(Collectors.toList());
+    }
+
+    private static byte[] gzip(String value) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String gunzip(byte[] value) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(value))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String cacheKey(String beneId, ResourceType resourceType, OffsetDateTime since) {
+        return String.format("%s|%s|%s", beneId, resourceType.name(), since == null ? "" : since.toInstant().toString());
+    }
+
+    // File names are hashed, so that beneficiary IDs aren't visible on disk
+    private static String fileName(String cacheKey) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(cacheKey.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder name = new StringBuilder(digest.length * 2 + ENTRY_SUFFIX.length());
+            for (final byte b : digest) {
+                name.append(String.format("%02x", b));
+            }
+            return name.append(ENTRY_SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static int kilobytes(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, bytes / 1024));
+    }
+
+    private static SecretKey generateKey() {
+        try {
+            final KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256);
+            return generator.generateKey();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("AES is not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Cannot delete cached BlueButton response {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package gov.cms.dpc.bluebutton.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AIMD (additive increase, multiplicative decrease) concurrency limiter.
+ * <p>
+ * The limit grows by roughly one for every limit's worth of healthy responses, and shrinks by the backoff ratio when a response is slow or shows that the server is overloaded.
+ * Decreases are applied at most once per observed latency, so that a burst of slow responses (which were all sent at the same limit) only backs off once.
+ * Callers which exceed the limit are queued, in order, until a permit is released.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyThresholdNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecrease = System.nanoTime();
+    }
+
+    /**
+     * Acquire a permit.
+     * The returned future is completed when the permit is granted, cancelling it gives up the place in the queue.
+     *
+     * @return - {@link CompletableFuture} which completes once the caller may proceed
+     */
+    synchronized CompletableFuture<Void> acquire() {
+        if (waiters.isEmpty() && inFlight < (int) limit) {
+            inFlight++;
+            return CompletableFuture.completedFuture(null);
+        }
+        final CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        return waiter;
+    }
+
+    /**
+     * Release a permit, and adjust the limit based on the outcome of the request.
+     *
+     * @param latencyNanos - how long the request took
+     * @param overloaded   - {@code true} if the request failed in a way which indicates the server is overloaded
+     */
+    void release(long latencyNanos, boolean overloaded) {
+        final List<CompletableFuture<Void>> granted;
+        synchronized (this) {
+            inFlight--;
+            if (overloaded || latencyNanos > latencyThresholdNanos) {
+                final long now = System.nanoTime();
+                if (now - lastDecrease > latencyNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecrease = now;
+                }
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            granted = grant();
+        }
+        complete(granted);
+    }
+
+    /**
+     * Release a permit which was never used to send a request, without adjusting the limit
+     */
+    void releaseUnused() {
+        final List<CompletableFuture<Void>> granted;
+        synchronized (this) {
+            inFlight--;
+            granted = grant();
+        }
+        complete(granted);
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    private List<CompletableFuture<Void>> grant() {
+        final List<CompletableFuture<Void>> granted = new ArrayList<>();
+        while (!waiters.isEmpty() && inFlight < (int) limit) {
+            final CompletableFuture<Void> waiter = waiters.poll();
+            if (!waiter.isDone()) {
+                inFlight++;
+                granted.add(waiter);
+            }
+        }
+        return granted;
+    }
+
+    // Waiters are completed outside of the lock, since completing them runs the queued requests
+    private void complete(List<CompletableFuture<Void>> granted) {
+        for (final CompletableFuture<Void> waiter : granted) {
+            if (!waiter.complete(null)) {
+                // Cancelled after being granted, hand the permit to the next waiter
+                releaseUnused();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package gov.cms.dpc.bluebutton.client;
+
+import ca.uhn.fhir.rest.param.DateRangeParam;
+import org.hl7.fhir.dstu3.model.Bundle;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link BlueButtonAsyncClient} which runs the requests of a blocking {@link BlueButtonClient} on an {@link Executor}.
+ */
+class BlockingBlueButtonAsyncClient implements BlueButtonAsyncClient {
+
+    private final BlueButtonClient client;
+    private final Executor executor;
+
+    BlockingBlueButtonAsyncClient(BlueButtonClient client, Executor executor) {
+        this.client = client;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Bundle> requestPatientFromServerByMbi(String mbi) {
+        return submit(() -> client.requestPatientFromServerByMbi(mbi));
+    }
+
+    @Override
+    public CompletableFuture<Bundle> requestPatientFromServer(String beneId, DateRangeParam lastUpdated) {
+        return submit(() -> client.requestPatientFromServer(beneId, lastUpdated));
+    }
+
+    @Override
+    public CompletableFuture<Bundle> requestEOBFromServer(String beneId, DateRangeParam lastUpdated) {
+        return submit(() -> client.requestEOBFromServer(beneId, lastUpdated));
+    }
+
+    @Override
+    public CompletableFuture<Bundle> requestCoverageFromServer(String beneId, DateRangeParam lastUpdated) {
+        return submit(() -> client.requestCoverageFromServer(beneId, lastUpdated));
+    }
+
+    @Override
+    public CompletableFuture<Bundle> requestNextBundleFromServer(Bundle bundle) {
+        return submit(() -> client.requestNextBundleFromServer(bundle));
+    }
+
+    private CompletableFuture<Bundle> submit(Callable<Bundle> request) {
+        final CompletableFuture<Bundle> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(request.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
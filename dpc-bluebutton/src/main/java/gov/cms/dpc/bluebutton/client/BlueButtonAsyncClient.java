@@ -0,0 +1,38 @@
+package gov.cms.dpc.bluebutton.client;
+
+import ca.uhn.fhir.rest.param.DateRangeParam;
+import org.hl7.fhir.dstu3.model.Bundle;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking variant of {@link BlueButtonClient}.
+ * <p>
+ * Each method returns immediately, the returned {@link CompletableFuture} is completed with the same {@link Bundle}s (or exceptions) that {@link BlueButtonClient} would return (or throw).
+ * This allows many BlueButton requests to be in flight without tying up a thread for each one.
+ */
+public interface BlueButtonAsyncClient {
+
+    CompletableFuture<Bundle> requestPatientFromServerByMbi(String mbi);
+
+    CompletableFuture<Bundle> requestPatientFromServer(String beneId, DateRangeParam lastUpdated);
+
+    CompletableFuture<Bundle> requestEOBFromServer(String beneId, DateRangeParam lastUpdated);
+
+    CompletableFuture<Bundle> requestCoverageFromServer(String beneId, DateRangeParam lastUpdated);
+
+    CompletableFuture<Bundle> requestNextBundleFromServer(Bundle bundle);
+
+    /**
+     * Adapt a blocking {@link BlueButtonClient}, running each request on the given {@link Executor}.
+     * Mostly useful for testing with the {@link MockBlueButtonClient}.
+     *
+     * @param client   - {@link BlueButtonClient} to wrap
+     * @param executor - {@link Executor} to run the blocking requests on
+     * @return - {@link BlueButtonAsyncClient}
+     */
+    static BlueButtonAsyncClient fromBlocking(BlueButtonClient client, Executor executor) {
+        return new BlockingBlueButtonAsyncClient(client, executor);
+    }
+}
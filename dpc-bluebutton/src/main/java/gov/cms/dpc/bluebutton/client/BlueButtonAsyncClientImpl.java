@@ -0,0 +1,270 @@
+package gov.cms.dpc.bluebutton.client;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import gov.cms.dpc.common.utils.MetricMaker;
+import gov.cms.dpc.fhir.DPCIdentifierSystem;
+import io.dropwizard.lifecycle.Managed;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.util.EntityUtils;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Coverage;
+import org.hl7.fhir.dstu3.model.ExplanationOfBenefit;
+import org.hl7.fhir.dstu3.model.Patient;
+import org.hl7.fhir.dstu3.model.ResourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * {@link BlueButtonAsyncClient} backed by a non-blocking {@link CloseableHttpAsyncClient}.
+ * <p>
+ * Requests are issued from the HTTP client's I/O dispatch threads, so waiting on BlueButton does not consume any threads.
+ * Responses are parsed on the given worker {@link ExecutorService}, so that the I/O threads are never blocked by parsing, or by the work chained onto the returned futures.
+ * MBI hashing is delegated to the blocking {@link BlueButtonClient}, so that both clients share its hash cache.
+ * Requests are made through the same {@link BlueButtonRequestGuard} as the blocking client, so the two share a single concurrency limit.
+ * EOB and next page reads may be hedged, according to the {@link HedgingPolicy}.
+ */
+public class BlueButtonAsyncClientImpl implements BlueButtonAsyncClient, Managed {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlueButtonAsyncClientImpl.class);
+
+    private static final String REQUEST_PATIENT_METRIC = "requestPatient";
+    private static final String REQUEST_EOB_METRIC = "requestEOB";
+    private static final String REQUEST_COVERAGE_METRIC = "requestCoverage";
+    private static final String REQUEST_NEXT_METRIC = "requestNextBundle";
+    private static final List<String> REQUEST_METRICS = List.of(REQUEST_PATIENT_METRIC, REQUEST_EOB_METRIC, REQUEST_COVERAGE_METRIC, REQUEST_NEXT_METRIC);
+    // The large, paged reads, which dominate the export time when they are slow
+    private static final Set<String> HEDGED_METRICS = Set.of(REQUEST_EOB_METRIC, REQUEST_NEXT_METRIC);
+    private static final String FHIR_JSON = "application/fhir+json";
+
+    private final CloseableHttpAsyncClient client;
+    private final BlueButtonClient blockingClient;
+    private final BlueButtonRequestGuard guard;
+    private final HedgingPolicy hedgingPolicy;
+    private final FhirContext fhirContext;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService evictor;
+    private final String serverBaseUrl;
+    private final PageSizer pageSizer;
+    private final Map<String, Timer> timers;
+    private final Map<String, Meter> exceptionMeters;
+
+    public BlueButtonAsyncClientImpl(CloseableHttpAsyncClient client, BlueButtonClient blockingClient, BlueButtonRequestGuard guard, FhirContext fhirContext, ExecutorService workers, ScheduledExecutorService evictor, BBClientConfiguration config, PageSizer pageSizer, MetricRegistry metricRegistry) {
+        this.client = client;
+        this.blockingClient = blockingClient;
+        this.guard = guard;
+        this.fhirContext = fhirContext;
+        this.workers = workers;
+        this.evictor = evictor;
+        this.serverBaseUrl = config.getServerBaseUrl().replaceAll("/+$", "");
+        final var metricMaker = new MetricMaker(metricRegistry, BlueButtonAsyncClientImpl.class);
+        this.timers = metricMaker.registerTimers(REQUEST_METRICS);
+        this.exceptionMeters = metricMaker.registerMeters(REQUEST_METRICS);
+        this.hedgingPolicy = new HedgingPolicy(config.getHedging(), metricMaker);
+        this.pageSizer = pageSizer;
+        // Start eagerly, so the client is usable even when it isn't managed by a Dropwizard lifecycle (e.g. in tests)
+        this.client.start();
+    }
+
+    @Override
+    public void start() {
+        // Started in the constructor, this is a no-op if already running
+        this.client.start();
+    }
+
+    @Override
+    public void stop() throws IOException {
+        this.evictor.shutdownNow();
+        this.client.close();
+        this.workers.shutdown();
+    }
+
+    @Override
+    public CompletableFuture<Bundle> requestPatientFromServerByMbi(String mbi) {
+        // Hashing is CPU bound, so keep it off the I/O threads
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return blockingClient.hashMbi(mbi);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, workers).thenCompose(mbiHash -> {
+            logger.debug("Attempting to fetch patient with MBI hash {} from baseURL: {}", mbiHash, serverBaseUrl);
+            return search(REQUEST_PATIENT_METRIC, ResourceType.Patient, builder -> builder
+                    .addParameter(Patient.SP_IDENTIFIER, String.format("%s|%s", DPCIdentifierSystem.MBI_HASH.getSystem(), mbiHash)));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Bundle> requestPatientFromServer(String beneId, DateRangeParam lastUpdated) {
+        logger.debug("Attempting to fetch patient ID {} from baseURL: {}", beneId, serverBaseUrl);
+        return fetchBundle(REQUEST_PATIENT_METRIC, ResourceType.Patient, beneId, lastUpdated, builder -> builder
+                .addParameter(Patient.SP_RES_ID, beneId));
+    }
+
+    @Override
+    public CompletableFuture<Bundle> requestEOBFromServer(String beneId, DateRangeParam lastUpdated) {
+        logger.debug("Attempting to fetch EOBs for patient ID {} from baseURL: {}", beneId, serverBaseUrl);
+        return fetchBundle(REQUEST_EOB_METRIC, ResourceType.ExplanationOfBenefit, beneId, lastUpdated, builder -> builder
+                .addParameter(ExplanationOfBenefit.SP_PATIENT, beneId)
+                .addParameter("excludeSAMHSA", "true"));
+    }
+
+    @Override
+    public CompletableFuture<Bundle> requestCoverageFromServer(String beneId, DateRangeParam lastUpdated) {
+        logger.debug("Attempting to fetch Coverage for patient ID {} from baseURL: {}", beneId, serverBaseUrl);
+        return fetchBundle(REQUEST_COVERAGE_METRIC, ResourceType.Coverage, beneId, lastUpdated, builder -> builder
+                .addParameter(Coverage.SP_BENEFICIARY, "Patient/" + beneId));
+    }
+
+    @Override
+    public CompletableFuture<Bundle> requestNextBundleFromServer(Bundle bundle) {
+        final var nextURL = bundle.getLink(Bundle.LINK_NEXT).getUrl();
+        logger.debug("Attempting to fetch next bundle from url: {}", nextURL);
+        return execute(REQUEST_NEXT_METRIC, URI.create(nextURL));
+    }
+
+    /**
+     * Search for a resource type, limiting the page size and including the lastUpdated range, mirroring {@link BlueButtonClientImpl}
+     */
+    private CompletableFuture<Bundle> fetchBundle(String metricName, ResourceType resourceType, String patientID, DateRangeParam lastUpdated, Consumer<URIBuilder> criteria) {
+        final int pageSize = pageSizer.getPageSize(resourceType);
+        return search(metricName, resourceType, builder -> {
+            criteria.accept(builder);
+            builder.addParameter("_count", Integer.toString(pageSize));
+            if (lastUpdated != null) {
+                for (DateParam param : lastUpdated.getValuesAsQueryTokens()) {
+                    builder.addParameter("_lastUpdated", param.getValueAsQueryToken(fhirContext));
+                }
+            }
+        }).thenApply(bundle -> {
+            pageSizer.onFirstPage(resourceType, pageSize, bundle);
+            // Case where patientID does not exist at all
+            if (!bundle.hasEntry() && lastUpdated == null) {
+                throw new ResourceNotFoundException("No patient found with ID: " + patientID);
+            }
+            return bundle;
+        });
+    }
+
+    private CompletableFuture<Bundle> search(String metricName, ResourceType resourceType, Consumer<URIBuilder> criteria) {
+        final URI uri;
+        try {
+            final URIBuilder builder = new URIBuilder(String.format("%s/%s", serverBaseUrl, resourceType.name()));
+            criteria.accept(builder);
+            uri = builder.build();
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return execute(metricName, uri);
+    }
+
+    private CompletableFuture<Bundle> execute(String metricName, URI uri) {
+        final Timer timer = timers.get(metricName);
+        final var timerContext = timer.time();
+        final CompletableFuture<Bundle> response;
+        if (HEDGED_METRICS.contains(metricName)) {
+            // Each copy of the request goes through the guard, so hedges count against the concurrency limit
+            response = hedgingPolicy.hedge(timer, cancelled -> guard.callAsync(() -> send(uri, cancelled)));
+        } else {
+            response = guard.callAsync(() -> send(uri, new CompletableFuture<>()));
+        }
+        return response
+                .whenComplete((bundle, error) -> {
+                    timerContext.stop();
+                    if (error != null) {
+                        exceptionMeters.get(metricName).mark();
+                    }
+                });
+    }
+
+    /**
+     * Send the request, and parse the response
+     *
+     * @param uri       - {@link URI} to request
+     * @param cancelled - future which is completed when the request should be aborted
+     * @return - {@link CompletableFuture} completed with the parsed {@link Bundle}
+     */
+    private CompletableFuture<Bundle> send(URI uri, CompletableFuture<Void> cancelled) {
+        if (cancelled.isDone()) {
+            return CompletableFuture.failedFuture(new CancellationException("Request cancelled before it was sent"));
+        }
+        final HttpGet request = new HttpGet(uri);
+        request.setHeader("Accept", FHIR_JSON);
+
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final Future<HttpResponse> exchange = client.execute(request, new FutureCallback<>() {
+            @Override
+            public void completed(HttpResponse result) {
+                response.complete(result);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                response.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                response.cancel(false);
+            }
+        });
+        cancelled.thenRun(() -> exchange.cancel(true));
+
+        final long start = System.nanoTime();
+        return response.thenApplyAsync(result -> parseResponse(result, start), workers);
+    }
+
+    private Bundle parseResponse(HttpResponse response, long start) {
+        final int status = response.getStatusLine().getStatusCode();
+        try {
+            if (status != HttpStatus.SC_OK) {
+                final String body = response.getEntity() == null ? "" : EntityUtils.toString(response.getEntity());
+                if (status == HttpStatus.SC_NOT_FOUND) {
+                    throw new ResourceNotFoundException(body);
+                }
+                throw BaseServerResponseException.newInstance(status, String.format("%s: %s", response.getStatusLine().getReasonPhrase(), body));
+            }
+            // We ask for JSON, but fall back to whatever the server actually sent
+            final Header contentType = response.getEntity().getContentType();
+            final EncodingEnum encoding = contentType == null ? null : EncodingEnum.forContentType(contentType.getValue());
+            try (final CountingInputStream content = new CountingInputStream(response.getEntity().getContent())) {
+                // Parsers are not thread-safe, but are cheap to create
+                final Bundle bundle = (encoding == null ? EncodingEnum.JSON : encoding).newParser(fhirContext).parseResource(Bundle.class, content);
+                pageSizer.onPage(PageSizer.typeOf(bundle), bundle, content.getByteCount(), System.nanoTime() - start);
+                return bundle;
+            }
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
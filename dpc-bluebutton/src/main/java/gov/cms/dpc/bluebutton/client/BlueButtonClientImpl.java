@@ -8,6 +8,8 @@ import ca.uhn.fhir.rest.gclient.TokenClientParam;
 import ca.uhn.fhir.rest.gclient.ReferenceClientParam;
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
@@ -30,6 +32,7 @@ import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.KeySpec;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 
@@ -41,32 +44,57 @@ public class BlueButtonClientImpl implements BlueButtonClient {
     private static final String REQUEST_NEXT_METRIC = "requestNextBundle";
     private static final String REQUEST_CAPABILITIES_METRIC = "requestCapabilities";
     private static final List<String> REQUEST_METRICS = List.of(REQUEST_PATIENT_METRIC, REQUEST_EOB_METRIC, REQUEST_COVERAGE_METRIC, REQUEST_NEXT_METRIC, REQUEST_CAPABILITIES_METRIC);
+    private static final String HASH_MBI_METRIC = "hashMbiTimer";
+    private static final String HASH_CACHE_HIT_RATE_METRIC = "mbiHashCacheHitRate";
+    private static final String HASH_CACHE_SIZE_METRIC = "mbiHashCacheSize";
 
     private static final Logger logger = LoggerFactory.getLogger(BlueButtonClientImpl.class);
 
     private IGenericClient client;
+    private BlueButtonRequestGuard guard;
+    private PageSizer pageSizer;
     private BBClientConfiguration config;
     private Map<String, Timer> timers;
     private Map<String, Meter> exceptionMeters;
     private static final String HASH_ALGORITHM = "PBKDF2WithHmacSHA256";
+    // SecretKeyFactory is not thread-safe, and looking up the provider on every hash is expensive, so keep one per thread
+    private static final ThreadLocal<SecretKeyFactory> KEY_FACTORY = new ThreadLocal<>();
     private byte[] bfdHashPepper;
     private int bfdHashIter;
+    private Timer hashTimer;
+    // Hashes depend on the pepper and iteration count, which are fixed for the lifetime of the client, so the MBI is enough for the key
+    private Cache<String, String> hashCache;
 
     private static String formBeneficiaryID(String fromPatientID) {
         return "Patient/" + fromPatientID;
     }
 
-    public BlueButtonClientImpl(@Named("bbclient") IGenericClient client, BBClientConfiguration config, MetricRegistry metricRegistry) {
+    public BlueButtonClientImpl(@Named("bbclient") IGenericClient client, BBClientConfiguration config, BlueButtonRequestGuard guard, PageSizer pageSizer, MetricRegistry metricRegistry) {
         this.client = client;
+        this.guard = guard;
         this.config = config;
         final var metricMaker = new MetricMaker(metricRegistry, BlueButtonClientImpl.class);
         this.exceptionMeters = metricMaker.registerMeters(REQUEST_METRICS);
         this.timers = metricMaker.registerTimers(REQUEST_METRICS);
+        this.pageSizer = pageSizer;
 
         bfdHashIter = config.getBfdHashIter();
         if (config.getBfdHashPepper() != null) {
             bfdHashPepper = Hex.decode(config.getBfdHashPepper());
         }
+
+        this.hashTimer = metricMaker.registerTimer(HASH_MBI_METRIC);
+        final BBClientConfiguration.HashCacheConfiguration cacheConfig = config.getMbiHashCache();
+        if (cacheConfig.isEnabled()) {
+            final Cache<String, String> cache = Caffeine.newBuilder()
+                    .maximumSize(cacheConfig.getMaximumSize())
+                    .expireAfterAccess(cacheConfig.getExpiration().toMilliseconds(), TimeUnit.MILLISECONDS)
+                    .recordStats()
+                    .build();
+            this.hashCache = cache;
+            metricMaker.registerCachedGauge(HASH_CACHE_HIT_RATE_METRIC, () -> cache.stats().hitRate());
+            metricMaker.registerCachedGauge(HASH_CACHE_SIZE_METRIC, cache::estimatedSize);
+        }
     }
 
     /**
@@ -178,10 +206,14 @@ public class BlueButtonClientImpl implements BlueButtonClient {
         return instrumentCall(REQUEST_NEXT_METRIC, () -> {
             var nextURL = bundle.getLink(Bundle.LINK_NEXT).getUrl();
             logger.debug("Attempting to fetch next bundle from url: {}", nextURL);
-            return client
+            final long start = System.nanoTime();
+            final Bundle next = client
                     .loadPage()
                     .next(bundle)
                     .execute();
+            // The HAPI client doesn't expose the response size
+            pageSizer.onPage(PageSizer.typeOf(next), next, -1, System.nanoTime() - start);
+            return next;
         });
     }
 
@@ -200,21 +232,46 @@ public class BlueButtonClientImpl implements BlueButtonClient {
             return "";
         }
 
-        final SecretKeyFactory instance;
+        if (hashCache == null) {
+            return generateHash(mbi);
+        }
+        // Two threads may hash the same MBI concurrently, which is harmless, and avoids blocking other cache writers while we hash
+        final String cached = hashCache.getIfPresent(mbi);
+        if (cached != null) {
+            return cached;
+        }
+        final String hash = generateHash(mbi);
+        hashCache.put(mbi, hash);
+        return hash;
+    }
+
+    private String generateHash(String mbi) throws GeneralSecurityException {
+        final var timerContext = hashTimer.time();
         try {
-            instance = SecretKeyFactory.getInstance(HASH_ALGORITHM);
-        } catch (NoSuchAlgorithmException e) {
-            logger.error("Secret key factory could not be created due to invalid algorithm: {}", HASH_ALGORITHM);
-            throw new GeneralSecurityException(e);
+            KeySpec keySpec = new PBEKeySpec(mbi.toCharArray(), bfdHashPepper, bfdHashIter, 256);
+            SecretKey secretKey = getKeyFactory().generateSecret(keySpec);
+            return Hex.toHexString(secretKey.getEncoded());
+        } finally {
+            timerContext.stop();
         }
+    }
 
-        KeySpec keySpec = new PBEKeySpec(mbi.toCharArray(), bfdHashPepper, bfdHashIter, 256);
-        SecretKey secretKey = instance.generateSecret(keySpec);
-        return Hex.toHexString(secretKey.getEncoded());
+    private static SecretKeyFactory getKeyFactory() throws GeneralSecurityException {
+        SecretKeyFactory instance = KEY_FACTORY.get();
+        if (instance == null) {
+            try {
+                instance = SecretKeyFactory.getInstance(HASH_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                logger.error("Secret key factory could not be created due to invalid algorithm: {}", HASH_ALGORITHM);
+                throw new GeneralSecurityException(e);
+            }
+            KEY_FACTORY.set(instance);
+        }
+        return instance;
     }
 
     /**
-     * Read a FHIR Bundle from BlueButton. Limits the returned size by resourcesPerRequest.
+     * Read a FHIR Bundle from BlueButton. Limits the returned size by the {@link PageSizer} page size for the resource type.
      *
      * @param resourceClass - FHIR Resource class
      * @param criteria - For the resource class the correct criteria that match the patientID
@@ -234,11 +291,16 @@ public class BlueButtonClientImpl implements BlueButtonClient {
             query = query.and(criterion);
         }
 
+        final ResourceType resourceType = ResourceType.fromCode(resourceClass.getSimpleName());
+        final int pageSize = pageSizer.getPageSize(resourceType);
+        final long start = System.nanoTime();
         final Bundle bundle = query
-                .count(config.getResourcesCount())
+                .count(pageSize)
                 .lastUpdated(lastUpdated)
                 .returnBundle(Bundle.class)
                 .execute();
+        pageSizer.onFirstPage(resourceType, pageSize, bundle);
+        pageSizer.onPage(resourceType, bundle, -1, System.nanoTime() - start);
 
         // Case where patientID does not exist at all
         if(!bundle.hasEntry() && lastUpdated == null) {
@@ -248,7 +310,8 @@ public class BlueButtonClientImpl implements BlueButtonClient {
     }
 
     /**
-     * Instrument a call to Blue Button.
+     * Instrument a call to Blue Button, which is made through the {@link BlueButtonRequestGuard}.
+     * The timer includes any time spent waiting for the concurrency limiter, and any retries.
      *
      * @param metricName - The name of the method
      * @param supplier - the call as lambda to instrumented
@@ -258,7 +321,7 @@ public class BlueButtonClientImpl implements BlueButtonClient {
     private <T> T instrumentCall(String metricName, Supplier<T> supplier) {
         final var timerContext = timers.get(metricName).time();
         try {
-            return supplier.get();
+            return guard.call(supplier);
         } catch(Exception ex) {
             final var exceptionMeter = exceptionMeters.get(metricName);
             exceptionMeter.mark();
@@ -0,0 +1,252 @@
+package gov.cms.dpc.bluebutton.client;
+
+import ca.uhn.fhir.rest.client.exceptions.FhirClientConnectionException;
+import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import gov.cms.dpc.bluebutton.exceptions.BlueButtonUnavailableException;
+import gov.cms.dpc.common.utils.MetricMaker;
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Protects BlueButton from being overloaded by our requests, and our requests from a struggling BlueButton.
+ * <p>
+ * Every request (from both the {@link BlueButtonClient} and the {@link BlueButtonAsyncClient}) passes through:
+ * <ol>
+ * <li>An {@link AdaptiveConcurrencyLimiter}, which bounds the number of requests in flight, and adapts that bound to the latency and errors we observe.</li>
+ * <li>A {@link CircuitBreaker}, which stops sending requests after repeated failures, and fails them with a {@link BlueButtonUnavailableException} instead.</li>
+ * <li>Retries, with full jitter exponential backoff, drawn from a {@link RetryBudget}, so that retries cannot multiply the load on BlueButton.</li>
+ * </ol>
+ * Only connection failures, 429s and 5xx responses count as failures, a 404 (for example) shows that BlueButton is healthy.
+ * The state of each component is exported as a gauge.
+ */
+public class BlueButtonRequestGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlueButtonRequestGuard.class);
+    // Not defined by HttpStatus
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final BBClientConfiguration.ResilienceConfiguration config;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker breaker;
+    private final RetryBudget budget;
+    private final Meter retryMeter;
+    private final Meter budgetExhaustedMeter;
+    private final Meter rejectedMeter;
+
+    public BlueButtonRequestGuard(BBClientConfiguration.ResilienceConfiguration config, MetricRegistry metricRegistry) {
+        this.config = config;
+        this.limiter = new AdaptiveConcurrencyLimiter(config.getInitialLimit(),
+                config.getMinLimit(),
+                config.getMaxLimit(),
+                config.getBackoffRatio(),
+                config.getLatencyThreshold().toNanoseconds());
+        this.breaker = new CircuitBreaker(config.getFailureThreshold(), config.getOpenDuration().toNanoseconds());
+        this.budget = new RetryBudget(config.getRetryBudgetRatio(), config.getMaxRetryBudget());
+
+        final var metricMaker = new MetricMaker(metricRegistry, BlueButtonRequestGuard.class);
+        this.retryMeter = metricMaker.registerMeter("retries");
+        this.budgetExhaustedMeter = metricMaker.registerMeter("retryBudgetExhausted");
+        this.rejectedMeter = metricMaker.registerMeter("rejected");
+        metricMaker.registerCachedGauge("concurrencyLimit", limiter::getLimit);
+        metricMaker.registerCachedGauge("inFlight", limiter::getInFlight);
+        metricMaker.registerCachedGauge("queued", limiter::getQueued);
+        // 0 = closed, 1 = open, 2 = half-open
+        metricMaker.registerCachedGauge("circuitState", () -> breaker.getState().ordinal());
+        metricMaker.registerCachedGauge("retryBudget", budget::getTokens);
+    }
+
+    /**
+     * Make a blocking request, on the calling thread.
+     * The calling thread waits (for at most the acquire timeout) for the limiter, and sleeps between retries.
+     *
+     * @param request - the request to make
+     * @param <T>     - the type returned by the request
+     * @return - the value returned by the request
+     */
+    public <T> T call(Supplier<T> request) {
+        if (!config.isEnabled()) {
+            return request.get();
+        }
+
+        budget.onRequest();
+        int attempt = 0;
+        while (true) {
+            acquire();
+            final long start = System.nanoTime();
+            try {
+                final T result = request.get();
+                onComplete(start, null);
+                return result;
+            } catch (RuntimeException e) {
+                onComplete(start, e);
+                if (!shouldRetry(e, attempt)) {
+                    throw e;
+                }
+                sleep(backoff(attempt), e);
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Make a non-blocking request.
+     * No thread waits for the limiter, or between retries.
+     *
+     * @param request - the request to make, which must not block
+     * @param <T>     - the type returned by the request
+     * @return - {@link CompletableFuture} completed with the value returned by the request
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> request) {
+        if (!config.isEnabled()) {
+            return request.get();
+        }
+
+        budget.onRequest();
+        return attemptAsync(request, 0);
+    }
+
+    private <T> CompletableFuture<T> attemptAsync(Supplier<CompletableFuture<T>> request, int attempt) {
+        return limiter.acquire().thenCompose(permit -> {
+            if (!breaker.allowRequest()) {
+                limiter.releaseUnused();
+                return CompletableFuture.failedFuture(reject());
+            }
+
+            final long start = System.nanoTime();
+            CompletableFuture<T> response;
+            try {
+                response = request.get();
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            return response.handle((result, error) -> {
+                final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof CancellationException) {
+                    // Cancelled by the caller (e.g. a hedged request which lost), which tells us nothing about BlueButton
+                    limiter.releaseUnused();
+                    breaker.onAbandoned();
+                    return CompletableFuture.<T>failedFuture(cause);
+                }
+                onComplete(start, cause);
+                if (cause == null) {
+                    return CompletableFuture.completedFuture(result);
+                }
+                if (shouldRetry(cause, attempt)) {
+                    return CompletableFuture.runAsync(() -> {
+                    }, CompletableFuture.delayedExecutor(backoff(attempt), TimeUnit.MILLISECONDS))
+                            .thenCompose(v -> attemptAsync(request, attempt + 1));
+                }
+                return CompletableFuture.<T>failedFuture(cause);
+            }).thenCompose(Function.identity());
+        });
+    }
+
+    /**
+     * Block until the limiter admits the request, and the circuit breaker allows it
+     */
+    private void acquire() {
+        final CompletableFuture<Void> permit = limiter.acquire();
+        try {
+            permit.get(config.getAcquireTimeout().toMilliseconds(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // If we can't cancel, the permit was granted in the meantime, so carry on
+            if (permit.cancel(false)) {
+                rejectedMeter.mark();
+                throw new BlueButtonUnavailableException("Timed out waiting to send request to BlueButton");
+            }
+        } catch (InterruptedException e) {
+            if (!permit.cancel(false)) {
+                limiter.releaseUnused();
+            }
+            Thread.currentThread().interrupt();
+            throw new BlueButtonUnavailableException("Interrupted waiting to send request to BlueButton");
+        } catch (ExecutionException e) {
+            // Permits are never completed exceptionally
+            throw new IllegalStateException(e);
+        }
+
+        if (!breaker.allowRequest()) {
+            limiter.releaseUnused();
+            throw reject();
+        }
+    }
+
+    private BlueButtonUnavailableException reject() {
+        rejectedMeter.mark();
+        return new BlueButtonUnavailableException("BlueButton is failing, not sending request until the circuit breaker closes");
+    }
+
+    private void onComplete(long start, Throwable error) {
+        final boolean failed = isFailure(error);
+        limiter.release(System.nanoTime() - start, failed);
+        if (failed) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    private boolean shouldRetry(Throwable error, int attempt) {
+        if (attempt >= config.getMaxRetries() || !isFailure(error)) {
+            return false;
+        }
+        if (!budget.tryRetry()) {
+            budgetExhaustedMeter.mark();
+            logger.warn("Retry budget exhausted, not retrying failed BlueButton request");
+            return false;
+        }
+        retryMeter.mark();
+        logger.debug("Retrying failed BlueButton request, attempt {}", attempt + 1, error);
+        return true;
+    }
+
+    /**
+     * Full jitter backoff, a random delay between 0 and the exponential delay for the attempt
+     */
+    private long backoff(int attempt) {
+        final long base = config.getBaseDelay().toMilliseconds();
+        final long ceiling = Math.min(config.getMaxDelay().toMilliseconds(), base << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static void sleep(long millis, RuntimeException error) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw error;
+        }
+    }
+
+    /**
+     * Determine whether the error shows that BlueButton is unavailable or overloaded
+     */
+    static boolean isFailure(Throwable error) {
+        if (error == null) {
+            return false;
+        }
+        if (error instanceof FhirClientConnectionException || error instanceof IOException || error instanceof TimeoutException) {
+            return true;
+        }
+        if (error instanceof BaseServerResponseException) {
+            final int status = ((BaseServerResponseException) error).getStatusCode();
+            return status == TOO_MANY_REQUESTS || status >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+        }
+        return false;
+    }
+}
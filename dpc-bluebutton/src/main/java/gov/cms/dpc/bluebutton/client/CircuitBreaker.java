@@ -0,0 +1,79 @@
+package gov.cms.dpc.bluebutton.client;
+
+/**
+ * Consecutive failure circuit breaker.
+ * <p>
+ * After {@code failureThreshold} consecutive failures the circuit opens and requests are rejected without being sent.
+ * Once the open duration has passed, a single trial request is let through (half-open), which either closes the circuit, or re-opens it.
+ * If the trial is abandoned (e.g. cancelled) without a result, the circuit goes back to open, and the next request becomes the trial.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    CircuitBreaker(int failureThreshold, long openNanos) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    /**
+     * Determine whether a request may be sent
+     *
+     * @return - {@code true} if the request is allowed
+     */
+    synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt >= openNanos) {
+                    state = State.HALF_OPEN;
+                    return true;
+                }
+                return false;
+            default:
+                // Only the trial request is allowed while half-open
+                return false;
+        }
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Record that a request was abandoned before it completed, which tells us nothing about the health of the server.
+     * If this was the half-open trial, another trial has to be allowed, otherwise the circuit would never leave the half-open state.
+     */
+    synchronized void onAbandoned() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            // The open duration has already passed, so let the next request through as the trial
+            openedAt = System.nanoTime() - openNanos;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,141 @@
+package gov.cms.dpc.bluebutton.client;
+
+import com.codahale.metrics.CachedGauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import gov.cms.dpc.common.utils.MetricMaker;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Hedges slow reads, by sending a duplicate request when the original has not completed within a latency percentile of previous requests.
+ * Whichever request succeeds first wins, and the other one is cancelled.
+ * <p>
+ * Hedges are drawn from a {@link RetryBudget}, so they can only ever add a bounded fraction of extra load.
+ * The hedge delay is taken from the {@link Timer} which records the latency of the requests being hedged, and refreshed at most once per second.
+ */
+class HedgingPolicy {
+
+    // Don't hedge until we've seen enough requests to have a meaningful percentile
+    private static final long MIN_SAMPLES = 20;
+
+    private final BBClientConfiguration.HedgingConfiguration config;
+    private final RetryBudget budget;
+    private final Map<Timer, CachedGauge<Long>> delays = new ConcurrentHashMap<>();
+    private final Meter issuedMeter;
+    private final Meter wonMeter;
+    private final Meter exhaustedMeter;
+
+    HedgingPolicy(BBClientConfiguration.HedgingConfiguration config, MetricMaker metricMaker) {
+        this.config = config;
+        this.budget = new RetryBudget(config.getBudgetRatio(), config.getMaxBudget());
+        this.issuedMeter = metricMaker.registerMeter("hedgesIssued");
+        this.wonMeter = metricMaker.registerMeter("hedgesWon");
+        this.exhaustedMeter = metricMaker.registerMeter("hedgeBudgetExhausted");
+    }
+
+    /**
+     * Make a request, and hedge it if it's slow.
+     * The request function is given a future which is completed if the request should be cancelled, because the other request won.
+     *
+     * @param latencies - {@link Timer} recording the latency of this type of request
+     * @param request   - function which makes the request, given its cancellation signal
+     * @param <T>       - the type returned by the request
+     * @return - {@link CompletableFuture} completed with the first successful response, or the original request's error, if both fail
+     */
+    <T> CompletableFuture<T> hedge(Timer latencies, Function<CompletableFuture<Void>, CompletableFuture<T>> request) {
+        if (!config.isEnabled()) {
+            return request.apply(new CompletableFuture<>());
+        }
+
+        budget.onRequest();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Race<T> race = new Race<>(result);
+        final CompletableFuture<Void> cancelPrimary = new CompletableFuture<>();
+        final CompletableFuture<Void> cancelHedge = new CompletableFuture<>();
+        final CompletableFuture<T> primary = request.apply(cancelPrimary);
+        primary.whenComplete((value, error) -> race.onComplete(value, error, cancelHedge, false));
+
+        final long delay = getDelay(latencies);
+        if (delay < 0) {
+            return result;
+        }
+        CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            if (!budget.tryRetry()) {
+                exhaustedMeter.mark();
+                return;
+            }
+            race.pending.incrementAndGet();
+            // The original request may have failed while we were incrementing, in which case it's already been reported
+            if (result.isDone()) {
+                return;
+            }
+            issuedMeter.mark();
+            request.apply(cancelHedge)
+                    .whenComplete((value, error) -> race.onComplete(value, error, cancelPrimary, true));
+        });
+        return result;
+    }
+
+    /**
+     * Get the hedge delay for the given type of request
+     *
+     * @return - delay in nanoseconds, or -1 if the request should not be hedged
+     */
+    private long getDelay(Timer latencies) {
+        return delays.computeIfAbsent(latencies, timer -> new CachedGauge<>(1, TimeUnit.SECONDS) {
+            @Override
+            protected Long loadValue() {
+                if (timer.getCount() < MIN_SAMPLES) {
+                    return -1L;
+                }
+                final long percentile = (long) timer.getSnapshot().getValue(config.getPercentile());
+                return Math.max(percentile, config.getMinDelay().toNanoseconds());
+            }
+        }).getValue();
+    }
+
+    /**
+     * Tracks the original request and its hedge, completing the result with the first success, or once both have failed
+     */
+    private class Race<T> {
+
+        private final CompletableFuture<T> result;
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final AtomicReference<Throwable> primaryError = new AtomicReference<>();
+
+        Race(CompletableFuture<T> result) {
+            this.result = result;
+        }
+
+        void onComplete(T value, Throwable error, CompletableFuture<Void> cancelOther, boolean isHedge) {
+            if (error == null) {
+                if (result.complete(value)) {
+                    cancelOther.complete(null);
+                    if (isHedge) {
+                        wonMeter.mark();
+                    }
+                }
+                return;
+            }
+            if (!isHedge) {
+                primaryError.set(error);
+            }
+            // Only fail once neither request can succeed, preferring the original request's error
+            if (pending.decrementAndGet() == 0) {
+                final Throwable primary = primaryError.get();
+                result.completeExceptionally(primary == null ? error : primary);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package gov.cms.dpc.bluebutton.client;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import gov.cms.dpc.common.utils.MetricMaker;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.ResourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses the number of resources (the {@code _count}) to request per page, for each resource type.
+ * <p>
+ * Page sizes start at the configured size for the resource type (or {@link BBClientConfiguration#getResourcesCount()}), limited to the minimum and maximum sizes.
+ * When adaptive sizing is enabled, full pages which return well within the target latency grow the page size, and slow pages shrink it.
+ * Since BlueButton embeds the page size in its next links, a change applies to the next patient, not to the pages of the current one.
+ * <p>
+ * The page size, pages per patient and bytes per page are exported for each resource type.
+ * A single instance is shared by the {@link BlueButtonClient} and the {@link BlueButtonAsyncClient}, so that they learn the same page sizes.
+ */
+public class PageSizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageSizer.class);
+
+    private static final List<ResourceType> RESOURCE_TYPES = List.of(ResourceType.Patient, ResourceType.ExplanationOfBenefit, ResourceType.Coverage);
+    private static final double GROWTH = 1.25;
+    private static final double SHRINK = 0.8;
+
+    private final BBClientConfiguration.PageSizeConfiguration config;
+    private final long targetLatencyNanos;
+    private final int defaultSize;
+    private final Map<ResourceType, AtomicInteger> pageSizes = new EnumMap<>(ResourceType.class);
+    private final Map<ResourceType, Histogram> pagesPerPatient = new EnumMap<>(ResourceType.class);
+    private final Map<ResourceType, Histogram> bytesPerPage = new EnumMap<>(ResourceType.class);
+
+    public PageSizer(BBClientConfiguration config, MetricRegistry metricRegistry) {
+        this(config, new MetricMaker(metricRegistry, PageSizer.class));
+    }
+
+    PageSizer(BBClientConfiguration config, MetricMaker metricMaker) {
+        this.config = config.getPageSizes();
+        if (this.config.getMinSize() > this.config.getMaxSize()) {
+            throw new IllegalArgumentException(String.format("Minimum page size %d is larger than the maximum %d", this.config.getMinSize(), this.config.getMaxSize()));
+        }
+        this.targetLatencyNanos = this.config.getTargetLatency().toNanoseconds();
+        this.defaultSize = clamp("default", config.getResourcesCount());
+        for (final ResourceType type : RESOURCE_TYPES) {
+            final Integer configured = this.config.getSizes().get(type.name());
+            final int initial = configured == null ? defaultSize : clamp(type.name(), configured);
+            final AtomicInteger pageSize = new AtomicInteger(initial);
+            pageSizes.put(type, pageSize);
+            metricMaker.registerCachedGauge(type.name() + ".pageSize", pageSize::get);
+            pagesPerPatient.put(type, metricMaker.registerHistogram(type.name() + ".pagesPerPatient"));
+            bytesPerPage.put(type, metricMaker.registerHistogram(type.name() + ".bytesPerPage"));
+        }
+    }
+
+    private int clamp(String name, int size) {
+        final int clamped = Math.max(config.getMinSize(), Math.min(config.getMaxSize(), size));
+        if (clamped != size) {
+            logger.warn("Configured {} page size {} is outside of {} to {}, using {}", name, size, config.getMinSize(), config.getMaxSize(), clamped);
+        }
+        return clamped;
+    }
+
+    /**
+     * Get the number of resources to request in the first page
+     *
+     * @param type - {@link ResourceType} being requested
+     * @return - page size
+     */
+    int getPageSize(ResourceType type) {
+        final AtomicInteger pageSize = pageSizes.get(type);
+        return pageSize == null ? defaultSize : pageSize.get();
+    }
+
+    /**
+     * Record the first page returned for a patient, which tells us how many pages the patient will need
+     *
+     * @param type     - {@link ResourceType} requested
+     * @param pageSize - page size that was requested
+     * @param bundle   - the first page
+     */
+    void onFirstPage(ResourceType type, int pageSize, Bundle bundle) {
+        final Histogram histogram = pagesPerPatient.get(type);
+        if (histogram != null && bundle.hasTotal() && pageSize > 0) {
+            histogram.update(Math.max(1, (bundle.getTotal() + pageSize - 1) / pageSize));
+        }
+    }
+
+    /**
+     * Record a page, and adjust the page size for its resource type
+     *
+     * @param type         - {@link ResourceType} requested
+     * @param bundle       - the page
+     * @param bytes        - size of the response, or -1 if unknown
+     * @param latencyNanos - time taken to fetch the page
+     */
+    void onPage(ResourceType type, Bundle bundle, long bytes, long latencyNanos) {
+        if (!pageSizes.containsKey(type)) {
+            return;
+        }
+        if (bytes >= 0) {
+            bytesPerPage.get(type).update(bytes);
+        }
+        // Only full pages (those which have a next page) tell us whether a different size would help
+        if (!config.isAdaptive() || bundle.getLink(Bundle.LINK_NEXT) == null) {
+            return;
+        }
+        final int current = bundle.getEntry().size();
+        final int next;
+        if (latencyNanos < targetLatencyNanos / 2) {
+            next = Math.min(config.getMaxSize(), (int) Math.ceil(current * GROWTH));
+        } else if (latencyNanos > targetLatencyNanos) {
+            next = Math.max(config.getMinSize(), (int) (current * SHRINK));
+        } else {
+            return;
+        }
+        pageSizes.get(type).set(next);
+    }
+
+    /**
+     * Determine the resource type of a page, from its entries
+     *
+     * @param bundle - the page
+     * @return - {@link ResourceType} of the first entry, or {@code null} if the page is empty
+     */
+    static ResourceType typeOf(Bundle bundle) {
+        return bundle.hasEntry() && bundle.getEntryFirstRep().hasResource() ? bundle.getEntryFirstRep().getResource().getResourceType() : null;
+    }
+}
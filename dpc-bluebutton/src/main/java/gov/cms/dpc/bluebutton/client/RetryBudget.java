@@ -0,0 +1,36 @@
+package gov.cms.dpc.bluebutton.client;
+
+/**
+ * Token bucket which limits retries to a fraction of the requests being made.
+ * <p>
+ * Each request deposits {@code ratio} tokens, up to {@code maxTokens}, and each retry withdraws a whole token.
+ * This allows a few retries to smooth over transient errors, but stops retries from multiplying the load when the server is struggling.
+ */
+class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    RetryBudget(double ratio, int maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    synchronized void onRequest() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    synchronized boolean tryRetry() {
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized double getTokens() {
+        return tokens;
+    }
+}
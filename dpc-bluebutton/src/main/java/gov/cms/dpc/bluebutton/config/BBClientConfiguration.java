@@ -1,12 +1,17 @@
 package gov.cms.dpc.bluebutton.config;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.util.Map;
 
 public class BBClientConfiguration {
 
@@ -22,10 +27,20 @@ public class BBClientConfiguration {
     @JsonProperty("timeouts")
     private TimeoutConfiguration timeouts = new TimeoutConfiguration();
 
+    @Valid
+    @NotNull
+    @JsonProperty("connectionPool")
+    private ConnectionPoolConfiguration connectionPool = new ConnectionPoolConfiguration();
+
     @Min(10)
     @Max(1000)
     private int resourcesCount = 100;
 
+    @Valid
+    @NotNull
+    @JsonProperty("pageSizes")
+    private PageSizeConfiguration pageSizes = new PageSizeConfiguration();
+
     @Valid
     @NotNull
     @JsonProperty("keyStore")
@@ -36,13 +51,44 @@ public class BBClientConfiguration {
 
     private int bfdHashIter;
 
+    @Valid
+    @NotNull
+    @JsonProperty("mbiHashCache")
+    private HashCacheConfiguration mbiHashCache = new HashCacheConfiguration();
+
+    @Valid
+    @NotNull
+    @JsonProperty("resilience")
+    private ResilienceConfiguration resilience = new ResilienceConfiguration();
+
+    @Valid
+    @NotNull
+    @JsonProperty("hedging")
+    private HedgingConfiguration hedging = new HedgingConfiguration();
+
+    @Valid
+    @NotNull
+    @JsonProperty("responseCache")
+    private ResponseCacheConfiguration responseCache = new ResponseCacheConfiguration();
+
+    // Worker threads used by the async client to parse responses, the I/O itself is handled by the HTTP client's dispatch threads
+    @Min(1)
+    private int asyncThreads = 4;
 
     public TimeoutConfiguration getTimeouts() {
         return timeouts;
     }
 
+    public ConnectionPoolConfiguration getConnectionPool() {
+        return connectionPool;
+    }
+
     public int getResourcesCount() { return resourcesCount; }
 
+    public PageSizeConfiguration getPageSizes() {
+        return pageSizes;
+    }
+
     public KeystoreConfiguration getKeystore() {
         return keystore;
     }
@@ -71,6 +117,26 @@ public class BBClientConfiguration {
 
     public int getBfdHashIter() { return bfdHashIter; }
 
+    public HashCacheConfiguration getMbiHashCache() {
+        return mbiHashCache;
+    }
+
+    public int getAsyncThreads() {
+        return asyncThreads;
+    }
+
+    public ResilienceConfiguration getResilience() {
+        return resilience;
+    }
+
+    public HedgingConfiguration getHedging() {
+        return hedging;
+    }
+
+    public ResponseCacheConfiguration getResponseCache() {
+        return responseCache;
+    }
+
     public static class TimeoutConfiguration {
 
         private Integer connectionTimeout;
@@ -106,6 +172,75 @@ public class BBClientConfiguration {
         }
     }
 
+    /**
+     * Sizing and connection reuse settings for the pooled connections to the BlueButton server.
+     * Since all requests go to a single host, {@link #getMaxPerRoute()} effectively bounds the number of concurrent BlueButton requests.
+     */
+    public static class ConnectionPoolConfiguration {
+
+        @Min(1)
+        private int maxTotal = 100;
+
+        @Min(1)
+        private int maxPerRoute = 50;
+
+        // Connections idle for longer than this are checked before being leased
+        @NotNull
+        private Duration validateAfterInactivity = Duration.seconds(2);
+
+        // Upper bound on how long a connection is kept alive, when the server does not send a shorter Keep-Alive header
+        @NotNull
+        private Duration keepAlive = Duration.seconds(30);
+
+        // Connections idle for longer than this are closed by a background thread
+        @NotNull
+        private Duration idleTimeout = Duration.minutes(1);
+
+        ConnectionPoolConfiguration() {
+            // Jackson required
+        }
+
+        public int getMaxTotal() {
+            return maxTotal;
+        }
+
+        public void setMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+        }
+
+        public int getMaxPerRoute() {
+            return maxPerRoute;
+        }
+
+        public void setMaxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+        }
+
+        public Duration getValidateAfterInactivity() {
+            return validateAfterInactivity;
+        }
+
+        public void setValidateAfterInactivity(Duration validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+    }
+
     public static class KeystoreConfiguration {
 
         @NotEmpty
@@ -142,4 +277,416 @@ public class BBClientConfiguration {
             this.location = location;
         }
     }
+
+    /**
+     * Bounds for the cache of hashed MBIs.
+     * Each entry holds an MBI and its hex encoded hash (a few hundred bytes), so the default size caps the cache at roughly 25MB.
+     */
+    public static class HashCacheConfiguration {
+
+        private boolean enabled = true;
+
+        @Min(1)
+        private long maximumSize = 100_000;
+
+        @NotNull
+        private Duration expiration = Duration.hours(1);
+
+        HashCacheConfiguration() {
+            // Jackson required
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getExpiration() {
+            return expiration;
+        }
+
+        public void setExpiration(Duration expiration) {
+            this.expiration = expiration;
+        }
+    }
+
+    /**
+     * Settings for the {@link gov.cms.dpc.bluebutton.client.BlueButtonRequestGuard}, which protects BlueButton from being overloaded by our requests.
+     */
+    public static class ResilienceConfiguration {
+
+        private boolean enabled = true;
+
+        // Concurrency limiter, the limit adapts between minLimit and maxLimit based on the observed latency and errors
+        @Min(1)
+        private int initialLimit = 20;
+
+        @Min(1)
+        private int minLimit = 1;
+
+        @Min(1)
+        private int maxLimit = 50;
+
+        @DecimalMin("0.1")
+        @DecimalMax("0.99")
+        private double backoffRatio = 0.9;
+
+        // Responses slower than this are treated as a sign of overload
+        @NotNull
+        private Duration latencyThreshold = Duration.seconds(2);
+
+        // How long a blocking request waits for the limiter, before giving up
+        @NotNull
+        private Duration acquireTimeout = Duration.seconds(30);
+
+        // Circuit breaker, opens after this many consecutive failures, and lets a trial request through after the open duration
+        @Min(1)
+        private int failureThreshold = 10;
+
+        @NotNull
+        private Duration openDuration = Duration.seconds(30);
+
+        // Retries, with full jitter backoff, limited to retryBudgetRatio of all requests
+        @Min(0)
+        private int maxRetries = 3;
+
+        @NotNull
+        private Duration baseDelay = Duration.milliseconds(100);
+
+        @NotNull
+        private Duration maxDelay = Duration.seconds(5);
+
+        @DecimalMin("0.0")
+        private double retryBudgetRatio = 0.1;
+
+        @Min(0)
+        private int maxRetryBudget = 10;
+
+        public ResilienceConfiguration() {
+            // Jackson required
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+
+        public void setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+        }
+
+        public Duration getAcquireTimeout() {
+            return acquireTimeout;
+        }
+
+        public void setAcquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public Duration getBaseDelay() {
+            return baseDelay;
+        }
+
+        public void setBaseDelay(Duration baseDelay) {
+            this.baseDelay = baseDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public double getRetryBudgetRatio() {
+            return retryBudgetRatio;
+        }
+
+        public void setRetryBudgetRatio(double retryBudgetRatio) {
+            this.retryBudgetRatio = retryBudgetRatio;
+        }
+
+        public int getMaxRetryBudget() {
+            return maxRetryBudget;
+        }
+
+        public void setMaxRetryBudget(int maxRetryBudget) {
+            this.maxRetryBudget = maxRetryBudget;
+        }
+    }
+
+    /**
+     * Settings for hedging slow reads, by sending a duplicate request and taking whichever response arrives first.
+     */
+    public static class HedgingConfiguration {
+
+        private boolean enabled = false;
+
+        // Requests slower than this percentile of previous requests are hedged
+        @DecimalMin("0.5")
+        @DecimalMax("0.999")
+        private double percentile = 0.95;
+
+        // Never hedge sooner than this, even if BlueButton is very fast
+        @NotNull
+        private Duration minDelay = Duration.milliseconds(100);
+
+        // Hedges are limited to this fraction of requests, with a burst of at most maxBudget
+        @DecimalMin("0.0")
+        private double budgetRatio = 0.05;
+
+        @Min(0)
+        private int maxBudget = 10;
+
+        public HedgingConfiguration() {
+            // Jackson required
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public int getMaxBudget() {
+            return maxBudget;
+        }
+
+        public void setMaxBudget(int maxBudget) {
+            this.maxBudget = maxBudget;
+        }
+    }
+
+    /**
+     * Page sizes for BlueButton searches, per resource type.
+     * Resource types without a configured size use {@link #getResourcesCount()}.
+     */
+    public static class PageSizeConfiguration {
+
+        // Keyed by resource type name (e.g. ExplanationOfBenefit)
+        @NotNull
+        private Map<String, Integer> sizes = Map.of();
+
+        // Grow or shrink the page sizes, between minSize and maxSize, to keep full pages around the target latency
+        private boolean adaptive = false;
+
+        @Min(10)
+        private int minSize = 10;
+
+        @Max(1000)
+        private int maxSize = 500;
+
+        @NotNull
+        private Duration targetLatency = Duration.seconds(1);
+
+        public PageSizeConfiguration() {
+            // Jackson required
+        }
+
+        public Map<String, Integer> getSizes() {
+            return sizes;
+        }
+
+        public void setSizes(Map<String, Integer> sizes) {
+            this.sizes = sizes;
+        }
+
+        public boolean isAdaptive() {
+            return adaptive;
+        }
+
+        public void setAdaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+        }
+
+        public int getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(int minSize) {
+            this.minSize = minSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTargetLatency() {
+            return targetLatency;
+        }
+
+        public void setTargetLatency(Duration targetLatency) {
+            this.targetLatency = targetLatency;
+        }
+    }
+
+    /**
+     * Settings for the on-disk {@link gov.cms.dpc.bluebutton.cache.BlueButtonResponseCache}.
+     * When no encryption key is set, a random key is generated at startup, so the cache does not survive restarts.
+     */
+    public static class ResponseCacheConfiguration {
+
+        private boolean enabled = false;
+
+        @NotEmpty
+        private String directory = "/tmp/dpc/bbcache";
+
+        @NotNull
+        private Size maximumSize = Size.gigabytes(10);
+
+        @NotNull
+        private Duration expiration = Duration.days(7);
+
+        // Base64 encoded 256-bit AES key
+        private String encryptionKey;
+
+        public ResponseCacheConfiguration() {
+            // Jackson required
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Size getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(Size maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getExpiration() {
+            return expiration;
+        }
+
+        public void setExpiration(Duration expiration) {
+            this.expiration = expiration;
+        }
+
+        public String getEncryptionKey() {
+            return encryptionKey;
+        }
+
+        public void setEncryptionKey(String encryptionKey) {
+            this.encryptionKey = encryptionKey;
+        }
+    }
 }
@@ -0,0 +1,17 @@
+package gov.cms.dpc.bluebutton.exceptions;
+
+import ca.uhn.fhir.rest.server.exceptions.UnclassifiedServerFailureException;
+import org.apache.http.HttpStatus;
+
+/**
+ * Thrown when a request is not sent to BlueButton, because it has been failing and the circuit breaker is open, or because the request could not be admitted by the concurrency limiter in time.
+ * Reported as a 503, so callers treat it the same as BlueButton being unavailable.
+ */
+public class BlueButtonUnavailableException extends UnclassifiedServerFailureException {
+
+    public static final long serialVersionUID = 42L;
+
+    public BlueButtonUnavailableException(String message) {
+        super(HttpStatus.SC_SERVICE_UNAVAILABLE, message);
+    }
+}
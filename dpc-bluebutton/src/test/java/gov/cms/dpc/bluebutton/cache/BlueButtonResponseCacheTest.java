@@ -0,0 +1,149 @@
+package gov.cms.dpc.bluebutton.cache;
+
+import ca.uhn.fhir.context.FhirContext;
+import com.codahale.metrics.MetricRegistry;
+import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import gov.cms.dpc.testing.BufferedLoggerHandler;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.ExplanationOfBenefit;
+import org.hl7.fhir.dstu3.model.Resource;
+import org.hl7.fhir.dstu3.model.ResourceType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(BufferedLoggerHandler.class)
+class BlueButtonResponseCacheTest {
+
+    private static final FhirContext ctx = FhirContext.forDstu3();
+    private static final String BENE_ID = "-20140000008325";
+    private static final OffsetDateTime FIRST_EXPORT = OffsetDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime SECOND_EXPORT = FIRST_EXPORT.plusDays(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testUnchangedResourcesAreReused() throws Exception {
+        final BlueButtonResponseCache cache = new BlueButtonResponseCache(config(null), ctx, new MetricRegistry());
+        cache.put(BENE_ID, ResourceType.ExplanationOfBenefit, null, FIRST_EXPORT, eobs(3));
+
+        final AtomicInteger deltaQueries = new AtomicInteger();
+        final Optional<List<Resource>> cached = cache.getIfUnchanged(BENE_ID, ResourceType.ExplanationOfBenefit, null, SECOND_EXPORT, range -> {
+            deltaQueries.incrementAndGet();
+            assertEquals(FIRST_EXPORT.toInstant(), range.getLowerBound().getValue().toInstant(), "Should only ask for changes since the cached export");
+            return CompletableFuture.completedFuture(new Bundle());
+        }).get();
+
+        assertEquals(1, deltaQueries.get());
+        assertTrue(cached.isPresent(), "Should have cached resources");
+        assertEquals(List.of("eob-0", "eob-1", "eob-2"), cached.get().stream().map(r -> r.getIdElement().getIdPart()).collect(Collectors.toList()));
+        assertEquals(1.0, cache.getHitRatio());
+    }
+
+    @Test
+    void testChangedResourcesAreRefetched() throws Exception {
+        final BlueButtonResponseCache cache = new BlueButtonResponseCache(config(null), ctx, new MetricRegistry());
+        cache.put(BENE_ID, ResourceType.ExplanationOfBenefit, null, FIRST_EXPORT, eobs(3));
+
+        final Bundle changes = new Bundle();
+        changes.addEntry().setResource(eobs(1).get(0));
+        assertTrue(cache.getIfUnchanged(BENE_ID, ResourceType.ExplanationOfBenefit, null, SECOND_EXPORT, range -> CompletableFuture.completedFuture(changes)).get().isEmpty(), "Should not use stale resources");
+        // Different since is a different window
+        assertTrue(cache.getIfUnchanged(BENE_ID, ResourceType.ExplanationOfBenefit, FIRST_EXPORT.minusDays(1), SECOND_EXPORT, range -> fail("Should not query BFD")).get().isEmpty());
+        // Cached through a later time than the export
+        assertTrue(cache.getIfUnchanged(BENE_ID, ResourceType.ExplanationOfBenefit, null, FIRST_EXPORT.minusDays(1), range -> fail("Should not query BFD")).get().isEmpty());
+        assertEquals(0.0, cache.getHitRatio());
+    }
+
+    @Test
+    void testEncryptedAndPersisted() throws Exception {
+        final String key = Base64.getEncoder().encodeToString(new byte[32]);
+        new BlueButtonResponseCache(config(key), ctx, new MetricRegistry())
+                .put(BENE_ID, ResourceType.ExplanationOfBenefit, null, FIRST_EXPORT, eobs(2));
+
+        final List<Path> files = Files.list(directory).collect(Collectors.toList());
+        assertEquals(1, files.size());
+        assertFalse(files.get(0).getFileName().toString().contains(BENE_ID), "File name should not contain the beneficiary ID");
+        assertFalse(new String(Files.readAllBytes(files.get(0)), StandardCharsets.ISO_8859_1).contains("eob-0"), "Contents should be encrypted");
+
+        // A new instance with the same key can read the entry
+        final BlueButtonResponseCache reloaded = new BlueButtonResponseCache(config(key), ctx, new MetricRegistry());
+        assertTrue(reloaded.getIfUnchanged(BENE_ID, ResourceType.ExplanationOfBenefit, null, FIRST_EXPORT, range -> fail("Should not query BFD")).get().isPresent());
+
+        // Without the key, the entry is discarded
+        new BlueButtonResponseCache(config(null), ctx, new MetricRegistry());
+        assertEquals(0, Files.list(directory).count());
+    }
+
+    @Test
+    void testConcurrentPutAndRead() throws Exception {
+        final BlueButtonResponseCache cache = new BlueButtonResponseCache(config(null), ctx, new MetricRegistry());
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> tasks = IntStream.range(0, 8)
+                    .mapToObj(thread -> executor.submit(() -> {
+                        final String beneId = BENE_ID + thread;
+                        for (int i = 0; i < 25; i++) {
+                            cache.put(beneId, ResourceType.ExplanationOfBenefit, null, FIRST_EXPORT, eobs(20));
+                            final Optional<List<Resource>> cached = cache.getIfUnchanged(beneId, ResourceType.ExplanationOfBenefit, null, FIRST_EXPORT, range -> fail("Should not query BFD")).join();
+                            assertTrue(cached.isPresent(), "Should read the cached resources");
+                            assertEquals(eobs(20).stream().map(r -> r.getIdElement().getIdPart()).collect(Collectors.toList()),
+                                    cached.get().stream().map(r -> r.getIdElement().getIdPart()).collect(Collectors.toList()));
+                        }
+                        return null;
+                    }))
+                    .collect(Collectors.toList());
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1.0, cache.getHitRatio(), "Every read should be a hit");
+    }
+
+    @Test
+    void testDisabled() throws Exception {
+        final BBClientConfiguration.ResponseCacheConfiguration config = config(null);
+        config.setEnabled(false);
+        final BlueButtonResponseCache cache = new BlueButtonResponseCache(config, ctx, new MetricRegistry());
+        cache.put(BENE_ID, ResourceType.ExplanationOfBenefit, null, FIRST_EXPORT, eobs(1));
+
+        assertFalse(cache.isEnabled());
+        assertTrue(cache.getIfUnchanged(BENE_ID, ResourceType.ExplanationOfBenefit, null, FIRST_EXPORT, range -> fail("Should not query BFD")).get().isEmpty());
+        assertEquals(0, Files.list(directory).count());
+    }
+
+    private BBClientConfiguration.ResponseCacheConfiguration config(String key) {
+        final BBClientConfiguration.ResponseCacheConfiguration config = new BBClientConfiguration.ResponseCacheConfiguration();
+        config.setEnabled(true);
+        config.setDirectory(directory.toString());
+        config.setEncryptionKey(key);
+        return config;
+    }
+
+    private static List<Resource> eobs(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> (Resource) new ExplanationOfBenefit().setId("eob-" + i))
+                .collect(Collectors.toList());
+    }
+}
@@ -2,6 +2,8 @@ package gov.cms.dpc.bluebutton.client;
 
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -13,6 +15,7 @@ import gov.cms.dpc.bluebutton.BlueButtonClientModule;
 import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
 import gov.cms.dpc.fhir.DPCIdentifierSystem;
 import gov.cms.dpc.testing.BufferedLoggerHandler;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
 import org.eclipse.jetty.http.HttpStatus;
 import org.hl7.fhir.dstu3.model.*;
 import org.junit.jupiter.api.AfterAll;
@@ -32,6 +35,7 @@ import java.security.GeneralSecurityException;
 import java.util.Collections;
 import java.util.List;
 import java.util.MissingResourceException;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -58,6 +62,8 @@ class BlueButtonClientTest {
     private static final String TEST_LAST_UPDATED_STRING = "le" + TEST_LAST_UPDATED.getUpperBound().getValueAsString();
 
     private static BlueButtonClient bbc;
+    private static BlueButtonAsyncClient asyncClient;
+    private static MetricRegistry metrics;
     private static ClientAndServer mockServer;
     private static Config conf;
 
@@ -66,6 +72,8 @@ class BlueButtonClientTest {
         conf = getTestConfig();
         final Injector injector = Guice.createInjector(Stage.DEVELOPMENT, new TestModule(), new BlueButtonClientModule<>(getClientConfig()));
         bbc = injector.getInstance(BlueButtonClient.class);
+        asyncClient = injector.getInstance(BlueButtonAsyncClient.class);
+        metrics = injector.getInstance(MetricRegistry.class);
 
         mockServer = ClientAndServer.startClientAndServer(8083);
         createMockServerExpectation("/v1/fhir/metadata", HttpStatus.OK_200, getRawXML(METADATA_PATH), List.of());
@@ -278,6 +286,45 @@ class BlueButtonClientTest {
         );
     }
 
+    @Test
+    void shouldGetFHIRFromPatientIDAsync() {
+        final Bundle patient = asyncClient.requestPatientFromServer(TEST_PATIENT_ID, TEST_LAST_UPDATED).join();
+        assertEquals(1, patient.getEntry().size(), "Should have a single patient");
+        assertEquals(ResourceType.Patient, patient.getEntryFirstRep().getResource().getResourceType());
+    }
+
+    @Test
+    void shouldReportAsyncConnectionPool() {
+        asyncClient.requestPatientFromServer(TEST_PATIENT_ID, TEST_LAST_UPDATED).join();
+
+        final String pool = MetricRegistry.name(NHttpClientConnectionManager.class, "bbclient");
+        assertEquals(getClientConfig().getConnectionPool().getMaxTotal(), metrics.getGauges().get(MetricRegistry.name(pool, "max-connections")).getValue(), "Should use the configured pool size");
+        assertEquals(0, metrics.getGauges().get(MetricRegistry.name(pool, "leased-connections")).getValue(), "Should have released the connection");
+        assertTrue(metrics.getGauges().containsKey(MetricRegistry.name(pool, "available-connections")));
+        assertTrue(metrics.getGauges().containsKey(MetricRegistry.name(pool, "pending-connections")));
+    }
+
+    @Test
+    void shouldFetchBundlesAsync() {
+        // Issue the requests together, then wait for all of them
+        final var eob = asyncClient.requestEOBFromServer(TEST_PATIENT_ID, TEST_LAST_UPDATED);
+        final var coverage = asyncClient.requestCoverageFromServer(TEST_PATIENT_ID, TEST_LAST_UPDATED);
+
+        assertEquals(32, eob.join().getTotal(), "The demo patient should have exactly 32 EOBs");
+        assertEquals(3, coverage.join().getTotal(), "The demo patient should have exactly 3 Coverage");
+
+        final Bundle nextResponse = asyncClient.requestNextBundleFromServer(eob.join()).join();
+        assertEquals(10, nextResponse.getEntry().size());
+    }
+
+    @Test
+    void shouldCompleteExceptionallyWhenResourceNotFound() {
+        final CompletionException exception = assertThrows(CompletionException.class,
+                () -> asyncClient.requestPatientFromServer(TEST_NONEXISTENT_PATIENT_ID, null).join(),
+                "BlueButton async client should fail when asked to retrieve a non-existent patient");
+        assertTrue(exception.getCause() instanceof ResourceNotFoundException, "Should fail with a ResourceNotFoundException");
+    }
+
     @Test
     void shouldHashMbi() throws GeneralSecurityException {
         // Cases from BFD tests https://github.com/CMSgov/beneficiary-fhir-data/blob/master/apps/bfd-pipeline/bfd-pipeline-rif-load/src/test/java/gov/cms/bfd/pipeline/rif/load/RifLoaderTest.java
@@ -288,6 +335,21 @@ class BlueButtonClientTest {
         assertEquals("ec49dc08f8dd8b4e189f623ab666cfc8b81f201cc94fe6aef860a4c3bd57f278", hash);
     }
 
+    @Test
+    void shouldReuseHashedMbi() throws GeneralSecurityException {
+        // The hash timer only records actual PBKDF2 computations, so it doesn't move for cache hits
+        final Timer hashTimer = metrics.getTimers().get(MetricRegistry.name(BlueButtonClientImpl.class, "hashMbiTimer"));
+        final long computed = hashTimer.getCount();
+
+        // An MBI which isn't hashed by any other test, so the first lookup is a miss
+        final String hash = bbc.hashMbi("1SQ3F00AA00");
+        assertEquals(computed + 1, hashTimer.getCount(), "Should compute hash on first lookup");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(hash, bbc.hashMbi("1SQ3F00AA00"), "Should have the same hash");
+        }
+        assertEquals(computed + 1, hashTimer.getCount(), "Should serve repeated lookups from the cache");
+    }
+
     @Test
     void shouldNotHashMbi() throws GeneralSecurityException {
         String hash = bbc.hashMbi(null);
@@ -0,0 +1,149 @@
+package gov.cms.dpc.bluebutton.client;
+
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import com.codahale.metrics.MetricRegistry;
+import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import gov.cms.dpc.bluebutton.exceptions.BlueButtonUnavailableException;
+import gov.cms.dpc.testing.BufferedLoggerHandler;
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(BufferedLoggerHandler.class)
+class BlueButtonRequestGuardTest {
+
+    private BBClientConfiguration.ResilienceConfiguration config;
+
+    @BeforeEach
+    void setup() {
+        config = new BBClientConfiguration.ResilienceConfiguration();
+        config.setBaseDelay(Duration.milliseconds(1));
+        config.setMaxDelay(Duration.milliseconds(5));
+    }
+
+    @Test
+    void testRetriesServerErrors() {
+        final BlueButtonRequestGuard guard = new BlueButtonRequestGuard(config, new MetricRegistry());
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final String result = guard.call(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new InternalErrorException("BlueButton is unhappy");
+            }
+            return "ok";
+        });
+        assertEquals("ok", result, "Should succeed after retrying");
+        assertEquals(3, attempts.get(), "Should have retried twice");
+    }
+
+    @Test
+    void testDoesNotRetryClientErrors() {
+        final BlueButtonRequestGuard guard = new BlueButtonRequestGuard(config, new MetricRegistry());
+        final AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ResourceNotFoundException.class, () -> guard.call(() -> {
+            attempts.incrementAndGet();
+            throw new ResourceNotFoundException("Not here");
+        }));
+        assertEquals(1, attempts.get(), "Should not retry a 404");
+    }
+
+    @Test
+    void testRetryBudget() {
+        config.setMaxRetryBudget(2);
+        config.setRetryBudgetRatio(0);
+        config.setFailureThreshold(100);
+        final BlueButtonRequestGuard guard = new BlueButtonRequestGuard(config, new MetricRegistry());
+        final AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(InternalErrorException.class, () -> guard.call(() -> {
+                attempts.incrementAndGet();
+                throw new InternalErrorException("BlueButton is unhappy");
+            }));
+        }
+        assertEquals(5, attempts.get(), "Should stop retrying once the budget is spent");
+    }
+
+    @Test
+    void testCircuitBreakerOpens() {
+        config.setMaxRetries(0);
+        config.setFailureThreshold(2);
+        config.setOpenDuration(Duration.minutes(1));
+        final BlueButtonRequestGuard guard = new BlueButtonRequestGuard(config, new MetricRegistry());
+        final AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(InternalErrorException.class, () -> guard.call(() -> {
+                attempts.incrementAndGet();
+                throw new InternalErrorException("BlueButton is unhappy");
+            }));
+        }
+        assertThrows(BlueButtonUnavailableException.class, () -> guard.call(() -> attempts.incrementAndGet()), "Circuit should be open");
+        assertEquals(2, attempts.get(), "Should not send requests while the circuit is open");
+
+        final CompletionException exception = assertThrows(CompletionException.class, () -> guard.callAsync(() -> CompletableFuture.completedFuture(attempts.incrementAndGet())).join());
+        assertTrue(exception.getCause() instanceof BlueButtonUnavailableException, "Async requests should also be rejected");
+    }
+
+    @Test
+    void testCancelledTrialRequest() throws InterruptedException {
+        config.setMaxRetries(0);
+        config.setFailureThreshold(1);
+        config.setOpenDuration(Duration.milliseconds(1));
+        final BlueButtonRequestGuard guard = new BlueButtonRequestGuard(config, new MetricRegistry());
+
+        assertThrows(InternalErrorException.class, () -> guard.call(() -> {
+            throw new InternalErrorException("BlueButton is unhappy");
+        }));
+        Thread.sleep(5);
+
+        // The half-open trial is cancelled, like a hedged request which lost
+        final CompletableFuture<String> trial = new CompletableFuture<>();
+        final CompletableFuture<String> result = guard.callAsync(() -> trial);
+        trial.cancel(false);
+        assertThrows(CompletionException.class, result::join);
+
+        assertEquals("ok", guard.callAsync(() -> CompletableFuture.completedFuture("ok")).join(), "Should admit another trial request");
+        assertEquals("ok", guard.call(() -> "ok"), "Circuit should be closed");
+    }
+
+    @Test
+    void testLimitsConcurrentRequests() {
+        config.setInitialLimit(2);
+        config.setMaxLimit(2);
+        final BlueButtonRequestGuard guard = new BlueButtonRequestGuard(config, new MetricRegistry());
+
+        final List<CompletableFuture<String>> responses = new ArrayList<>();
+        final List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(guard.callAsync(() -> {
+                final CompletableFuture<String> response = new CompletableFuture<>();
+                responses.add(response);
+                return response;
+            }));
+        }
+        assertEquals(2, responses.size(), "Only two requests should be sent");
+
+        // Completing a request lets the next one through
+        responses.get(0).complete("first");
+        assertEquals("first", results.get(0).join());
+        assertEquals(3, responses.size(), "Next request should be sent");
+
+        for (int i = 1; i < 5; i++) {
+            responses.get(i).complete("next");
+        }
+        results.forEach(CompletableFuture::join);
+        assertEquals(5, responses.size(), "All requests should eventually be sent");
+    }
+}
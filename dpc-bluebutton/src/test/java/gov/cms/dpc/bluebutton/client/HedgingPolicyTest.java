@@ -0,0 +1,117 @@
+package gov.cms.dpc.bluebutton.client;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import gov.cms.dpc.common.utils.MetricMaker;
+import gov.cms.dpc.testing.BufferedLoggerHandler;
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(BufferedLoggerHandler.class)
+class HedgingPolicyTest {
+
+    private BBClientConfiguration.HedgingConfiguration config;
+    private MetricRegistry registry;
+    private Timer latencies;
+    private List<CompletableFuture<Void>> cancellations;
+    private List<CompletableFuture<String>> requests;
+
+    @BeforeEach
+    void setup() {
+        config = new BBClientConfiguration.HedgingConfiguration();
+        config.setEnabled(true);
+        config.setMinDelay(Duration.milliseconds(1));
+        registry = new MetricRegistry();
+        latencies = registry.timer("latencies");
+        for (int i = 0; i < 50; i++) {
+            latencies.update(1, TimeUnit.MILLISECONDS);
+        }
+        cancellations = new ArrayList<>();
+        requests = new ArrayList<>();
+    }
+
+    @Test
+    void testHedgeWins() {
+        final HedgingPolicy policy = new HedgingPolicy(config, new MetricMaker(registry, HedgingPolicyTest.class));
+
+        final CompletableFuture<String> result = policy.hedge(latencies, this::request);
+        // The original request never completes, so the hedge should be sent, and win
+        final CompletableFuture<String> hedge = waitForRequest(1);
+        hedge.complete("hedge");
+
+        assertEquals("hedge", result.join(), "Hedge should win");
+        assertTrue(cancellations.get(0).isDone(), "Original request should be cancelled");
+        assertFalse(cancellations.get(1).isDone(), "Hedge should not be cancelled");
+        assertEquals(1, registry.meter(MetricRegistry.name(HedgingPolicyTest.class, "hedgesWon")).getCount(), "Should record the win");
+    }
+
+    @Test
+    void testFailsWhenBothFail() {
+        final HedgingPolicy policy = new HedgingPolicy(config, new MetricMaker(registry, HedgingPolicyTest.class));
+
+        final CompletableFuture<String> result = policy.hedge(latencies, this::request);
+        waitForRequest(1).completeExceptionally(new IllegalStateException("Hedge failed"));
+        assertFalse(result.isDone(), "Should wait for the original request");
+
+        requests.get(0).completeExceptionally(new IllegalArgumentException("Original failed"));
+        final CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertTrue(exception.getCause() instanceof IllegalArgumentException, "Should report the original error");
+    }
+
+    @Test
+    void testHedgeBudget() throws InterruptedException {
+        config.setMaxBudget(0);
+        config.setBudgetRatio(0);
+        final HedgingPolicy policy = new HedgingPolicy(config, new MetricMaker(registry, HedgingPolicyTest.class));
+
+        final CompletableFuture<String> result = policy.hedge(latencies, this::request);
+        Thread.sleep(50);
+        assertEquals(1, requests.size(), "Should not hedge without budget");
+
+        requests.get(0).complete("original");
+        assertEquals("original", result.join());
+    }
+
+    @Test
+    void testDisabled() throws InterruptedException {
+        config.setEnabled(false);
+        final HedgingPolicy policy = new HedgingPolicy(config, new MetricMaker(registry, HedgingPolicyTest.class));
+
+        final CompletableFuture<String> result = policy.hedge(latencies, this::request);
+        Thread.sleep(50);
+        assertEquals(1, requests.size(), "Should not hedge when disabled");
+        requests.get(0).complete("original");
+        assertEquals("original", result.join());
+    }
+
+    private synchronized CompletableFuture<String> request(CompletableFuture<Void> cancelled) {
+        final CompletableFuture<String> request = new CompletableFuture<>();
+        cancellations.add(cancelled);
+        requests.add(request);
+        return request;
+    }
+
+    private CompletableFuture<String> waitForRequest(int index) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            synchronized (this) {
+                if (requests.size() > index) {
+                    return requests.get(index);
+                }
+            }
+            Thread.yield();
+        }
+        throw new AssertionError("Request was not hedged");
+    }
+}
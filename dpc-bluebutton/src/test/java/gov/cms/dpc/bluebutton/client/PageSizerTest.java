@@ -0,0 +1,102 @@
+package gov.cms.dpc.bluebutton.client;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.cms.dpc.bluebutton.config.BBClientConfiguration;
+import gov.cms.dpc.common.utils.MetricMaker;
+import gov.cms.dpc.testing.BufferedLoggerHandler;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.ExplanationOfBenefit;
+import org.hl7.fhir.dstu3.model.ResourceType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(BufferedLoggerHandler.class)
+class PageSizerTest {
+
+    @Test
+    void testConfiguredSizes() throws IOException {
+        final BBClientConfiguration config = getConfig(false);
+        final PageSizer sizer = new PageSizer(config, new MetricMaker(new MetricRegistry(), PageSizerTest.class));
+
+        assertEquals(200, sizer.getPageSize(ResourceType.ExplanationOfBenefit), "Should use the configured size");
+        assertEquals(50, sizer.getPageSize(ResourceType.Coverage), "Should fall back to the resource count");
+
+        // Not adaptive, so the size never changes
+        sizer.onPage(ResourceType.ExplanationOfBenefit, fullPage(200), 1000, 1);
+        assertEquals(200, sizer.getPageSize(ResourceType.ExplanationOfBenefit));
+    }
+
+    @Test
+    void testAdaptiveSizes() throws IOException {
+        final BBClientConfiguration config = getConfig(true);
+        final MetricRegistry registry = new MetricRegistry();
+        final PageSizer sizer = new PageSizer(config, new MetricMaker(registry, PageSizerTest.class));
+
+        // Fast full pages grow the page size, up to the maximum
+        sizer.onPage(ResourceType.ExplanationOfBenefit, fullPage(200), 1000, TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(250, sizer.getPageSize(ResourceType.ExplanationOfBenefit));
+        sizer.onPage(ResourceType.ExplanationOfBenefit, fullPage(250), 1000, TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(300, sizer.getPageSize(ResourceType.ExplanationOfBenefit));
+
+        // Slow pages shrink it
+        sizer.onPage(ResourceType.ExplanationOfBenefit, fullPage(300), 1000, TimeUnit.SECONDS.toNanos(5));
+        assertEquals(240, sizer.getPageSize(ResourceType.ExplanationOfBenefit));
+
+        // The last page doesn't tell us anything
+        sizer.onPage(ResourceType.ExplanationOfBenefit, new Bundle(), 1000, TimeUnit.SECONDS.toNanos(5));
+        assertEquals(240, sizer.getPageSize(ResourceType.ExplanationOfBenefit));
+
+        assertEquals(4, registry.histogram(MetricRegistry.name(PageSizerTest.class, "ExplanationOfBenefit.bytesPerPage")).getCount(), "Should record each page");
+    }
+
+    @Test
+    void testClampsConfiguredSizes() throws IOException {
+        final BBClientConfiguration config = getConfig(false);
+        config.getPageSizes().setSizes(Map.of("ExplanationOfBenefit", 0, "Patient", 5000));
+        final PageSizer sizer = new PageSizer(config, new MetricMaker(new MetricRegistry(), PageSizerTest.class));
+
+        assertEquals(10, sizer.getPageSize(ResourceType.ExplanationOfBenefit), "Should use the minimum size");
+        assertEquals(300, sizer.getPageSize(ResourceType.Patient), "Should use the maximum size");
+
+        config.getPageSizes().setMinSize(500);
+        assertThrows(IllegalArgumentException.class, () -> new PageSizer(config, new MetricMaker(new MetricRegistry(), PageSizerTest.class)), "Should reject a minimum larger than the maximum");
+    }
+
+    @Test
+    void testPagesPerPatient() throws IOException {
+        final MetricRegistry registry = new MetricRegistry();
+        final PageSizer sizer = new PageSizer(getConfig(false), new MetricMaker(registry, PageSizerTest.class));
+
+        sizer.onFirstPage(ResourceType.ExplanationOfBenefit, 200, fullPage(200).setTotal(401));
+        sizer.onFirstPage(ResourceType.ExplanationOfBenefit, 200, new Bundle().setTotal(0));
+
+        final var pages = registry.histogram(MetricRegistry.name(PageSizerTest.class, "ExplanationOfBenefit.pagesPerPatient")).getSnapshot();
+        assertEquals(3, pages.getMax(), "Should need 3 pages");
+        assertEquals(1, pages.getMin(), "Should always need at least one page");
+    }
+
+    private static Bundle fullPage(int size) {
+        final Bundle bundle = new Bundle();
+        for (int i = 0; i < size; i++) {
+            bundle.addEntry().setResource(new ExplanationOfBenefit());
+        }
+        bundle.addLink().setRelation(Bundle.LINK_NEXT).setUrl("http://localhost/next");
+        return bundle;
+    }
+
+    private static BBClientConfiguration getConfig(boolean adaptive) throws IOException {
+        final BBClientConfiguration config = new ObjectMapper().readValue("{\"resourcesCount\": 50}", BBClientConfiguration.class);
+        config.getPageSizes().setSizes(Map.of("ExplanationOfBenefit", 200));
+        config.getPageSizes().setAdaptive(adaptive);
+        config.getPageSizes().setMaxSize(300);
+        return config;
+    }
+}
@@ -1,7 +1,9 @@
 package gov.cms.dpc.bluebutton.client;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 
@@ -16,6 +18,12 @@ public class TestModule extends AbstractModule {
         // Not used
     }
 
+    @Provides
+    @Singleton
+    MetricRegistry provideMetricRegistry() {
+        return new MetricRegistry();
+    }
+
     @Provides
     Config provideTestConfig() {
         return ConfigFactory.load("test.application.conf").getConfig("dpc.aggregation");
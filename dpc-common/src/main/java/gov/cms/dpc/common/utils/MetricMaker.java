@@ -60,6 +60,16 @@ public class MetricMaker {
         return registerMetric(name, Meter::new);
     }
 
+    /**
+     * Register a histogram, backed by an exponentially decaying reservoir, so that it reflects recent values
+     *
+     * @param name is unique
+     * @return the histogram created under the passed in name
+     */
+    public Histogram registerHistogram(String name) {
+        return registerMetric(name, () -> new Histogram(new ExponentiallyDecayingReservoir()));
+    }
+
     /**
      * Register a list of meters.
      *
@@ -10,6 +10,7 @@ import gov.cms.dpc.fhir.dropwizard.features.FHIRRequestFeature;
 import gov.cms.dpc.fhir.dropwizard.filters.StreamingContentSizeFilter;
 import gov.cms.dpc.fhir.dropwizard.handlers.BundleHandler;
 import gov.cms.dpc.fhir.dropwizard.handlers.FHIRHandler;
+import gov.cms.dpc.fhir.dropwizard.handlers.StreamingBundleHandler;
 import gov.cms.dpc.fhir.dropwizard.handlers.exceptions.DefaultFHIRExceptionHandler;
 import gov.cms.dpc.fhir.dropwizard.handlers.exceptions.HAPIExceptionHandler;
 import gov.cms.dpc.fhir.dropwizard.handlers.exceptions.JerseyExceptionHandler;
@@ -44,6 +45,7 @@ public class FHIRModule<T extends Configuration & IDPCFHIRConfiguration> extends
         // Request/Response handlers
         binder.bind(FHIRHandler.class);
         binder.bind(BundleHandler.class);
+        binder.bind(StreamingBundleHandler.class);
         binder.bind(FHIRRequestFeature.class);
         binder.bind(FHIRParamValueFactory.class);
         binder.bind(StreamingContentSizeFilter.class);
@@ -62,7 +64,7 @@ public class FHIRModule<T extends Configuration & IDPCFHIRConfiguration> extends
         final FHIRValidationConfiguration validationConfig = getConfiguration().getFHIRConfiguration().getValidation();
         if (validationConfig.isEnabled()) {
             logger.info("Enabling FHIR resource validation");
-            binder.install(new FHIRValidationModule(validationConfig));
+            binder.install(new FHIRValidationModule(validationConfig, getEnvironment().metrics()));
         } else {
             logger.info("Not enabling FHIR resource validation");
         }
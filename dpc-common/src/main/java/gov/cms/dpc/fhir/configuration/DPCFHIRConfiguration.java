@@ -25,6 +25,8 @@ public class DPCFHIRConfiguration {
         private boolean schemaValidation;
         private boolean schematronValidation;
         private boolean debugValidation;
+        private int cacheSize = 10_000;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
 
         public FHIRValidationConfiguration() {
             // Jackson required
@@ -87,5 +89,33 @@ public class DPCFHIRConfiguration {
         public void setDebugValidation(boolean debugValidation) {
             this.debugValidation = debugValidation;
         }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        /**
+         * Set the maximum number of validation results to cache.
+         * <p>
+         * Results are cached for identical resources, validated against the same profile. Set to 0 to disable caching.
+         *
+         * @param cacheSize - maximum number of cached results
+         */
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Set the number of threads used to validate the entries of bulk submissions, defaults to the number of processors
+         *
+         * @param parallelism - number of validation threads
+         */
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
     }
 }
@@ -1,7 +1,5 @@
 package gov.cms.dpc.fhir.converters;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
 import gov.cms.dpc.fhir.converters.exceptions.DataTranslationException;
 import gov.cms.dpc.fhir.converters.exceptions.FHIRConverterException;
 import gov.cms.dpc.fhir.converters.exceptions.MissingConverterException;
@@ -11,25 +9,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Conversion engine which handles converting between Java {@link Object} and their corresponding FHIR {@link org.hl7.fhir.dstu3.model.Resource} types.
  * Converters, which implement the {@link FHIRConverter} interface are loaded via the corresponding {@link ServiceLoader}.
+ * <p>
+ * The registered converters are held in an immutable {@link ConverterRegistry}, which is rebuilt whenever a converter is added.
+ * Conversions read the current registry without any locking, so concurrent requests don't contend with each other.
  */
 public class FHIREntityConverter {
 
     private static final Logger logger = LoggerFactory.getLogger(FHIREntityConverter.class);
 
-    private final Multimap<Class<? extends Base>, FHIRConverter<?, ?>> fhirResourceMap;
-    private final Multimap<Class<?>, FHIRConverter<?, ?>> javaClassMap;
     private final Set<Integer> converterHash;
+    private volatile ConverterRegistry registry;
 
     FHIREntityConverter() {
-        this.fhirResourceMap = ArrayListMultimap.create();
-        this.javaClassMap = ArrayListMultimap.create();
         this.converterHash = new HashSet<>();
+        this.registry = new ConverterRegistry(Collections.emptyList());
     }
 
     /**
@@ -46,8 +46,9 @@ public class FHIREntityConverter {
             throw new FHIRConverterException(String.format("Existing converter for %s and %s", converter.getFHIRResource().getName(), converter.getJavaClass().getName()));
         }
 
-        this.fhirResourceMap.put(converter.getFHIRResource(), converter);
-        this.javaClassMap.put(converter.getJavaClass(), converter);
+        final List<FHIRConverter<?, ?>> converters = new ArrayList<>(this.registry.converters);
+        converters.add(converter);
+        this.registry = new ConverterRegistry(converters);
 
         this.converterHash.add(hash);
     }
@@ -66,14 +67,9 @@ public class FHIREntityConverter {
     @SuppressWarnings("unchecked")
     public <T, S extends Base> T fromFHIR(Class<T> targetClass, S resource) {
         logger.debug("Finding converter from {} to {}", resource, targetClass);
-        final FHIRConverter<S, T> converter;
-        synchronized (this) {
-            converter = this.fhirResourceMap.get(resource.getClass())
-                    .stream()
-                    .filter(c -> c.getJavaClass().isAssignableFrom(targetClass))
-                    .map(c -> (FHIRConverter<S, T>) c)
-                    .findAny()
-                    .orElseThrow(() -> new MissingConverterException(resource.getClass(), targetClass));
+        final FHIRConverter<S, T> converter = (FHIRConverter<S, T>) this.registry.fromFHIR.find(resource.getClass(), targetClass);
+        if (converter == null) {
+            throw new MissingConverterException(resource.getClass(), targetClass);
         }
 
         return handleConversion(() -> converter.fromFHIR(this, resource));
@@ -93,14 +89,9 @@ public class FHIREntityConverter {
     @SuppressWarnings("unchecked")
     public <T extends Base, S> T toFHIR(Class<T> fhirClass, S source) {
         logger.debug("Finding converter from {} to {}", source, fhirClass);
-        final FHIRConverter<T, S> converter;
-        synchronized (this) {
-            converter = this.javaClassMap.get(source.getClass())
-                    .stream()
-                    .filter(c -> c.getFHIRResource().isAssignableFrom(fhirClass))
-                    .map(c -> (FHIRConverter<T, S>) c)
-                    .findAny()
-                    .orElseThrow(() -> new MissingConverterException(source.getClass(), fhirClass));
+        final FHIRConverter<T, S> converter = (FHIRConverter<T, S>) this.registry.toFHIR.find(source.getClass(), fhirClass);
+        if (converter == null) {
+            throw new MissingConverterException(source.getClass(), fhirClass);
         }
 
         return handleConversion(() -> converter.toFHIR(this, source));
@@ -145,4 +136,73 @@ public class FHIREntityConverter {
             throw new FHIRConverterException("Cannot convert resources", e);
         }
     }
+
+    /**
+     * Immutable set of registered converters, along with the dispatch tables for each conversion direction
+     */
+    private static class ConverterRegistry {
+
+        private final List<FHIRConverter<?, ?>> converters;
+        private final DispatchTable fromFHIR;
+        private final DispatchTable toFHIR;
+
+        ConverterRegistry(List<FHIRConverter<?, ?>> converters) {
+            this.converters = List.copyOf(converters);
+            this.fromFHIR = new DispatchTable(this.converters, FHIRConverter::getFHIRResource, FHIRConverter::getJavaClass);
+            this.toFHIR = new DispatchTable(this.converters, FHIRConverter::getJavaClass, FHIRConverter::getFHIRResource);
+        }
+    }
+
+    /**
+     * Finds the converter for a source and target class, in one direction.
+     * Converters are matched on the exact source class, and the first registered converter whose target is assignable from the requested target class is used.
+     * The result for every target class that a converter declares is computed up front, any other target class falls back to searching the converters for the source class.
+     */
+    private static class DispatchTable {
+
+        private final Map<Class<?>, List<FHIRConverter<?, ?>>> bySource;
+        private final Map<Class<?>, Map<Class<?>, FHIRConverter<?, ?>>> bySourceAndTarget;
+        private final Function<FHIRConverter<?, ?>, Class<?>> target;
+
+        DispatchTable(List<FHIRConverter<?, ?>> converters, Function<FHIRConverter<?, ?>, Class<?>> source, Function<FHIRConverter<?, ?>, Class<?>> target) {
+            this.target = target;
+            final Map<Class<?>, List<FHIRConverter<?, ?>>> bySource = new HashMap<>();
+            converters.forEach(converter -> bySource.computeIfAbsent(source.apply(converter), key -> new ArrayList<>()).add(converter));
+
+            final Map<Class<?>, Map<Class<?>, FHIRConverter<?, ?>>> bySourceAndTarget = new HashMap<>();
+            bySource.forEach((sourceClass, candidates) -> {
+                final Map<Class<?>, FHIRConverter<?, ?>> byTarget = new HashMap<>();
+                candidates.forEach(candidate -> {
+                    final Class<?> targetClass = target.apply(candidate);
+                    byTarget.computeIfAbsent(targetClass, key -> search(candidates, key));
+                });
+                bySourceAndTarget.put(sourceClass, Map.copyOf(byTarget));
+            });
+
+            this.bySource = new HashMap<>(bySource.size());
+            bySource.forEach((key, value) -> this.bySource.put(key, List.copyOf(value)));
+            this.bySourceAndTarget = bySourceAndTarget;
+        }
+
+        FHIRConverter<?, ?> find(Class<?> sourceClass, Class<?> targetClass) {
+            final Map<Class<?>, FHIRConverter<?, ?>> byTarget = this.bySourceAndTarget.get(sourceClass);
+            if (byTarget == null) {
+                return null;
+            }
+            final FHIRConverter<?, ?> converter = byTarget.get(targetClass);
+            if (converter != null) {
+                return converter;
+            }
+            return search(this.bySource.get(sourceClass), targetClass);
+        }
+
+        private FHIRConverter<?, ?> search(List<FHIRConverter<?, ?>> candidates, Class<?> targetClass) {
+            for (final FHIRConverter<?, ?> candidate : candidates) {
+                if (this.target.apply(candidate).isAssignableFrom(targetClass)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
 }
@@ -12,8 +12,10 @@ import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
@@ -22,17 +24,40 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * Reads and writes FHIR resources as JSON.
+ * <p>
+ * JSON parsers are pooled, rather than created for each request, and the request and response bodies are buffered.
+ * Responses are compact and complete by default. Clients can opt in to pretty printed or summary responses via the FHIR {@link #PRETTY_PARAM} and {@link #SUMMARY_PARAM} parameters,
+ * each combination of which has its own pool of parsers.
+ */
 @Provider
 @FHIR
 @Consumes({FHIRMediaTypes.FHIR_JSON})
 @Produces({FHIRMediaTypes.FHIR_JSON})
 public class FHIRHandler implements MessageBodyReader<BaseResource>, MessageBodyWriter<BaseResource> {
 
-    private final FhirContext ctx;
+    public static final String PRETTY_PARAM = "_pretty";
+    public static final String SUMMARY_PARAM = "_summary";
+    static final int BUFFER_SIZE = 8 * 1024;
+    private static final int PRETTY = 1, SUMMARY = 2;
+
+    private final ParserPool[] pools;
+
+    @Context
+    private UriInfo uriInfo;
 
     @Inject
     public FHIRHandler(FhirContext context) {
-        this.ctx = context;
+        final int maxIdle = Runtime.getRuntime().availableProcessors() * 2;
+        this.pools = new ParserPool[(PRETTY | SUMMARY) + 1];
+        for (int mode = 0; mode < this.pools.length; mode++) {
+            final boolean pretty = (mode & PRETTY) != 0;
+            final boolean summary = (mode & SUMMARY) != 0;
+            this.pools[mode] = new ParserPool(() -> context.newJsonParser()
+                    .setPrettyPrint(pretty)
+                    .setSummaryMode(summary), maxIdle);
+        }
     }
 
     @Override
@@ -42,13 +67,16 @@ public class FHIRHandler implements MessageBodyReader<BaseResource>, MessageBody
 
     @Override
     public BaseResource readFrom(Class<BaseResource> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws WebApplicationException {
-        final IParser parser = ctx.newJsonParser();
+        final ParserPool pool = this.pools[0];
+        final IParser parser = pool.borrow();
         try {
-            return (BaseResource) parser.parseResource(new InputStreamReader(entityStream, StandardCharsets.UTF_8));
+            return (BaseResource) parser.parseResource(new BufferedReader(new InputStreamReader(entityStream, StandardCharsets.UTF_8), BUFFER_SIZE));
             // We need to manually handle the DataFormatException because our custom exception handlers aren't loaded yet.
         } catch (DataFormatException e) {
             String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
             throw new WebApplicationException(message, HttpStatus.UNPROCESSABLE_ENTITY_422);
+        } finally {
+            pool.release(parser);
         }
     }
 
@@ -65,7 +93,50 @@ public class FHIRHandler implements MessageBodyReader<BaseResource>, MessageBody
 
     @Override
     public void writeTo(BaseResource baseResource, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
-        final IParser parser = ctx.newJsonParser();
-        parser.encodeResourceToWriter(baseResource, new OutputStreamWriter(entityStream, StandardCharsets.UTF_8));
+        final ParserPool pool = getParserPool();
+        final IParser parser = pool.borrow();
+        try {
+            // Flush, rather than close, the writer. The entity stream is closed by Jersey
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(entityStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+            parser.encodeResourceToWriter(baseResource, writer);
+            writer.flush();
+        } finally {
+            pool.release(parser);
+        }
+    }
+
+    /**
+     * Get the {@link ParserPool} for writing the response to the current request
+     *
+     * @return - {@link ParserPool} configured for the output mode requested by the client
+     */
+    ParserPool getParserPool() {
+        return this.pools[outputMode()];
+    }
+
+    /**
+     * Determine the output mode requested by the client, which is only available when handling a request
+     *
+     * @return - index of the {@link ParserPool} to use
+     */
+    private int outputMode() {
+        if (this.uriInfo == null) {
+            return 0;
+        }
+        final MultivaluedMap<String, String> params;
+        try {
+            params = this.uriInfo.getQueryParameters();
+        } catch (IllegalStateException e) {
+            // Not in the scope of a request
+            return 0;
+        }
+        int mode = 0;
+        if ("true".equals(params.getFirst(PRETTY_PARAM))) {
+            mode |= PRETTY;
+        }
+        if ("true".equals(params.getFirst(SUMMARY_PARAM))) {
+            mode |= SUMMARY;
+        }
+        return mode;
     }
 }
@@ -0,0 +1,33 @@
+package gov.cms.dpc.fhir.dropwizard.handlers;
+
+import ca.uhn.fhir.parser.IParser;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Pool of identically configured {@link IParser} instances.
+ * <p>
+ * Parsers aren't thread safe, so each one is only used by a single request at a time.
+ * If the pool is empty a new parser is created, and parsers returned to a full pool are discarded, so callers never wait on the pool.
+ */
+class ParserPool {
+
+    private final Supplier<IParser> factory;
+    private final BlockingQueue<IParser> parsers;
+
+    ParserPool(Supplier<IParser> factory, int maxIdle) {
+        this.factory = factory;
+        this.parsers = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    IParser borrow() {
+        final IParser parser = this.parsers.poll();
+        return parser == null ? this.factory.get() : parser;
+    }
+
+    void release(IParser parser) {
+        this.parsers.offer(parser);
+    }
+}
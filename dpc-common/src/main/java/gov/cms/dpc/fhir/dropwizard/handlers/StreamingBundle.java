@@ -0,0 +1,117 @@
+package gov.cms.dpc.fhir.dropwizard.handlers;
+
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@link Bundle} of {@link Resource}s which are generated while the response is being written, rather than up front.
+ * <p>
+ * Returning one of these from a resource method means that only a single entry of the {@link Bundle} needs to be in memory at a time,
+ * which is written by the {@link StreamingBundleHandler}.
+ * Note: the resources are read after the resource method has returned, which is outside of any {@link io.dropwizard.hibernate.UnitOfWork}.
+ *
+ * @param <R> - {@link Resource} type of the bundle entries
+ */
+public class StreamingBundle<R extends Resource> implements AutoCloseable {
+
+    private final Iterator<R> resources;
+    private final Runnable onClose;
+    private final List<Bundle.BundleLinkComponent> links;
+    private Bundle.BundleType type;
+    private Integer total;
+
+    private StreamingBundle(Iterator<R> resources, Runnable onClose) {
+        this.resources = resources;
+        this.onClose = onClose;
+        this.links = new ArrayList<>();
+        this.type = Bundle.BundleType.SEARCHSET;
+    }
+
+    /**
+     * Create a {@link StreamingBundle} from the given {@link Stream}, which is closed once the response has been written
+     *
+     * @param resources - {@link Stream} of {@link Resource}s to return
+     * @param <R>       - {@link Resource} type
+     * @return - {@link StreamingBundle}
+     */
+    public static <R extends Resource> StreamingBundle<R> of(Stream<R> resources) {
+        return new StreamingBundle<>(resources.iterator(), resources::close);
+    }
+
+    /**
+     * Create a {@link StreamingBundle} from the given {@link Iterator}
+     *
+     * @param resources - {@link Iterator} of {@link Resource}s to return
+     * @param <R>       - {@link Resource} type
+     * @return - {@link StreamingBundle}
+     */
+    public static <R extends Resource> StreamingBundle<R> of(Iterator<R> resources) {
+        return new StreamingBundle<>(resources, () -> {
+            // Nothing to close
+        });
+    }
+
+    /**
+     * Set the {@link Bundle.BundleType}, which defaults to {@link Bundle.BundleType#SEARCHSET}
+     *
+     * @param type - {@link Bundle.BundleType} of the bundle
+     * @return - {@link StreamingBundle}
+     */
+    public StreamingBundle<R> withType(Bundle.BundleType type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Set the total number of matching resources, which is not set by default, since the resources are not counted before they're written
+     *
+     * @param total - total number of matching resources
+     * @return - {@link StreamingBundle}
+     */
+    public StreamingBundle<R> withTotal(int total) {
+        this.total = total;
+        return this;
+    }
+
+    /**
+     * Add a link to the bundle, such as the next page of results
+     *
+     * @param relation - {@link String} link relation (e.g. next)
+     * @param url      - {@link String} URL of the link
+     * @return - {@link StreamingBundle}
+     */
+    public StreamingBundle<R> withLink(String relation, String url) {
+        this.links.add(new Bundle.BundleLinkComponent().setRelation(relation).setUrl(url));
+        return this;
+    }
+
+    Iterator<R> getResources() {
+        return resources;
+    }
+
+    /**
+     * Create the {@link Bundle}, without any entries
+     *
+     * @return - {@link Bundle} containing everything except for the entries
+     */
+    Bundle getBundle() {
+        final Bundle bundle = new Bundle();
+        bundle.setType(this.type);
+        if (this.total != null) {
+            bundle.setTotal(this.total);
+        }
+        bundle.setLink(this.links.isEmpty() ? Collections.emptyList() : new ArrayList<>(this.links));
+        return bundle;
+    }
+
+    @Override
+    public void close() {
+        this.onClose.run();
+    }
+}
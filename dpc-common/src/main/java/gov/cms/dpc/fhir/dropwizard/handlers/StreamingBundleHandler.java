@@ -0,0 +1,101 @@
+package gov.cms.dpc.fhir.dropwizard.handlers;
+
+import ca.uhn.fhir.parser.IParser;
+import gov.cms.dpc.fhir.FHIRMediaTypes;
+import gov.cms.dpc.fhir.annotations.FHIR;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Resource;
+
+import javax.inject.Inject;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * {@link MessageBodyWriter} implementation which writes a {@link StreamingBundle} as a {@link Bundle}, one entry at a time.
+ * <p>
+ * The bundle itself (type, total and links) is encoded first, followed by each entry as it's read from the {@link StreamingBundle}.
+ * Since the response is already being sent while the entries are read, any errors while reading them will result in a truncated response, rather than an error response.
+ */
+@Provider
+@FHIR
+@Produces({FHIRMediaTypes.FHIR_JSON})
+public class StreamingBundleHandler implements MessageBodyWriter<StreamingBundle<?>> {
+
+    private static final String ENTRIES_START = ",\"entry\":[";
+    private static final String RESOURCE_START = "{\"resource\":";
+
+    private final FHIRHandler handler;
+
+    @Inject
+    public StreamingBundleHandler(FHIRHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return StreamingBundle.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(StreamingBundle<?> streamingBundle, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+        final ParserPool pool = this.handler.getParserPool();
+        final IParser parser = pool.borrow();
+        try (streamingBundle) {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(entityStream, StandardCharsets.UTF_8), FHIRHandler.BUFFER_SIZE);
+            // The parser flushes after each resource, which would send each entry separately
+            final Writer entryWriter = new UnflushedWriter(writer);
+            final String bundle = parser.encodeResourceToString(streamingBundle.getBundle());
+            final Iterator<? extends Resource> resources = streamingBundle.getResources();
+            if (!resources.hasNext()) {
+                writer.write(bundle);
+            } else {
+                // Add the entries to the end of the encoded bundle
+                writer.write(bundle, 0, bundle.lastIndexOf('}'));
+                writer.write(ENTRIES_START);
+                boolean first = true;
+                while (resources.hasNext()) {
+                    if (!first) {
+                        writer.write(',');
+                    }
+                    first = false;
+                    writer.write(RESOURCE_START);
+                    parser.encodeResourceToWriter(resources.next(), entryWriter);
+                    writer.write('}');
+                }
+                writer.write("]}");
+            }
+            writer.flush();
+        } finally {
+            pool.release(parser);
+        }
+    }
+
+    /**
+     * {@link Writer} which ignores calls to flush or close the underlying {@link Writer}
+     */
+    private static class UnflushedWriter extends FilterWriter {
+
+        UnflushedWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void flush() {
+            // Flushed once the entire bundle has been written
+        }
+
+        @Override
+        public void close() {
+            // Closed by Jersey
+        }
+    }
+}
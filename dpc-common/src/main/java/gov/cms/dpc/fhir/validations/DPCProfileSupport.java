@@ -3,11 +3,11 @@ package gov.cms.dpc.fhir.validations;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.parser.IParser;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.hash.Hashing;
 import gov.cms.dpc.fhir.helpers.ServiceLoaderHelpers;
 import gov.cms.dpc.fhir.validations.profiles.IProfileLoader;
-import org.hl7.fhir.dstu3.conformance.ProfileUtilities;
-import org.hl7.fhir.dstu3.hapi.ctx.DefaultProfileValidationSupport;
-import org.hl7.fhir.dstu3.hapi.ctx.HapiWorkerContext;
 import org.hl7.fhir.dstu3.hapi.ctx.IValidationSupport;
 import org.hl7.fhir.dstu3.model.CodeSystem;
 import org.hl7.fhir.dstu3.model.StructureDefinition;
@@ -18,6 +18,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
@@ -26,16 +27,35 @@ import java.util.*;
  * DPC specific implementation of FHIR's {@link IValidationSupport}, which allows us to load our own {@link StructureDefinition}s from the JAR.
  * <p>
  * Loading is done through Java's {@link ServiceLoader} feature, we declare profiles that implement {@link IProfileLoader} and then place them in the corresponding file under META-INF/services
+ * <p>
+ * The snapshots of the profiles are precomputed at build time, by {@link ProfileSnapshotGenerator}.
+ * Any profile without a snapshot, or which has changed since its snapshot was generated, has its snapshot generated at startup instead.
  */
 public class DPCProfileSupport implements IValidationSupport {
 
+    /**
+     * Classpath directory of the snapshots generated at build time, by {@link ProfileSnapshotGenerator}
+     */
+    public static final String SNAPSHOT_DIRECTORY = "validations/snapshots/";
+    static final String DIGEST_FILE = "digests.properties";
+
     private static final Logger logger = LoggerFactory.getLogger(DPCProfileSupport.class);
 
     private final Map<String, StructureDefinition> structureMap;
 
     @Inject
     public DPCProfileSupport(FhirContext ctx) {
-        this.structureMap = loadProfiles(ctx);
+        this(ctx, true);
+    }
+
+    /**
+     * Load the profiles, optionally ignoring the precomputed snapshots
+     *
+     * @param ctx            - {@link FhirContext} to use
+     * @param usePrecomputed - {@code false} to generate all the snapshots at runtime
+     */
+    DPCProfileSupport(FhirContext ctx, boolean usePrecomputed) {
+        this.structureMap = loadProfiles(ctx, usePrecomputed);
     }
 
     @Override
@@ -106,40 +126,87 @@ public class DPCProfileSupport implements IValidationSupport {
         return null;
     }
 
-    private Map<String, StructureDefinition> loadProfiles(FhirContext ctx) {
-
-        logger.info("Loading resource profiles");
+    /**
+     * Read the given profile from the classpath
+     *
+     * @param path - {@link String} classpath location of the profile
+     * @return - {@link Byte} array contents of the profile
+     * @throws MissingResourceException - if the profile does not exist
+     */
+    static byte[] readProfile(String path) {
+        try (InputStream stream = DPCProfileSupport.class.getClassLoader().getResourceAsStream(path)) {
+            if (stream == null) {
+                throw new MissingResourceException("Cannot load structure definition", DPCProfileSupport.class.getName(), path);
+            }
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("For some reason, can't read.", e);
+        }
+    }
 
-        final Map<String, StructureDefinition> definitionMap = new HashMap<>();
+    static String snapshotName(String profilePath) {
+        return profilePath.substring(profilePath.lastIndexOf('/') + 1);
+    }
 
-        // Generate a validator to pull the base definitions from.
-        final DefaultProfileValidationSupport defaultValidation = new DefaultProfileValidationSupport();
+    static String digest(byte[] profile) {
+        return Hashing.sha256().hashBytes(profile).toString();
+    }
 
-        final HapiWorkerContext hapiWorkerContext = new HapiWorkerContext(ctx, defaultValidation);
+    private Map<String, StructureDefinition> loadProfiles(FhirContext ctx, boolean usePrecomputed) {
 
-        final ProfileUtilities profileUtilities = new ProfileUtilities(hapiWorkerContext, new ArrayList<>(), null);
+        logger.info("Loading resource profiles");
 
+        final Map<String, StructureDefinition> definitionMap = new HashMap<>();
         final IParser parser = ctx.newJsonParser();
+        final Properties digests = usePrecomputed ? loadDigests() : new Properties();
+        // Loading the base definitions is expensive, so only do it if a profile needs its snapshot generated
+        final Supplier<ProfileSnapshotGenerator> generator = Suppliers.memoize(() -> new ProfileSnapshotGenerator(ctx));
 
         ServiceLoaderHelpers.getLoaderStream(IProfileLoader.class)
-                .map(profileLoader -> toStructureDefinition(parser, profileLoader.getPath()))
+                .map(profileLoader -> loadProfile(parser, digests, generator, profileLoader.getPath()))
                 .filter(Objects::nonNull)
-                .map(diffStructure -> mergeDiff(ctx, defaultValidation, profileUtilities, diffStructure))
                 .forEach(structure -> definitionMap.put(structure.getUrl(), structure));
 
         return definitionMap;
     }
 
-    private StructureDefinition toStructureDefinition(IParser parser, String structurePath) {
+    private StructureDefinition loadProfile(IParser parser, Properties digests, Supplier<ProfileSnapshotGenerator> generator, String structurePath) {
         logger.info("Loading profile: {}", structurePath);
-        try (InputStream stream = this.getClass().getClassLoader().getResourceAsStream(structurePath)) {
-            if (stream == null) {
-                throw new MissingResourceException("Cannot load structure definition", this.getClass().getName(), structurePath);
+        final byte[] profile = readProfile(structurePath);
+
+        // Only use the snapshot if it was generated from this version of the profile
+        if (digest(profile).equals(digests.getProperty(structurePath))) {
+            final String snapshotPath = SNAPSHOT_DIRECTORY + snapshotName(structurePath);
+            try (InputStream stream = this.getClass().getClassLoader().getResourceAsStream(snapshotPath)) {
+                if (stream != null) {
+                    final StructureDefinition snapshot = parseStructureDefinition(parser, snapshotPath, stream);
+                    if (snapshot != null) {
+                        return snapshot;
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Unable to read snapshot: {}", snapshotPath, e);
+            }
+        }
+
+        logger.info("No current snapshot for profile: {}, generating it", structurePath);
+        final StructureDefinition diffStructure = parseStructureDefinition(parser, structurePath, new ByteArrayInputStream(profile));
+        if (diffStructure == null) {
+            return null;
+        }
+        return generator.get().generateSnapshot(diffStructure);
+    }
+
+    private Properties loadDigests() {
+        final Properties digests = new Properties();
+        try (InputStream stream = this.getClass().getClassLoader().getResourceAsStream(SNAPSHOT_DIRECTORY + DIGEST_FILE)) {
+            if (stream != null) {
+                digests.load(stream);
             }
-            return parseStructureDefinition(parser, structurePath, stream);
         } catch (IOException e) {
-            throw new IllegalStateException("For some reason, can't read.", e);
+            logger.warn("Unable to read profile snapshot digests", e);
         }
+        return digests;
     }
 
     private StructureDefinition parseStructureDefinition(IParser parser, String structurePath, InputStream stream) {
@@ -150,13 +217,4 @@ public class DPCProfileSupport implements IValidationSupport {
             return null;
         }
     }
-
-    private StructureDefinition mergeDiff(FhirContext ctx, DefaultProfileValidationSupport defaultValidation, ProfileUtilities utils, StructureDefinition diffStruct) {
-        final StructureDefinition baseStructure = defaultValidation.fetchStructureDefinition(ctx, diffStruct.getBaseDefinition());
-        if (baseStructure != null) {
-            utils.generateSnapshot(baseStructure, diffStruct, "", "");
-        }
-
-        return diffStruct;
-    }
 }
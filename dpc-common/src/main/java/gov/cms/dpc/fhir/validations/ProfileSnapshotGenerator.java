@@ -0,0 +1,100 @@
+package gov.cms.dpc.fhir.validations;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import gov.cms.dpc.fhir.helpers.ServiceLoaderHelpers;
+import gov.cms.dpc.fhir.validations.profiles.IProfileLoader;
+import org.hl7.fhir.dstu3.conformance.ProfileUtilities;
+import org.hl7.fhir.dstu3.hapi.ctx.DefaultProfileValidationSupport;
+import org.hl7.fhir.dstu3.hapi.ctx.HapiWorkerContext;
+import org.hl7.fhir.dstu3.model.StructureDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * Generates the snapshots of our {@link StructureDefinition}s, by merging their differentials with the base FHIR definitions.
+ * <p>
+ * Loading the base definitions is the slow part of starting the validator, so the snapshots are generated at build time (see the dpc-common pom),
+ * and written into {@link DPCProfileSupport#SNAPSHOT_DIRECTORY}, along with a digest of each differential they were generated from.
+ * {@link DPCProfileSupport} uses this class directly for any profiles which don't have a current snapshot.
+ */
+public class ProfileSnapshotGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileSnapshotGenerator.class);
+
+    private final FhirContext ctx;
+    private final DefaultProfileValidationSupport defaultValidation;
+    private final ProfileUtilities profileUtilities;
+
+    public ProfileSnapshotGenerator(FhirContext ctx) {
+        this.ctx = ctx;
+        // Generate a validator to pull the base definitions from.
+        this.defaultValidation = new DefaultProfileValidationSupport();
+        final HapiWorkerContext hapiWorkerContext = new HapiWorkerContext(ctx, defaultValidation);
+        this.profileUtilities = new ProfileUtilities(hapiWorkerContext, new ArrayList<>(), null);
+    }
+
+    /**
+     * Generate the snapshot of the given differential {@link StructureDefinition}.
+     * Definitions without a base definition are returned unchanged.
+     *
+     * @param diffStruct - {@link StructureDefinition} differential, which is updated with the snapshot
+     * @return - {@link StructureDefinition} with the generated snapshot
+     */
+    public StructureDefinition generateSnapshot(StructureDefinition diffStruct) {
+        final StructureDefinition baseStructure = defaultValidation.fetchStructureDefinition(ctx, diffStruct.getBaseDefinition());
+        if (baseStructure != null) {
+            profileUtilities.generateSnapshot(baseStructure, diffStruct, "", "");
+        }
+
+        return diffStruct;
+    }
+
+    /**
+     * Write the snapshots of all the {@link IProfileLoader} profiles into the given directory
+     *
+     * @param args - output directory (e.g. target/classes)
+     * @throws IOException - if the snapshots cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: ProfileSnapshotGenerator <output directory>");
+        }
+        final Path outputDirectory = Paths.get(args[0]).resolve(DPCProfileSupport.SNAPSHOT_DIRECTORY);
+        Files.createDirectories(outputDirectory);
+
+        final FhirContext ctx = FhirContext.forDstu3();
+        final IParser parser = ctx.newJsonParser();
+        final ProfileSnapshotGenerator generator = new ProfileSnapshotGenerator(ctx);
+        final Properties digests = new Properties();
+
+        final List<String> paths = ServiceLoaderHelpers.getLoaderStream(IProfileLoader.class)
+                .map(IProfileLoader::getPath)
+                .collect(Collectors.toList());
+        for (final String path : paths) {
+            logger.info("Generating snapshot for profile: {}", path);
+            final byte[] source = DPCProfileSupport.readProfile(path);
+            // Unlike at startup, a malformed profile should fail the build
+            final StructureDefinition definition = parser.parseResource(StructureDefinition.class, new String(source, StandardCharsets.UTF_8));
+            final String snapshot = parser.encodeResourceToString(generator.generateSnapshot(definition));
+            Files.writeString(outputDirectory.resolve(DPCProfileSupport.snapshotName(path)), snapshot, StandardCharsets.UTF_8);
+            digests.setProperty(path, DPCProfileSupport.digest(source));
+        }
+
+        try (OutputStream stream = Files.newOutputStream(outputDirectory.resolve(DPCProfileSupport.DIGEST_FILE))) {
+            digests.store(stream, "SHA-256 digests of the profiles the snapshots were generated from");
+        }
+        logger.info("Wrote {} profile snapshots to {}", paths.size(), outputDirectory);
+    }
+}
@@ -1,7 +1,6 @@
 package gov.cms.dpc.fhir.validations;
 
 import ca.uhn.fhir.validation.FhirValidator;
-import ca.uhn.fhir.validation.ValidationOptions;
 import ca.uhn.fhir.validation.ValidationResult;
 import gov.cms.dpc.fhir.annotations.Profiled;
 import org.hl7.fhir.dstu3.model.BaseResource;
@@ -17,11 +16,11 @@ import javax.validation.ConstraintValidatorContext;
 public class ProfileValidator implements ConstraintValidator<Profiled, BaseResource> {
 
     private static final String VALIDATION_CONSTANT = "{gov.cms.dpc.fhir.validations.ProfileValidator.";
-    private final FhirValidator validator;
+    private final ResourceValidator validator;
     private String profileURI;
 
     @Inject
-    public ProfileValidator(FhirValidator validator) {
+    public ProfileValidator(ResourceValidator validator) {
         this.validator = validator;
     }
 
@@ -35,10 +34,7 @@ public class ProfileValidator implements ConstraintValidator<Profiled, BaseResou
         // Disable default error messages, as we want to generate our own
         context.disableDefaultConstraintViolation();
 
-        // Create a validation option object which forces validation against the given profile.
-        final ValidationOptions options = new ValidationOptions();
-        options.addProfile(profileURI);
-        final ValidationResult result = this.validator.validateWithResult(value, options);
+        final ValidationResult result = this.validator.validate(value, profileURI);
 
         if (result.isSuccessful()) {
             return true;
@@ -0,0 +1,155 @@
+package gov.cms.dpc.fhir.validations;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.validation.FhirValidator;
+import ca.uhn.fhir.validation.ValidationOptions;
+import ca.uhn.fhir.validation.ValidationResult;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import gov.cms.dpc.common.utils.MetricMaker;
+import io.dropwizard.lifecycle.Managed;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static gov.cms.dpc.fhir.configuration.DPCFHIRConfiguration.FHIRValidationConfiguration;
+
+/**
+ * Validates FHIR resources against a given profile, using the {@link FhirValidator}.
+ * <p>
+ * Results are cached by a SHA-256 hash of the profile and the encoded resource, so identical resources are only validated once.
+ * Multiple resources (such as the entries of a bulk submission) are validated in parallel, on a bounded pool of threads.
+ * When that pool is saturated, or has been stopped, the calling thread validates the resources itself, rather than waiting.
+ */
+public class ResourceValidator implements Managed {
+
+    // Number of queued validations per thread, beyond which the calling thread performs the validation
+    private static final int QUEUE_PER_THREAD = 64;
+
+    private final FhirValidator validator;
+    private final FhirContext ctx;
+    private final Cache<HashCode, ValidationResult> results;
+    private final ThreadPoolExecutor executor;
+    private final MetricMaker metricMaker;
+    private final Map<String, Timer> profileTimers;
+    private final Meter cacheMisses;
+
+    public ResourceValidator(FhirValidator validator, FhirContext ctx, FHIRValidationConfiguration config, MetricRegistry metrics) {
+        this.validator = validator;
+        this.ctx = ctx;
+        this.results = config.getCacheSize() > 0 ? Caffeine.newBuilder().maximumSize(config.getCacheSize()).build() : null;
+
+        final int threads = Math.max(1, config.getParallelism());
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), r -> {
+            final Thread thread = new Thread(r, "fhir-validation-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.metricMaker = new MetricMaker(metrics, ResourceValidator.class);
+        this.profileTimers = new ConcurrentHashMap<>();
+        this.cacheMisses = this.metricMaker.registerMeter("cacheMisses");
+    }
+
+    @Override
+    public void start() {
+        // Not used
+    }
+
+    @Override
+    public void stop() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * Validate the resource against the given profile
+     *
+     * @param resource   - {@link IBaseResource} to validate
+     * @param profileURI - {@link String} URI of the profile to validate against
+     * @return - {@link ValidationResult}
+     */
+    public ValidationResult validate(IBaseResource resource, String profileURI) {
+        if (this.results == null) {
+            return doValidate(resource, profileURI);
+        }
+        final HashCode key = Hashing.sha256()
+                .newHasher()
+                .putString(profileURI, StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(this.ctx.newJsonParser().encodeResourceToString(resource), StandardCharsets.UTF_8)
+                .hash();
+        return this.results.get(key, k -> doValidate(resource, profileURI));
+    }
+
+    /**
+     * Validate each of the resources against the given profile, in parallel
+     *
+     * @param resources  - {@link List} of {@link IBaseResource} to validate
+     * @param profileURI - {@link String} URI of the profile to validate against
+     * @return - {@link List} of {@link ValidationResult}, in the same order as the resources
+     */
+    public List<ValidationResult> validateAll(List<? extends IBaseResource> resources, String profileURI) {
+        if (resources.size() <= 1 || this.executor.isShutdown()) {
+            final List<ValidationResult> results = new ArrayList<>(resources.size());
+            resources.forEach(resource -> results.add(validate(resource, profileURI)));
+            return results;
+        }
+
+        final List<CompletableFuture<ValidationResult>> futures = new ArrayList<>(resources.size());
+        resources.forEach(resource -> futures.add(submit(resource, profileURI)));
+
+        final List<ValidationResult> results = new ArrayList<>(resources.size());
+        for (final CompletableFuture<ValidationResult> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    private CompletableFuture<ValidationResult> submit(IBaseResource resource, String profileURI) {
+        try {
+            return CompletableFuture.supplyAsync(() -> validate(resource, profileURI), this.executor);
+        } catch (RejectedExecutionException e) {
+            // Either the queue is full, or the executor has been stopped, so validate on the calling thread
+            return CompletableFuture.completedFuture(validate(resource, profileURI));
+        }
+    }
+
+    private ValidationResult doValidate(IBaseResource resource, String profileURI) {
+        this.cacheMisses.mark();
+        // Create a validation option object which forces validation against the given profile.
+        final ValidationOptions options = new ValidationOptions();
+        options.addProfile(profileURI);
+        final Timer.Context timer = profileTimer(profileURI).time();
+        try {
+            return this.validator.validateWithResult(resource, options);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private Timer profileTimer(String profileURI) {
+        return this.profileTimers.computeIfAbsent(profileURI, uri -> {
+            // Name the timer after the profile, which is the last part of the URI
+            final String profile = uri.substring(uri.lastIndexOf('/') + 1);
+            return this.metricMaker.registerTimer(profile);
+        });
+    }
+}
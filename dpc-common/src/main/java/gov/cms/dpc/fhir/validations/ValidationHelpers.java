@@ -1,7 +1,5 @@
 package gov.cms.dpc.fhir.validations;
 
-import ca.uhn.fhir.validation.FhirValidator;
-import ca.uhn.fhir.validation.ValidationOptions;
 import ca.uhn.fhir.validation.ValidationResult;
 import org.hl7.fhir.dstu3.model.Parameters;
 import org.hl7.fhir.dstu3.model.Resource;
@@ -16,16 +14,15 @@ public class ValidationHelpers {
     /**
      * Validates the provided {@link Resource} against the given Profile
      *
-     * @param validator  - {@link FhirValidator} to use for validation
+     * @param validator  - {@link ResourceValidator} to use for validation
      * @param params     - {@link Parameters} to get resource from
      * @param profileURL - {@link String} profile URL to use for validation
      * @return - {@link IBaseOperationOutcome} outcome with failures (if any)
      */
-    public static IBaseOperationOutcome validateAgainstProfile(FhirValidator validator, Parameters params, String profileURL) {
+    public static IBaseOperationOutcome validateAgainstProfile(ResourceValidator validator, Parameters params, String profileURL) {
         final Resource resource = params.getParameterFirstRep().getResource();
 
-        final ValidationOptions valOps = new ValidationOptions();
-        final ValidationResult validationResult = validator.validateWithResult(resource, valOps.addProfile(profileURL));
+        final ValidationResult validationResult = validator.validate(resource, profileURL);
         return validationResult.toOperationOutcome();
     }
 }
@@ -1,6 +1,8 @@
 package gov.cms.dpc.fhir.validations.dropwizard;
 
+import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.validation.FhirValidator;
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
@@ -9,10 +11,12 @@ import com.google.inject.multibindings.Multibinder;
 import gov.cms.dpc.fhir.configuration.DPCFHIRConfiguration.FHIRValidationConfiguration;
 import gov.cms.dpc.fhir.validations.DPCProfileSupport;
 import gov.cms.dpc.fhir.validations.ProfileValidator;
+import gov.cms.dpc.fhir.validations.ResourceValidator;
 import org.glassfish.jersey.server.internal.inject.ConfiguredValidator;
 import org.hl7.fhir.dstu3.hapi.ctx.DefaultProfileValidationSupport;
 import org.hl7.fhir.dstu3.hapi.validation.ValidationSupportChain;
 
+import javax.inject.Singleton;
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorFactory;
 import javax.validation.Validator;
@@ -24,9 +28,11 @@ import javax.validation.ValidatorFactory;
 public class FHIRValidationModule extends AbstractModule {
 
     private final FHIRValidationConfiguration config;
+    private final MetricRegistry metrics;
 
-    public FHIRValidationModule(FHIRValidationConfiguration config) {
+    public FHIRValidationModule(FHIRValidationConfiguration config, MetricRegistry metrics) {
         this.config = config;
+        this.metrics = metrics;
     }
 
 
@@ -57,6 +63,12 @@ public class FHIRValidationModule extends AbstractModule {
         return factory.getValidator();
     }
 
+    @Provides
+    @Singleton
+    ResourceValidator provideResourceValidator(FhirValidator validator, FhirContext ctx) {
+        return new ResourceValidator(validator, ctx, this.config, this.metrics);
+    }
+
     @Provides
     ValidationSupportChain provideSupportChain(DPCProfileSupport dpcModule) {
         return new ValidationSupportChain(new DefaultProfileValidationSupport(), dpcModule);
@@ -17,8 +17,7 @@ import javax.ws.rs.core.GenericType;
 import java.util.Collections;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertAll;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(DropwizardExtensionsSupport.class)
 public class BundleHandlerTest {
@@ -53,6 +52,22 @@ public class BundleHandlerTest {
                 () -> assertEquals(Enumerations.AdministrativeGender.MALE, ((Patient) bundle.getEntryFirstRep().getResource()).getGender(), "Should have the correct gender"));
     }
 
+    @Test
+    void testOutputModes() {
+        final String compact = resource.target("").request().get(String.class);
+        final String pretty = resource.target("").queryParam(FHIRHandler.PRETTY_PARAM, true).request().get(String.class);
+        final String summary = resource.target("").queryParam(FHIRHandler.SUMMARY_PARAM, true).request().get(String.class);
+
+        final Patient compactPatient = (Patient) ctx.newJsonParser().parseResource(Bundle.class, compact).getEntryFirstRep().getResource();
+        final Patient summaryPatient = (Patient) ctx.newJsonParser().parseResource(Bundle.class, summary).getEntryFirstRep().getResource();
+        assertAll(() -> assertFalse(compact.contains("\n"), "Should be compact by default"),
+                () -> assertTrue(pretty.contains("\n"), "Should be pretty printed"),
+                () -> assertTrue(ctx.newJsonParser().parseResource(Bundle.class, pretty).equalsDeep(ctx.newJsonParser().parseResource(Bundle.class, compact)), "Should have the same content"),
+                () -> assertEquals(1, compactPatient.getContact().size(), "Should have contact by default"),
+                () -> assertEquals(0, summaryPatient.getContact().size(), "Should not have contact in summary"),
+                () -> assertEquals(Enumerations.AdministrativeGender.MALE, summaryPatient.getGender(), "Should have gender in summary"));
+    }
+
     @Test
     void testRawBundle() {
         final String bundleString = resource
@@ -150,6 +165,7 @@ public class BundleHandlerTest {
             final Patient p = new Patient();
             p.setId("test-patient");
             p.setGender(Enumerations.AdministrativeGender.MALE);
+            p.addContact().setGender(Enumerations.AdministrativeGender.FEMALE);
             return Collections.singletonList(p);
         }
 
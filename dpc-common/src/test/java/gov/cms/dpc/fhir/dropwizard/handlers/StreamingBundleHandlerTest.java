@@ -0,0 +1,108 @@
+package gov.cms.dpc.fhir.dropwizard.handlers;
+
+import ca.uhn.fhir.context.FhirContext;
+import gov.cms.dpc.fhir.FHIRMediaTypes;
+import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
+import io.dropwizard.testing.junit5.ResourceExtension;
+import org.hl7.fhir.dstu3.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DropwizardExtensionsSupport.class)
+public class StreamingBundleHandlerTest {
+
+    private static final AtomicBoolean closed = new AtomicBoolean();
+    private static ResourceExtension resource = buildResource();
+    private static FhirContext ctx;
+
+    private static ResourceExtension buildResource() {
+        ctx = FhirContext.forDstu3();
+        final FHIRHandler fhirHandler = new FHIRHandler(ctx);
+        return ResourceExtension
+                .builder()
+                .addProvider(fhirHandler)
+                .addProvider(new StreamingBundleHandler(fhirHandler))
+                .addResource(new StreamingTestResource())
+                .build();
+    }
+
+    @Test
+    void testStreamingBundle() {
+        closed.set(false);
+        final String bundleString = resource
+                .target("")
+                .request()
+                .get(String.class);
+
+        final Bundle bundle = ctx.newJsonParser().parseResource(Bundle.class, bundleString);
+        assertAll(() -> assertEquals(Bundle.BundleType.SEARCHSET, bundle.getType(), "Should be a search set"),
+                () -> assertEquals(5000, bundle.getTotal(), "Should have total"),
+                () -> assertEquals(5000, bundle.getEntry().size(), "Should have all the entries"),
+                () -> assertEquals("Patient/patient-0", bundle.getEntryFirstRep().getResource().getId(), "Should have the first patient"),
+                () -> assertEquals("Patient/patient-4999", bundle.getEntry().get(4999).getResource().getId(), "Should have the last patient"),
+                () -> assertEquals(Enumerations.AdministrativeGender.MALE, ((Patient) bundle.getEntryFirstRep().getResource()).getGender(), "Should have the correct gender"),
+                () -> assertEquals("http://test.local/next", bundle.getLink(Bundle.LINK_NEXT).getUrl(), "Should have next link"),
+                () -> assertTrue(closed.get(), "Should close stream"));
+    }
+
+    @Test
+    void testPrettyStreamingBundle() {
+        final String bundleString = resource
+                .target("")
+                .queryParam(FHIRHandler.PRETTY_PARAM, true)
+                .request()
+                .get(String.class);
+
+        final Bundle bundle = ctx.newJsonParser().parseResource(Bundle.class, bundleString);
+        assertAll(() -> assertTrue(bundleString.contains("\n"), "Should be pretty printed"),
+                () -> assertEquals(5000, bundle.getEntry().size(), "Should have all the entries"));
+    }
+
+    @Test
+    void testEmptyStreamingBundle() {
+        final String bundleString = resource
+                .target("/empty")
+                .request()
+                .get(String.class);
+
+        final Bundle bundle = ctx.newJsonParser().parseResource(Bundle.class, bundleString);
+        assertAll(() -> assertEquals(Bundle.BundleType.COLLECTION, bundle.getType(), "Should be a collection"),
+                () -> assertFalse(bundle.hasTotal(), "Should not have total"),
+                () -> assertEquals(0, bundle.getEntry().size(), "Should not have entries"));
+    }
+
+    @Path("/")
+    @Produces(FHIRMediaTypes.FHIR_JSON)
+    public static class StreamingTestResource {
+
+        @GET
+        public StreamingBundle<Patient> returnPatients() {
+            return StreamingBundle.of(IntStream.range(0, 5000)
+                    .mapToObj(i -> {
+                        final Patient p = new Patient();
+                        p.setId("patient-" + i);
+                        p.setGender(Enumerations.AdministrativeGender.MALE);
+                        return p;
+                    })
+                    .onClose(() -> closed.set(true)))
+                    .withTotal(5000)
+                    .withLink(Bundle.LINK_NEXT, "http://test.local/next");
+        }
+
+        @GET
+        @Path("/empty")
+        public StreamingBundle<Practitioner> returnEmpty() {
+            return StreamingBundle.<Practitioner>of(Collections.emptyIterator())
+                    .withType(Bundle.BundleType.COLLECTION);
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package gov.cms.dpc.fhir.validations;
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
 import gov.cms.dpc.testing.BufferedLoggerHandler;
 import org.hl7.fhir.dstu3.model.StructureDefinition;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 @ExtendWith(BufferedLoggerHandler.class)
 class ProfileValidatorTests {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProfileValidatorTests.class);
+
     private final FhirContext ctx = FhirContext.forDstu3();
 
     @Test
@@ -23,4 +30,39 @@ class ProfileValidatorTests {
 
         assertEquals(7, definitions.size(), "Should not have malformed or invalid resources");
     }
+
+    @Test
+    void testPrecomputedSnapshots() {
+        final DPCProfileSupport precomputed = new DPCProfileSupport(ctx);
+        final DPCProfileSupport generated = new DPCProfileSupport(ctx, false);
+        final IParser parser = ctx.newJsonParser();
+
+        final List<StructureDefinition> definitions = generated.fetchAllStructureDefinitions(ctx);
+        assertEquals(7, definitions.size(), "Should generate all the snapshots");
+        for (final StructureDefinition definition : definitions) {
+            final StructureDefinition snapshot = precomputed.fetchStructureDefinition(ctx, definition.getUrl());
+            assertNotNull(snapshot, String.format("Should have snapshot for %s", definition.getUrl()));
+            assertTrue(snapshot.hasSnapshot(), "Should have snapshot elements");
+            assertEquals(parser.encodeResourceToString(definition), parser.encodeResourceToString(snapshot), "Precomputed snapshot should match generated one");
+        }
+    }
+
+    @Test
+    void testStartupTime() {
+        assumeTrue(getClass().getClassLoader().getResource(DPCProfileSupport.SNAPSHOT_DIRECTORY + DPCProfileSupport.DIGEST_FILE) != null, "Snapshots were not generated at build time");
+
+        // Warm up the parser, so it's not included in either measurement
+        new DPCProfileSupport(ctx);
+
+        final long generatedStart = System.nanoTime();
+        new DPCProfileSupport(ctx, false);
+        final long generatedTime = System.nanoTime() - generatedStart;
+
+        final long precomputedStart = System.nanoTime();
+        new DPCProfileSupport(ctx);
+        final long precomputedTime = System.nanoTime() - precomputedStart;
+
+        logger.info("Loaded profiles in {}ms with precomputed snapshots, {}ms generating them", TimeUnit.NANOSECONDS.toMillis(precomputedTime), TimeUnit.NANOSECONDS.toMillis(generatedTime));
+        assertTrue(precomputedTime < generatedTime, "Precomputed snapshots should load faster than generating them");
+    }
 }
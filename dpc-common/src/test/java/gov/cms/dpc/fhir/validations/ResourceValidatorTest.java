@@ -0,0 +1,137 @@
+package gov.cms.dpc.fhir.validations;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.validation.FhirValidator;
+import ca.uhn.fhir.validation.ValidationOptions;
+import ca.uhn.fhir.validation.ValidationResult;
+import com.codahale.metrics.MetricRegistry;
+import gov.cms.dpc.fhir.DPCIdentifierSystem;
+import gov.cms.dpc.fhir.validations.profiles.PatientProfile;
+import gov.cms.dpc.testing.BufferedLoggerHandler;
+import org.hl7.fhir.dstu3.hapi.ctx.DefaultProfileValidationSupport;
+import org.hl7.fhir.dstu3.hapi.validation.FhirInstanceValidator;
+import org.hl7.fhir.dstu3.hapi.validation.ValidationSupportChain;
+import org.hl7.fhir.dstu3.model.*;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static gov.cms.dpc.fhir.configuration.DPCFHIRConfiguration.FHIRValidationConfiguration;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(BufferedLoggerHandler.class)
+class ResourceValidatorTest {
+
+    private static FhirContext ctx;
+    private static FhirValidator fhirValidator;
+
+    private FhirValidator validatorSpy;
+    private MetricRegistry metrics;
+
+    @BeforeAll
+    static void setup() {
+        ctx = FhirContext.forDstu3();
+        final FhirInstanceValidator instanceValidator = new FhirInstanceValidator();
+
+        fhirValidator = ctx.newValidator();
+        fhirValidator.setValidateAgainstStandardSchematron(false);
+        fhirValidator.setValidateAgainstStandardSchema(false);
+        fhirValidator.registerValidatorModule(instanceValidator);
+
+        final ValidationSupportChain chain = new ValidationSupportChain(new DefaultProfileValidationSupport(), new DPCProfileSupport(ctx));
+        instanceValidator.setValidationSupport(chain);
+    }
+
+    @BeforeEach
+    void createSpy() {
+        validatorSpy = Mockito.spy(fhirValidator);
+        metrics = new MetricRegistry();
+    }
+
+    @Test
+    void testCachedResults() {
+        final ResourceValidator validator = new ResourceValidator(validatorSpy, ctx, new FHIRValidationConfiguration(), metrics);
+
+        final ValidationResult r1 = validator.validate(generatePatient(0, true), PatientProfile.PROFILE_URI);
+        final ValidationResult r2 = validator.validate(generatePatient(0, true), PatientProfile.PROFILE_URI);
+        assertAll(() -> assertTrue(r1.isSuccessful(), "Should be valid"),
+                () -> assertSame(r1, r2, "Should have cached result"));
+        verify(validatorSpy, times(1)).validateWithResult(any(Patient.class), any(ValidationOptions.class));
+
+        // Any change to the resource means it has to be validated again
+        final ValidationResult r3 = validator.validate(generatePatient(0, false), PatientProfile.PROFILE_URI);
+        assertFalse(r3.isSuccessful(), "Should not be valid");
+        verify(validatorSpy, times(2)).validateWithResult(any(Patient.class), any(ValidationOptions.class));
+
+        assertEquals(2, metrics.getTimers().get(MetricRegistry.name(ResourceValidator.class, "dpc-profile-patient")).getCount(), "Should time each validation");
+    }
+
+    @Test
+    void testDisabledCache() {
+        final FHIRValidationConfiguration config = new FHIRValidationConfiguration();
+        config.setCacheSize(0);
+        final ResourceValidator validator = new ResourceValidator(validatorSpy, ctx, config, metrics);
+
+        validator.validate(generatePatient(0, true), PatientProfile.PROFILE_URI);
+        validator.validate(generatePatient(0, true), PatientProfile.PROFILE_URI);
+        verify(validatorSpy, times(2)).validateWithResult(any(Patient.class), any(ValidationOptions.class));
+    }
+
+    @Test
+    void testParallelValidation() {
+        final FHIRValidationConfiguration config = new FHIRValidationConfiguration();
+        config.setParallelism(4);
+        final ResourceValidator validator = new ResourceValidator(validatorSpy, ctx, config, metrics);
+
+        final List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            // Every 5th patient is invalid, and the last 10 are duplicates of the first 10
+            patients.add(generatePatient(i % 40, i % 5 != 0));
+        }
+
+        final List<ValidationResult> results = validator.validateAll(patients, PatientProfile.PROFILE_URI);
+        assertEquals(patients.size(), results.size(), "Should have result for each patient");
+        for (int i = 0; i < patients.size(); i++) {
+            assertEquals(i % 5 != 0, results.get(i).isSuccessful(), String.format("Should have correct result for patient %d", i));
+        }
+        verify(validatorSpy, times(40)).validateWithResult(any(Patient.class), any(ValidationOptions.class));
+        validator.stop();
+    }
+
+    @Test
+    void testValidationAfterStop() {
+        final FHIRValidationConfiguration config = new FHIRValidationConfiguration();
+        config.setParallelism(2);
+        final ResourceValidator validator = new ResourceValidator(validatorSpy, ctx, config, metrics);
+        validator.stop();
+
+        final List<Patient> patients = List.of(generatePatient(0, true), generatePatient(1, false));
+        final List<ValidationResult> results = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> validator.validateAll(patients, PatientProfile.PROFILE_URI));
+        assertAll(() -> assertEquals(2, results.size(), "Should have result for each patient"),
+                () -> assertTrue(results.get(0).isSuccessful(), "Should be valid"),
+                () -> assertFalse(results.get(1).isSuccessful(), "Should not be valid"));
+    }
+
+    private static Patient generatePatient(int index, boolean valid) {
+        final Patient patient = new Patient();
+        patient.setId("test-patient-" + index);
+        patient.setGender(Enumerations.AdministrativeGender.MALE);
+        patient.setManagingOrganization(new Reference("Organization/test-organization"));
+        patient.addIdentifier().setSystem(DPCIdentifierSystem.MBI.getSystem()).setValue(String.format("%dS00A00AA%02d", index % 10, index));
+        patient.setBirthDate(Date.valueOf("1990-01-01"));
+        if (valid) {
+            patient.addName().setFamily("Patient").addGiven("Test" + index);
+        }
+        return patient;
+    }
+}
@@ -1,12 +1,16 @@
 package gov.cms.dpc.consent;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Binder;
 import com.google.inject.Provides;
 import com.google.inject.name.Named;
 import com.hubspot.dropwizard.guicier.DropwizardAwareModule;
 import gov.cms.dpc.consent.jdbi.ConsentDAO;
+import gov.cms.dpc.consent.jobs.SuppressionImportConfiguration;
 import gov.cms.dpc.consent.resources.ConsentResource;
 
+import javax.inject.Singleton;
+
 class ConsentAppModule extends DropwizardAwareModule<DPCConsentConfiguration> {
 
     @Override
@@ -15,11 +19,22 @@ class ConsentAppModule extends DropwizardAwareModule<DPCConsentConfiguration> {
         binder.bind(ConsentDAO.class);
     }
 
+    @Provides
+    @Singleton
+    MetricRegistry provideMetricRegistry() {
+        return getEnvironment().metrics();
+    }
+
     @Provides
     public String provideSuppressionFileDir() {
         return this.getConfiguration().getSuppressionFileDir();
     }
 
+    @Provides
+    public SuppressionImportConfiguration provideSuppressionImportConfiguration() {
+        return this.getConfiguration().getSuppressionImport();
+    }
+
     @Provides
     @Named("fhirReferenceURL")
     public String provideFhirReferenceURL() { return getConfiguration().getFhirReferenceURL(); }
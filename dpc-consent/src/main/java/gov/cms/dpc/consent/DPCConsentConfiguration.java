@@ -3,6 +3,7 @@ package gov.cms.dpc.consent;
 import ca.mestevens.java.configuration.TypesafeConfiguration;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import gov.cms.dpc.common.hibernate.consent.IDPCConsentDatabase;
+import gov.cms.dpc.consent.jobs.SuppressionImportConfiguration;
 import gov.cms.dpc.fhir.configuration.DPCFHIRConfiguration;
 import gov.cms.dpc.fhir.configuration.IDPCFHIRConfiguration;
 import io.dropwizard.db.DataSourceFactory;
@@ -27,6 +28,11 @@ public class DPCConsentConfiguration extends TypesafeConfiguration implements ID
     @NotEmpty
     private String suppressionFileDir;
 
+    @Valid
+    @NotNull
+    @JsonProperty("suppressionImport")
+    private SuppressionImportConfiguration suppressionImport = new SuppressionImportConfiguration();
+
     @Valid
     @NotNull
     @JsonProperty("fhir")
@@ -51,6 +57,14 @@ public class DPCConsentConfiguration extends TypesafeConfiguration implements ID
 
     public void setSuppressionFileDir(String suppressionFileDir) { this.suppressionFileDir = suppressionFileDir; }
 
+    public SuppressionImportConfiguration getSuppressionImport() {
+        return suppressionImport;
+    }
+
+    public void setSuppressionImport(SuppressionImportConfiguration suppressionImport) {
+        this.suppressionImport = suppressionImport;
+    }
+
     @Override
     public DPCFHIRConfiguration getFHIRConfiguration() {
         return fhirConfig;
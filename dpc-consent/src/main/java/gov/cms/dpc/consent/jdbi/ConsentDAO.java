@@ -2,45 +2,114 @@ package gov.cms.dpc.consent.jdbi;
 
 import gov.cms.dpc.common.consent.entities.ConsentEntity;
 import gov.cms.dpc.common.hibernate.consent.DPCConsentManagedSessionFactory;
+import gov.cms.dpc.consent.dao.tables.records.ConsentRecord;
 import io.dropwizard.hibernate.AbstractDAO;
+import org.jooq.DSLContext;
+import org.jooq.conf.RenderQuotedNames;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
 
 import javax.inject.Inject;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Root;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static gov.cms.dpc.consent.dao.tables.Consent.CONSENT;
 
 public class ConsentDAO extends AbstractDAO<ConsentEntity> {
 
+    private final Settings settings;
+
     @Inject
     public ConsentDAO(DPCConsentManagedSessionFactory factory) {
         super(factory.getSessionFactory());
+        this.settings = new Settings().withRenderQuotedNames(RenderQuotedNames.EXPLICIT_DEFAULT_UNQUOTED);
     }
 
     public final ConsentEntity persistConsent(ConsentEntity consentEntity) {
         return this.persist(consentEntity);
     }
 
+    /**
+     * Insert the given consent records as a single JDBC batch, within the current session's transaction.
+     * Unlike {@link #persistConsent(ConsentEntity)}, the entities are not attached to the session, so this is suitable for bulk imports.
+     *
+     * @param consentEntities - {@link List} of {@link ConsentEntity} to insert, IDs and timestamps are generated if missing
+     * @return - number of records inserted
+     */
+    public final int persistConsents(List<ConsentEntity> consentEntities) {
+        if (consentEntities.isEmpty()) {
+            return 0;
+        }
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        return currentSession().doReturningWork(connection -> {
+            final DSLContext context = DSL.using(connection, this.settings);
+            final List<ConsentRecord> records = consentEntities.stream()
+                    .map(entity -> {
+                        if (entity.getId() == null) {
+                            entity.setId(UUID.randomUUID());
+                        }
+                        if (entity.getCreatedAt() == null) {
+                            entity.setCreatedAt(now);
+                        }
+                        entity.setUpdatedAt(now);
+                        return context.newRecord(CONSENT, entity);
+                    })
+                    .collect(Collectors.toList());
+            context.batchInsert(records).execute();
+            return records.size();
+        });
+    }
+
     public final Optional<ConsentEntity> getConsent(UUID consentID) {
         return Optional.ofNullable(get(consentID));
     }
 
-    public final List<ConsentEntity> list() {
-        final CriteriaBuilder builder = currentSession().getCriteriaBuilder();
-        final CriteriaQuery<ConsentEntity> query = builder.createQuery(ConsentEntity.class);
-        query.from(ConsentEntity.class);
-        return list(query);
+    /**
+     * Get a page of all the consent records
+     *
+     * @param after - {@link UUID} ID of the last record of the previous page, or {@code null} for the first page
+     * @param count - maximum number of records to return
+     * @return - {@link List} of {@link ConsentEntity}, ordered by ID
+     */
+    public final List<ConsentEntity> list(UUID after, int count) {
+        return withContext(ctx -> ConsentUtils.listPage(ctx, after, count));
     }
 
-    public final List<ConsentEntity> findBy(String field, String value) {
-        final CriteriaBuilder builder = currentSession().getCriteriaBuilder();
-        final CriteriaQuery<ConsentEntity> query = builder.createQuery(ConsentEntity.class);
-        final Root<ConsentEntity> root = query.from(ConsentEntity.class);
+    /**
+     * Get a page of the consent records for a patient
+     *
+     * @param field - {@link String} name of the field which identifies the patient (mbi, hicn or bfdPatientId)
+     * @param value - {@link String} patient identifier
+     * @param after - {@link UUID} ID of the last record of the previous page, or {@code null} for the first page
+     * @param count - maximum number of records to return
+     * @return - {@link List} of {@link ConsentEntity}, from the most recently effective
+     */
+    public final List<ConsentEntity> findBy(String field, String value, UUID after, int count) {
+        return withContext(ctx -> ConsentUtils.findPage(ctx, field, value, after, count));
+    }
 
-        query.select(root).where(builder.equal(root.get(field), value));
+    /**
+     * Get the current consent record for each of the given patients, in a single query
+     *
+     * @param field  - {@link String} name of the field which identifies the patients (mbi, hicn or bfdPatientId)
+     * @param values - {@link Collection} of {@link String} patient identifiers
+     * @return - {@link Map} of patient identifier to its current {@link ConsentEntity}, patients without an effective record are not included
+     */
+    public final Map<String, ConsentEntity> findCurrentBy(String field, Collection<String> values) {
+        return withContext(ctx -> ConsentUtils.findCurrent(ctx, field, values, LocalDate.now(ZoneOffset.UTC)));
+    }
 
-        return this.list(query);
+    private <T> T withContext(Function<DSLContext, T> function) {
+        // Make sure any pending changes are visible to the query
+        currentSession().flush();
+        return currentSession().doReturningWork(connection -> function.apply(DSL.using(connection, this.settings)));
     }
 }
@@ -0,0 +1,113 @@
+package gov.cms.dpc.consent.jdbi;
+
+import gov.cms.dpc.common.consent.entities.ConsentEntity;
+import gov.cms.dpc.consent.dao.tables.records.ConsentRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.TableField;
+import org.jooq.impl.DSL;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static gov.cms.dpc.consent.dao.tables.Consent.CONSENT;
+
+/**
+ * Helpers for querying consent records directly via jOOQ.
+ * <p>
+ * Large result sets are returned a page at a time, using keyset pagination: each page starts after the last record of the previous one,
+ * so fetching a page costs the same no matter how deep into the results it is.
+ * A patient's records are ordered from the most recently effective, which is the same order used by the patient indexes.
+ */
+public class ConsentUtils {
+
+    private ConsentUtils() {
+        // Not used
+    }
+
+    /**
+     * Get a page of all the consent records, ordered by ID
+     *
+     * @param ctx   - {@link DSLContext} to use
+     * @param after - {@link UUID} ID of the last record of the previous page, or {@code null} for the first page
+     * @param count - maximum number of records to return
+     * @return - {@link List} of {@link ConsentEntity}
+     */
+    public static List<ConsentEntity> listPage(DSLContext ctx, UUID after, int count) {
+        return ctx.selectFrom(CONSENT)
+                .where(after == null ? DSL.noCondition() : CONSENT.ID.gt(after))
+                .orderBy(CONSENT.ID)
+                .limit(count)
+                .fetchInto(ConsentEntity.class);
+    }
+
+    /**
+     * Get a page of the consent records for a patient, from the most recently effective
+     *
+     * @param ctx   - {@link DSLContext} to use
+     * @param field - {@link String} name of the {@link ConsentEntity} field which identifies the patient (mbi, hicn or bfdPatientId)
+     * @param value - {@link String} patient identifier
+     * @param after - {@link UUID} ID of the last record of the previous page, or {@code null} for the first page
+     * @param count - maximum number of records to return
+     * @return - {@link List} of {@link ConsentEntity}, which is empty if the previous record doesn't exist
+     */
+    public static List<ConsentEntity> findPage(DSLContext ctx, String field, String value, UUID after, int count) {
+        final TableField<ConsentRecord, String> patientField = patientField(field);
+        final Condition afterCondition = after == null ? DSL.noCondition() : DSL.row(CONSENT.EFFECTIVE_DATE, CONSENT.UPDATED_AT, CONSENT.ID)
+                .lt(DSL.select(CONSENT.EFFECTIVE_DATE, CONSENT.UPDATED_AT, CONSENT.ID)
+                        .from(CONSENT)
+                        .where(CONSENT.ID.eq(after)));
+
+        return ctx.selectFrom(CONSENT)
+                .where(patientField.eq(value))
+                .and(afterCondition)
+                .orderBy(CONSENT.EFFECTIVE_DATE.desc(), CONSENT.UPDATED_AT.desc(), CONSENT.ID.desc())
+                .limit(count)
+                .fetchInto(ConsentEntity.class);
+    }
+
+    /**
+     * Get the current consent record for each of the given patients, in a single query.
+     * The current record is the most recent one which is already effective.
+     *
+     * @param ctx    - {@link DSLContext} to use
+     * @param field  - {@link String} name of the {@link ConsentEntity} field which identifies the patients (mbi, hicn or bfdPatientId)
+     * @param values - {@link Collection} of {@link String} patient identifiers
+     * @param asOf   - {@link LocalDate} to determine the current records for
+     * @return - {@link Map} of patient identifier to {@link ConsentEntity}, patients without an effective record are not included
+     */
+    public static Map<String, ConsentEntity> findCurrent(DSLContext ctx, String field, Collection<String> values, LocalDate asOf) {
+        final Map<String, ConsentEntity> current = new HashMap<>(values.size());
+        if (values.isEmpty()) {
+            return current;
+        }
+        final TableField<ConsentRecord, String> patientField = patientField(field);
+        ctx.selectDistinct(CONSENT.fields())
+                .on(patientField)
+                .from(CONSENT)
+                // Bound as a single array parameter, rather than one parameter per patient
+                .where(patientField.eq(DSL.any(values.toArray(new String[0]))))
+                .and(CONSENT.EFFECTIVE_DATE.le(asOf))
+                .orderBy(patientField, CONSENT.EFFECTIVE_DATE.desc(), CONSENT.UPDATED_AT.desc(), CONSENT.ID.desc())
+                .fetch()
+                .forEach(record -> current.put(record.get(patientField), record.into(ConsentEntity.class)));
+        return current;
+    }
+
+    private static TableField<ConsentRecord, String> patientField(String field) {
+        switch (field) {
+            case "mbi":
+                return CONSENT.MBI;
+            case "hicn":
+                return CONSENT.HICN;
+            case "bfdPatientId":
+                return CONSENT.BFD_PATIENT_ID;
+            default:
+                throw new IllegalArgumentException(String.format("Cannot search consent records by %s", field));
+        }
+    }
+}
@@ -1,13 +1,13 @@
 package gov.cms.dpc.consent.jobs;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
-import gov.cms.dpc.common.hibernate.consent.DPCConsentManagedSessionFactory;
 import gov.cms.dpc.common.consent.entities.ConsentEntity;
-import gov.cms.dpc.consent.exceptions.InvalidSuppressionRecordException;
+import gov.cms.dpc.common.hibernate.consent.DPCConsentManagedSessionFactory;
+import gov.cms.dpc.common.utils.MetricMaker;
 import gov.cms.dpc.consent.jdbi.ConsentDAO;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.LineIterator;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -19,13 +19,28 @@ import org.knowm.sundial.exceptions.JobInterruptException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Imports the 1-800 suppression files from the suppression file directory into the consent table.
+ * <p>
+ * Files are parsed in parallel, one file per thread, and their records are inserted in JDBC batches of {@link SuppressionImportConfiguration#getBatchSize()}.
+ * Each batch is committed on its own, so a failure only loses the records in the failed batch, not the entire file.
+ */
 public class SuppressionFileImport extends Job {
 
     private static final Logger logger = LoggerFactory.getLogger(SuppressionFileImport.class);
@@ -38,12 +53,27 @@ public class SuppressionFileImport extends Job {
     @Inject
     public String suppressionFileDir;
 
+    @Inject(optional = true)
+    private SuppressionImportConfiguration importConfig = new SuppressionImportConfiguration();
+
+    @Inject(optional = true)
+    private MetricRegistry metricRegistry = new MetricRegistry();
+
+    private final Meter recordsImported;
+    private final Meter recordsFailed;
+
     @Inject
     public SuppressionFileImport() {
         // Manually load the Guice injector. Since the job loads at the beginning of the startup process, Guice is not automatically injected.
         final Injector injector = (Injector) SundialJobScheduler.getServletContext().getAttribute("com.google.inject.Injector");
         injector.injectMembers(this);
         this.consentDAO = new ConsentDAO(managedSessionFactory);
+
+        // The meter rates give the import throughput, in records per second
+        final Map<String, Meter> meters = new MetricMaker(metricRegistry, SuppressionFileImport.class)
+                .registerMeters(List.of("recordsImported", "recordsFailed"));
+        this.recordsImported = meters.get("recordsImported");
+        this.recordsFailed = meters.get("recordsFailed");
     }
 
     @Override
@@ -53,66 +83,113 @@ public class SuppressionFileImport extends Job {
             return;
         }
 
+        final List<Path> files;
         try (Stream<Path> paths = Files.walk(Paths.get(suppressionFileDir))) {
-            paths.filter(Files::isRegularFile).forEach(p -> {
-                if (Files.isReadable(p) && SuppressionFileUtils.is1800File(p)) {
-                    importFile(p);
-                }
+            files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.error("Cannot read files in suppression directory", e);
+            return;
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(importConfig.getThreads(), files.size()), r -> {
+            final Thread thread = new Thread(r, "suppression-import-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long start = System.nanoTime();
+        int total = 0;
+        int failedFiles = 0;
+        try {
+            final List<Future<Integer>> imports = files.stream()
+                    .map(path -> executor.submit(() -> processFile(path)))
+                    .collect(Collectors.toList());
+            for (int i = 0; i < imports.size(); i++) {
+                // A failed file is logged, but we keep waiting on the others, rather than abandoning them
                 try {
-                    Files.delete(p);
-                } catch (IOException e) {
-                    logger.error("Cannot delete file {} from suppression directory", p.getFileName().toString(), e);
+                    total += imports.get(i).get();
+                } catch (ExecutionException e) {
+                    failedFiles++;
+                    logger.error("Cannot import suppression file {}", files.get(i).getFileName(), e.getCause());
                 }
-            });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobInterruptException();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final double seconds = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)) / 1000.0;
+        logger.info("Imported {} suppression records from {} files ({} failed) in {}s ({} records/s)", total, files.size(), failedFiles, seconds, Math.round(total / seconds));
+    }
+
+    private int processFile(Path path) {
+        int imported = 0;
+        if (Files.isReadable(path) && SuppressionFileUtils.is1800File(path)) {
+            imported = importFile(path);
+        }
+        try {
+            Files.delete(path);
         } catch (IOException e) {
-            logger.error("Cannot read files in suppression directory", e);
+            logger.error("Cannot delete file {} from suppression directory", path.getFileName().toString(), e);
         }
+        return imported;
     }
 
-    private void importFile(Path path) {
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            importRecords(reader, path.getFileName().toString());
+    private int importFile(Path path) {
+        final String filename = path.getFileName().toString();
+        final int batchSize = importConfig.getBatchSize();
+        final List<ConsentEntity> batch = new ArrayList<>(batchSize);
+        final AtomicInteger imported = new AtomicInteger();
+
+        try {
+            final int lines = SuppressionFileUtils.forEachRecord(path, (consent, lineNum) -> {
+                // TODO: Get BFD ID and MBI
+                batch.add(consent);
+                if (batch.size() == batchSize) {
+                    imported.addAndGet(saveBatch(batch, filename, lineNum));
+                    batch.clear();
+                }
+            }, e -> {
+                logger.error("Invalid suppression record", e);
+                recordsFailed.mark();
+            });
+            imported.addAndGet(saveBatch(batch, filename, lines));
         } catch (IOException e) {
-            logger.error("Cannot import suppression file", e);
-            return;
+            logger.error("Cannot import suppression file {}", filename, e);
         }
+
+        logger.debug("Imported {} records from suppression file {}", imported.get(), filename);
+        return imported.get();
     }
 
-    private void importRecords(BufferedReader reader, String filename) {
-        SessionFactory sessionFactory = managedSessionFactory.getSessionFactory();
-        Session session = sessionFactory.openSession();
+    private int saveBatch(List<ConsentEntity> batch, String filename, int lastLineNum) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        final SessionFactory sessionFactory = managedSessionFactory.getSessionFactory();
+        final Session session = sessionFactory.openSession();
 
         ManagedSessionContext.bind(session);
-        Transaction transaction = session.beginTransaction();
+        final Transaction transaction = session.beginTransaction();
 
         try {
-            buildAndSaveConsentRecords(reader, filename);
+            final int saved = consentDAO.persistConsents(batch);
             transaction.commit();
+            recordsImported.mark(saved);
+            return saved;
         } catch (Exception e) {
-            logger.error("Cannot commit suppression file import transaction", e);
+            logger.error("Cannot commit {} suppression records ending at line {} of {}", batch.size(), lastLineNum, filename, e);
             transaction.rollback();
+            recordsFailed.mark(batch.size());
+            return 0;
         } finally {
             session.close();
             ManagedSessionContext.unbind(sessionFactory);
         }
     }
-
-    private void buildAndSaveConsentRecords(BufferedReader reader, String filename) {
-        LineIterator lineIter = IOUtils.lineIterator(reader);
-        int lineNum = 0;
-
-        while (lineIter.hasNext()) {
-            lineNum++;
-            try {
-                Optional<ConsentEntity> consent = SuppressionFileUtils.entityFromLine(lineIter.nextLine(), filename, lineNum);
-                if (consent.isPresent()) {
-                    // TODO: Get BFD ID and MBI
-                    consentDAO.persistConsent(consent.get());
-                }
-            } catch (InvalidSuppressionRecordException e) {
-                logger.error("Invalid suppression record", e);
-                continue;
-            }
-        }
-    }
 }
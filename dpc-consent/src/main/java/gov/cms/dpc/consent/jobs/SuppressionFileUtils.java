@@ -2,19 +2,42 @@ package gov.cms.dpc.consent.jobs;
 
 import gov.cms.dpc.common.consent.entities.ConsentEntity;
 import gov.cms.dpc.consent.exceptions.InvalidSuppressionRecordException;
-import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 import java.util.regex.Pattern;
 
+/**
+ * Parser for the fixed-width 1-800 suppression files.
+ * <p>
+ * Records are parsed directly from the bytes of the file, using fixed offsets.
+ * Headers, trailers and records without a source are skipped before anything is allocated, and a {@link ConsentEntity} is only created for records which are imported.
+ * The files are ASCII, so each byte is a single character.
+ */
 public class SuppressionFileUtils {
 
     static final Pattern FILENAME_PATTERN = Pattern.compile("(P|T)#EFT\\.ON\\.ACO\\.NGD1800\\.DPRF\\.D\\d{6}\\.T\\d{7}");
-    static final Pattern HICN_PATTERN = Pattern.compile("\\d{9}[A-Za-z0-9]{0,2}");
+
+    private static final int HICN_START = 0, HICN_END = 11,
+            EFFECTIVE_DATE_START = 354,
+            SOURCE_CODE_START = 362, SOURCE_CODE_END = 367,
+            PREF_INDICATOR = 368;
+    private static final int MIN_RECORD_LENGTH = PREF_INDICATOR + 1;
+    // HICNs are 9 digits, followed by up to 2 alphanumeric characters
+    private static final int HICN_DIGITS = 9, HICN_MAX_SUFFIX = 2;
+    private static final byte[] HEADER = "HDR_BENEDATASHR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRAILER = "TRL_BENEDATASHR".getBytes(StandardCharsets.US_ASCII);
+    // Records are a few hundred bytes long, so the buffer holds many records at once
+    private static final int BUFFER_SIZE = 1024 * 1024;
 
     private SuppressionFileUtils() {}
 
@@ -22,59 +45,217 @@ public class SuppressionFileUtils {
         return FILENAME_PATTERN.matcher(path.getFileName().toString()).matches();
     }
 
-    protected static Optional<ConsentEntity> entityFromLine(String line, String filename, int lineNum) throws InvalidSuppressionRecordException {
-        final int hicnStart = 0, hicnEnd = 11,
-                effectiveDateStart = 354, effectiveDateEnd = 362,
-                sourceCodeStart = 362, sourceCodeEnd = 367,
-                prefIndicatorStart = 368, prefIndicatorEnd = 369;
+    /**
+     * Parse every record in the given file, in order.
+     * Invalid records are passed to the error handler, and don't stop the parsing of the remaining records.
+     *
+     * @param path     - {@link Path} of the suppression file
+     * @param consumer - called with each {@link ConsentEntity} to import, and the line number it was read from
+     * @param errors   - called with each {@link InvalidSuppressionRecordException}
+     * @return - number of lines read
+     * @throws IOException - if the file cannot be read
+     */
+    public static int forEachRecord(Path path, ObjIntConsumer<ConsentEntity> consumer, Consumer<InvalidSuppressionRecordException> errors) throws IOException {
+        final String filename = path.getFileName().toString();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int lineNum = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer view = ByteBuffer.wrap(buffer);
+            boolean eof = false;
+            while (!eof || view.position() > 0) {
+                eof = eof || channel.read(view) < 0;
+                final int limit = view.position();
+                int start = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        parseLine(buffer, start, i, filename, ++lineNum, consumer, errors);
+                        start = i + 1;
+                    }
+                }
+                if (eof && start < limit) {
+                    // Final line, without a trailing newline
+                    parseLine(buffer, start, limit, filename, ++lineNum, consumer, errors);
+                    start = limit;
+                } else if (start == 0 && limit == buffer.length) {
+                    throw new IOException(String.format("Line %d of suppression file %s is longer than %d bytes", lineNum + 1, filename, BUFFER_SIZE));
+                }
+                // Move the remaining partial line to the start of the buffer
+                System.arraycopy(buffer, start, buffer, 0, limit - start);
+                view.position(limit - start);
+            }
+        }
+        return lineNum;
+    }
+
+    private static void parseLine(byte[] buffer, int start, int end, String filename, int lineNum, ObjIntConsumer<ConsentEntity> consumer, Consumer<InvalidSuppressionRecordException> errors) {
+        try {
+            final ConsentEntity consent = parseRecord(buffer, start, end, filename, lineNum);
+            if (consent != null) {
+                consumer.accept(consent, lineNum);
+            }
+        } catch (InvalidSuppressionRecordException e) {
+            errors.accept(e);
+        }
+    }
+
+    /**
+     * Parse a single record, from a line of a suppression file
+     *
+     * @param line     - {@link String} line, without the line terminator
+     * @param filename - {@link String} name of the file, for error messages
+     * @param lineNum  - line number, for error messages
+     * @return - {@link ConsentEntity} for the record, or an empty {@link Optional} if the record should be skipped
+     * @throws InvalidSuppressionRecordException - if the record is not valid
+     */
+    public static Optional<ConsentEntity> entityFromLine(String line, String filename, int lineNum) throws InvalidSuppressionRecordException {
+        final byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+        return Optional.ofNullable(parseRecord(bytes, 0, bytes.length, filename, lineNum));
+    }
 
-        if (line.startsWith("HDR_BENEDATASHR") || line.startsWith("TRL_BENEDATASHR")) {
+    /**
+     * Parse a single record
+     *
+     * @return - {@link ConsentEntity} for the record, or {@code null} if the record should be skipped
+     */
+    private static ConsentEntity parseRecord(byte[] line, int start, int end, String filename, int lineNum) throws InvalidSuppressionRecordException {
+        if (end > start && line[end - 1] == '\r') {
+            end--;
+        }
+        if (startsWith(line, start, end, HEADER) || startsWith(line, start, end, TRAILER)) {
             // Header or trailer; no record to be read
-            return Optional.empty();
+            return null;
+        }
+        if (end - start < MIN_RECORD_LENGTH) {
+            if (end == start) {
+                return null;
+            }
+            throw new InvalidSuppressionRecordException("Record is shorter than expected", filename, lineNum);
         }
 
-        String sourceCode = line.substring(sourceCodeStart, sourceCodeEnd);
-        if (!sourceCode.trim().matches("1-?800")) {
+        if (!isSource1800(line, start + SOURCE_CODE_START, start + SOURCE_CODE_END)) {
             // If the source is blank, ignore this record
-            if (StringUtils.isBlank(sourceCode)) {
-                return Optional.empty();
+            if (isBlank(line, start + SOURCE_CODE_START, start + SOURCE_CODE_END)) {
+                return null;
             }
             throw new InvalidSuppressionRecordException("Unexpected beneficiary data sharing source code", filename, lineNum);
         }
 
-        ConsentEntity consent = new ConsentEntity();
-
-        String effectiveDateStr = line.substring(effectiveDateStart, effectiveDateEnd);
-        LocalDate effectiveDate = LocalDate.parse(effectiveDateStr, DateTimeFormatter.ofPattern("yyyyMMdd"));
+        final LocalDate effectiveDate;
         try {
-            consent.setEffectiveDate(effectiveDate);
-        } catch (DateTimeParseException e) {
+            final int date = parseDigits(line, start + EFFECTIVE_DATE_START, 8);
+            effectiveDate = LocalDate.of(date / 10_000, (date / 100) % 100, date % 100);
+        } catch (DateTimeException e) {
             throw new InvalidSuppressionRecordException("Cannot parse date from suppression record", filename, lineNum, e);
         }
 
-        String hicn = line.substring(hicnStart, hicnEnd).trim();
-        if (!HICN_PATTERN.matcher(hicn).matches()) {
+        int hicnStart = start + HICN_START;
+        while (hicnStart < start + HICN_END && isWhitespace(line[hicnStart])) {
+            hicnStart++;
+        }
+        final int hicnEnd = validHicnEnd(line, hicnStart, start + HICN_END);
+        if (hicnEnd < 0) {
             throw new InvalidSuppressionRecordException("HICN does not match expected format", filename, lineNum);
         }
-        consent.setHicn(hicn);
 
         // Convert beneficiary data sharing preference indicator into value used by Consent resource
-        String prefIndicator = line.substring(prefIndicatorStart, prefIndicatorEnd);
-        switch (prefIndicator) {
-            case "Y":
-                consent.setPolicyCode("OPTIN");
+        final String policyCode;
+        switch (line[start + PREF_INDICATOR]) {
+            case 'Y':
+                policyCode = ConsentEntity.OPT_IN;
                 break;
-            case "N":
-                consent.setPolicyCode("OPTOUT");
+            case 'N':
+                policyCode = ConsentEntity.OPT_OUT;
                 break;
             default:
                 throw new InvalidSuppressionRecordException("Beneficiary data sharing preference does not match expected value of 'Y' or 'N'", filename, lineNum);
         }
 
-        consent.setPurposeCode("TREAT");
-        consent.setLoincCode("64292-6");
-        consent.setScopeCode("patient-privacy");
+        final ConsentEntity consent = new ConsentEntity();
+        consent.setEffectiveDate(effectiveDate);
+        consent.setHicn(new String(line, hicnStart, hicnEnd - hicnStart, StandardCharsets.US_ASCII));
+        consent.setPolicyCode(policyCode);
+        consent.setPurposeCode(ConsentEntity.TREATMENT);
+        consent.setLoincCode(ConsentEntity.CATEGORY_LOINC_CODE);
+        consent.setScopeCode(ConsentEntity.SCOPE_CODE);
+        return consent;
+    }
+
+    private static boolean startsWith(byte[] line, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Source code, ignoring surrounding whitespace, must be either 1-800 or 1800
+    private static boolean isSource1800(byte[] line, int start, int end) {
+        while (start < end && isWhitespace(line[start])) {
+            start++;
+        }
+        while (end > start && isWhitespace(line[end - 1])) {
+            end--;
+        }
+        final int length = end - start;
+        if (length == 5) {
+            return line[start] == '1' && line[start + 1] == '-' && line[start + 2] == '8' && line[start + 3] == '0' && line[start + 4] == '0';
+        }
+        return length == 4 && line[start] == '1' && line[start + 1] == '8' && line[start + 2] == '0' && line[start + 3] == '0';
+    }
+
+    private static boolean isBlank(byte[] line, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isWhitespace(line[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int parseDigits(byte[] line, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            final int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new DateTimeException("Expected a digit at position " + (i - start));
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Validate the HICN field, which starts at the first non-whitespace character, ignoring trailing whitespace
+     *
+     * @return - the end of the HICN, or -1 if it's invalid
+     */
+    private static int validHicnEnd(byte[] line, int start, int end) {
+        while (end > start && isWhitespace(line[end - 1])) {
+            end--;
+        }
+        final int length = end - start;
+        if (length < HICN_DIGITS || length > HICN_DIGITS + HICN_MAX_SUFFIX) {
+            return -1;
+        }
+        for (int i = start; i < start + HICN_DIGITS; i++) {
+            if (line[i] < '0' || line[i] > '9') {
+                return -1;
+            }
+        }
+        for (int i = start + HICN_DIGITS; i < end; i++) {
+            final byte b = line[i];
+            if (!((b >= '0' && b <= '9') || (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z'))) {
+                return -1;
+            }
+        }
+        return end;
+    }
 
-        return Optional.ofNullable(consent);
+    private static boolean isWhitespace(byte b) {
+        return b <= ' ';
     }
 }
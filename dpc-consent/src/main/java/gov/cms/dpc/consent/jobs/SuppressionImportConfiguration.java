@@ -0,0 +1,38 @@
+package gov.cms.dpc.consent.jobs;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * Settings for the {@link SuppressionFileImport} job.
+ * Files are parsed in parallel, one file per thread, and records are inserted in batches, each batch being committed on its own.
+ */
+public class SuppressionImportConfiguration {
+
+    @Min(1)
+    private int threads = 4;
+
+    @Min(1)
+    @Max(10_000)
+    private int batchSize = 1_000;
+
+    public SuppressionImportConfiguration() {
+        // Jackson required
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
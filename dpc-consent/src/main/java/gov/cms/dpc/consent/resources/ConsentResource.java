@@ -18,18 +18,25 @@ import org.eclipse.jetty.http.HttpStatus;
 import org.hl7.fhir.dstu3.model.Bundle;
 import org.hl7.fhir.dstu3.model.Consent;
 import org.hl7.fhir.dstu3.model.Identifier;
+import org.hl7.fhir.dstu3.model.Parameters;
 
 import javax.inject.Inject;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import javax.ws.rs.core.UriInfo;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Path("v1/Consent")
 public class ConsentResource {
 
+    static final String COUNT_PARAM = "_count";
+    static final String CURSOR_PARAM = "_cursor";
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_STATUS_PATIENTS = 10_000;
+
     private final ConsentDAO dao;
     private final String fhirReferenceURL;
     private final String consentOrganizationURL;
@@ -48,14 +55,20 @@ public class ConsentResource {
     @ExceptionMetered
     @UnitOfWork
     @ApiOperation(value = "Search for Consent Entries", notes = "Search for Consent records. " +
-            "<p>Must provide ONE OF Consent ID as an _id or identifier, or a patient MBI or HICN to search for.", response = Bundle.class)
+            "<p>Must provide ONE OF Consent ID as an _id or identifier, or a patient MBI, HICN or beneficiary ID to search for." +
+            "<p>A patient's Consent records are returned from the most recently effective, a page at a time. " +
+            "When there are more records, the Bundle has a `next` link to the following page.", response = Bundle.class)
     @ApiResponses(@ApiResponse(code = 400, message = "Must provide Consent or Patient id"))
-    public List<Consent> search(
+    public Bundle search(
             @ApiParam(value = "Consent resource _id") @QueryParam(Consent.SP_RES_ID) Optional<UUID> id,
             @ApiParam(value = "Consent resource identifier") @QueryParam(Consent.SP_IDENTIFIER) Optional<UUID> identifier,
-            @ApiParam(value = "Patient Identifier") @QueryParam(Consent.SP_PATIENT) Optional<String> patientId) {
+            @ApiParam(value = "Patient Identifier") @QueryParam(Consent.SP_PATIENT) Optional<String> patientId,
+            @ApiParam(value = "Maximum number of Consent records to return", defaultValue = "" + DEFAULT_PAGE_SIZE) @QueryParam(COUNT_PARAM) Optional<Integer> count,
+            @ApiParam(value = "Return the Consent records after this one, as given by the `next` link", hidden = true) @QueryParam(CURSOR_PARAM) Optional<UUID> cursor,
+            @Context UriInfo uriInfo) {
 
         final List<ConsentEntity> entities;
+        boolean hasMore = false;
 
         // Priority order for processing params. If multiple params are passed, we only pay attention to one
         if (id.isPresent()) {
@@ -70,22 +83,90 @@ public class ConsentResource {
 
         } else if (patientId.isPresent()) {
 
+            final int pageSize = count.orElse(DEFAULT_PAGE_SIZE);
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                throw new WebApplicationException(String.format("%s must be between 1 and %d", COUNT_PARAM, MAX_PAGE_SIZE), Response.Status.BAD_REQUEST);
+            }
             final Identifier patientIdentifier = FHIRExtractors.parseIDFromQueryParam(patientId.get());
-            entities = getEntitiesByPatient(patientIdentifier);
+            final String field = patientField(patientIdentifier);
+            // Fetch one extra record, to determine if there's another page
+            final List<ConsentEntity> page = this.dao.findBy(field, patientIdentifier.getValue(), cursor.orElse(null), pageSize + 1);
+            hasMore = page.size() > pageSize;
+            if (hasMore) {
+                entities = page.subList(0, pageSize);
+            } else if (page.isEmpty() && cursor.isEmpty()) {
+                entities = List.of(defaultConsentEntity(field, patientIdentifier.getValue()));
+            } else {
+                entities = page;
+            }
 
         } else {
 
             throw new WebApplicationException("Must have some form of Consent Resource ID or Patient ID", Response.Status.BAD_REQUEST);
         }
 
-        if (entities.isEmpty()) {
+        if (entities.isEmpty() && cursor.isEmpty()) {
             throw new WebApplicationException("Cannot find patient with given ID", Response.Status.NOT_FOUND);
         }
 
-        return entities
+        final Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.SEARCHSET);
+        entities.forEach(e -> bundle.addEntry().setResource(ConsentEntityConverter.convert(e, consentOrganizationURL, fhirReferenceURL)));
+        if (hasMore) {
+            final UUID lastID = entities.get(entities.size() - 1).getId();
+            bundle.addLink()
+                    .setRelation(Bundle.LINK_NEXT)
+                    .setUrl(uriInfo.getRequestUriBuilder().replaceQueryParam(CURSOR_PARAM, lastID).build().toString());
+        } else if (cursor.isEmpty()) {
+            // The total is only known without having to count the records, when they all fit on the first page
+            bundle.setTotal(entities.size());
+        }
+        return bundle;
+    }
+
+    @POST
+    @Path("/$status")
+    @FHIR
+    @Timed
+    @ExceptionMetered
+    @UnitOfWork
+    @ApiOperation(value = "Get the Consent status of multiple patients", notes = "FHIR operation for determining the current Consent status of a list of patients, " +
+            "given as `patient` Identifier parameters (MBI, HICN or beneficiary ID)." +
+            "<p>Returns the most recently effective Consent record for each patient, in the order they were given. " +
+            "Patients without any effective records are returned with the default (opt-in) Consent.", response = Bundle.class)
+    @ApiResponses(@ApiResponse(code = 400, message = "Must provide between 1 and " + MAX_STATUS_PATIENTS + " patients"))
+    public Bundle patientStatus(Parameters params) {
+        final List<Identifier> patients = params.getParameter()
                 .stream()
-                .map(e -> ConsentEntityConverter.convert(e, consentOrganizationURL, fhirReferenceURL))
+                .filter(param -> Consent.SP_PATIENT.equals(param.getName()))
+                .map(param -> {
+                    if (!(param.getValue() instanceof Identifier)) {
+                        throw new WebApplicationException("Patient parameters must be Identifiers", Response.Status.BAD_REQUEST);
+                    }
+                    return (Identifier) param.getValue();
+                })
                 .collect(Collectors.toList());
+        if (patients.isEmpty() || patients.size() > MAX_STATUS_PATIENTS) {
+            throw new WebApplicationException(String.format("Must provide between 1 and %d patients", MAX_STATUS_PATIENTS), Response.Status.BAD_REQUEST);
+        }
+
+        // One query for each kind of patient identifier
+        final Map<String, Set<String>> valuesByField = new LinkedHashMap<>();
+        patients.forEach(patient -> valuesByField.computeIfAbsent(patientField(patient), field -> new LinkedHashSet<>()).add(patient.getValue()));
+        final Map<String, Map<String, ConsentEntity>> currentByField = new HashMap<>();
+        valuesByField.forEach((field, values) -> currentByField.put(field, this.dao.findCurrentBy(field, values)));
+
+        final Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.COLLECTION);
+        patients.forEach(patient -> {
+            final String field = patientField(patient);
+            final ConsentEntity entity = currentByField.get(field).get(patient.getValue());
+            bundle.addEntry().setResource(ConsentEntityConverter.convert(entity == null ? defaultConsentEntity(field, patient.getValue()) : entity,
+                    consentOrganizationURL,
+                    fhirReferenceURL));
+        });
+        bundle.setTotal(patients.size());
+        return bundle;
     }
 
     @GET
@@ -105,32 +186,29 @@ public class ConsentResource {
         return ConsentEntityConverter.convert(consentEntity, consentOrganizationURL, fhirReferenceURL);
     }
 
-    private List<ConsentEntity> getEntitiesByPatient(Identifier patientIdentifier) {
-        List<ConsentEntity> entities;
-        Optional<String> hicnValue = Optional.empty();
-        Optional<String> mbiValue = Optional.empty();
-        String field;
-
-        // we have been asked to search for a patient id defined by one among two (soon three!) coding systems
-        // we need to determine which database field that system's value is stored in
+    /**
+     * Determine the database field for the patient identifier, which may use one of several coding systems
+     */
+    private static String patientField(Identifier patientIdentifier) {
         switch (DPCIdentifierSystem.fromString(patientIdentifier.getSystem())) {
             case MBI:
-                mbiValue = Optional.of(patientIdentifier.getValue());
-                field = "mbi";
-                break;
+                return "mbi";
             case HICN:
-                hicnValue = Optional.of(patientIdentifier.getValue());
-                field = "hicn";
-                break;
+                return "hicn";
+            case BENE_ID:
+                return "bfdPatientId";
             default:
                 throw new WebApplicationException("Unknown Patient ID code system", Response.Status.BAD_REQUEST);
         }
+    }
 
-        entities = this.dao.findBy(field, patientIdentifier.getValue());
-
-        if (entities.isEmpty()) {
-            entities = List.of(ConsentEntity.defaultConsentEntity(Optional.empty(), hicnValue, mbiValue));
+    private static ConsentEntity defaultConsentEntity(String field, String value) {
+        final ConsentEntity entity = ConsentEntity.defaultConsentEntity(Optional.empty(),
+                "hicn".equals(field) ? Optional.of(value) : Optional.empty(),
+                "mbi".equals(field) ? Optional.of(value) : Optional.empty());
+        if ("bfdPatientId".equals(field)) {
+            entity.setBfdPatientId(value);
         }
-        return entities;
+        return entity;
     }
 }
@@ -0,0 +1,139 @@
+package gov.cms.dpc.consent.jobs;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Provides;
+import gov.cms.dpc.common.consent.entities.ConsentEntity;
+import gov.cms.dpc.testing.BufferedLoggerHandler;
+import io.dropwizard.testing.junit5.DAOTestExtension;
+import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.knowm.sundial.SundialJobScheduler;
+import org.knowm.sundial.exceptions.JobInterruptException;
+import org.mockito.Mockito;
+
+import javax.servlet.ServletContext;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the {@link SuppressionFileImport} job directly, against an in-memory database, to check how the records are committed and counted.
+ */
+@ExtendWith(DropwizardExtensionsSupport.class)
+@ExtendWith(BufferedLoggerHandler.class)
+class SuppressionFileImportBatchTest {
+
+    private static final Path VALID_FILES = Paths.get("./src/test/resources/synthetic-1800-files/valid");
+    // Has 7 records, the second of which is invalid and the fifth of which has no effective date, so is skipped
+    private static final Path INVALID_RECORD_FILE = Paths.get("./src/test/resources/synthetic-1800-files/invalid/T#EFT.ON.ACO.NGD1800.DPRF.D191029.T1135521");
+
+    private final DAOTestExtension database = DAOTestExtension.newBuilder().addEntityClass(ConsentEntity.class).build();
+
+    @TempDir
+    Path suppressionDir;
+
+    private SuppressionImportConfiguration config;
+    private MetricRegistry metrics;
+    private ServletContext previousContext;
+
+    @BeforeEach
+    void setup() {
+        config = new SuppressionImportConfiguration();
+        metrics = new MetricRegistry();
+
+        // The job pulls its dependencies from the injector in the scheduler's servlet context
+        final ServletContext context = Mockito.mock(ServletContext.class);
+        Mockito.when(context.getAttribute("com.google.inject.Injector")).thenReturn(Guice.createInjector(new AbstractModule() {
+            @Provides
+            String provideSuppressionFileDir() {
+                return suppressionDir.toString();
+            }
+
+            @Provides
+            SessionFactory provideSessionFactory() {
+                return database.getSessionFactory();
+            }
+
+            @Provides
+            SuppressionImportConfiguration provideImportConfiguration() {
+                return config;
+            }
+
+            @Provides
+            MetricRegistry provideMetricRegistry() {
+                return metrics;
+            }
+        }));
+        previousContext = SundialJobScheduler.getServletContext();
+        SundialJobScheduler.setServletContext(context);
+    }
+
+    @AfterEach
+    void shutdown() {
+        SundialJobScheduler.setServletContext(previousContext);
+    }
+
+    @Test
+    void testFailedBatchKeepsCommittedBatches() throws IOException, JobInterruptException {
+        config.setBatchSize(2);
+        Files.copy(INVALID_RECORD_FILE, suppressionDir.resolve(INVALID_RECORD_FILE.getFileName()));
+        // Fails the second batch of records (1000001115 and 1000001117)
+        database.inTransaction(() -> database.getSessionFactory().getCurrentSession()
+                .createNativeQuery("ALTER TABLE consent ADD CONSTRAINT reject_test_hicn CHECK (hicn <> '1000001117')")
+                .executeUpdate());
+
+        new SuppressionFileImport().doRun();
+
+        final List<String> hicns = listHICNs();
+        assertAll(() -> assertEquals(3, hicns.size(), "Should have committed the other batches"),
+                () -> assertTrue(hicns.containsAll(List.of("1000001112", "1000001114")), "Should have batch before failure"),
+                () -> assertTrue(hicns.contains("1000001118"), "Should have batch after failure"),
+                () -> assertFalse(hicns.contains("1000001115"), "Should have rolled back failed batch"),
+                () -> assertFalse(hicns.contains("1000001117"), "Should have rolled back failed batch"));
+
+        assertAll(() -> assertEquals(3, meterCount("recordsImported"), "Should count imported records"),
+                // The invalid record, plus the failed batch
+                () -> assertEquals(3, meterCount("recordsFailed"), "Should count failed records"),
+                () -> assertFalse(Files.exists(suppressionDir.resolve(INVALID_RECORD_FILE.getFileName())), "Should remove file"));
+    }
+
+    @Test
+    void testMetersCountAllFiles() throws IOException, JobInterruptException {
+        // Multiple files, with multiple batches each, and a partial last batch
+        config.setBatchSize(10);
+        config.setThreads(2);
+        try (final var files = Files.list(VALID_FILES)) {
+            for (final Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, suppressionDir.resolve(file.getFileName()));
+            }
+        }
+
+        new SuppressionFileImport().doRun();
+
+        assertAll(() -> assertEquals(39, listHICNs().size(), "Should import every record"),
+                () -> assertEquals(39, meterCount("recordsImported"), "Should count imported records"),
+                () -> assertEquals(0, meterCount("recordsFailed"), "Should not have failed records"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> listHICNs() {
+        return database.inTransaction(() -> (List<String>) database.getSessionFactory().getCurrentSession()
+                .createNativeQuery("SELECT hicn FROM consent")
+                .getResultList());
+    }
+
+    private long meterCount(String name) {
+        return metrics.meter(MetricRegistry.name(SuppressionFileImport.class, name + "Meter")).getCount();
+    }
+}
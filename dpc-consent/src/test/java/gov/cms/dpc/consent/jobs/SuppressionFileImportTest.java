@@ -90,7 +90,7 @@ public class SuppressionFileImportTest {
         ManagedSessionContext.bind(session);
 
         List<ConsentEntity> consents = database.inTransaction(() -> {
-            return consentDAO.list();
+            return consentDAO.list(null, 1000);
         });
 
         assertEquals(39, consents.size());
@@ -119,7 +119,7 @@ public class SuppressionFileImportTest {
         ManagedSessionContext.bind(session);
 
         List<ConsentEntity> consents = database.inTransaction(() -> {
-            return consentDAO.list();
+            return consentDAO.list(null, 1000);
         });
 
         List<String> hicns = consents.stream().map(c -> c.getHicn()).collect(Collectors.toList());
@@ -4,10 +4,17 @@ import gov.cms.dpc.common.consent.entities.ConsentEntity;
 import gov.cms.dpc.consent.exceptions.InvalidSuppressionRecordException;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Date;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -47,4 +54,55 @@ public class SuppressionFileUtilsTest {
         Optional<ConsentEntity> result = SuppressionFileUtils.entityFromLine("TRL_BENEDATASHR20191011        10", "", 0);
         assertTrue(result.isEmpty());
     }
+
+    @Test
+    public void testForEachRecord() throws IOException {
+        final List<ConsentEntity> consents = new ArrayList<>();
+        final List<InvalidSuppressionRecordException> errors = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(Paths.get("./src/test/resources/synthetic-1800-files/valid"))) {
+            for (final Path path : paths.collect(Collectors.toList())) {
+                SuppressionFileUtils.forEachRecord(path, (consent, lineNum) -> consents.add(consent), errors::add);
+            }
+        }
+        assertEquals(39, consents.size());
+        assertTrue(errors.isEmpty());
+
+        final ConsentEntity consent = consents.stream().filter(c -> "1000009420".equals(c.getHicn())).findFirst().orElseThrow();
+        assertEquals(LocalDate.parse("2019-10-29"), consent.getEffectiveDate());
+        assertEquals("OPTIN", consent.getPolicyCode());
+    }
+
+    @Test
+    public void testForEachRecord_InvalidRecords() throws IOException {
+        final List<String> hicns = new ArrayList<>();
+        final List<InvalidSuppressionRecordException> errors = new ArrayList<>();
+        final int lines = SuppressionFileUtils.forEachRecord(Paths.get("./src/test/resources/synthetic-1800-files/invalid/T#EFT.ON.ACO.NGD1800.DPRF.D191029.T1135521"),
+                (consent, lineNum) -> hicns.add(consent.getHicn()), errors::add);
+
+        assertTrue(lines > hicns.size());
+        assertEquals(1, errors.size());
+        assertTrue(hicns.contains("1000001112"));
+        assertFalse(hicns.contains("1000001113"));
+        assertTrue(hicns.contains("1000001114"));
+    }
+
+    @Test
+    public void testForEachRecord_LineEndings() throws IOException {
+        final String record = "1000087481 1847800005John                          Mitchell                      Doe                                     198203218702 E Fake St.                                        Apt. 63L                                               Region                                                 Las Vegas                               NV423139954M20190618201907011-800TY201907011-800TNT9992WeCare Medical                                                        ";
+        final Path path = Files.createTempFile("suppression", ".txt");
+        try {
+            // Windows line endings, and no newline at the end of the file
+            Files.writeString(path, "HDR_BENEDATASHR20191011\r\n" + record + "\r\n" + record.replace("TY2019", "TN2019") + "\r\n" + "TRL_BENEDATASHR20191011        10");
+            final List<ConsentEntity> consents = new ArrayList<>();
+            assertEquals(4, SuppressionFileUtils.forEachRecord(path, (consent, lineNum) -> consents.add(consent), e -> fail(e.getMessage())));
+            assertEquals(List.of("OPTIN", "OPTOUT"), consents.stream().map(ConsentEntity::getPolicyCode).collect(Collectors.toList()));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testEntityFromLine_ShortRecord() {
+        assertThrows(InvalidSuppressionRecordException.class, () -> SuppressionFileUtils.entityFromLine("1000087481 1847800005John", "", 0));
+    }
 }
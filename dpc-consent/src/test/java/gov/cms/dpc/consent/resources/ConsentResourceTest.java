@@ -11,12 +11,13 @@ import gov.cms.dpc.fhir.DPCIdentifierSystem;
 import gov.cms.dpc.fhir.converters.entities.ConsentEntityConverter;
 import org.hl7.fhir.dstu3.model.Bundle;
 import org.hl7.fhir.dstu3.model.Consent;
+import org.hl7.fhir.dstu3.model.Identifier;
+import org.hl7.fhir.dstu3.model.Parameters;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Tests ConsentResource using a live database. These tests will fail if the database is not running or
@@ -131,4 +132,60 @@ class ConsentResourceTest extends AbstractConsentTest {
         assertEquals(ConsentEntityConverter.OPT_IN_MAGIC, found.getPolicyRule());
         assertEquals(TEST_CONSENT_REF, found.getId());
     }
+
+    @Test
+    final void searchConsentResource_pages_patientResults() {
+
+        final IGenericClient client = createFHIRClient(ctx, getServerURL());
+        final String patientValue = String.format("%s|%s", DPCIdentifierSystem.MBI.getSystem(), "mbi_1");
+
+        final Bundle sut = client
+                .search()
+                .forResource(Consent.class)
+                .where(new StringClientParam("patient").matches().value(patientValue))
+                .count(1)
+                .encodedJson()
+                .returnBundle(Bundle.class)
+                .execute();
+
+        assertAll(() -> assertEquals(1, sut.getEntry().size(), "Should have a single record"),
+                () -> assertNull(sut.getLink(Bundle.LINK_NEXT), "Should not have another page"),
+                () -> assertEquals(1, sut.getTotal(), "Should have total for a single page"));
+
+        @SuppressWarnings("rawtypes") final IQuery invalid = client
+                .search()
+                .forResource(Consent.class)
+                .where(new StringClientParam("patient").matches().value(patientValue))
+                .count(0)
+                .encodedJson();
+
+        assertThrows(InvalidRequestException.class, invalid::execute, "should fail with invalid page size");
+    }
+
+    @Test
+    final void consentStatus_returns_eachPatient() {
+
+        final IGenericClient client = createFHIRClient(ctx, getServerURL());
+        final Parameters parameters = new Parameters();
+        parameters.addParameter().setName("patient").setValue(new Identifier().setSystem(DPCIdentifierSystem.MBI.getSystem()).setValue("mbi_1"));
+        parameters.addParameter().setName("patient").setValue(new Identifier().setSystem(DPCIdentifierSystem.HICN.getSystem()).setValue("hicn_10"));
+        parameters.addParameter().setName("patient").setValue(new Identifier().setSystem(DPCIdentifierSystem.MBI.getSystem()).setValue("not_a_patient"));
+
+        final Bundle sut = client
+                .operation()
+                .onType(Consent.class)
+                .named("$status")
+                .withParameters(parameters)
+                .returnResourceType(Bundle.class)
+                .encodedJson()
+                .execute();
+
+        assertEquals(3, sut.getEntry().size(), "Should have a record for each patient");
+        final Consent first = (Consent) sut.getEntry().get(0).getResource();
+        final Consent second = (Consent) sut.getEntry().get(1).getResource();
+        final Consent unknown = (Consent) sut.getEntry().get(2).getResource();
+        assertAll(() -> assertEquals(TEST_CONSENT_REF, first.getId(), "Should be in request order"),
+                () -> assertEquals("Consent/3d2bf79e-e6cd-4fae-87a3-676b5162f8ff", second.getId(), "Should find by HICN"),
+                () -> assertEquals(ConsentEntityConverter.OPT_IN_MAGIC, unknown.getPolicyRule(), "Should default to opt-in"));
+    }
 }
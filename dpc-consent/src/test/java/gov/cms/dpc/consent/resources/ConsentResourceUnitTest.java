@@ -21,6 +21,9 @@ import java.util.UUID;
 
 import static gov.cms.dpc.fhir.FHIRMediaTypes.FHIR_JSON;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -59,8 +62,8 @@ public class ConsentResourceUnitTest {
         List<ConsentEntity> goodRecordList = List.of(goodRecord);
         when(mockedDAO.getConsent(null)).thenThrow(new IllegalArgumentException("empty"));
         when(mockedDAO.getConsent(TEST_ID)).thenReturn(Optional.of(goodRecord));
-        when(mockedDAO.findBy("mbi", TEST_MBI)).thenReturn(goodRecordList);
-        when(mockedDAO.findBy("hicn", TEST_HICN)).thenReturn(goodRecordList);
+        when(mockedDAO.findBy(eq("mbi"), eq(TEST_MBI), any(), anyInt())).thenReturn(goodRecordList);
+        when(mockedDAO.findBy(eq("hicn"), eq(TEST_HICN), any(), anyInt())).thenReturn(goodRecordList);
     }
 
     @Test
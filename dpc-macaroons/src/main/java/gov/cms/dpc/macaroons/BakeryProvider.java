@@ -1,5 +1,6 @@
 package gov.cms.dpc.macaroons;
 
+import com.codahale.metrics.MetricRegistry;
 import gov.cms.dpc.macaroons.annotations.PublicURL;
 import gov.cms.dpc.macaroons.caveats.ExpirationCaveatVerifier;
 import gov.cms.dpc.macaroons.caveats.VersionCaveatVerifier;
@@ -23,14 +24,16 @@ public class BakeryProvider implements Provider<MacaroonBakery> {
     private final IThirdPartyKeyStore thirdPartyKeyStore;
     private final String publicURL;
     private final BakeryKeyPair keyPair;
+    private final MetricRegistry metrics;
 
     @Inject
-    public BakeryProvider(TokenPolicy tokenPolicy, IRootKeyStore store, IThirdPartyKeyStore thirdPartyKeyStore, @PublicURL String publicURI, BakeryKeyPair keyPair) {
+    public BakeryProvider(TokenPolicy tokenPolicy, IRootKeyStore store, IThirdPartyKeyStore thirdPartyKeyStore, @PublicURL String publicURI, BakeryKeyPair keyPair, MetricRegistry metrics) {
         this.tokenPolicy = tokenPolicy;
         this.store = store;
         this.thirdPartyKeyStore = thirdPartyKeyStore;
         this.publicURL = publicURI;
         this.keyPair = keyPair;
+        this.metrics = metrics;
     }
 
     @Override
@@ -39,6 +42,7 @@ public class BakeryProvider implements Provider<MacaroonBakery> {
                 .withKeyPair(keyPair)
                 .addDefaultVerifier(new VersionCaveatVerifier(tokenPolicy))
                 .addDefaultVerifier(new ExpirationCaveatVerifier(tokenPolicy))
+                .withVerificationCache(tokenPolicy.getVerificationCachePolicy(), metrics)
                 .build();
     }
 }
@@ -1,9 +1,13 @@
 package gov.cms.dpc.macaroons;
 
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.xsalsa20poly1305.SecretBox;
 import com.github.nitram509.jmacaroons.*;
+import com.google.common.hash.HashCode;
+import gov.cms.dpc.macaroons.config.TokenPolicy;
 import gov.cms.dpc.macaroons.exceptions.BakeryException;
 import gov.cms.dpc.macaroons.helpers.ByteBufferBackedInputStream;
+import gov.cms.dpc.macaroons.helpers.MacaroonBinaryV2;
 import gov.cms.dpc.macaroons.helpers.VarInt;
 import gov.cms.dpc.macaroons.store.IDKeyPair;
 import gov.cms.dpc.macaroons.store.IRootKeyStore;
@@ -17,6 +21,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -32,6 +37,7 @@ public class MacaroonBakery {
     private static final Charset CAVEAT_CHARSET = StandardCharsets.UTF_8;
     private static final Base64.Encoder encoder = Base64.getUrlEncoder();
     private static final Base64.Decoder decoder = Base64.getUrlDecoder();
+    private static final Base64.Encoder binaryEncoder = Base64.getUrlEncoder().withoutPadding();
 
     private final String location;
     private final IRootKeyStore store;
@@ -39,6 +45,7 @@ public class MacaroonBakery {
     private final List<CaveatWrapper> defaultVerifiers;
     private final List<CaveatSupplier> defaultSuppliers;
     private final IThirdPartyKeyStore thirdPartyKeyStore;
+    private final VerificationCache verificationCache;
 
     MacaroonBakery(String location,
                    IRootKeyStore store,
@@ -46,6 +53,16 @@ public class MacaroonBakery {
                    BakeryKeyPair keyPair,
                    List<CaveatVerifier> defaultVerifiers,
                    List<CaveatSupplier> defaultSuppliers) {
+        this(location, store, thirdPartyKeyStore, keyPair, defaultVerifiers, defaultSuppliers, null);
+    }
+
+    MacaroonBakery(String location,
+                   IRootKeyStore store,
+                   IThirdPartyKeyStore thirdPartyKeyStore,
+                   BakeryKeyPair keyPair,
+                   List<CaveatVerifier> defaultVerifiers,
+                   List<CaveatSupplier> defaultSuppliers,
+                   VerificationCache verificationCache) {
         this.location = location;
         this.store = store;
         this.defaultVerifiers = defaultVerifiers
@@ -55,6 +72,7 @@ public class MacaroonBakery {
         this.defaultSuppliers = defaultSuppliers;
         this.thirdPartyKeyStore = thirdPartyKeyStore;
         this.keyPair = keyPair;
+        this.verificationCache = verificationCache;
 
         // Add the current location and the custom `local` location to the TP key store
         final byte[] keyBytes = this.keyPair.getPublicKey();
@@ -141,37 +159,39 @@ public class MacaroonBakery {
 
     /**
      * Verify a {@link Macaroon} using only the default verifiers
+     * If the verification cache is enabled, a successful verification is cached until the earliest expiration caveat
      *
      * @param macaroons - {@link List} of {@link Macaroon} to verify along with any discharges
      * @throws BakeryException if verification fails
      */
     public void verifyMacaroon(List<Macaroon> macaroons) {
-        verifyMacaroonImpl(macaroons, Collections.emptyList());
+        verifyMacaroon(macaroons, new String[0]);
     }
 
     /**
      * Verify the {@link Macaroon}s using both the default verifiers, as well as the ones provided in this method.
      * The provided {@link String} variables will be directly matched against the {@link MacaroonCaveat} string representation
+     * If the verification cache is enabled, a successful verification is cached until the earliest expiration caveat
      *
      * @param macaroons      - {@link List} of {@link Macaroon} to verify, along with any discharges
      * @param exactVerifiers - {@link String} values to be directly matched against {@link MacaroonCaveat} values
      */
     public void verifyMacaroon(List<Macaroon> macaroons, String... exactVerifiers) {
-        // Convert the String checks into a caveat wrapper by generating a lambda which handles teh actual checking
-        final List<CaveatWrapper> verifiers = Arrays.stream(exactVerifiers)
-                .map(ev -> new CaveatWrapper((caveat) -> {
-                    if (caveat.toString().equals(ev)) {
-                        return Optional.empty();
-                    }
-                    return Optional.of("Caveat is not satisfied");
-                }))
-                .collect(Collectors.toList());
-
-        verifyMacaroonImpl(macaroons, verifiers);
+        if (this.verificationCache == null) {
+            verifyExactMacaroon(macaroons, exactVerifiers);
+            return;
+        }
+        final HashCode key = this.verificationCache.key(macaroons, exactVerifiers);
+        if (this.verificationCache.isVerified(key)) {
+            return;
+        }
+        verifyExactMacaroon(macaroons, exactVerifiers);
+        this.verificationCache.verified(key, macaroons);
     }
 
     /**
      * Verify the {@link Macaroon} using both the default verifiers, as well as the ones provided in this method.
+     * These verifications are never cached, as the {@link CaveatVerifier}s may depend on more than the caveat values.
      *
      * @param macaroons       - {@link List} of {@link Macaroon} to verify, along with any discharges
      * @param caveatVerifiers - {@link CaveatVerifier} which will be executed against the {@link MacaroonCaveat}
@@ -183,6 +203,20 @@ public class MacaroonBakery {
         verifyMacaroonImpl(macaroons, verifiers);
     }
 
+    private void verifyExactMacaroon(List<Macaroon> macaroons, String... exactVerifiers) {
+        // Convert the String checks into a caveat wrapper by generating a lambda which handles teh actual checking
+        final List<CaveatWrapper> verifiers = Arrays.stream(exactVerifiers)
+                .map(ev -> new CaveatWrapper((caveat) -> {
+                    if (caveat.toString().equals(ev)) {
+                        return Optional.empty();
+                    }
+                    return Optional.of("Caveat is not satisfied");
+                }))
+                .collect(Collectors.toList());
+
+        verifyMacaroonImpl(macaroons, verifiers);
+    }
+
     /**
      * Convert the {@link Macaroon} to the underlying byte format.
      * Optionally, the Macaroon can be base64 (URL-safe) encoded before returning.
@@ -212,9 +246,34 @@ public class MacaroonBakery {
         return serializedBytes;
     }
 
+    /**
+     * Convert the {@link Macaroon} to the V2 binary format, base64 (URL-safe, without padding) encoded.
+     * This is more compact than the JSON format, and cheaper to deserialize.
+     *
+     * @param macaroon - {@link Macaroon} to serialize
+     * @return - Macaroon byte array
+     * @see MacaroonBinaryV2
+     */
+    public byte[] serializeMacaroonBinary(Macaroon macaroon) {
+        return serializeMacaroonBinary(Collections.singletonList(macaroon));
+    }
+
+    /**
+     * Convert the {@link List} of {@link Macaroon} to the V2 binary format, base64 (URL-safe, without padding) encoded.
+     * This is more compact than the JSON format, and cheaper to deserialize.
+     *
+     * @param macaroons - {@link List} of {@link Macaroon} to serialize
+     * @return - Macaroon byte array
+     * @see MacaroonBinaryV2
+     */
+    public byte[] serializeMacaroonBinary(List<Macaroon> macaroons) {
+        return binaryEncoder.encode(MacaroonBinaryV2.serialize(macaroons));
+    }
+
     /**
      * Deserialize a {@link List} of {@link Macaroon} from provided {@link String} value.
-     * This {@link String} can be either base64 (URL-safe) encoded or a direct representation (e.g. a JSON string)
+     * This {@link String} can be either base64 (URL-safe) encoded or a direct representation (e.g. a JSON string).
+     * Base64 encoded values can be in either the JSON or V2 binary format.
      *
      * @param serializedString - {@link String} to deserialize from
      * @return - {@link List} of {@link Macaroon} deserialized from {@link String}
@@ -223,6 +282,14 @@ public class MacaroonBakery {
         if (serializedString.isEmpty()) {
             throw new BakeryException("Cannot deserialize empty string");
         }
+        // The V2 binary format starts with the version byte, which is encoded as 'A'
+        if (serializedString.charAt(0) == 'A') {
+            try {
+                return MacaroonBinaryV2.deserialize(decoder.decode(serializedString.getBytes(CAVEAT_CHARSET)));
+            } catch (Exception e) {
+                throw new BakeryException("Cannot deserialize Macaroon", e);
+            }
+        }
         // Determine if we're Base64 encoded or not
         byte[] decodedString;
         // For a JSON macaroon, either '{' or '[' will be the starting value, for V1 binary it's 'T', so we check for the base64 encoded value
@@ -529,6 +596,8 @@ public class MacaroonBakery {
         private final List<CaveatVerifier> caveatVerifiers;
         private final List<CaveatSupplier> caveatSuppliers;
         private BakeryKeyPair keyPair;
+        private TokenPolicy.VerificationCachePolicy cachePolicy;
+        private MetricRegistry metrics;
 
         /**
          * Default parameters for {@link MacaroonBakery}
@@ -574,6 +643,20 @@ public class MacaroonBakery {
             return this;
         }
 
+        /**
+         * Cache successful verifications, according to the given policy.
+         * The hit rate of the cache is reported to the {@link MetricRegistry}
+         *
+         * @param cachePolicy - {@link TokenPolicy.VerificationCachePolicy} to apply, the cache is not used unless it's enabled
+         * @param metrics     - {@link MetricRegistry} to report cache metrics to
+         * @return - {@link MacaroonBakeryBuilder}
+         */
+        MacaroonBakeryBuilder withVerificationCache(TokenPolicy.VerificationCachePolicy cachePolicy, MetricRegistry metrics) {
+            this.cachePolicy = cachePolicy;
+            this.metrics = metrics;
+            return this;
+        }
+
         /**
          * Build the {@link MacaroonBakery}
          *
@@ -588,7 +671,17 @@ public class MacaroonBakery {
                     this.thirdPartyKeyStore,
                     keys,
                     this.caveatVerifiers,
-                    this.caveatSuppliers);
+                    this.caveatSuppliers,
+                    buildVerificationCache());
+        }
+
+        private VerificationCache buildVerificationCache() {
+            if (this.cachePolicy == null || !this.cachePolicy.isEnabled()) {
+                return null;
+            }
+            return new VerificationCache(this.cachePolicy.getMaximumSize(),
+                    Duration.of(this.cachePolicy.getMaximumAge(), this.cachePolicy.getMaximumAgeUnit()),
+                    this.metrics);
         }
 
         private BakeryKeyPair getKeyPair() {
@@ -0,0 +1,136 @@
+package gov.cms.dpc.macaroons;
+
+import com.codahale.metrics.CachedGauge;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.nitram509.jmacaroons.Macaroon;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import gov.cms.dpc.macaroons.caveats.ExpirationCaveatSupplier;
+import gov.cms.dpc.macaroons.helpers.MacaroonBinaryV2;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of {@link Macaroon}s which have been successfully verified by the {@link MacaroonBakery}, so that the HMAC chain and caveat verifiers don't have to be re-run on every request.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the serialized macaroons (including their signatures) and the additional verifiers they were checked against.
+ * Each entry expires at the earliest expiration caveat of the macaroons, or after the maximum age, whichever comes first.
+ * Failed verifications are never cached.
+ */
+class VerificationCache {
+
+    static final String HIT_RATE_METRIC = "verificationCacheHitRate";
+
+    private final Cache<HashCode, Instant> cache;
+    private final Duration maximumAge;
+
+    VerificationCache(long maximumSize, Duration maximumAge, MetricRegistry metrics) {
+        this.maximumAge = maximumAge;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new VerificationExpiry())
+                .recordStats()
+                .build();
+
+        final String metricName = MetricRegistry.name(MacaroonBakery.class, HIT_RATE_METRIC);
+        metrics.remove(metricName);
+        metrics.register(metricName, new CachedGauge<Double>(1, TimeUnit.SECONDS) {
+            @Override
+            protected Double loadValue() {
+                return cache.stats().hitRate();
+            }
+        });
+    }
+
+    /**
+     * Compute the cache key for verifying the {@link Macaroon}s against the given verifiers
+     *
+     * @param macaroons - {@link List} of {@link Macaroon} being verified
+     * @param verifiers - {@link String} exact caveat values being verified, in addition to the defaults
+     * @return - {@link HashCode} cache key
+     */
+    HashCode key(List<Macaroon> macaroons, String... verifiers) {
+        final Hasher hasher = Hashing.sha256().newHasher()
+                .putBytes(MacaroonBinaryV2.serialize(macaroons));
+        for (final String verifier : verifiers) {
+            // Prefix each verifier with its length, so the boundaries between them are unambiguous
+            hasher.putInt(verifier.length())
+                    .putString(verifier, StandardCharsets.UTF_8);
+        }
+        return hasher.hash();
+    }
+
+    boolean isVerified(HashCode key) {
+        final Instant expires = this.cache.getIfPresent(key);
+        return expires != null && Instant.now().isBefore(expires);
+    }
+
+    void verified(HashCode key, List<Macaroon> macaroons) {
+        final Instant now = Instant.now();
+        final Instant expires = expiresAt(macaroons, now, this.maximumAge);
+        if (expires.isAfter(now)) {
+            this.cache.put(key, expires);
+        }
+    }
+
+    /**
+     * Determine when a verification of the {@link Macaroon}s expires
+     *
+     * @param macaroons  - {@link List} of {@link Macaroon} which were verified
+     * @param now        - {@link Instant} of the verification
+     * @param maximumAge - {@link Duration} maximum time to cache the verification for
+     * @return - {@link Instant} of the earliest expiration caveat, or the maximum age, whichever is first
+     */
+    static Instant expiresAt(List<Macaroon> macaroons, Instant now, Duration maximumAge) {
+        Instant expires = now.plus(maximumAge);
+        for (final Macaroon macaroon : macaroons) {
+            for (final MacaroonCaveat caveat : MacaroonBakery.getCaveats(macaroon)) {
+                if (caveat.isThirdParty()) {
+                    continue;
+                }
+                final MacaroonCondition condition = caveat.getCondition();
+                if (!condition.getKey().equals(ExpirationCaveatSupplier.EXPIRATION_KEY)) {
+                    continue;
+                }
+                try {
+                    final Instant caveatExpiration = OffsetDateTime.parse(condition.getValue()).toInstant();
+                    if (caveatExpiration.isBefore(expires)) {
+                        expires = caveatExpiration;
+                    }
+                } catch (DateTimeParseException e) {
+                    // Shouldn't have passed verification, but don't cache it
+                    return now;
+                }
+            }
+        }
+        return expires;
+    }
+
+    private static class VerificationExpiry implements Expiry<HashCode, Instant> {
+
+        @Override
+        public long expireAfterCreate(HashCode key, Instant expires, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), expires).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(HashCode key, Instant expires, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, expires, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(HashCode key, Instant expires, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package gov.cms.dpc.macaroons.config;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.time.temporal.ChronoUnit;
 
@@ -14,6 +15,10 @@ public class TokenPolicy {
     @Valid
     private ExpirationPolicy expirationPolicy = new ExpirationPolicy();
 
+    @NotNull
+    @Valid
+    private VerificationCachePolicy verificationCachePolicy = new VerificationCachePolicy();
+
     public TokenPolicy() {
         // JacksonRequired
     }
@@ -34,6 +39,14 @@ public class TokenPolicy {
         this.expirationPolicy = expirationPolicy;
     }
 
+    public VerificationCachePolicy getVerificationCachePolicy() {
+        return verificationCachePolicy;
+    }
+
+    public void setVerificationCachePolicy(VerificationCachePolicy verificationCachePolicy) {
+        this.verificationCachePolicy = verificationCachePolicy;
+    }
+
     public static class VersionPolicy {
 
         @NotNull
@@ -93,4 +106,63 @@ public class TokenPolicy {
             this.expirationUnit = ChronoUnit.valueOf(expirationUnit);
         }
     }
+
+    /**
+     * Bounds for the cache of successfully verified macaroons.
+     * Entries never outlive the earliest expiration caveat of the macaroons, the maximum age limits how long any changes to the verifiers take to apply.
+     */
+    public static class VerificationCachePolicy {
+
+        private boolean enabled = false;
+
+        @Min(1)
+        private long maximumSize = 10_000;
+
+        @NotNull
+        @Min(1)
+        private Integer maximumAge = 5;
+
+        @NotNull
+        private ChronoUnit maximumAgeUnit = ChronoUnit.MINUTES;
+
+        public VerificationCachePolicy() {
+            // Jackson required
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Integer getMaximumAge() {
+            return maximumAge;
+        }
+
+        public void setMaximumAge(Integer maximumAge) {
+            this.maximumAge = maximumAge;
+        }
+
+        public ChronoUnit getMaximumAgeUnit() {
+            return maximumAgeUnit;
+        }
+
+        public void setMaximumAgeUnit(ChronoUnit maximumAgeUnit) {
+            this.maximumAgeUnit = maximumAgeUnit;
+        }
+
+        public void setMaximumAgeUnit(String maximumAgeUnit) {
+            this.maximumAgeUnit = ChronoUnit.valueOf(maximumAgeUnit);
+        }
+    }
 }
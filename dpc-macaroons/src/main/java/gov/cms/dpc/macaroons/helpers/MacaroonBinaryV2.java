@@ -0,0 +1,252 @@
+package gov.cms.dpc.macaroons.helpers;
+
+import com.github.nitram509.jmacaroons.CaveatPacket;
+import com.github.nitram509.jmacaroons.Macaroon;
+import com.github.nitram509.jmacaroons.MacaroonsConstants;
+import com.github.nitram509.jmacaroons.util.BinHex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serializer for the libmacaroons V2 binary format, which jmacaroons doesn't support.
+ * <p>
+ * A macaroon is encoded as a version byte (2), followed by a series of fields, each of which is a type, a varint length and the raw value:
+ * <pre>
+ * version
+ * [location] identifier EOS
+ * ([location] identifier [vid] EOS)*   (one for each caveat)
+ * EOS
+ * signature
+ * </pre>
+ * Multiple macaroons (e.g. a root macaroon and its discharges) are simply concatenated, in the same way as the Go macaroon library.
+ * Unlike the JSON format, values are not escaped or base64 encoded, which makes the encoding smaller and much cheaper to parse.
+ */
+public final class MacaroonBinaryV2 {
+
+    public static final byte VERSION = 2;
+
+    private static final int FIELD_EOS = 0;
+    private static final int FIELD_LOCATION = 1;
+    private static final int FIELD_IDENTIFIER = 2;
+    private static final int FIELD_VID = 4;
+    private static final int FIELD_SIGNATURE = 6;
+
+    // jmacaroons doesn't expose a way to create a Macaroon from its parts, so we have to use the package-private constructors
+    private static final MethodHandle MACAROON_CONSTRUCTOR;
+    private static final MethodHandle PACKET_CONSTRUCTOR;
+
+    static {
+        try {
+            final Constructor<Macaroon> macaroonConstructor = Macaroon.class.getDeclaredConstructor(String.class, String.class, byte[].class, CaveatPacket[].class);
+            macaroonConstructor.setAccessible(true);
+            MACAROON_CONSTRUCTOR = MethodHandles.lookup().unreflectConstructor(macaroonConstructor);
+
+            final Constructor<CaveatPacket> packetConstructor = CaveatPacket.class.getDeclaredConstructor(CaveatPacket.Type.class, byte[].class);
+            packetConstructor.setAccessible(true);
+            PACKET_CONSTRUCTOR = MethodHandles.lookup().unreflectConstructor(packetConstructor);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private MacaroonBinaryV2() {
+        // Not used
+    }
+
+    /**
+     * Serialize the {@link Macaroon}s into the V2 binary format
+     *
+     * @param macaroons - {@link List} of {@link Macaroon} to serialize
+     * @return - {@link Byte} array of concatenated binary macaroons
+     */
+    public static byte[] serialize(List<Macaroon> macaroons) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * macaroons.size());
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (final Macaroon macaroon : macaroons) {
+                writeMacaroon(macaroon, out);
+            }
+        } catch (IOException e) {
+            // Cannot happen when writing to a byte array
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserialize the {@link Macaroon}s from the V2 binary format
+     *
+     * @param serialized - {@link Byte} array of concatenated binary macaroons
+     * @return - {@link List} of {@link Macaroon}
+     * @throws IllegalArgumentException - if the bytes are not valid V2 binary macaroons
+     */
+    public static List<Macaroon> deserialize(byte[] serialized) {
+        final ByteBuffer buffer = ByteBuffer.wrap(serialized);
+        final List<Macaroon> macaroons = new ArrayList<>(2);
+        try {
+            while (buffer.hasRemaining()) {
+                macaroons.add(readMacaroon(buffer));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated macaroon", e);
+        }
+        if (macaroons.isEmpty()) {
+            throw new IllegalArgumentException("No macaroons to deserialize");
+        }
+        return macaroons;
+    }
+
+    private static void writeMacaroon(Macaroon macaroon, DataOutputStream out) throws IOException {
+        out.writeByte(VERSION);
+        writeLocation(macaroon.location, out);
+        writeField(FIELD_IDENTIFIER, macaroon.identifier.getBytes(MacaroonsConstants.IDENTIFIER_CHARSET), out);
+        out.writeByte(FIELD_EOS);
+
+        // jmacaroons stores each caveat as a cid packet, followed by its vid and cl packets (if any), but the binary format has the location first
+        byte[] cid = null;
+        byte[] vid = null;
+        String location = null;
+        for (final CaveatPacket packet : macaroon.caveatPackets) {
+            if (packet.getType() == CaveatPacket.Type.cid) {
+                if (cid != null) {
+                    writeCaveat(cid, vid, location, out);
+                }
+                cid = packet.getRawValue();
+                vid = null;
+                location = null;
+            } else if (packet.getType() == CaveatPacket.Type.vid) {
+                vid = packet.getRawValue();
+            } else if (packet.getType() == CaveatPacket.Type.cl) {
+                location = packet.getValueAsText();
+            }
+        }
+        if (cid != null) {
+            writeCaveat(cid, vid, location, out);
+        }
+        out.writeByte(FIELD_EOS);
+
+        writeField(FIELD_SIGNATURE, BinHex.hex2bin(macaroon.signature), out);
+    }
+
+    private static void writeCaveat(byte[] cid, byte[] vid, String location, DataOutputStream out) throws IOException {
+        writeLocation(location, out);
+        writeField(FIELD_IDENTIFIER, cid, out);
+        if (vid != null) {
+            writeField(FIELD_VID, vid, out);
+        }
+        out.writeByte(FIELD_EOS);
+    }
+
+    private static void writeLocation(String location, DataOutputStream out) throws IOException {
+        // Empty locations are omitted
+        if (location != null && !location.isEmpty()) {
+            writeField(FIELD_LOCATION, location.getBytes(StandardCharsets.UTF_8), out);
+        }
+    }
+
+    private static void writeField(int type, byte[] value, DataOutputStream out) throws IOException {
+        out.writeByte(type);
+        VarInt.writeUnsignedVarInt(value.length, out);
+        out.write(value);
+    }
+
+    private static Macaroon readMacaroon(ByteBuffer buffer) {
+        if (buffer.get() != VERSION) {
+            throw new IllegalArgumentException("Unsupported macaroon version");
+        }
+        int type = readType(buffer);
+        String location = "";
+        if (type == FIELD_LOCATION) {
+            location = new String(readValue(buffer), StandardCharsets.UTF_8);
+            type = readType(buffer);
+        }
+        expect(FIELD_IDENTIFIER, type);
+        final String identifier = new String(readValue(buffer), MacaroonsConstants.IDENTIFIER_CHARSET);
+        expect(FIELD_EOS, readType(buffer));
+
+        final List<CaveatPacket> packets = new ArrayList<>();
+        for (type = readType(buffer); type != FIELD_EOS; type = readType(buffer)) {
+            byte[] caveatLocation = null;
+            if (type == FIELD_LOCATION) {
+                caveatLocation = readValue(buffer);
+                type = readType(buffer);
+            }
+            expect(FIELD_IDENTIFIER, type);
+            packets.add(packet(CaveatPacket.Type.cid, readValue(buffer)));
+            type = readType(buffer);
+            if (type == FIELD_VID) {
+                packets.add(packet(CaveatPacket.Type.vid, readValue(buffer)));
+                type = readType(buffer);
+            }
+            expect(FIELD_EOS, type);
+            if (caveatLocation != null) {
+                packets.add(packet(CaveatPacket.Type.cl, caveatLocation));
+            }
+        }
+
+        expect(FIELD_SIGNATURE, readType(buffer));
+        final byte[] signature = readValue(buffer);
+        if (signature.length != MacaroonsConstants.MACAROON_HASH_BYTES) {
+            throw new IllegalArgumentException("Invalid macaroon signature");
+        }
+        try {
+            return (Macaroon) MACAROON_CONSTRUCTOR.invokeExact(location, identifier, signature, packets.toArray(new CaveatPacket[0]));
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create macaroon", e);
+        }
+    }
+
+    private static CaveatPacket packet(CaveatPacket.Type type, byte[] value) {
+        try {
+            return (CaveatPacket) PACKET_CONSTRUCTOR.invokeExact(type, value);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create caveat packet", e);
+        }
+    }
+
+    private static void expect(int expected, int actual) {
+        if (expected != actual) {
+            throw new IllegalArgumentException(String.format("Unexpected field in macaroon. Expected %d, got %d", expected, actual));
+        }
+    }
+
+    private static int readType(ByteBuffer buffer) {
+        return buffer.get() & 0xFF;
+    }
+
+    private static byte[] readValue(ByteBuffer buffer) {
+        final int length = readLength(buffer);
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("Macaroon field is longer than the remaining data");
+        }
+        final byte[] value = new byte[length];
+        buffer.get(value);
+        return value;
+    }
+
+    private static int readLength(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = buffer.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid macaroon field length");
+    }
+}
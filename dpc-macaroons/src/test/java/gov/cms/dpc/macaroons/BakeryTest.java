@@ -77,6 +77,41 @@ class BakeryTest {
         bakery.verifyMacaroon(macaroons, "account = 3735928559");
     }
 
+    @Test
+    void testBinarySerialization() {
+        final Macaroon testMacaroon = bakery
+                .createMacaroon(Collections.singletonList(
+                        new MacaroonCaveat("", new MacaroonCondition("test_id",
+                                MacaroonCondition.Operator.EQ, "1234"))));
+
+        final String binary = new String(bakery.serializeMacaroonBinary(testMacaroon), StandardCharsets.UTF_8);
+        final String json = new String(bakery.serializeMacaroon(testMacaroon, true), StandardCharsets.UTF_8);
+        final List<Macaroon> macaroons = MacaroonBakery.deserializeMacaroon(binary);
+        assertAll(() -> assertEquals(1, macaroons.size(), "Should only have a single macaroon"),
+                () -> assertEquals(testMacaroon, macaroons.get(0), "Macaroons should be equal"),
+                () -> assertTrue(binary.length() < json.length(), "Binary format should be smaller"));
+    }
+
+    @Test
+    void testBinaryThirdPartySerialization() {
+        List<MacaroonCaveat> caveats = new ArrayList<>();
+        caveats.add(new MacaroonCaveat("", new MacaroonCondition("account", MacaroonCondition.Operator.EQ, "3735928559")));
+        caveats.add(new MacaroonCaveat("http://localhost",
+                new MacaroonCondition(
+                        "user", MacaroonCondition.Operator.EQ,
+                        "Alice")));
+        final Macaroon macaroon = bakery
+                .createMacaroon(caveats);
+        final String serialized = new String(bakery.serializeMacaroonBinary(macaroon), StandardCharsets.UTF_8);
+
+        final List<Macaroon> macaroons = MacaroonBakery.deserializeMacaroon(serialized);
+        assertEquals(macaroon, macaroons.get(0), "Macaroons should be equal");
+        assertEquals(MacaroonBakery.getCaveats(macaroon), MacaroonBakery.getCaveats(macaroons.get(0)), "Should have the same caveats");
+
+        // Truncated tokens should be rejected
+        assertThrows(BakeryException.class, () -> MacaroonBakery.deserializeMacaroon(serialized.substring(0, serialized.length() - 10)));
+    }
+
     private static void macaroonSerializationTest(boolean base64) {
         final Macaroon testMacaroon = bakery
                 .createMacaroon(Collections.singletonList(
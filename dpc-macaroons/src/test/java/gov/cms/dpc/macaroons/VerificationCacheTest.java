@@ -0,0 +1,153 @@
+package gov.cms.dpc.macaroons;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.github.nitram509.jmacaroons.Macaroon;
+import com.google.common.hash.HashCode;
+import gov.cms.dpc.macaroons.caveats.ExpirationCaveatSupplier;
+import gov.cms.dpc.macaroons.caveats.ExpirationCaveatVerifier;
+import gov.cms.dpc.macaroons.config.TokenPolicy;
+import gov.cms.dpc.macaroons.exceptions.BakeryException;
+import gov.cms.dpc.macaroons.store.IDKeyPair;
+import gov.cms.dpc.macaroons.store.IRootKeyStore;
+import gov.cms.dpc.macaroons.store.MemoryRootKeyStore;
+import gov.cms.dpc.macaroons.thirdparty.MemoryThirdPartyKeyStore;
+import gov.cms.dpc.testing.BufferedLoggerHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(BufferedLoggerHandler.class)
+class VerificationCacheTest {
+
+    private static final String ORG_CAVEAT = "organization_id = 1234";
+
+    private final AtomicInteger keyLookups = new AtomicInteger();
+    private MetricRegistry metrics;
+    private MacaroonBakery bakery;
+
+    @BeforeEach
+    void setup() {
+        final MemoryRootKeyStore store = new MemoryRootKeyStore(new SecureRandom());
+        // Count the root key lookups, which happen on each full verification
+        final IRootKeyStore countingStore = new IRootKeyStore() {
+            @Override
+            public IDKeyPair create() {
+                return store.create();
+            }
+
+            @Override
+            public String get(String macaroonID) {
+                keyLookups.incrementAndGet();
+                return store.get(macaroonID);
+            }
+
+            @Override
+            public String generateKey() {
+                return store.generateKey();
+            }
+        };
+
+        final TokenPolicy.VerificationCachePolicy cachePolicy = new TokenPolicy.VerificationCachePolicy();
+        cachePolicy.setEnabled(true);
+        metrics = new MetricRegistry();
+        bakery = new MacaroonBakery.MacaroonBakeryBuilder("http://test.local", countingStore, new MemoryThirdPartyKeyStore())
+                .addDefaultVerifier(new ExpirationCaveatVerifier(new TokenPolicy()))
+                .withVerificationCache(cachePolicy, metrics)
+                .build();
+        keyLookups.set(0);
+    }
+
+    @Test
+    void testCachedVerification() {
+        final List<Macaroon> macaroons = Collections.singletonList(createMacaroon(Duration.ofDays(1)));
+
+        bakery.verifyMacaroon(macaroons, ORG_CAVEAT);
+        bakery.verifyMacaroon(macaroons, ORG_CAVEAT);
+        assertEquals(1, keyLookups.get(), "Should have cached verification");
+
+        // Different verifiers must be verified again
+        assertThrows(BakeryException.class, () -> bakery.verifyMacaroon(macaroons, "organization_id = 5678"));
+        assertThrows(BakeryException.class, () -> bakery.verifyMacaroon(macaroons, "organization_id = 5678"));
+        assertEquals(3, keyLookups.get(), "Should not cache failed verifications");
+
+        // As must modified macaroons
+        final Macaroon modified = bakery.addCaveats(macaroons.get(0), new MacaroonCaveat(new MacaroonCondition("test_id", MacaroonCondition.Operator.EQ, "1")));
+        assertThrows(BakeryException.class, () -> bakery.verifyMacaroon(Collections.singletonList(modified), ORG_CAVEAT));
+        assertEquals(4, keyLookups.get(), "Should verify modified macaroon");
+
+        @SuppressWarnings("unchecked") final Gauge<Double> hitRate = metrics.getGauges().get(MetricRegistry.name(MacaroonBakery.class, VerificationCache.HIT_RATE_METRIC));
+        assertEquals(0.2, hitRate.getValue(), 0.001, "Should report hit rate");
+    }
+
+    @Test
+    void testDisabledCache() {
+        final MetricRegistry uncachedMetrics = new MetricRegistry();
+        final MacaroonBakery uncached = new MacaroonBakery.MacaroonBakeryBuilder("http://test.local", new MemoryRootKeyStore(new SecureRandom()), new MemoryThirdPartyKeyStore())
+                .withVerificationCache(new TokenPolicy.VerificationCachePolicy(), uncachedMetrics)
+                .build();
+
+        final Macaroon macaroon = uncached.createMacaroon(Collections.singletonList(new MacaroonCaveat(new MacaroonCondition("organization_id", MacaroonCondition.Operator.EQ, "1234"))));
+        uncached.verifyMacaroon(Collections.singletonList(macaroon), ORG_CAVEAT);
+        assertTrue(uncachedMetrics.getGauges().isEmpty(), "Should not have cache metrics when disabled");
+    }
+
+    @Test
+    void testExpirationBound() {
+        final Instant now = Instant.now();
+        final Duration maximumAge = Duration.ofMinutes(5);
+
+        final Macaroon longLived = createMacaroon(Duration.ofDays(1));
+        final Macaroon shortLived = createMacaroon(Duration.ofMinutes(1));
+        final Instant shortExpiration = extractExpiration(shortLived);
+
+        assertEquals(now.plus(maximumAge), VerificationCache.expiresAt(List.of(longLived), now, maximumAge), "Should be bounded by maximum age");
+        assertEquals(shortExpiration, VerificationCache.expiresAt(List.of(shortLived), now, maximumAge), "Should be bounded by expiration");
+        assertEquals(shortExpiration, VerificationCache.expiresAt(List.of(longLived, shortLived), now, maximumAge), "Should use earliest expiration");
+
+        final Macaroon noExpiration = bakery.createMacaroon(Collections.singletonList(new MacaroonCaveat(new MacaroonCondition("organization_id", MacaroonCondition.Operator.EQ, "1234"))));
+        assertEquals(now.plus(maximumAge), VerificationCache.expiresAt(List.of(noExpiration), now, maximumAge), "Should use maximum age without expiration");
+    }
+
+    @Test
+    void testExpiredVerification() {
+        final List<Macaroon> macaroons = Collections.singletonList(createMacaroon(Duration.ofDays(1)));
+        final VerificationCache cache = new VerificationCache(100, Duration.ofMinutes(5), metrics);
+
+        final HashCode key = cache.key(macaroons, ORG_CAVEAT);
+        cache.verified(key, macaroons);
+        assertTrue(cache.isVerified(key), "Should be verified");
+        assertFalse(cache.isVerified(cache.key(macaroons)), "Should not be verified with other verifiers");
+
+        // Verifications which have already expired are not cached
+        final VerificationCache expired = new VerificationCache(100, Duration.ZERO, metrics);
+        expired.verified(key, macaroons);
+        assertFalse(expired.isVerified(key), "Should not cache expired verification");
+    }
+
+    private Macaroon createMacaroon(Duration lifetime) {
+        return bakery.createMacaroon(List.of(
+                new MacaroonCaveat(new MacaroonCondition("organization_id", MacaroonCondition.Operator.EQ, "1234")),
+                new ExpirationCaveatSupplier(lifetime).get()));
+    }
+
+    private static Instant extractExpiration(Macaroon macaroon) {
+        return MacaroonBakery.getCaveats(macaroon)
+                .stream()
+                .map(MacaroonCaveat::getCondition)
+                .filter(condition -> condition.getKey().equals(ExpirationCaveatSupplier.EXPIRATION_KEY))
+                .map(condition -> OffsetDateTime.parse(condition.getValue()).toInstant())
+                .findFirst()
+                .orElseThrow();
+    }
+}
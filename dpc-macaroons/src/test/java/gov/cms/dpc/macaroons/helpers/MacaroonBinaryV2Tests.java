@@ -0,0 +1,83 @@
+package gov.cms.dpc.macaroons.helpers;
+
+import com.github.nitram509.jmacaroons.Macaroon;
+import com.github.nitram509.jmacaroons.MacaroonsBuilder;
+import com.github.nitram509.jmacaroons.util.BinHex;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MacaroonBinaryV2Tests {
+
+    @Test
+    void testFieldLayout() {
+        final Macaroon macaroon = new MacaroonsBuilder("http://test.local", "this is a secret key", "test-id")
+                .add_first_party_caveat("account = 1")
+                .getMacaroon();
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(2);
+        expected.writeBytes(field(1, "http://test.local".getBytes(StandardCharsets.UTF_8)));
+        expected.writeBytes(field(2, "test-id".getBytes(StandardCharsets.UTF_8)));
+        expected.write(0);
+        expected.writeBytes(field(2, "account = 1".getBytes(StandardCharsets.UTF_8)));
+        expected.write(0);
+        expected.write(0);
+        expected.writeBytes(field(6, BinHex.hex2bin(macaroon.signature)));
+
+        final byte[] serialized = MacaroonBinaryV2.serialize(Collections.singletonList(macaroon));
+        assertArrayEquals(expected.toByteArray(), serialized, "Should match libmacaroons V2 layout");
+        assertEquals(List.of(macaroon), MacaroonBinaryV2.deserialize(serialized), "Should deserialize to the same macaroon");
+    }
+
+    @Test
+    void testThirdPartyCaveats() {
+        final Macaroon macaroon = new MacaroonsBuilder("http://test.local", "this is a secret key", "test-id")
+                .add_first_party_caveat("account = 1")
+                .add_third_party_caveat("http://third.party", "this is the caveat key", "third-party-id")
+                .add_first_party_caveat("user = 2")
+                .getMacaroon();
+
+        final List<Macaroon> macaroons = MacaroonBinaryV2.deserialize(MacaroonBinaryV2.serialize(Collections.singletonList(macaroon)));
+        assertEquals(List.of(macaroon), macaroons, "Should preserve the caveat locations and verification IDs");
+    }
+
+    @Test
+    void testMultipleMacaroons() {
+        final Macaroon m1 = MacaroonsBuilder.create("http://test.local", "secret key one", "id-1");
+        final Macaroon m2 = MacaroonsBuilder.create("", "secret key two", "id-2");
+
+        final List<Macaroon> macaroons = MacaroonBinaryV2.deserialize(MacaroonBinaryV2.serialize(List.of(m1, m2)));
+        assertEquals(List.of(m1, m2), macaroons, "Should have both macaroons");
+    }
+
+    @Test
+    void testInvalidMacaroons() {
+        final byte[] serialized = MacaroonBinaryV2.serialize(Collections.singletonList(MacaroonsBuilder.create("http://test.local", "secret key", "id")));
+
+        assertThrows(IllegalArgumentException.class, () -> MacaroonBinaryV2.deserialize(new byte[0]), "Should not accept empty input");
+        assertThrows(IllegalArgumentException.class, () -> MacaroonBinaryV2.deserialize(Arrays.copyOf(serialized, serialized.length - 1)), "Should not accept truncated input");
+
+        final byte[] wrongVersion = serialized.clone();
+        wrongVersion[0] = 1;
+        assertThrows(IllegalArgumentException.class, () -> MacaroonBinaryV2.deserialize(wrongVersion), "Should not accept other versions");
+
+        final byte[] wrongField = serialized.clone();
+        wrongField[1] = 4;
+        assertThrows(IllegalArgumentException.class, () -> MacaroonBinaryV2.deserialize(wrongField), "Should not accept unexpected fields");
+    }
+
+    private static byte[] field(int type, byte[] value) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(type);
+        out.writeBytes(VarInt.writeUnsignedVarInt(value.length));
+        out.writeBytes(value);
+        return out.toByteArray();
+    }
+}